@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002 - 2012 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.rhino.callgraph.fieldbased.test;
+
+import com.ibm.wala.cast.ipa.callgraph.CAstAnalysisScope;
+import com.ibm.wala.cast.ir.ssa.AstIRFactory;
+import com.ibm.wala.cast.ir.translator.TranslatorToCAst.Error;
+import com.ibm.wala.cast.js.callgraph.fieldbased.FieldBasedCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.IncrementalCallgraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.WorklistBasedOptimisticCallgraphBuilder;
+import com.ibm.wala.cast.js.ipa.callgraph.JSAnalysisOptions;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraph;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil;
+import com.ibm.wala.cast.js.loader.JavaScriptLoader;
+import com.ibm.wala.cast.js.loader.JavaScriptLoaderFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.js.util.CallGraph2JSON;
+import com.ibm.wala.cast.js.util.FieldBasedCGUtil.BuilderType;
+import com.ibm.wala.cast.types.AstMethodReference;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.NullProgressMonitor;
+import com.ibm.wala.util.WalaException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIncrementalFieldBasedCG extends AbstractFieldBasedTest {
+  private static final Object[][] assertionsForSimpleJS =
+      new Object[][] {
+        new Object[] {ROOT, new String[] {"suffix:simple.js"}},
+        new Object[] {"suffix:simple.js", new String[] {"suffix:foo", "suffix:bar", "suffix:A"}},
+        new Object[] {"suffix:foo", new String[] {"suffix:bar"}},
+        new Object[] {"suffix:aluis", new String[] {"suffix:aluis"}}
+      };
+
+  @Test
+  public void testSimpleJSIncremental() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/simple.js", assertionsForSimpleJS, BuilderType.INCREMENTAL);
+  }
+
+  private static final Object[][] assertionsForCallbacks =
+      new Object[][] {
+        new Object[] {ROOT, new String[] {"suffix:callbacks.js"}},
+        new Object[] {"suffix:callbacks.js", new String[] {"suffix:f"}},
+        new Object[] {"suffix:f", new String[] {"suffix:k", "suffix:n"}},
+        new Object[] {"suffix:k", new String[] {"suffix:l", "suffix:p"}}
+      };
+
+  @Test
+  public void testCallbacksIncremental() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/callbacks.js", assertionsForCallbacks, BuilderType.INCREMENTAL);
+  }
+
+  private IClassHierarchy makeHierarchy(String... scripts) throws WalaException {
+    JavaScriptLoaderFactory loaders =
+        new JavaScriptLoaderFactory(new CAstRhinoTranslatorFactory());
+    Module[] modules = new Module[scripts.length + 1];
+    for (int i = 0; i < scripts.length; i++) {
+      modules[i] =
+          new SourceURLModule(
+              getClass().getClassLoader().getResource("tests/fieldbased/" + scripts[i]));
+    }
+    modules[scripts.length] = JSCallGraphUtil.getPrologueFile("prologue.js");
+    CAstAnalysisScope scope =
+        new CAstAnalysisScope(modules, loaders, Collections.singleton(JavaScriptLoader.JS));
+    return ClassHierarchyFactory.make(scope, loaders, JavaScriptLoader.JS);
+  }
+
+  private static IncrementalCallgraphBuilder makeBuilder(
+      IClassHierarchy cha, Iterable<Entrypoint> roots) {
+    return new IncrementalCallgraphBuilder(
+        cha,
+        JSCallGraphUtil.makeOptions(cha.getScope(), cha, roots),
+        new AnalysisCacheImpl(AstIRFactory.makeDefaultFactory()),
+        false);
+  }
+
+  private static List<IMethod> getFunctions(IClassHierarchy cha, String script) {
+    List<IMethod> functions = new ArrayList<>();
+    for (IClass klass : cha) {
+      if (klass.getName().toString().contains(script)) {
+        for (IMethod fn : klass.getDeclaredMethods()) {
+          if (fn.getDescriptor().equals(AstMethodReference.fnDesc)) {
+            functions.add(fn);
+          }
+        }
+      }
+    }
+    Assert.assertFalse(functions.isEmpty());
+    return functions;
+  }
+
+  /** call graph edges, leaving out call sites without targets, e.g. in removed scripts */
+  private static Map<String, Set<String>> getEdges(JSCallGraph cg) {
+    Map<String, Set<String>> edges = CallGraph2JSON.extractEdges(cg);
+    edges.values().removeIf(Set::isEmpty);
+    return edges;
+  }
+
+  /** the call graph of scripts, computed from scratch by the given builder */
+  private Map<String, Set<String>> buildFromScratch(BuilderType builderType, String... scripts)
+      throws WalaException, CancelException {
+    IClassHierarchy cha = makeHierarchy(scripts);
+    Iterable<Entrypoint> roots = JSCallGraphUtil.makeScriptRoots(cha);
+    JSAnalysisOptions options = JSCallGraphUtil.makeOptions(cha.getScope(), cha, roots);
+    AnalysisCacheImpl cache = new AnalysisCacheImpl(AstIRFactory.makeDefaultFactory());
+    FieldBasedCallGraphBuilder builder =
+        builderType == BuilderType.INCREMENTAL
+            ? new IncrementalCallgraphBuilder(cha, options, cache, false)
+            : new WorklistBasedOptimisticCallgraphBuilder(cha, options, cache, false);
+    return getEdges(builder.buildCallGraph(roots, new NullProgressMonitor()).fst);
+  }
+
+  private void assertSameAsFromScratch(JSCallGraph cg, String... scripts)
+      throws WalaException, CancelException {
+    Map<String, Set<String>> edges = getEdges(cg);
+    Assert.assertEquals(buildFromScratch(BuilderType.INCREMENTAL, scripts), edges);
+    Assert.assertEquals(buildFromScratch(BuilderType.OPTIMISTIC_WORKLIST, scripts), edges);
+  }
+
+  /**
+   * replacing the library that defines a function must give the call graph that the incremental
+   * and the worklist-based builder compute from scratch for the edited program
+   */
+  @Test
+  public void testReplaceLibrary() throws WalaException, CancelException {
+    String main = "incremental_main.js", lib1 = "incremental_lib1.js", lib2 = "incremental_lib2.js";
+    IClassHierarchy cha = makeHierarchy(main, lib1, lib2);
+    Iterable<Entrypoint> roots = JSCallGraphUtil.makeScriptRoots(cha);
+    IncrementalCallgraphBuilder builder = makeBuilder(cha, roots);
+    JSCallGraph cg = builder.buildCallGraph(roots, new NullProgressMonitor()).fst;
+    assertSameAsFromScratch(cg, main, lib1, lib2);
+
+    List<IMethod> lib1Functions = getFunctions(cha, lib1);
+    List<IMethod> lib2Functions = getFunctions(cha, lib2);
+    Set<IMethod> none = Collections.emptySet();
+
+    cg = builder.updateCallGraph(lib2Functions, none, roots, new NullProgressMonitor());
+    assertSameAsFromScratch(cg, main, lib1);
+
+    cg = builder.updateCallGraph(lib1Functions, lib2Functions, roots, new NullProgressMonitor());
+    assertSameAsFromScratch(cg, main, lib2);
+
+    cg = builder.updateCallGraph(none, lib1Functions, roots, new NullProgressMonitor());
+    assertSameAsFromScratch(cg, main, lib1, lib2);
+  }
+
+  /** removing and re-adding all functions of a script must give back the same call graph */
+  @Test
+  public void testRemoveAndAddScript() throws WalaException, CancelException {
+    IClassHierarchy cha = makeHierarchy("callbacks.js");
+    Iterable<Entrypoint> roots = JSCallGraphUtil.makeScriptRoots(cha);
+    IncrementalCallgraphBuilder builder = makeBuilder(cha, roots);
+
+    JSCallGraph before = builder.buildCallGraph(roots, new NullProgressMonitor()).fst;
+
+    List<IMethod> functions = getFunctions(cha, "callbacks.js");
+
+    JSCallGraph without =
+        builder.updateCallGraph(
+            functions, Collections.emptySet(), roots, new NullProgressMonitor());
+    for (Set<String> targets : CallGraph2JSON.extractEdges(without).values()) {
+      Assert.assertTrue(targets.isEmpty());
+    }
+
+    JSCallGraph after =
+        builder.updateCallGraph(
+            Collections.emptySet(), functions, roots, new NullProgressMonitor());
+    Map<String, Set<String>> expected = CallGraph2JSON.extractEdges(before);
+    Assert.assertEquals(expected, CallGraph2JSON.extractEdges(after));
+    verifyGraphAssertions(after, assertionsForCallbacks);
+  }
+}
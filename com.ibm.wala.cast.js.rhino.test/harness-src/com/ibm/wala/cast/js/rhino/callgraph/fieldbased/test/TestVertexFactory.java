@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.rhino.callgraph.fieldbased.test;
+
+import com.ibm.wala.cast.ipa.callgraph.CAstAnalysisScope;
+import com.ibm.wala.cast.ir.ssa.AstIRFactory;
+import com.ibm.wala.cast.js.callgraph.fieldbased.PessimisticCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraph;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.ArgVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.CallVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.FuncVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.PropVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.RetVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VarVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.Vertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VertexFactory;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil;
+import com.ibm.wala.cast.js.loader.JavaScriptLoader;
+import com.ibm.wala.cast.js.loader.JavaScriptLoaderFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.NullProgressMonitor;
+import com.ibm.wala.util.collections.HashSetFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the per-kind vertex collections of a {@link VertexFactory} against the vertices it has
+ * numbered.
+ */
+public class TestVertexFactory {
+
+  private static FlowGraph buildFlowGraph(String script)
+      throws ClassHierarchyException, CancelException {
+    JavaScriptLoaderFactory loaders = new JavaScriptLoaderFactory(new CAstRhinoTranslatorFactory());
+    Module[] scripts =
+        new Module[] {
+          new SourceURLModule(TestVertexFactory.class.getClassLoader().getResource(script)),
+          JSCallGraphUtil.getPrologueFile("prologue.js")
+        };
+    CAstAnalysisScope scope =
+        new CAstAnalysisScope(scripts, loaders, Collections.singleton(JavaScriptLoader.JS));
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope, loaders, JavaScriptLoader.JS);
+    Iterable<Entrypoint> roots = JSCallGraphUtil.makeScriptRoots(cha);
+    PessimisticCallGraphBuilder builder =
+        new PessimisticCallGraphBuilder(
+            cha,
+            JSCallGraphUtil.makeOptions(scope, cha, roots),
+            new AnalysisCacheImpl(AstIRFactory.makeDefaultFactory()),
+            false);
+    return builder.buildFlowGraph(new NullProgressMonitor());
+  }
+
+  /** the vertices of the given kind among those numbered by the factory, in order of creation */
+  private static <T extends Vertex> List<T> verticesOfType(VertexFactory factory, Class<T> type) {
+    List<T> result = new ArrayList<>();
+    for (int i = 0; i < factory.getNumberOfVertices(); i++) {
+      Vertex v = factory.getVertex(i);
+      if (type.isInstance(v)) {
+        result.add(type.cast(v));
+      }
+    }
+    return result;
+  }
+
+  private static <T> List<T> toList(Iterable<T> vertices) {
+    List<T> result = new ArrayList<>();
+    vertices.forEach(result::add);
+    return result;
+  }
+
+  private static <T> Set<T> toSet(Iterable<T> vertices) {
+    Set<T> result = HashSetFactory.make();
+    vertices.forEach(result::add);
+    return result;
+  }
+
+  @Test
+  public void testVerticesOfKind() throws ClassHierarchyException, CancelException {
+    VertexFactory factory = buildFlowGraph("tests/fieldbased/simple.js").getVertexFactory();
+
+    List<CallVertex> calls = verticesOfType(factory, CallVertex.class);
+    List<VarVertex> vars = verticesOfType(factory, VarVertex.class);
+    Assert.assertFalse(calls.isEmpty());
+    Assert.assertFalse(vars.isEmpty());
+
+    // kinds kept in creation order
+    Assert.assertEquals(calls, toList(factory.getCallVertices()));
+    Assert.assertEquals(verticesOfType(factory, RetVertex.class), toList(factory.getRetVertices()));
+    Assert.assertEquals(verticesOfType(factory, ArgVertex.class), toList(factory.getArgVertices()));
+    Assert.assertEquals(vars, toList(factory.getVarVertices()));
+
+    // kinds kept in hash maps
+    Assert.assertEquals(
+        toSet(verticesOfType(factory, FuncVertex.class)), toSet(factory.getFuncVertices()));
+    Assert.assertEquals(
+        toSet(verticesOfType(factory, PropVertex.class)), toSet(factory.getPropVertices()));
+
+    // looking up an existing vertex does not add it again
+    int n = factory.getNumberOfVertices();
+    for (VarVertex v : vars) {
+      Assert.assertSame(v, factory.makeVarVertex(v.getFunction(), v.getValueNumber()));
+    }
+    for (CallVertex v : calls) {
+      Assert.assertSame(v, factory.makeCallVertex(v.getCaller(), v.getInstruction()));
+    }
+    for (RetVertex v : factory.getRetVertices()) {
+      Assert.assertSame(v, factory.makeRetVertex(v.getFunc()));
+    }
+    Assert.assertEquals(n, factory.getNumberOfVertices());
+    Assert.assertEquals(vars, toList(factory.getVarVertices()));
+
+    // a new vertex is added to its kind
+    FuncVertex func = calls.get(0).getCaller();
+    int valueNumber = 1000;
+    for (VarVertex v : vars) {
+      Assert.assertTrue(v.getValueNumber() < valueNumber);
+    }
+    VarVertex fresh = factory.makeVarVertex(func, valueNumber);
+    Assert.assertEquals(n, fresh.getNumber());
+    List<VarVertex> after = toList(factory.getVarVertices());
+    Assert.assertEquals(vars.size() + 1, after.size());
+    Assert.assertSame(fresh, after.get(vars.size()));
+    Assert.assertEquals(verticesOfType(factory, VarVertex.class), after);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.test;
+
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.getTranslatorFactory;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.makeHierarchy;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.makeLoaders;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.setTranslatorFactory;
+import static com.ibm.wala.cast.js.util.JSCallGraphBuilderUtil.getURLforFile;
+import static com.ibm.wala.cast.js.util.JSCallGraphBuilderUtil.makeScriptScope;
+
+import com.ibm.wala.cast.ir.translator.CAstTranslationCache;
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.extraction.CorrelatedPairExtractorFactory;
+import com.ibm.wala.cast.js.loader.JavaScriptLoader;
+import com.ibm.wala.cast.js.loader.JavaScriptLoaderFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoLoopUnwindingTranslatorFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriterFactory;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.collections.HashSetFactory;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCAstTranslationCacheRhino {
+
+  private final CAstTranslationCache cache = new CAstTranslationCache();
+
+  @Before
+  public void setUp() {
+    setTranslatorFactory(new CAstRhinoTranslatorFactory());
+    JavaScriptLoader.setTranslationCache(cache);
+  }
+
+  @After
+  public void tearDown() {
+    JavaScriptLoader.setTranslationCache(null);
+  }
+
+  private static Set<String> classNames(String fileName)
+      throws IOException, ClassHierarchyException {
+    return classNames(fileName, null);
+  }
+
+  private static Set<String> classNames(String fileName, CAstRewriterFactory<?, ?> preprocessor)
+      throws IOException, ClassHierarchyException {
+    JavaScriptLoaderFactory loaders = makeLoaders(preprocessor);
+    AnalysisScope scope = makeScriptScope("tests", fileName, loaders);
+    IClassHierarchy cha = makeHierarchy(scope, loaders);
+    Set<String> names = HashSetFactory.make();
+    for (IClass cls : cha) {
+      names.add(cls.getName().toString());
+    }
+    return names;
+  }
+
+  @Test
+  public void testReuseAcrossLoaders() throws IOException, ClassHierarchyException {
+    Set<String> first = classNames("simple.js");
+    long misses = cache.getMisses();
+    Assert.assertTrue(misses > 0);
+    Assert.assertEquals(0, cache.getHits());
+
+    Set<String> second = classNames("simple.js");
+    Assert.assertEquals(misses, cache.getMisses());
+    Assert.assertEquals(misses, cache.getHits());
+    Assert.assertEquals(first, second);
+  }
+
+  @Test
+  public void testUnwindFactorIsPartOfKey() {
+    Assert.assertEquals(
+        new CAstRhinoLoopUnwindingTranslatorFactory(2).getConfiguration(),
+        new CAstRhinoLoopUnwindingTranslatorFactory(2).getConfiguration());
+    Assert.assertNotEquals(
+        new CAstRhinoLoopUnwindingTranslatorFactory(2).getConfiguration(),
+        new CAstRhinoLoopUnwindingTranslatorFactory(3).getConfiguration());
+    Assert.assertNotEquals(
+        new CAstRhinoTranslatorFactory().getConfiguration(),
+        new CAstRhinoLoopUnwindingTranslatorFactory(3).getConfiguration());
+  }
+
+  @Test
+  public void testReuseWithNewExtractorFactory() throws IOException, ClassHierarchyException {
+    URL script = getURLforFile("tests", "simple.js", getClass().getClassLoader());
+    Set<String> first =
+        classNames(
+            "simple.js", new CorrelatedPairExtractorFactory(getTranslatorFactory(), script));
+    long misses = cache.getMisses();
+    Assert.assertTrue(misses > 0);
+
+    Set<String> second =
+        classNames(
+            "simple.js", new CorrelatedPairExtractorFactory(getTranslatorFactory(), script));
+    Assert.assertEquals(misses, cache.getMisses());
+    Assert.assertEquals(first, second);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.test;
+
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationFinder;
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationSummary;
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationSummaryCache;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslator;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.js.translator.JavaScriptTranslatorFactory;
+import com.ibm.wala.cast.tree.CAstSourcePositionMap.Position;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.SourceModule;
+import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.collections.Pair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCorrelationFinderRhino {
+
+  private List<String> correlations(CorrelationFinder finder) throws ClassHierarchyException {
+    SourceModule script =
+        new SourceURLModule(getClass().getClassLoader().getResource("tests/extend.js"));
+    Map<IMethod, CorrelationSummary> summaries =
+        finder.findCorrelatedAccesses(Collections.singleton(script));
+    List<String> result = new ArrayList<>();
+    for (CorrelationSummary summary : summaries.values()) {
+      for (Pair<Position, String> p : summary.pp()) {
+        result.add(p.fst + ": " + p.snd);
+      }
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  @Test
+  public void testParallelMatchesSequential() throws ClassHierarchyException {
+    List<String> sequential =
+        correlations(new CorrelationFinder(new CAstRhinoTranslatorFactory(), 1, null));
+    Assert.assertFalse(sequential.isEmpty());
+    List<String> parallel =
+        correlations(new CorrelationFinder(new CAstRhinoTranslatorFactory(), 4, null));
+    Assert.assertEquals(sequential, parallel);
+  }
+
+  @Test
+  public void testCachedSummaries() throws ClassHierarchyException {
+    CorrelationSummaryCache cache = new CorrelationSummaryCache();
+    List<String> first =
+        correlations(new CorrelationFinder(new CAstRhinoTranslatorFactory(), 2, cache));
+    long misses = cache.getMisses();
+    Assert.assertTrue(misses > 0);
+    Assert.assertEquals(0, cache.getHits());
+
+    List<String> second =
+        correlations(new CorrelationFinder(new CAstRhinoTranslatorFactory(), 2, cache));
+    Assert.assertEquals(misses, cache.getMisses());
+    Assert.assertEquals(misses, cache.getHits());
+    Assert.assertEquals(first, second);
+  }
+
+  @Test
+  public void testTranslatorConfigurationIsPartOfKey() throws ClassHierarchyException {
+    CorrelationSummaryCache cache = new CorrelationSummaryCache();
+    List<String> first =
+        correlations(new CorrelationFinder(new CAstRhinoTranslatorFactory(), 2, cache));
+    long misses = cache.getMisses();
+
+    // a translator configured differently must not get the summaries of the first one
+    JavaScriptTranslatorFactory other =
+        new CAstRhinoTranslatorFactory() {
+          @Override
+          public Object getConfiguration() {
+            return "other";
+          }
+        };
+    Assert.assertEquals(first, correlations(new CorrelationFinder(other, 2, cache)));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2 * misses, cache.getMisses());
+
+    // a translator without a configuration does not use the cache at all
+    JavaScriptTranslatorFactory unknown = (ast, M) -> new CAstRhinoTranslator(M, false);
+    Assert.assertEquals(first, correlations(new CorrelationFinder(unknown, 2, cache)));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2 * misses, cache.getMisses());
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.test;
+
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.getPrologueFile;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.getTranslatorFactory;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.makeHierarchy;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.makeLoaders;
+import static com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.setTranslatorFactory;
+
+import com.ibm.wala.cast.ipa.callgraph.CAstCallGraphUtil;
+import com.ibm.wala.cast.ir.ssa.AstIRFactory;
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.extraction.CorrelatedPairExtractorFactory;
+import com.ibm.wala.cast.js.loader.JavaScriptLoader;
+import com.ibm.wala.cast.js.loader.JavaScriptLoaderFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.js.util.JSCallGraphBuilderUtil;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriterFactory;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.SourceModule;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IRFactory;
+import com.ibm.wala.ssa.SSAOptions;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that translating a bundle of scripts to CAst on several threads gives the same IR as
+ * translating it on one.
+ */
+public class TestParallelTranslationRhino {
+
+  private static final String[] SCRIPTS = {
+    "simple.js", "objects.js", "functions.js", "extend.js", "forin.js", "loops.js", "nested.js",
+    "inherit.js", "lexical-ctor.js", "string-op.js"
+  };
+
+  @Before
+  public void setUp() {
+    setTranslatorFactory(new CAstRhinoTranslatorFactory());
+  }
+
+  @After
+  public void tearDown() {
+    JavaScriptLoader.setTranslationParallelism(1);
+  }
+
+  private static SourceModule[] scripts() throws IOException {
+    SourceModule[] result = new SourceModule[SCRIPTS.length];
+    for (int i = 0; i < SCRIPTS.length; i++) {
+      result[i] =
+          CAstCallGraphUtil.makeSourceModule(
+              JSCallGraphBuilderUtil.getURLforFile(
+                  "tests", SCRIPTS[i], TestParallelTranslationRhino.class.getClassLoader()),
+              "tests",
+              SCRIPTS[i]);
+    }
+    return result;
+  }
+
+  /** @return the IR of every method in the bundle, keyed by method signature */
+  private static Map<String, String> translate(
+      int threads, SourceModule[] scripts, CAstRewriterFactory<?, ?> preprocessor)
+      throws ClassHierarchyException {
+    JavaScriptLoader.setTranslationParallelism(threads);
+    JavaScriptLoaderFactory loaders = makeLoaders(preprocessor);
+    Module[] modules = new Module[scripts.length + 1];
+    System.arraycopy(scripts, 0, modules, 0, scripts.length);
+    modules[scripts.length] = getPrologueFile("prologue.js");
+    AnalysisScope scope = CAstCallGraphUtil.makeScope(modules, loaders, JavaScriptLoader.JS);
+    IClassHierarchy cha = makeHierarchy(scope, loaders);
+
+    IRFactory<IMethod> factory = AstIRFactory.makeDefaultFactory();
+    Map<String, String> result = new TreeMap<>();
+    for (IClass cls : cha) {
+      for (IMethod method : cls.getDeclaredMethods()) {
+        if (!method.isAbstract()) {
+          result.put(
+              method.getSignature(),
+              String.valueOf(
+                  factory.makeIR(method, Everywhere.EVERYWHERE, SSAOptions.defaultOptions())));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testSameIR() throws IOException, ClassHierarchyException {
+    SourceModule[] scripts = scripts();
+    Map<String, String> sequential = translate(1, scripts, null);
+    Assert.assertTrue(sequential.size() > SCRIPTS.length);
+    for (int run = 0; run < 3; run++) {
+      Assert.assertEquals(sequential, translate(4, scripts, null));
+    }
+  }
+
+  @Test
+  public void testSameIRWithCorrelatedPairExtraction()
+      throws IOException, ClassHierarchyException {
+    SourceModule[] scripts = scripts();
+    CorrelatedPairExtractorFactory extractor =
+        new CorrelatedPairExtractorFactory(getTranslatorFactory(), scripts);
+    Map<String, String> sequential = translate(1, scripts, extractor);
+    for (int run = 0; run < 3; run++) {
+      Assert.assertEquals(sequential, translate(4, scripts, extractor));
+    }
+  }
+}
@@ -20,4 +20,9 @@ public class CAstRhinoTranslatorFactory implements JavaScriptTranslatorFactory {
   public TranslatorToCAst make(CAst ast, ModuleEntry M) {
     return new CAstRhinoTranslator(M, false);
   }
+
+  @Override
+  public Object getConfiguration() {
+    return getClass();
+  }
 }
@@ -0,0 +1,4 @@
+function run(f, g) {
+  f(g);
+  return g;
+}
@@ -0,0 +1,6 @@
+function run(f, g) {
+  return function inner() {
+    var x = f.call(null, g);
+    x();
+  };
+}
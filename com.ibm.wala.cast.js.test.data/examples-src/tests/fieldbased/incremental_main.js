@@ -0,0 +1,8 @@
+function cb(h) {
+  return h;
+}
+
+function other() {}
+
+var r = run(cb, other);
+r();
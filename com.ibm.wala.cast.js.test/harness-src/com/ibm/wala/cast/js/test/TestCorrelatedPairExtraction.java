@@ -75,11 +75,11 @@ public abstract class TestCorrelatedPairExtraction {
       String expected = new CAstDumper().dump(parseJS(tmp, ast));
       expected = TestForInBodyExtraction.eraseGeneratedNames(expected);
 
-      FileUtil.writeFile(new File("expected.dump"), expected);
-      FileUtil.writeFile(new File("actual.dump"), actual);
-
       if (ASSERT_EQUALS) {
         Assert.assertEquals(testName, expected, actual);
+      } else {
+        FileUtil.writeFile(new File("expected.dump"), expected);
+        FileUtil.writeFile(new File("actual.dump"), actual);
       }
 
     } catch (IOException | ClassHierarchyException e) {
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2002 - 2012 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.callgraph.fieldbased;
+
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraph;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.ArgVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.CallVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.FuncVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VarVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.Vertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VertexFactory;
+import com.ibm.wala.cast.js.ipa.callgraph.JSAnalysisOptions;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraph;
+import com.ibm.wala.cast.js.ssa.JavaScriptInvoke;
+import com.ibm.wala.cast.js.types.JavaScriptMethods;
+import com.ibm.wala.cast.types.AstMethodReference;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.MapUtil;
+import com.ibm.wala.util.collections.Pair;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimistic call graph builder that keeps its flow graph and the sets of functions reaching each
+ * vertex alive between invocations, so that the call graph can be updated after some functions
+ * have changed without rebuilding everything.
+ *
+ * <p>Every flow edge is attributed to the function body or the call edge that induced it. When
+ * functions are removed, their edges are retracted, the reaching sets of all vertices that may
+ * have depended on them are discarded (together with the call edges they gave rise to), and the
+ * discarded facts are rederived from the unaffected part of the graph. Added functions simply
+ * contribute new edges, whose consequences are propagated with a worklist.
+ *
+ * <p>The call edges computed are those of {@link WorklistBasedOptimisticCallgraphBuilder}, with
+ * the same flow graph and the same handling of {@code Function.prototype.call} when {@link
+ * JSAnalysisOptions#handleCallApply()} is set, except that:
+ *
+ * <ul>
+ *   <li>flow from the arguments of a call into the {@link ArgVertex} of the callee is always
+ *       propagated, whereas {@link WorklistBasedOptimisticCallgraphBuilder} only propagates it if
+ *       the functions reaching an argument change after the call edge was found; the result is
+ *       hence a fixpoint and does not depend on the order in which vertices are processed
+ *   <li>if several invocations of {@code Function.prototype.call} pass the same variable as
+ *       receiver, reflective flow is set up for all of them, not just the last one found
+ * </ul>
+ */
+public class IncrementalCallgraphBuilder extends FieldBasedCallGraphBuilder {
+
+  private final FlowGraphBuilder builder;
+
+  private final boolean handleCallApply;
+
+  // the flow graph, or null if it has not been built yet
+  private FlowGraph flowgraph;
+
+  // number of function bodies and call edges inducing each flow edge
+  private final Map<Pair<Vertex, Vertex>, Integer> edgeCounts = HashMapFactory.make();
+
+  // flow edges induced by each function body
+  private final Map<IMethod, Set<Pair<Vertex, Vertex>>> functionEdges = HashMapFactory.make();
+
+  // flow edges induced by each call edge; the key set is the current set of call edges
+  private final Map<Pair<CallVertex, FuncVertex>, Set<Pair<Vertex, Vertex>>> callEdges =
+      HashMapFactory.make();
+
+  // flow edges induced by each reflective call edge, i.e. by a call to Function.prototype.call
+  // and a function flowing into its receiver, by call vertex and then by that function
+  private final Map<CallVertex, Map<FuncVertex, Set<Pair<Vertex, Vertex>>>> reflectiveCallEdges =
+      HashMapFactory.make();
+
+  // call vertices that invoke Function.prototype.call on each receiver vertex
+  private final Map<Vertex, Set<CallVertex>> reflectiveCalls = HashMapFactory.make();
+
+  // functions that may flow into each vertex
+  private final Map<Vertex, Set<FuncVertex>> reachingFunctions = HashMapFactory.make();
+
+  public IncrementalCallgraphBuilder(
+      IClassHierarchy cha,
+      AnalysisOptions options,
+      IAnalysisCacheView cache,
+      boolean supportFullPointerAnalysis) {
+    super(cha, options, cache, supportFullPointerAnalysis);
+    // as in WorklistBasedOptimisticCallgraphBuilder, the flow graph only models function flow
+    this.builder = new FlowGraphBuilder(cha, cache, false);
+    this.handleCallApply =
+        options instanceof JSAnalysisOptions && ((JSAnalysisOptions) options).handleCallApply();
+  }
+
+  /**
+   * Builds the flow graph for all functions in the class hierarchy on the first call; later calls
+   * return the same, incrementally maintained, flow graph.
+   */
+  @Override
+  public FlowGraph buildFlowGraph(IProgressMonitor monitor) throws CancelException {
+    if (flowgraph == null) {
+      flowgraph = new FlowGraph();
+      Deque<Vertex> worklist = new ArrayDeque<>();
+      addEdges(builder.getPrimitiveEdges(flowgraph), worklist);
+      for (IMethod function : getFunctions(cha)) {
+        addFunction(function, worklist);
+      }
+      propagate(worklist, monitor);
+    }
+    return flowgraph;
+  }
+
+  /**
+   * Updates the flow graph and the call edges after a change to the program. A changed function is
+   * passed both as removed (its old version) and as added (its new version). The class hierarchy
+   * of this builder must already reflect the change, since the flow edges of added functions are
+   * computed from their IR.
+   *
+   * @param removed functions that are no longer part of the program
+   * @param added functions that are new to the program
+   */
+  public void update(
+      Collection<? extends IMethod> removed,
+      Collection<? extends IMethod> added,
+      IProgressMonitor monitor)
+      throws CancelException {
+    if (flowgraph == null) {
+      buildFlowGraph(monitor);
+      return;
+    }
+
+    // retract the edges of removed functions
+    Set<Vertex> dirty = HashSetFactory.make();
+    for (IMethod function : removed) {
+      Set<Pair<Vertex, Vertex>> edges = functionEdges.remove(function);
+      if (edges != null) {
+        retractEdges(edges, dirty);
+      }
+    }
+
+    // discard everything that may depend on the retracted edges, including call edges
+    Set<Vertex> affected = HashSetFactory.make();
+    while (!dirty.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+      Set<Vertex> newlyAffected = forwardClosure(dirty, affected);
+      dirty = HashSetFactory.make();
+      for (Vertex v : newlyAffected) {
+        if (v instanceof CallVertex && reachingFunctions.containsKey(v)) {
+          for (FuncVertex callee : reachingFunctions.get(v)) {
+            Set<Pair<Vertex, Vertex>> edges = callEdges.remove(Pair.make((CallVertex) v, callee));
+            if (edges != null) {
+              retractEdges(edges, dirty);
+            }
+          }
+          // the call to Function.prototype.call, if any, is rederived with the call edges
+          retractReflectiveCallEdges((CallVertex) v, dirty);
+          Set<CallVertex> calls = reflectiveCalls.get(getReflectiveCallee((CallVertex) v));
+          if (calls != null) {
+            calls.remove(v);
+          }
+        }
+        if (reflectiveCalls.containsKey(v)) {
+          // the calls stay, but the functions flowing into their receiver are rederived
+          for (CallVertex c : reflectiveCalls.get(v)) {
+            retractReflectiveCallEdges(c, dirty);
+          }
+        }
+      }
+    }
+    reachingFunctions.keySet().removeAll(affected);
+
+    // rederive facts for the affected vertices from their unaffected predecessors
+    Deque<Vertex> worklist = new ArrayDeque<>(affected);
+    for (Vertex v : affected) {
+      for (Vertex p : Iterator2Iterable.make(flowgraph.getPred(v))) {
+        if (!affected.contains(p)) {
+          worklist.add(p);
+        }
+      }
+    }
+
+    // add the edges of new functions
+    for (IMethod function : added) {
+      addFunction(function, worklist);
+    }
+
+    propagate(worklist, monitor);
+  }
+
+  /**
+   * Convenience method for editor integrations: updates the flow graph as described in {@link
+   * #update(Collection, Collection, IProgressMonitor)} and extracts a fresh call graph from it.
+   */
+  public JSCallGraph updateCallGraph(
+      Collection<? extends IMethod> removed,
+      Collection<? extends IMethod> added,
+      Iterable<? extends Entrypoint> eps,
+      IProgressMonitor monitor)
+      throws CancelException {
+    update(removed, added, monitor);
+    return extract(flowgraph, eps, monitor);
+  }
+
+  @Override
+  public Set<Pair<CallVertex, FuncVertex>> extractCallGraphEdges(
+      FlowGraph flowgraph, IProgressMonitor monitor) throws CancelException {
+    assert flowgraph == this.flowgraph;
+    return HashSetFactory.make(callEdges.keySet());
+  }
+
+  private static List<IMethod> getFunctions(IClassHierarchy cha) {
+    List<IMethod> functions = new ArrayList<>();
+    for (IClass klass : cha) {
+      for (IMethod method : klass.getDeclaredMethods()) {
+        if (method.getDescriptor().equals(AstMethodReference.fnDesc)) {
+          functions.add(method);
+        }
+      }
+    }
+    return functions;
+  }
+
+  private void addFunction(IMethod function, Collection<Vertex> worklist) {
+    Set<Pair<Vertex, Vertex>> edges = builder.getFunctionEdges(flowgraph, function);
+    functionEdges.put(function, edges);
+    addEdges(edges, worklist);
+  }
+
+  // add edges to the flow graph, putting the sources of new edges on the worklist
+  private void addEdges(Set<Pair<Vertex, Vertex>> edges, Collection<Vertex> worklist) {
+    for (Pair<Vertex, Vertex> edge : edges) {
+      Integer count = edgeCounts.get(edge);
+      if (count == null) {
+        edgeCounts.put(edge, 1);
+        flowgraph.addEdge(edge.fst, edge.snd);
+        worklist.add(edge.fst);
+      } else {
+        edgeCounts.put(edge, count + 1);
+      }
+    }
+  }
+
+  // retract edges from the flow graph, collecting the targets of edges that disappear
+  private void retractEdges(Set<Pair<Vertex, Vertex>> edges, Set<Vertex> dirty) {
+    for (Pair<Vertex, Vertex> edge : edges) {
+      Integer count = edgeCounts.get(edge);
+      assert count != null : "edge " + edge + " was never added";
+      if (count == 1) {
+        edgeCounts.remove(edge);
+        flowgraph.removeEdge(edge.fst, edge.snd);
+        dirty.add(edge.snd);
+      } else {
+        edgeCounts.put(edge, count - 1);
+      }
+    }
+  }
+
+  private void retractReflectiveCallEdges(CallVertex c, Set<Vertex> dirty) {
+    Map<FuncVertex, Set<Pair<Vertex, Vertex>>> edges = reflectiveCallEdges.remove(c);
+    if (edges != null) {
+      for (Set<Pair<Vertex, Vertex>> calleeEdges : edges.values()) {
+        retractEdges(calleeEdges, dirty);
+      }
+    }
+  }
+
+  // add all vertices reachable from roots that are not in affected yet to affected, and return
+  // them
+  private Set<Vertex> forwardClosure(Set<Vertex> roots, Set<Vertex> affected) {
+    Set<Vertex> result = HashSetFactory.make();
+    Deque<Vertex> todo = new ArrayDeque<>(roots);
+    while (!todo.isEmpty()) {
+      Vertex v = todo.pop();
+      if (affected.add(v)) {
+        result.add(v);
+        for (Vertex w : Iterator2Iterable.make(flowgraph.getSucc(v))) {
+          todo.push(w);
+        }
+      }
+    }
+    return result;
+  }
+
+  private Set<FuncVertex> getReachingFunctions(Vertex v) {
+    Set<FuncVertex> result = reachingFunctions.get(v);
+    if (result == null) {
+      result = HashSetFactory.make();
+      if (v instanceof FuncVertex) {
+        result.add((FuncVertex) v);
+      }
+      reachingFunctions.put(v, result);
+    }
+    return result;
+  }
+
+  private void propagate(Deque<Vertex> worklist, IProgressMonitor monitor)
+      throws CancelException {
+    Set<Vertex> onWorklist = HashSetFactory.make(worklist);
+    while (!worklist.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+
+      Vertex v = worklist.pop();
+      onWorklist.remove(v);
+
+      Set<FuncVertex> vReach = getReachingFunctions(v);
+      for (Vertex w : Iterator2Iterable.make(flowgraph.getSucc(v))) {
+        Set<FuncVertex> wReach = getReachingFunctions(w);
+        boolean changed = false;
+        if (w instanceof CallVertex) {
+          CallVertex c = (CallVertex) w;
+          for (FuncVertex fv : vReach) {
+            if (wReach.add(fv)) {
+              changed = true;
+              addCallEdge(c, fv, worklist, onWorklist);
+
+              // special handling of invocations of Function.prototype.call
+              if (handleCallApply
+                  && fv.getFullName().equals("Lprologue.js/Function_prototype_call")) {
+                Vertex receiver = getReflectiveCallee(c);
+                MapUtil.findOrCreateSet(reflectiveCalls, receiver).add(c);
+                for (FuncVertex callee : getReachingFunctions(receiver)) {
+                  addReflectiveCallEdge(c, callee, worklist, onWorklist);
+                }
+              }
+            }
+          }
+        } else if (handleCallApply && reflectiveCalls.containsKey(w)) {
+          for (FuncVertex fv : vReach) {
+            if (wReach.add(fv)) {
+              changed = true;
+              for (CallVertex c : reflectiveCalls.get(w)) {
+                addReflectiveCallEdge(c, fv, worklist, onWorklist);
+              }
+            }
+          }
+        } else {
+          changed = wReach.addAll(vReach);
+        }
+        if (changed && onWorklist.add(w)) {
+          worklist.add(w);
+        }
+      }
+    }
+  }
+
+  // add flow corresponding to a new call edge
+  private void addCallEdge(
+      CallVertex c, FuncVertex callee, Deque<Vertex> worklist, Set<Vertex> onWorklist) {
+    VertexFactory factory = flowgraph.getVertexFactory();
+    FuncVertex caller = c.getCaller();
+    JavaScriptInvoke invk = c.getInstruction();
+
+    int offset = 0;
+    if (invk.getDeclaredTarget()
+        .getSelector()
+        .equals(JavaScriptMethods.ctorReference.getSelector())) {
+      offset = 1;
+    }
+
+    Set<Pair<Vertex, Vertex>> edges = HashSetFactory.make();
+    for (int i = 0; i < invk.getNumberOfPositionalParameters(); ++i) {
+      edges.add(
+          Pair.make(factory.makeVarVertex(caller, invk.getUse(i)), factory.makeArgVertex(callee)));
+      // only flow receiver into 'this' if invk is, in fact, a method call
+      if (i != 1 || !invk.getDeclaredTarget().getSelector().equals(AstMethodReference.fnSelector))
+        edges.add(
+            Pair.make(
+                factory.makeVarVertex(caller, invk.getUse(i)),
+                factory.makeParamVertex(callee, i + offset)));
+    }
+
+    // flow from return vertex to result vertex
+    edges.add(
+        Pair.make(factory.makeRetVertex(callee), factory.makeVarVertex(caller, invk.getDef())));
+
+    callEdges.put(Pair.make(c, callee), edges);
+    addEdges(edges, worklist, onWorklist);
+  }
+
+  // the vertex of the function invoked by c, if c is a call to Function.prototype.call
+  private VarVertex getReflectiveCallee(CallVertex c) {
+    return flowgraph.getVertexFactory().makeVarVertex(c.getCaller(), c.getInstruction().getUse(1));
+  }
+
+  // add flow corresponding to realCallee being invoked reflectively by c, a call to
+  // Function.prototype.call; as in WorklistBasedOptimisticCallgraphBuilder, realCallee does not
+  // become a call target of c
+  private void addReflectiveCallEdge(
+      CallVertex c, FuncVertex realCallee, Deque<Vertex> worklist, Set<Vertex> onWorklist) {
+    Map<FuncVertex, Set<Pair<Vertex, Vertex>>> byCallee =
+        MapUtil.findOrCreateMap(reflectiveCallEdges, c);
+    if (byCallee.containsKey(realCallee)) {
+      return;
+    }
+    VertexFactory factory = flowgraph.getVertexFactory();
+    FuncVertex caller = c.getCaller();
+    JavaScriptInvoke invk = c.getInstruction();
+
+    Set<Pair<Vertex, Vertex>> edges = HashSetFactory.make();
+    for (int i = 2; i < invk.getNumberOfPositionalParameters(); ++i) {
+      // flow from arguments to parameters
+      edges.add(
+          Pair.make(
+              factory.makeVarVertex(caller, invk.getUse(i)),
+              factory.makeParamVertex(realCallee, i - 1)));
+      // flow from return vertex to result vertex; like WorklistBasedOptimisticCallgraphBuilder,
+      // only if at least one argument is passed
+      edges.add(
+          Pair.make(
+              factory.makeRetVertex(realCallee), factory.makeVarVertex(caller, invk.getDef())));
+    }
+
+    byCallee.put(realCallee, edges);
+    addEdges(edges, worklist, onWorklist);
+  }
+
+  private void addEdges(
+      Set<Pair<Vertex, Vertex>> edges, Deque<Vertex> worklist, Set<Vertex> onWorklist) {
+    Set<Vertex> sources = HashSetFactory.make();
+    addEdges(edges, sources);
+    for (Vertex v : sources) {
+      if (onWorklist.add(v)) {
+        worklist.add(v);
+      }
+    }
+  }
+}
@@ -92,8 +92,13 @@ public class FlowGraph implements Iterable<Vertex> {
   private GraphReachability<Vertex, FuncVertex> optimistic_closure;
 
   public FlowGraph() {
-    this.graph = new SlowSparseNumberedGraph<>(1);
-    this.factory = new VertexFactory();
+    this(new VertexFactory());
+  }
+
+  /** Creates an empty flow graph whose vertices are drawn from the given factory. */
+  public FlowGraph(VertexFactory factory) {
+    this.graph = new VertexGraph(factory);
+    this.factory = factory;
   }
 
   // (re-)compute optimistic_closure
@@ -151,6 +156,17 @@ public class FlowGraph implements Iterable<Vertex> {
     }
   }
 
+  /**
+   * Removes the edge from vertex {@code from} to vertex {@code to}, if there is one. The vertices
+   * themselves stay in the graph.
+   */
+  public void removeEdge(Vertex from, Vertex to) {
+    if (graph.containsNode(from) && graph.containsNode(to) && graph.hasEdge(from, to)) {
+      optimistic_closure = null;
+      graph.removeEdge(from, to);
+    }
+  }
+
   /**
    * Computes the set of vertices that may reach {@code dest} along paths not containing an {@link
    * UnknownVertex}.
@@ -167,6 +183,10 @@ public class FlowGraph implements Iterable<Vertex> {
     return graph.getSuccNodes(v);
   }
 
+  public Iterator<Vertex> getPred(Vertex v) {
+    return graph.getPredNodes(v);
+  }
+
   @Override
   public Iterator<Vertex> iterator() {
     return graph.iterator();
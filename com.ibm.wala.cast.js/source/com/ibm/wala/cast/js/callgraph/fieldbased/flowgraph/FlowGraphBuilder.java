@@ -48,9 +48,12 @@ import com.ibm.wala.ssa.SSAPutInstruction;
 import com.ibm.wala.ssa.SSAReturnInstruction;
 import com.ibm.wala.ssa.SSAThrowInstruction;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.intset.EmptyIntSet;
 import com.ibm.wala.util.intset.IntSet;
+import java.util.Set;
 
 /**
  * Class for building intra-procedural flow graphs for a given class hierarchy.
@@ -121,6 +124,40 @@ public class FlowGraphBuilder {
     }
   }
 
+  /**
+   * Computes the flow edges induced by the IR instructions of {@code method}, without adding them
+   * to {@code flowgraph}. This allows clients that update a flow graph incrementally to retract the
+   * edges of a function again when it changes.
+   *
+   * @return the edges that {@link #visitFunction(FlowGraph, IMethod)} would add, over vertices of
+   *     the vertex factory of {@code flowgraph}
+   */
+  public Set<Pair<Vertex, Vertex>> getFunctionEdges(FlowGraph flowgraph, IMethod method) {
+    FlowGraph scratch = new FlowGraph(flowgraph.getVertexFactory());
+    visitFunction(scratch, method);
+    return getEdges(scratch);
+  }
+
+  /**
+   * Computes the flow edges for the special primitive functions, without adding them to {@code
+   * flowgraph}.
+   */
+  public Set<Pair<Vertex, Vertex>> getPrimitiveEdges(FlowGraph flowgraph) {
+    FlowGraph scratch = new FlowGraph(flowgraph.getVertexFactory());
+    addPrimitives(scratch);
+    return getEdges(scratch);
+  }
+
+  private static Set<Pair<Vertex, Vertex>> getEdges(FlowGraph flowgraph) {
+    Set<Pair<Vertex, Vertex>> edges = HashSetFactory.make();
+    for (Vertex v : flowgraph) {
+      for (Vertex w : Iterator2Iterable.make(flowgraph.getSucc(v))) {
+        edges.add(Pair.make(v, w));
+      }
+    }
+    return edges;
+  }
+
   // primitive functions that are treated specially
   private static String[] primitiveFunctions = {
     "Object", "Function", "Array", "StringObject", "NumberObject", "BooleanObject", "RegExp"
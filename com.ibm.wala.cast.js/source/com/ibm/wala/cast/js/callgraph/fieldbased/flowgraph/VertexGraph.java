@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2002 - 2012 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph;
+
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.Vertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VertexFactory;
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.graph.impl.NumberedNodeIterator;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A numbered graph over flow graph vertices which reuses the numbers assigned by a {@link
+ * VertexFactory} as node numbers, so that no mapping from vertices to numbers needs to be kept.
+ * Adjacency is stored as one sorted int array per vertex and direction, allocated on the first edge.
+ *
+ * <p>Only vertices created by the factory of this graph can be added to it.
+ */
+class VertexGraph extends AbstractNumberedGraph<Vertex> {
+
+  private final VertexFactory factory;
+
+  private final NodeManager nodeManager = new NodeManager();
+
+  private final EdgeManager edgeManager = new EdgeManager();
+
+  VertexGraph(VertexFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  protected NumberedNodeManager<Vertex> getNodeManager() {
+    return nodeManager;
+  }
+
+  @Override
+  protected NumberedEdgeManager<Vertex> getEdgeManager() {
+    return edgeManager;
+  }
+
+  private final class NodeManager implements NumberedNodeManager<Vertex> {
+    private final BitVectorIntSet nodes = new BitVectorIntSet();
+
+    @Override
+    public int getNumber(Vertex v) {
+      return containsNode(v) ? v.getNumber() : -1;
+    }
+
+    @Override
+    public Vertex getNode(int number) {
+      return nodes.contains(number) ? factory.getVertex(number) : null;
+    }
+
+    @Override
+    public int getMaxNumber() {
+      return nodes.isEmpty() ? -1 : nodes.max();
+    }
+
+    @Override
+    public Iterator<Vertex> iterateNodes(IntSet s) {
+      return new NumberedNodeIterator<>(s, this);
+    }
+
+    @Override
+    public Iterator<Vertex> iterator() {
+      return new NumberedNodeIterator<>(nodes, this);
+    }
+
+    @Override
+    public Stream<Vertex> stream() {
+      return StreamSupport.stream(
+          Spliterators.spliterator(
+              iterator(), nodes.size(), Spliterator.DISTINCT | Spliterator.NONNULL),
+          false);
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return nodes.size();
+    }
+
+    @Override
+    public void addNode(Vertex v) {
+      if (v == null) {
+        throw new IllegalArgumentException("v is null");
+      }
+      if (!factory.owns(v)) {
+        throw new IllegalArgumentException(v + " was not created by the factory of this graph");
+      }
+      nodes.add(v.getNumber());
+    }
+
+    @Override
+    public void removeNode(Vertex v) {
+      if (containsNode(v)) {
+        nodes.remove(v.getNumber());
+      }
+    }
+
+    @Override
+    public boolean containsNode(Vertex v) {
+      return factory.owns(v) && nodes.contains(v.getNumber());
+    }
+  }
+
+  private final class EdgeManager implements NumberedEdgeManager<Vertex> {
+    private MutableSparseIntSet[] succ = new MutableSparseIntSet[0];
+
+    private MutableSparseIntSet[] pred = new MutableSparseIntSet[0];
+
+    private int number(Vertex v) {
+      int number = nodeManager.getNumber(v);
+      if (number < 0) {
+        throw new IllegalArgumentException(v + " is not in graph");
+      }
+      return number;
+    }
+
+    private MutableSparseIntSet[] ensureCapacity(MutableSparseIntSet[] table, int number) {
+      if (number < table.length) {
+        return table;
+      } else {
+        return Arrays.copyOf(table, Math.max(number + 1, Math.max(16, 2 * table.length)));
+      }
+    }
+
+    private IntSet get(MutableSparseIntSet[] table, int number) {
+      return number < table.length && table[number] != null ? table[number] : EmptyIntSet.instance;
+    }
+
+    private void add(MutableSparseIntSet[] table, int number, int value) {
+      if (table[number] == null) {
+        table[number] = MutableSparseIntSet.makeEmpty();
+      }
+      table[number].add(value);
+    }
+
+    private void remove(MutableSparseIntSet[] table, int number, int value) {
+      if (number < table.length && table[number] != null) {
+        table[number].remove(value);
+        if (table[number].isEmpty()) {
+          table[number] = null;
+        }
+      }
+    }
+
+    @Override
+    public Iterator<Vertex> getPredNodes(Vertex v) {
+      IntSet s = get(pred, number(v));
+      return s.isEmpty() ? EmptyIterator.instance() : nodeManager.iterateNodes(s);
+    }
+
+    @Override
+    public int getPredNodeCount(Vertex v) {
+      return get(pred, number(v)).size();
+    }
+
+    @Override
+    public Iterator<Vertex> getSuccNodes(Vertex v) {
+      IntSet s = get(succ, number(v));
+      return s.isEmpty() ? EmptyIterator.instance() : nodeManager.iterateNodes(s);
+    }
+
+    @Override
+    public int getSuccNodeCount(Vertex v) {
+      return get(succ, number(v)).size();
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(Vertex v) {
+      return get(succ, number(v));
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(Vertex v) {
+      return get(pred, number(v));
+    }
+
+    @Override
+    public void addEdge(Vertex src, Vertex dst) {
+      int x = number(src);
+      int y = number(dst);
+      succ = ensureCapacity(succ, x);
+      pred = ensureCapacity(pred, y);
+      add(succ, x, y);
+      add(pred, y, x);
+    }
+
+    @Override
+    public void removeEdge(Vertex src, Vertex dst) {
+      int x = number(src);
+      int y = number(dst);
+      remove(succ, x, y);
+      remove(pred, y, x);
+    }
+
+    @Override
+    public void removeAllIncidentEdges(Vertex v) {
+      removeIncomingEdges(v);
+      removeOutgoingEdges(v);
+    }
+
+    @Override
+    public void removeIncomingEdges(Vertex v) {
+      int y = number(v);
+      IntSet s = get(pred, y);
+      s.foreach(x -> remove(succ, x, y));
+      if (y < pred.length) {
+        pred[y] = null;
+      }
+    }
+
+    @Override
+    public void removeOutgoingEdges(Vertex v) {
+      int x = number(v);
+      IntSet s = get(succ, x);
+      s.foreach(y -> remove(pred, y, x));
+      if (x < succ.length) {
+        succ[x] = null;
+      }
+    }
+
+    @Override
+    public boolean hasEdge(Vertex src, Vertex dst) {
+      int x = nodeManager.getNumber(src);
+      int y = nodeManager.getNumber(dst);
+      return x >= 0 && y >= 0 && get(succ, x).contains(y);
+    }
+  }
+}
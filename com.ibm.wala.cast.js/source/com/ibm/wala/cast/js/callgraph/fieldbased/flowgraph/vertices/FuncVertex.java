@@ -23,6 +23,7 @@ import com.ibm.wala.util.collections.EmptyIterator;
 import com.ibm.wala.util.collections.NonNullSingletonIterator;
 import com.ibm.wala.util.collections.Pair;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -35,6 +36,14 @@ public class FuncVertex extends Vertex implements ObjectVertex {
   // the IClass representing this function in the class hierarchy
   protected final IClass klass;
 
+  // vertices belonging to this function, indexed by value number, parameter index and call site;
+  // these are maintained by the VertexFactory so that looking them up does not allocate keys
+  VarVertex[] varVertices;
+  ParamVertex[] paramVertices;
+  Map<CallSiteReference, CallVertex> callVertices;
+  RetVertex retVertex;
+  ArgVertex argVertex;
+
   FuncVertex(IClass method) {
     this.klass = method;
   }
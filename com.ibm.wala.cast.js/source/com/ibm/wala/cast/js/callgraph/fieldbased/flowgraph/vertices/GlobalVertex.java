@@ -10,7 +10,9 @@ import java.util.Iterator;
 
 public class GlobalVertex extends Vertex implements ObjectVertex {
 
-  private GlobalVertex() {}
+  private GlobalVertex() {
+    super(VertexFactory.GLOBAL_NUMBER);
+  }
 
   public static final GlobalVertex global = new GlobalVertex();
 
@@ -19,7 +19,9 @@ package com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices;
 public class UnknownVertex extends Vertex {
   public static final UnknownVertex INSTANCE = new UnknownVertex();
 
-  private UnknownVertex() {}
+  private UnknownVertex() {
+    super(VertexFactory.UNKNOWN_NUMBER);
+  }
 
   @Override
   public <T> T accept(VertexVisitor<T> visitor) {
@@ -17,5 +17,29 @@ package com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices;
  * @author mschaefer
  */
 public abstract class Vertex {
+  // the number assigned to this vertex by its factory, or -1 if it was not created by a factory
+  private int number;
+
+  protected Vertex() {
+    this(-1);
+  }
+
+  protected Vertex(int number) {
+    this.number = number;
+  }
+
+  /**
+   * Returns the dense number of this vertex within its {@link VertexFactory}, or -1 if the vertex
+   * was not created by a factory.
+   */
+  public int getNumber() {
+    return number;
+  }
+
+  void setNumber(int number) {
+    assert this.number == -1 : "vertex " + this + " is already numbered";
+    this.number = number;
+  }
+
   public abstract <T> T accept(VertexVisitor<T> visitor);
 }
@@ -17,40 +17,91 @@ import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.Pair;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * A vertex factory is associated with a flow graph. It manages its vertex set, making sure that
  * vertices aren't unnecessarily created twice.
  *
+ * <p>Every vertex created by a factory is assigned a dense number, which flow graphs use to index
+ * their adjacency information. Vertices belonging to a function are kept in tables on their {@link
+ * FuncVertex}, so that looking them up does not need to allocate a key.
+ *
  * @author mschaefer
  */
 public class VertexFactory {
-  private final Map<Pair<FuncVertex, CallSiteReference>, CallVertex> callVertexCache =
-      HashMapFactory.make();
+  /** the number of {@link UnknownVertex#INSTANCE}, which is the same in every factory */
+  public static final int UNKNOWN_NUMBER = 0;
+
+  /** the number of {@link GlobalVertex#global}, which is the same in every factory */
+  public static final int GLOBAL_NUMBER = 1;
+
+  // all vertices of this factory, indexed by their number
+  private final ArrayList<Vertex> vertices = new ArrayList<>();
+
+  // vertices of the kinds kept in tables on their FuncVertex, in order of creation
+  private final ArrayList<CallVertex> callVertices = new ArrayList<>();
+  private final ArrayList<RetVertex> retVertices = new ArrayList<>();
+  private final ArrayList<ArgVertex> argVertices = new ArrayList<>();
+  private final ArrayList<VarVertex> varVertices = new ArrayList<>();
+
   private final Map<IClass, FuncVertex> funcVertexCache = HashMapFactory.make();
-  private final Map<Pair<FuncVertex, Integer>, ParamVertex> paramVertexCache =
-      HashMapFactory.make();
   private final Map<String, PropVertex> propVertexCache = HashMapFactory.make();
-  private final Map<FuncVertex, RetVertex> retVertexCache = HashMapFactory.make();
-  private final Map<FuncVertex, ArgVertex> argVertexCache = HashMapFactory.make();
-  private final Map<Pair<FuncVertex, Integer>, VarVertex> varVertexCache = HashMapFactory.make();
   private final Map<Pair<String, String>, LexicalVarVertex> lexicalAccessVertexCache =
       HashMapFactory.make();
   private final Map<Pair<IMethod, Integer>, CreationSiteVertex> creationSites =
       HashMapFactory.make();
 
+  public VertexFactory() {
+    vertices.add(UnknownVertex.INSTANCE);
+    vertices.add(GlobalVertex.instance());
+  }
+
+  private <T extends Vertex> T register(T v) {
+    v.setNumber(vertices.size());
+    vertices.add(v);
+    return v;
+  }
+
+  /** Returns the vertex with the given number. */
+  public Vertex getVertex(int number) {
+    return vertices.get(number);
+  }
+
+  /** Returns one more than the largest vertex number handed out by this factory so far. */
+  public int getNumberOfVertices() {
+    return vertices.size();
+  }
+
+  /** Does {@code v} belong to this factory? */
+  public boolean owns(Vertex v) {
+    int number = v.getNumber();
+    return number >= 0 && number < vertices.size() && vertices.get(number) == v;
+  }
+
+  private <T extends Vertex> T register(T v, ArrayList<? super T> ofKind) {
+    ofKind.add(v);
+    return register(v);
+  }
+
   public CallVertex makeCallVertex(FuncVertex func, JavaScriptInvoke invk) {
     CallSiteReference site = invk.getCallSite();
-    Pair<FuncVertex, CallSiteReference> key = Pair.make(func, site);
-    CallVertex value = callVertexCache.get(key);
-    if (value == null) callVertexCache.put(key, value = new CallVertex(func, site, invk));
+    if (func.callVertices == null) func.callVertices = HashMapFactory.make(1);
+    CallVertex value = func.callVertices.get(site);
+    if (value == null) {
+      func.callVertices.put(
+          site, value = register(new CallVertex(func, site, invk), callVertices));
+    }
     return value;
   }
 
   public Iterable<CallVertex> getCallVertices() {
-    return callVertexCache.values();
+    return Collections.unmodifiableList(callVertices);
   }
 
   public CreationSiteVertex makeCreationSiteVertex(
@@ -58,7 +109,8 @@ public class VertexFactory {
     Pair<IMethod, Integer> key = Pair.make(method, instruction);
     CreationSiteVertex value = creationSites.get(key);
     if (value == null) {
-      creationSites.put(key, value = new CreationSiteVertex(method, instruction, createdType));
+      creationSites.put(
+          key, value = register(new CreationSiteVertex(method, instruction, createdType)));
     }
     return value;
   }
@@ -69,7 +121,7 @@ public class VertexFactory {
 
   public FuncVertex makeFuncVertex(IClass klass) {
     FuncVertex value = funcVertexCache.get(klass);
-    if (value == null) funcVertexCache.put(klass, value = new FuncVertex(klass));
+    if (value == null) funcVertexCache.put(klass, value = register(new FuncVertex(klass)));
     return value;
   }
 
@@ -78,15 +130,15 @@ public class VertexFactory {
   }
 
   public ParamVertex makeParamVertex(FuncVertex func, int index) {
-    Pair<FuncVertex, Integer> key = Pair.make(func, index);
-    ParamVertex value = paramVertexCache.get(key);
-    if (value == null) paramVertexCache.put(key, value = new ParamVertex(func, index));
+    func.paramVertices = ensureCapacity(func.paramVertices, index, ParamVertex.class);
+    ParamVertex value = func.paramVertices[index];
+    if (value == null) func.paramVertices[index] = value = register(new ParamVertex(func, index));
     return value;
   }
 
   public PropVertex makePropVertex(String name) {
     PropVertex value = propVertexCache.get(name);
-    if (value == null) propVertexCache.put(name, value = new PropVertex(name));
+    if (value == null) propVertexCache.put(name, value = register(new PropVertex(name)));
     return value;
   }
 
@@ -95,23 +147,21 @@ public class VertexFactory {
   }
 
   public RetVertex makeRetVertex(FuncVertex func) {
-    RetVertex value = retVertexCache.get(func);
-    if (value == null) retVertexCache.put(func, value = new RetVertex(func));
-    return value;
+    if (func.retVertex == null) func.retVertex = register(new RetVertex(func), retVertices);
+    return func.retVertex;
   }
 
   public Iterable<RetVertex> getRetVertices() {
-    return retVertexCache.values();
+    return Collections.unmodifiableList(retVertices);
   }
 
   public ArgVertex makeArgVertex(FuncVertex func) {
-    ArgVertex value = argVertexCache.get(func);
-    if (value == null) argVertexCache.put(func, value = new ArgVertex(func));
-    return value;
+    if (func.argVertex == null) func.argVertex = register(new ArgVertex(func), argVertices);
+    return func.argVertex;
   }
 
   public Iterable<ArgVertex> getArgVertices() {
-    return argVertexCache.values();
+    return Collections.unmodifiableList(argVertices);
   }
 
   public UnknownVertex makeUnknownVertex() {
@@ -119,21 +169,24 @@ public class VertexFactory {
   }
 
   public VarVertex makeVarVertex(FuncVertex func, int valueNumber) {
-    Pair<FuncVertex, Integer> key = Pair.make(func, valueNumber);
-    VarVertex value = varVertexCache.get(key);
-    if (value == null) varVertexCache.put(key, value = new VarVertex(func, valueNumber));
+    func.varVertices = ensureCapacity(func.varVertices, valueNumber, VarVertex.class);
+    VarVertex value = func.varVertices[valueNumber];
+    if (value == null) {
+      func.varVertices[valueNumber] =
+          value = register(new VarVertex(func, valueNumber), varVertices);
+    }
     return value;
   }
 
   public Iterable<VarVertex> getVarVertices() {
-    return varVertexCache.values();
+    return Collections.unmodifiableList(varVertices);
   }
 
   public LexicalVarVertex makeLexicalAccessVertex(String definer, String name) {
     Pair<String, String> key = Pair.make(definer, name);
     LexicalVarVertex value = lexicalAccessVertexCache.get(key);
     if (value == null)
-      lexicalAccessVertexCache.put(key, value = new LexicalVarVertex(definer, name));
+      lexicalAccessVertexCache.put(key, value = register(new LexicalVarVertex(definer, name)));
     return value;
   }
 
@@ -142,4 +195,18 @@ public class VertexFactory {
   public GlobalVertex global() {
     return global;
   }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T[] ensureCapacity(T[] table, int index, Class<T> type) {
+    if (index < 0) {
+      throw new IllegalArgumentException("negative index " + index);
+    }
+    if (table == null) {
+      return (T[]) Array.newInstance(type, Math.max(index + 1, 8));
+    } else if (index >= table.length) {
+      return Arrays.copyOf(table, Math.max(index + 1, 2 * table.length));
+    } else {
+      return table;
+    }
+  }
 }
@@ -29,6 +29,7 @@ import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.classLoader.SourceModule;
 import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
 import com.ibm.wala.ipa.callgraph.impl.Everywhere;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
@@ -43,6 +44,8 @@ import com.ibm.wala.ssa.SSABinaryOpInstruction;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSAOptions;
 import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.WalaException;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
@@ -56,6 +59,8 @@ import com.ibm.wala.util.intset.OrdinalSetMapping;
 import com.ibm.wala.util.io.FileProvider;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -63,10 +68,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 
 /**
  * Helper class for identifying correlated read/write pairs.
@@ -79,8 +87,34 @@ public class CorrelationFinder {
 
   private final JavaScriptTranslatorFactory translatorFactory;
 
+  // number of threads used to analyze functions
+  private final int parallelism;
+
+  // cache of summaries from earlier runs, or null
+  private final CorrelationSummaryCache cache;
+
+  /** Analyzes functions on all processors and shares summaries through the default cache. */
   public CorrelationFinder(JavaScriptTranslatorFactory translatorFactory) {
+    this(
+        translatorFactory,
+        Runtime.getRuntime().availableProcessors(),
+        CorrelationSummaryCache.getDefault());
+  }
+
+  /**
+   * @param parallelism the number of threads used to analyze functions; must be at least 1
+   * @param cache a cache of summaries to consult and fill, or null
+   */
+  public CorrelationFinder(
+      JavaScriptTranslatorFactory translatorFactory,
+      int parallelism,
+      CorrelationSummaryCache cache) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
     this.translatorFactory = translatorFactory;
+    this.parallelism = parallelism;
+    this.cache = cache;
   }
 
   @SuppressWarnings("unused")
@@ -289,18 +323,76 @@ public class CorrelationFinder {
     SSAOptions ssaOptions = SSAOptions.defaultOptions();
     ssaOptions.setDefaultValues((symtab, valueNumber) -> symtab.getNullConstant());
 
-    Map<IMethod, CorrelationSummary> correlations = HashMapFactory.make();
+    final Set<IMethod> methods = new LinkedHashSet<>();
     for (IClass klass : cha) {
-      for (IMethod method : klass.getAllMethods()) {
-        IR ir = factory.makeIR(method, Everywhere.EVERYWHERE, ssaOptions);
-        CorrelationSummary summary = findCorrelatedAccesses(method, ir);
-        if (!summary.getCorrelations().isEmpty()) correlations.put(method, summary);
+      methods.addAll(klass.getAllMethods());
+    }
+
+    // the summaries are computed independently for each function, and collected in method order
+    // so that the result does not depend on scheduling
+    final List<IMethod> methodList = new ArrayList<>(methods);
+    final Map<URL, String> sourceTexts = new ConcurrentHashMap<>();
+    List<Callable<CorrelationSummary>> tasks = new ArrayList<>(methodList.size());
+    for (IMethod method : methodList) {
+      tasks.add(() -> findCorrelatedAccesses(method, factory, ssaOptions, sourceTexts));
+    }
+    List<CorrelationSummary> summaries;
+    try {
+      summaries =
+          ParallelIntraproceduralAnalysis.runAll(tasks, parallelism, null, RuntimeException.class);
+    } catch (CancelException e) {
+      throw new CancelRuntimeException(e);
+    }
+
+    Map<IMethod, CorrelationSummary> correlations = HashMapFactory.make();
+    for (int i = 0; i < summaries.size(); i++) {
+      if (!summaries.get(i).getCorrelations().isEmpty()) {
+        correlations.put(methodList.get(i), summaries.get(i));
       }
     }
 
     return correlations;
   }
 
+  // computes the summary for a single method, consulting the cache if there is one
+  private CorrelationSummary findCorrelatedAccesses(
+      IMethod method, IRFactory<IMethod> factory, SSAOptions ssaOptions, Map<URL, String> texts) {
+    CorrelationSummaryCache.Key key = null;
+    Object configuration = translatorFactory.getConfiguration();
+    if (cache != null && configuration != null) {
+      Position pos = ((AstMethod) method).getSourcePosition();
+      if (pos != null && pos.getURL() != null) {
+        String text = texts.computeIfAbsent(pos.getURL(), url -> readSource(pos));
+        key = CorrelationSummaryCache.makeKey(method, pos, text, configuration);
+        if (key != null) {
+          CorrelationSummary summary = cache.get(key);
+          if (summary != null) return summary;
+        }
+      }
+    }
+
+    IR ir = factory.makeIR(method, Everywhere.EVERYWHERE, ssaOptions);
+    CorrelationSummary summary = findCorrelatedAccesses(method, ir);
+    if (key != null) cache.put(key, summary);
+    return summary;
+  }
+
+  // reads the complete text of the file containing pos, or returns null if that is not possible
+  private static String readSource(Position pos) {
+    try (final Reader reader = pos.getReader()) {
+      if (reader == null) return null;
+      StringBuilder text = new StringBuilder();
+      char[] buffer = new char[8192];
+      int n;
+      while ((n = reader.read(buffer)) != -1) {
+        text.append(buffer, 0, n);
+      }
+      return text.toString();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   @SuppressWarnings("unused")
   private URL toUrl(String src) throws MalformedURLException {
     // first try interpreting as local file name, if that doesn't work just assume it's a URL
@@ -35,6 +35,19 @@ public final class CorrelationSummary {
     positions = new SSASourcePositionMap((AstMethod) method, instrIndices);
   }
 
+  private CorrelationSummary(SSASourcePositionMap positions, Set<Correlation> correlations) {
+    this.positions = positions;
+    this.correlations.addAll(correlations);
+  }
+
+  /**
+   * @return a summary with the same correlations and positions, which does not keep the method or
+   *     its IR reachable
+   */
+  CorrelationSummary detach() {
+    return new CorrelationSummary(positions.detach(), correlations);
+  }
+
   public void addCorrelation(Correlation correlation) {
     correlations.add(correlation);
   }
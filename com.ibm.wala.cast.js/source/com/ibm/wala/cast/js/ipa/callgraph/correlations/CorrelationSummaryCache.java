@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2011 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.js.ipa.callgraph.correlations;
+
+import com.ibm.wala.cast.js.translator.JavaScriptTranslatorFactory;
+import com.ibm.wala.cast.tree.CAstSourcePositionMap.Position;
+import com.ibm.wala.classLoader.IMethod;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of {@link CorrelationSummary correlation summaries}, which can be shared by several
+ * {@link CorrelationFinder}s. Summaries are keyed by the source position of their function, a
+ * digest of the function's source text and the configuration of the translator used, so a
+ * function is only analyzed again if it, its position in the file, or the way it is translated has
+ * changed.
+ *
+ * <p>Cached summaries only hold source positions, not the IR they were computed from. They are
+ * softly referenced and hence dropped when memory gets tight.
+ *
+ * <p>{@link CorrelationFinder}s use the {@link #getDefault() default cache} unless told otherwise,
+ * so correlated pair extraction, which the call graph builders do by default, only analyzes the
+ * functions that changed since the last run in the same JVM.
+ */
+public class CorrelationSummaryCache {
+
+  private static final CorrelationSummaryCache DEFAULT = new CorrelationSummaryCache();
+
+  /** @return the cache shared by all {@link CorrelationFinder}s in this JVM by default */
+  public static CorrelationSummaryCache getDefault() {
+    return DEFAULT;
+  }
+
+  private final Map<Key, SoftReference<CorrelationSummary>> summaries = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Makes the cache key for method, whose source text is given.
+   *
+   * @param configuration the configuration of the translator which produced method, see {@link
+   *     JavaScriptTranslatorFactory#getConfiguration()}
+   * @return the key, or null if method has no usable source position or configuration
+   */
+  static Key makeKey(IMethod method, Position pos, String sourceText, Object configuration) {
+    if (configuration == null
+        || pos == null
+        || pos.getURL() == null
+        || sourceText == null
+        || pos.getFirstOffset() < 0
+        || pos.getLastOffset() < pos.getFirstOffset()
+        || pos.getLastOffset() > sourceText.length()) {
+      return null;
+    }
+    String text = sourceText.substring(pos.getFirstOffset(), pos.getLastOffset());
+    return new Key(
+        method.getSignature(),
+        pos.getURL().toString(),
+        pos.getFirstOffset(),
+        pos.getLastOffset(),
+        digest(text),
+        configuration);
+  }
+
+  CorrelationSummary get(Key key) {
+    SoftReference<CorrelationSummary> cached = summaries.get(key);
+    CorrelationSummary summary = cached == null ? null : cached.get();
+    if (summary != null) {
+      hits.incrementAndGet();
+    } else {
+      if (cached != null) {
+        summaries.remove(key, cached);
+      }
+      misses.incrementAndGet();
+    }
+    return summary;
+  }
+
+  void put(Key key, CorrelationSummary summary) {
+    summaries.put(key, new SoftReference<>(summary.detach()));
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return summaries.size();
+  }
+
+  public void clear() {
+    summaries.clear();
+  }
+
+  private static String digest(String text) {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    StringBuilder result = new StringBuilder();
+    for (byte b : md.digest(text.getBytes(StandardCharsets.UTF_8))) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+
+  static final class Key {
+    private final String signature;
+    private final String url;
+    private final int firstOffset;
+    private final int lastOffset;
+    private final String digest;
+    private final Object configuration;
+
+    private Key(
+        String signature,
+        String url,
+        int firstOffset,
+        int lastOffset,
+        String digest,
+        Object configuration) {
+      this.signature = signature;
+      this.url = url;
+      this.firstOffset = firstOffset;
+      this.lastOffset = lastOffset;
+      this.digest = digest;
+      this.configuration = configuration;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = signature.hashCode();
+      result = 31 * result + url.hashCode();
+      result = 31 * result + firstOffset;
+      result = 31 * result + digest.hashCode();
+      return 31 * result + configuration.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return firstOffset == other.firstOffset
+          && lastOffset == other.lastOffset
+          && signature.equals(other.signature)
+          && url.equals(other.url)
+          && digest.equals(other.digest)
+          && configuration.equals(other.configuration);
+    }
+  }
+}
@@ -25,12 +25,45 @@ public class SSASourcePositionMap {
   private final AstMethod method;
   private final OrdinalSetMapping<SSAInstruction> instrIndices;
 
+  // if method is null, the position of each instruction, by instruction index
+  private final Position[] positions;
+
   public SSASourcePositionMap(AstMethod method, OrdinalSetMapping<SSAInstruction> instrIndices) {
     this.method = method;
     this.instrIndices = instrIndices;
+    this.positions = null;
+  }
+
+  private SSASourcePositionMap(Position[] positions) {
+    this.method = null;
+    this.instrIndices = null;
+    this.positions = positions;
   }
 
   public Position getPosition(SSAInstruction inst) {
+    if (method == null) {
+      int i = inst.iIndex();
+      return i >= 0 && i < positions.length ? positions[i] : null;
+    }
     return method.getSourcePosition(instrIndices.getMappedIndex(inst));
   }
+
+  /**
+   * @return a map giving the same positions, which does not refer to the method or its IR and
+   *     hence does not keep them reachable
+   */
+  SSASourcePositionMap detach() {
+    if (method == null) {
+      return this;
+    }
+    Position[] result = new Position[instrIndices.getMaximumIndex() + 1];
+    for (int i = 0; i < result.length; i++) {
+      SSAInstruction inst = instrIndices.getMappedObject(i);
+      if (inst != null) {
+        assert inst.iIndex() == i : "unexpected index of " + inst;
+        result[i] = method.getSourcePosition(i);
+      }
+    }
+    return new SSASourcePositionMap(result);
+  }
 }
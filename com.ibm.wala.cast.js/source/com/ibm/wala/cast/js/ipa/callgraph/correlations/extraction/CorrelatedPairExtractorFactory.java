@@ -22,25 +22,55 @@ import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.classLoader.SourceModule;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Map;
 
 public class CorrelatedPairExtractorFactory implements CAstRewriterFactory<NodePos, NoKey> {
   private final Map<IMethod, CorrelationSummary> summaries;
 
+  /** see {@link #getConfiguration()}; null if summaries did not come from a known translator */
+  private final Object configuration;
+
   public CorrelatedPairExtractorFactory(
       JavaScriptTranslatorFactory translatorFactory, URL entryPoint)
       throws ClassHierarchyException {
-    this(new CorrelationFinder(translatorFactory).findCorrelatedAccesses(entryPoint));
+    this(
+        new CorrelationFinder(translatorFactory).findCorrelatedAccesses(entryPoint),
+        configuration(translatorFactory));
   }
 
   public CorrelatedPairExtractorFactory(
       JavaScriptTranslatorFactory translatorFactory, SourceModule[] scripts)
       throws ClassHierarchyException {
-    this(new CorrelationFinder(translatorFactory).findCorrelatedAccesses(scripts));
+    this(
+        new CorrelationFinder(translatorFactory).findCorrelatedAccesses(scripts),
+        configuration(translatorFactory));
   }
 
   public CorrelatedPairExtractorFactory(Map<IMethod, CorrelationSummary> summaries) {
+    this(summaries, null);
+  }
+
+  private CorrelatedPairExtractorFactory(
+      Map<IMethod, CorrelationSummary> summaries, Object configuration) {
     this.summaries = summaries;
+    this.configuration = configuration;
+  }
+
+  /**
+   * correlations are found one function at a time, so the rewriting of a script only depends on
+   * the script itself and the translator it was analyzed with
+   */
+  private static Object configuration(JavaScriptTranslatorFactory translatorFactory) {
+    Object translatorConfiguration = translatorFactory.getConfiguration();
+    return translatorConfiguration == null
+        ? null
+        : Arrays.asList(CorrelatedPairExtractorFactory.class, translatorConfiguration);
+  }
+
+  @Override
+  public Object getConfiguration() {
+    return configuration;
   }
 
   @Override
@@ -27,6 +27,7 @@ import com.ibm.wala.cast.ir.ssa.EachElementGetInstruction;
 import com.ibm.wala.cast.ir.ssa.EachElementHasNextInstruction;
 import com.ibm.wala.cast.ir.translator.AstTranslator.AstLexicalInformation;
 import com.ibm.wala.cast.ir.translator.AstTranslator.WalkContext;
+import com.ibm.wala.cast.ir.translator.CAstTranslationCache;
 import com.ibm.wala.cast.ir.translator.TranslatorToCAst;
 import com.ibm.wala.cast.ir.translator.TranslatorToIR;
 import com.ibm.wala.cast.js.analysis.typeInference.JSPrimitiveType;
@@ -1013,9 +1014,44 @@ public class JavaScriptLoader extends CAstAbstractModuleLoader {
     bootstrapFileNames.add(prologueFileName);
   }
 
+  /** number of threads used to parse and translate script files to CAst */
+  private static int translationParallelism = 1;
+
+  /**
+   * parse and translate the script files of JavaScript loaders created from now on to CAst on the
+   * given number of threads, including any CAst rewriting. IR is still generated on the calling
+   * thread, in script order. The default of 1 translates everything on the calling thread.
+   */
+  public static void setTranslationParallelism(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("need at least one translation thread: " + threads);
+    }
+    translationParallelism = threads;
+  }
+
+  @Override
+  protected int getTranslationParallelism() {
+    return translationParallelism;
+  }
+
+  /** if non-null, CAst for script files is shared through this cache */
+  private static CAstTranslationCache translationCache = null;
+
+  /**
+   * share the CAst of unchanged script files among all JavaScript loaders created from now on, so
+   * that e.g. libraries common to many analyzed programs are parsed only once. Pass null to turn
+   * caching off again.
+   */
+  public static void setTranslationCache(CAstTranslationCache cache) {
+    translationCache = cache;
+  }
+
   @Override
   protected TranslatorToCAst getTranslatorToCAst(final CAst ast, ModuleEntry module) {
     TranslatorToCAst translator = translatorFactory.make(ast, module);
+    CAstTranslationCache cache = translationCache;
+    if (cache != null)
+      translator = cache.wrap(translator, module, translatorFactory.getConfiguration());
     if (preprocessor != null) translator.addRewriter(preprocessor, true);
     return translator;
   }
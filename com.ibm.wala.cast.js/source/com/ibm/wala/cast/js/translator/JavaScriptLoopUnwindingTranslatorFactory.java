@@ -16,6 +16,7 @@ import com.ibm.wala.cast.tree.rewrite.AstLoopUnwinder;
 import com.ibm.wala.classLoader.ModuleEntry;
 import com.ibm.wala.classLoader.SourceFileModule;
 import com.ibm.wala.classLoader.SourceModule;
+import java.util.Arrays;
 
 public abstract class JavaScriptLoopUnwindingTranslatorFactory
     implements JavaScriptTranslatorFactory {
@@ -45,4 +46,9 @@ public abstract class JavaScriptLoopUnwindingTranslatorFactory
 
     return xlator;
   }
+
+  @Override
+  public Object getConfiguration() {
+    return Arrays.asList(getClass(), unwindFactor);
+  }
 }
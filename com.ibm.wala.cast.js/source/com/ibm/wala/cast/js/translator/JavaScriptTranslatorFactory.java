@@ -21,4 +21,13 @@ import com.ibm.wala.classLoader.ModuleEntry;
 public interface JavaScriptTranslatorFactory {
 
   TranslatorToCAst make(CAst ast, ModuleEntry M);
+
+  /**
+   * @return a value describing the CAst the translators of this factory produce, e.g. its class and
+   *     parameters, such that factories with equal configurations translate any module the same
+   *     way; or null if there is no such description. Used to share CAst between translators.
+   */
+  default Object getConfiguration() {
+    return null;
+  }
 }
@@ -13,6 +13,7 @@ package com.ibm.wala.cast.js.util;
 import com.ibm.wala.cast.ipa.callgraph.CAstAnalysisScope;
 import com.ibm.wala.cast.ir.ssa.AstIRFactory;
 import com.ibm.wala.cast.js.callgraph.fieldbased.FieldBasedCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.IncrementalCallgraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.OptimisticCallgraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.PessimisticCallGraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.WorklistBasedOptimisticCallgraphBuilder;
@@ -85,6 +86,17 @@ public class FieldBasedCGUtil {
         return new WorklistBasedOptimisticCallgraphBuilder(
             cha, makeOptions, cache, supportFullPointerAnalysis);
       }
+    },
+
+    INCREMENTAL {
+      @Override
+      protected FieldBasedCallGraphBuilder fieldBasedCallGraphBuilderFactory(
+          IClassHierarchy cha,
+          JSAnalysisOptions makeOptions,
+          IAnalysisCacheView cache,
+          boolean supportFullPointerAnalysis) {
+        return new IncrementalCallgraphBuilder(cha, makeOptions, cache, supportFullPointerAnalysis);
+      }
     };
 
     protected abstract FieldBasedCallGraphBuilder fieldBasedCallGraphBuilderFactory(
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cast.ir.translator;
+
+import com.ibm.wala.cast.tree.CAstEntity;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriter.CopyKey;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriter.RewriteContext;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriterFactory;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.classLoader.SourceModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the CAst produced for source files, which can be shared by the loaders of several
+ * analyses in one JVM. Entries are keyed by the name of the module entry, a digest of its contents,
+ * and the configurations of the translator and rewriters used, so that unchanged files (e.g. common
+ * libraries analyzed with many different applications) are parsed only once. Files without a URL,
+ * or translated by a translator or rewriter without a configuration, are not cached.
+ *
+ * <p>CAst trees are immutable, so cached entities can be handed to several IR translators. Cached
+ * entities are softly referenced and hence dropped when memory gets tight.
+ */
+public class CAstTranslationCache {
+
+  private final Map<Key, SoftReference<CAstEntity>> entities = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * wrap translator, which translates module, so that it consults this cache first.
+   *
+   * @param configuration describes the CAst translator produces, e.g. the class and parameters of
+   *     its factory, with value-based equals and hashCode; if null, translator is returned as is
+   */
+  public TranslatorToCAst wrap(
+      TranslatorToCAst translator, ModuleEntry module, Object configuration) {
+    if (configuration == null) {
+      return translator;
+    }
+    return new CachingTranslatorToCAst(translator, module, configuration);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return entities.size();
+  }
+
+  public void clear() {
+    entities.clear();
+  }
+
+  /**
+   * @return a digest of the contents of module, read from its URL, or null if it has none. The
+   *     module's own input stream is not used, since the translator may already hold it and some
+   *     modules return the same one-shot stream every time.
+   */
+  private static String digest(ModuleEntry module) throws IOException {
+    URL url = module instanceof SourceModule ? ((SourceModule) module).getURL() : null;
+    if (url == null) {
+      return null;
+    }
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    try (final InputStream s = url.openStream()) {
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = s.read(buffer)) != -1) {
+        md.update(buffer, 0, n);
+      }
+    }
+    StringBuilder result = new StringBuilder();
+    for (byte b : md.digest()) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+
+  private static final class Key {
+    private final String name;
+    private final String digest;
+    private final List<Object> options;
+
+    private Key(String name, String digest, List<Object> options) {
+      this.name = name;
+      this.digest = digest;
+      this.options = options;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(new Object[] {name, digest, options});
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return name.equals(other.name)
+          && digest.equals(other.digest)
+          && options.equals(other.options);
+    }
+  }
+
+  private class CachingTranslatorToCAst implements TranslatorToCAst {
+    private final TranslatorToCAst base;
+    private final ModuleEntry M;
+    /**
+     * the configurations of the translator and then of its rewriters, in order; null once a
+     * rewriter without a configuration has been added
+     */
+    private List<Object> options = new ArrayList<>();
+
+    private CachingTranslatorToCAst(TranslatorToCAst base, ModuleEntry M, Object configuration) {
+      this.base = base;
+      this.M = M;
+      this.options.add(configuration);
+    }
+
+    @Override
+    public <C extends RewriteContext<K>, K extends CopyKey<K>> void addRewriter(
+        CAstRewriterFactory<C, K> factory, boolean prepend) {
+      base.addRewriter(factory, prepend);
+      Object configuration = factory.getConfiguration();
+      if (configuration == null) {
+        options = null;
+      } else if (options != null) {
+        if (prepend) options.add(1, configuration);
+        else options.add(configuration);
+      }
+    }
+
+    @Override
+    public CAstEntity translateToCAst() throws Error, IOException {
+      if (options == null) {
+        return base.translateToCAst();
+      }
+      String digest = digest(M);
+      if (digest == null) {
+        return base.translateToCAst();
+      }
+      Key key = new Key(M.getName(), digest, new ArrayList<>(options));
+      SoftReference<CAstEntity> cached = entities.get(key);
+      CAstEntity entity = cached == null ? null : cached.get();
+      if (entity != null) {
+        hits.incrementAndGet();
+        return entity;
+      }
+
+      misses.incrementAndGet();
+      entity = base.translateToCAst();
+      entities.put(key, new SoftReference<>(entity));
+      return entity;
+    }
+  }
+}
@@ -24,23 +24,28 @@ import com.ibm.wala.util.warnings.Warning;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** basic abstract class loader implementation */
 public abstract class CAstAbstractLoader implements IClassLoader {
 
-  /** types loaded by this */
-  protected final Map<TypeName, IClass> types = HashMapFactory.make();
+  /**
+   * types loaded by this. Synchronized, since CAst translation of modules may register types from
+   * several threads; iteration order is still that of registration.
+   */
+  protected final Map<TypeName, IClass> types =
+      Collections.synchronizedMap(HashMapFactory.make());
 
   protected final IClassHierarchy cha;
 
   protected final IClassLoader parent;
 
   /** warnings generated while loading each module */
-  private final Map<ModuleEntry, Set<Warning>> errors = new HashMap<>();
+  private final Map<ModuleEntry, Set<Warning>> errors = new ConcurrentHashMap<>();
 
   public CAstAbstractLoader(IClassHierarchy cha, IClassLoader parent) {
     this.cha = cha;
@@ -52,10 +57,8 @@ public abstract class CAstAbstractLoader implements IClassLoader {
   }
 
   private Set<Warning> messagesFor(ModuleEntry module) {
-    if (!errors.containsKey(module)) {
-      errors.put(module, HashSetFactory.make());
-    }
-    return errors.get(module);
+    return errors.computeIfAbsent(
+        module, m -> Collections.synchronizedSet(HashSetFactory.<Warning>make()));
   }
 
   public void addMessages(ModuleEntry module, Set<Warning> message) {
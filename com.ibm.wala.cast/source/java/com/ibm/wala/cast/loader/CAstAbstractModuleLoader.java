@@ -32,12 +32,15 @@ import com.ibm.wala.classLoader.Module;
 import com.ibm.wala.classLoader.ModuleEntry;
 import com.ibm.wala.classLoader.SourceFileModule;
 import com.ibm.wala.classLoader.SourceModule;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SymbolTable;
 import com.ibm.wala.types.TypeName;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.types.annotations.Annotation;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
@@ -48,12 +51,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * abstract class loader that performs CAst and IR generation for relevant entities in a list of
@@ -98,18 +103,25 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
    */
   protected void finishTranslation() {}
 
+  /**
+   * number of threads used to translate module entries to CAst. The default of 1 translates
+   * everything on the calling thread; subclasses whose CAst translators do not share mutable state
+   * may return more. IR generation is always done sequentially, in module order.
+   */
+  protected int getTranslationParallelism() {
+    return 1;
+  }
+
   @Override
   public void init(final List<Module> modules) {
 
     final CAst ast = new CAstImpl();
 
     // convert everything to CAst
-    final Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities = new LinkedHashSet<>();
-    for (Module module : modules) {
-      translateModuleToCAst(module, ast, topLevelEntities);
-    }
+    final Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities =
+        translateModulesToCAst(modules, ast);
 
-    // generate IR as needed
+    // generate IR as needed, in module order so that class creation is deterministic
     final TranslatorToIR xlatorToIR = initTranslator();
 
     for (Pair<CAstEntity, ModuleEntry> p : topLevelEntities) {
@@ -133,28 +145,70 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
     finishTranslation();
   }
 
-  /** translate moduleEntry to CAst and store result in topLevelEntities */
-  private void translateModuleEntryToCAst(
-      ModuleEntry moduleEntry, CAst ast, Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities) {
+  /**
+   * translate all relevant entities in the modules to CAst, possibly in parallel. The result is
+   * ordered as the module entries are, regardless of the order in which translation finishes.
+   */
+  private Set<Pair<CAstEntity, ModuleEntry>> translateModulesToCAst(
+      List<Module> modules, CAst ast) {
+    final List<ModuleEntry> entries = new ArrayList<>();
+    for (Module module : modules) {
+      collectModuleEntries(module, entries);
+    }
+
+    List<Callable<CAstEntity>> tasks = new ArrayList<>(entries.size());
+    for (ModuleEntry moduleEntry : entries) {
+      tasks.add(() -> translateModuleEntryToCAst(moduleEntry, ast));
+    }
+    List<CAstEntity> fileEntities;
     try {
-      if (moduleEntry.isModuleFile()) {
+      fileEntities =
+          ParallelIntraproceduralAnalysis.runAll(
+              tasks, getTranslationParallelism(), null, RuntimeException.class);
+    } catch (CancelException e) {
+      throw new CancelRuntimeException(e);
+    }
+
+    final Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities = new LinkedHashSet<>();
+    for (int i = 0; i < fileEntities.size(); i++) {
+      if (fileEntities.get(i) != null) {
+        topLevelEntities.add(Pair.make(fileEntities.get(i), entries.get(i)));
+      }
+    }
+    return topLevelEntities;
+  }
+
+  /** add all non-module entries of module, including those of nested modules, to entries */
+  private void collectModuleEntries(Module module, List<ModuleEntry> entries) {
+    for (ModuleEntry me : Iterator2Iterable.make(module.getEntries())) {
+      if (me.isModuleFile()) {
         // nested module
-        translateModuleToCAst(moduleEntry.asModule(), ast, topLevelEntities);
+        collectModuleEntries(me.asModule(), entries);
       } else {
-        TranslatorToCAst xlatorToCAst = getTranslatorToCAst(ast, moduleEntry);
+        entries.add(me);
+      }
+    }
+  }
 
-        CAstEntity fileEntity = null;
-        try {
-          fileEntity = xlatorToCAst.translateToCAst();
+  /**
+   * translate moduleEntry to CAst. Problems are recorded as messages for moduleEntry.
+   *
+   * @return the file entity for moduleEntry, or null if it could not be translated
+   */
+  private CAstEntity translateModuleEntryToCAst(ModuleEntry moduleEntry, CAst ast) {
+    try {
+      TranslatorToCAst xlatorToCAst = getTranslatorToCAst(ast, moduleEntry);
 
-          if (DEBUG) {
-            CAstPrinter.printTo(fileEntity, new PrintWriter(System.err));
-          }
-          topLevelEntities.add(Pair.make(fileEntity, moduleEntry));
+      try {
+        CAstEntity fileEntity = xlatorToCAst.translateToCAst();
 
-        } catch (TranslatorToCAst.Error e) {
-          addMessages(moduleEntry, e.warning);
+        if (DEBUG) {
+          CAstPrinter.printTo(fileEntity, new PrintWriter(System.err));
         }
+        return fileEntity;
+
+      } catch (TranslatorToCAst.Error e) {
+        addMessages(moduleEntry, e.warning);
       }
     } catch (final IOException e) {
       addMessage(
@@ -178,16 +232,7 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
             }
           });
     }
-  }
-
-  /**
-   * translate all relevant entities in the module to CAst, storing the results in topLevelEntities
-   */
-  private void translateModuleToCAst(
-      Module module, CAst ast, Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities) {
-    for (ModuleEntry me : Iterator2Iterable.make(module.getEntries())) {
-      translateModuleEntryToCAst(me, ast, topLevelEntities);
-    }
+    return null;
   }
 
   public class DynamicCodeBody extends AstFunctionClass {
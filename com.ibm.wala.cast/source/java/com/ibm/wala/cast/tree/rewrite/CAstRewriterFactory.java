@@ -16,4 +16,13 @@ public interface CAstRewriterFactory<
     C extends CAstRewriter.RewriteContext<K>, K extends CAstRewriter.CopyKey<K>> {
 
   public CAstRewriter<C, K> createCAstRewriter(CAst ast);
+
+  /**
+   * @return a value describing how the rewriters of this factory rewrite a tree, e.g. its class and
+   *     parameters, such that factories with equal configurations rewrite any tree the same way; or
+   *     null if there is no such description. Used to share rewritten CAst between translators.
+   */
+  default Object getConfiguration() {
+    return null;
+  }
 }
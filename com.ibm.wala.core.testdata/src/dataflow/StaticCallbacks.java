@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package dataflow;
+
+/**
+ * test cases for reusing dataflow summaries across programs: {@link First} and {@link Second} are
+ * two programs that pass a definition of a static field into the same library method, which calls
+ * back a different method in each. The definition reaches both callbacks, but only the one in
+ * {@link Second} defines a static field itself.
+ */
+public class StaticCallbacks {
+
+  static int f;
+
+  static int g;
+
+  static void setF() {
+    f = 1;
+  }
+
+  public static class First {
+
+    @Override
+    public String toString() {
+      return "first";
+    }
+
+    public static void main(String[] args) {
+      setF();
+      new StringBuilder().append(new First());
+    }
+  }
+
+  public static class Second {
+
+    @Override
+    public String toString() {
+      g = 2;
+      return "second";
+    }
+
+    public static void main(String[] args) {
+      setF();
+      new StringBuilder().append(new Second());
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.LocalPathEdges;
+import com.ibm.wala.dataflow.IFDS.OffHeapLocalPathEdges;
+import com.ibm.wala.dataflow.IFDS.OffHeapPathEdgeArena;
+import com.ibm.wala.util.intset.IntSet;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test that {@link OffHeapLocalPathEdges} records the same path edges as {@link LocalPathEdges} */
+public class OffHeapLocalPathEdgesTest extends WalaTestCase {
+
+  private static final int NODES = 100;
+
+  private static final int FACTS = 20;
+
+  private static void assertSameValue(IntSet expected, IntSet actual) {
+    if (expected == null || expected.isEmpty()) {
+      Assert.assertTrue(actual == null || actual.isEmpty());
+    } else {
+      Assert.assertNotNull(actual);
+      Assert.assertTrue(expected + " vs " + actual, expected.sameValue(actual));
+    }
+  }
+
+  private static void assertSameEdges(LocalPathEdges expected, OffHeapLocalPathEdges offHeap) {
+    for (int n = 0; n < NODES; n++) {
+      assertSameValue(expected.getReachable(n), offHeap.getReachable(n));
+      for (int d = 0; d < FACTS; d++) {
+        assertSameValue(expected.getReachable(n, d), offHeap.getReachable(n, d));
+        IntSet inverse = expected.getInverse(n, d);
+        if (inverse == null || !inverse.contains(0)) {
+          // with fact 0, LocalPathEdges may leave out other facts
+          assertSameValue(inverse, offHeap.getInverse(n, d));
+        }
+        for (int d1 = 0; d1 < FACTS; d1++) {
+          Assert.assertEquals(expected.contains(d1, n, d), offHeap.contains(d1, n, d));
+        }
+      }
+    }
+    assertSameValue(expected.getReachedNodeNumbers(), offHeap.getReachedNodeNumbers());
+  }
+
+  /**
+   * Add the same random path edges to procedures.length pairs of path edge sets, a few edges to
+   * each pair in turn, so that the off-heap sets grow in between each other.
+   */
+  private static void assertSameEdges(OffHeapPathEdgeArena arena, int procedures, int edges) {
+    LocalPathEdges[] expected = new LocalPathEdges[procedures];
+    OffHeapLocalPathEdges[] offHeap = new OffHeapLocalPathEdges[procedures];
+    for (int p = 0; p < procedures; p++) {
+      expected[p] = new LocalPathEdges(true);
+      offHeap[p] = new OffHeapLocalPathEdges(arena);
+    }
+    Random random = new Random(17);
+    for (int k = 0; k < edges; k++) {
+      int p = (k / 7) % procedures;
+      int i = random.nextInt(4) == 0 ? 0 : random.nextInt(FACTS);
+      int n = random.nextInt(NODES);
+      int j = random.nextInt(4) == 0 ? i : random.nextInt(FACTS);
+      Assert.assertEquals(expected[p].contains(i, n, j), offHeap[p].contains(i, n, j));
+      expected[p].addPathEdge(i, n, j);
+      offHeap[p].addPathEdge(i, n, j);
+    }
+    for (int p = 0; p < procedures; p++) {
+      assertSameEdges(expected[p], offHeap[p]);
+    }
+  }
+
+  @Test
+  public void testDirect() {
+    assertSameEdges(new OffHeapPathEdgeArena(), 1, 20000);
+  }
+
+  @Test
+  public void testSpilled() throws IOException {
+    File dir = Files.createTempDirectory("pathEdges").toFile();
+    try (OffHeapPathEdgeArena arena = new OffHeapPathEdgeArena(dir)) {
+      assertSameEdges(arena, 1, 20000);
+    } finally {
+      dir.delete();
+    }
+  }
+
+  /** Buffers that one procedure outgrew are reused by others, and must not leak edges into them. */
+  @Test
+  public void testSharedArena() throws IOException {
+    File dir = Files.createTempDirectory("pathEdges").toFile();
+    try (OffHeapPathEdgeArena arena = new OffHeapPathEdgeArena(dir)) {
+      assertSameEdges(arena, 50, 50000);
+      // all procedures fit in the first chunks, rather than in files of their own
+      Assert.assertTrue(arena.getReservedBytes() < 4L * OffHeapPathEdgeArena.MAX_CHUNK_INTS);
+    } finally {
+      dir.delete();
+    }
+  }
+}
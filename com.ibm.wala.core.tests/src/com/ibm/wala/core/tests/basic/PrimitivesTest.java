@@ -18,7 +18,10 @@ import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.SmallMap;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
 import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.GenericDominators;
+import com.ibm.wala.util.graph.impl.InvertedGraph;
 import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
 import com.ibm.wala.util.graph.traverse.BFSPathFinder;
 import com.ibm.wala.util.graph.traverse.BoundedBFSIterator;
@@ -50,6 +53,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -803,6 +807,39 @@ public class PrimitivesTest extends WalaTestCase {
     Assert.assertTrue(D.dominatorTree().getSuccNodeCount(nodes[10]) == 5);
   }
 
+  /** Check the int-based dominators and frontiers of numbered graphs against the generic ones */
+  @Test
+  public void testNumberedDominators() {
+    Random r = new Random(7);
+    for (int t = 0; t < 500; t++) {
+      NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+      int n = 1 + r.nextInt(30);
+      for (int i = 0; i < n; i++) G.addNode(Integer.valueOf(i));
+      for (int e = r.nextInt(3 * n); e > 0; e--) {
+        G.addEdge(Integer.valueOf(r.nextInt(n)), Integer.valueOf(r.nextInt(n)));
+      }
+      Integer root = Integer.valueOf(r.nextInt(n));
+      // hide the numbering from the generic implementations
+      Graph<Integer> plain = new InvertedGraph<>(new InvertedGraph<>(G));
+
+      Dominators<Integer> D = Dominators.make(G, root);
+      Dominators<Integer> expected = new GenericDominators<>(plain, root);
+      DominanceFrontiers<Integer> DF = new DominanceFrontiers<>(G, root);
+      DominanceFrontiers<Integer> expectedDF = new DominanceFrontiers<>(plain, root);
+      for (Integer x : G) {
+        Assert.assertEquals(expected.getIdom(x), D.getIdom(x));
+        if (x.equals(root) || D.getIdom(x) != null) {
+          Assert.assertEquals(
+              Iterator2Collection.toSet(expectedDF.getDominanceFrontier(x)),
+              Iterator2Collection.toSet(DF.getDominanceFrontier(x)));
+          Assert.assertEquals(
+              Iterator2Collection.toSet(expected.dominatorTree().getSuccNodes(x)),
+              Iterator2Collection.toSet(D.dominatorTree().getSuccNodes(x)));
+        }
+      }
+    }
+  }
+
   @Test
   public void testBinaryIntegerRelation() {
     byte[] impl =
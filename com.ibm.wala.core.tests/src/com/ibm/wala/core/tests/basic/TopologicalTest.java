@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.Topological;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that {@link Topological#makeTopologicalOrder(int[], int[], int[], int[])} orders the nodes
+ * of a graph as {@link Topological#makeTopologicalIter(com.ibm.wala.util.graph.Graph)} does.
+ */
+public class TopologicalTest {
+
+  private static NumberedGraph<Integer> makeGraph(int n, int[][] edges) {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < n; i++) {
+      G.addNode(i);
+    }
+    for (int[] edge : edges) {
+      G.addEdge(edge[0], edge[1]);
+    }
+    return G;
+  }
+
+  /** @return the edges given by edgeNumbers, as start offsets per node followed by the targets */
+  private static int[][] toArrays(
+      NumberedGraph<Integer> G, Function<Integer, IntSet> edgeNumbers) {
+    int n = G.getNumberOfNodes();
+    int[] start = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      IntSet numbers = edgeNumbers.apply(i);
+      start[i + 1] = start[i] + (numbers == null ? 0 : numbers.size());
+    }
+    int[] edges = new int[start[n]];
+    for (int i = 0; i < n; i++) {
+      IntSet numbers = edgeNumbers.apply(i);
+      if (numbers != null) {
+        int j = start[i];
+        // sparse sets are iterated in increasing order
+        for (IntIterator it = numbers.intIterator(); it.hasNext(); ) {
+          edges[j++] = it.next();
+        }
+      }
+    }
+    return new int[][] {start, edges};
+  }
+
+  private static int[] check(NumberedGraph<Integer> G) {
+    int[][] succ = toArrays(G, G::getSuccNodeNumbers);
+    int[][] pred = toArrays(G, G::getPredNodeNumbers);
+    int[] order = Topological.makeTopologicalOrder(succ[0], succ[1], pred[0], pred[1]);
+
+    int[] expected = new int[G.getNumberOfNodes()];
+    int i = 0;
+    for (int node : Topological.makeTopologicalIter(G)) {
+      expected[i++] = node;
+    }
+    Assert.assertArrayEquals(expected, order);
+    return order;
+  }
+
+  @Test
+  public void testDag() {
+    int[] order = check(makeGraph(5, new int[][] {{3, 1}, {1, 0}, {3, 4}, {4, 0}, {2, 3}}));
+    Assert.assertArrayEquals(new int[] {2, 3, 4, 1, 0}, order);
+  }
+
+  @Test
+  public void testCycles() {
+    // 0 -> {1 -> 2 -> 1} -> {3 -> 4 -> 5 -> 3}, with 6 unconnected
+    int[] order =
+        check(makeGraph(7, new int[][] {{0, 1}, {1, 2}, {2, 1}, {2, 3}, {3, 4}, {4, 5}, {5, 3}}));
+    int[] position = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      position[order[i]] = i;
+    }
+    Assert.assertTrue(position[0] < position[1] && position[0] < position[2]);
+    Assert.assertTrue(position[1] < position[3] && position[2] < position[3]);
+  }
+
+  @Test
+  public void testEmpty() {
+    int[] order =
+        Topological.makeTopologicalOrder(new int[] {0}, new int[0], new int[] {0}, new int[0]);
+    Assert.assertEquals(0, order.length);
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    Random random = new Random(45);
+    for (int g = 0; g < 200; g++) {
+      int n = 1 + random.nextInt(60);
+      int[][] edges = new int[random.nextInt(3 * n)][];
+      for (int e = 0; e < edges.length; e++) {
+        edges[e] = new int[] {random.nextInt(n), random.nextInt(n)};
+      }
+      check(makeGraph(n, edges));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.analysis.typeInference.TypeInference;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.IVector;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that analyzing call graph nodes in parallel gives the same results as one at a time */
+public class ParallelIntraproceduralAnalysisTest extends WalaTestCase {
+
+  private static String types(IR ir) {
+    TypeInference ti = TypeInference.make(ir, true);
+    StringBuilder result = new StringBuilder();
+    for (int v = 1; v <= ir.getSymbolTable().getMaxValueNumber(); v++) {
+      result.append(ti.getType(v)).append(';');
+    }
+    return result.toString();
+  }
+
+  @Test
+  public void testParallelTypeInference()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.HELLO_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraph cg = CallGraphTestUtil.buildRTA(options, new AnalysisCacheImpl(), cha, scope);
+
+    IVector<String> byNode =
+        ParallelIntraproceduralAnalysis.analyzeNodes(cg, (n, ir) -> types(ir), 4, null);
+    IVector<String> parallel =
+        ParallelIntraproceduralAnalysis.analyzeMethods(
+            cg, new AnalysisCacheImpl(), (m, ir) -> types(ir), 4, null);
+    IVector<String> sequential =
+        ParallelIntraproceduralAnalysis.analyzeMethods(
+            cg, new AnalysisCacheImpl(), (m, ir) -> types(ir), 1, null);
+
+    int analyzed = 0;
+    for (CGNode n : cg) {
+      int number = cg.getNumber(n);
+      Assert.assertEquals(n.toString(), sequential.get(number), parallel.get(number));
+      Assert.assertEquals(n.getIR() == null, byNode.get(number) == null);
+      if (parallel.get(number) != null) {
+        analyzed++;
+      }
+    }
+    Assert.assertTrue(analyzed > 0);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.cfg;
+
+import com.ibm.wala.cfg.cdg.ControlDependenceGraph;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.ISSABasicBlock;
+import com.ibm.wala.ssa.SSACFG;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.GenericDominators;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.IOException;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares {@link ControlDependenceGraph} with control dependence computed from its definition: y
+ * is control dependent on x iff y post-dominates a successor s of x, but does not strictly
+ * post-dominate x; the edge x -&gt; y is labeled with every such s. Post-dominators are computed
+ * with {@link GenericDominators}, independently of the numbered dominators the graph is built from.
+ */
+public class ControlDependenceGraphTest extends WalaTestCase {
+
+  private static IClassHierarchy cha;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException, ClassHierarchyException {
+    cha =
+        ClassHierarchyFactory.make(
+            AnalysisScopeReader.readJavaScope(
+                TestConstants.WALA_TESTDATA,
+                new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS),
+                ControlDependenceGraphTest.class.getClassLoader()));
+  }
+
+  /** irreducible loops, and a loop around a switch whose cases jump into each other */
+  @Test
+  public void testIrreducibleFlow() {
+    checkClass(ClassLoaderReference.Application, "LIrreducibleFlow");
+  }
+
+  /** nested loops and branches, e.g. in the red-black tree fix-ups */
+  @Test
+  public void testTreeMap() {
+    checkClass(ClassLoaderReference.Primordial, "Ljava/util/TreeMap");
+  }
+
+  private static void checkClass(ClassLoaderReference loader, String name) {
+    IClass klass = cha.lookupClass(TypeReference.findOrCreate(loader, name));
+    Assert.assertNotNull(name, klass);
+    int checked = 0;
+    for (IMethod method : klass.getDeclaredMethods()) {
+      if (!method.isAbstract() && !method.isNative()) {
+        IR ir =
+            new DefaultIRFactory()
+                .makeIR(method, Everywhere.EVERYWHERE, SSAOptions.defaultOptions());
+        check(ir.getControlFlowGraph());
+        checked++;
+      }
+    }
+    Assert.assertTrue(checked > 0);
+  }
+
+  private static void check(SSACFG cfg) {
+    ControlDependenceGraph<ISSABasicBlock> cdg = new ControlDependenceGraph<>(cfg, true);
+    Dominators<ISSABasicBlock> postDominators =
+        new GenericDominators<>(GraphInverter.invert(cfg), cfg.exit());
+
+    for (ISSABasicBlock x : cfg) {
+      Set<ISSABasicBlock> succs = HashSetFactory.make();
+      for (ISSABasicBlock y : cfg) {
+        Set<ISSABasicBlock> labels = HashSetFactory.make();
+        if (y == x || !postDominators.isDominatedBy(x, y)) {
+          for (ISSABasicBlock s : Iterator2Iterable.make(cfg.getSuccNodes(x))) {
+            if (postDominators.isDominatedBy(s, y)) {
+              labels.add(s);
+            }
+          }
+        }
+        String edge = cfg.getMethod() + ": " + x + " -> " + y;
+        Assert.assertEquals(edge, !labels.isEmpty(), cdg.hasEdge(x, y));
+        if (labels.isEmpty()) {
+          Assert.assertNull(edge, cdg.getEdgeLabels(x, y));
+        } else {
+          succs.add(y);
+          Assert.assertEquals(edge, labels, cdg.getEdgeLabels(x, y));
+          // labels are computed once per edge
+          Assert.assertSame(cdg.getEdgeLabels(x, y), cdg.getEdgeLabels(x, y));
+          Assert.assertTrue(edge, Iterator2Collection.toSet(cdg.getPredNodes(y)).contains(x));
+        }
+      }
+      Assert.assertEquals(succs, Iterator2Collection.toSet(cdg.getSuccNodes(x)));
+      Assert.assertEquals(succs.size(), cdg.getSuccNodeCount(x));
+      Assert.assertEquals(succs.size(), cdg.getSuccNodeNumbers(x).size());
+    }
+    for (ISSABasicBlock y : cfg) {
+      int preds = 0;
+      for (ISSABasicBlock x : cfg) {
+        if (cdg.hasEdge(x, y)) {
+          preds++;
+        }
+      }
+      Assert.assertEquals(preds, cdg.getPredNodeCount(y));
+      Assert.assertEquals(preds, Iterator2Collection.toSet(cdg.getPredNodes(y)).size());
+      Assert.assertEquals(preds, cdg.getPredNodeNumbers(y).size());
+    }
+  }
+}
@@ -4,7 +4,9 @@ import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 
+import com.ibm.wala.analysis.exceptionanalysis.BottomUpExceptionAnalysis;
 import com.ibm.wala.analysis.exceptionanalysis.ExceptionAnalysis;
+import com.ibm.wala.analysis.exceptionanalysis.ExceptionSummaryCache;
 import com.ibm.wala.analysis.exceptionanalysis.IntraproceduralExceptionAnalysis;
 import com.ibm.wala.classLoader.CallSiteReference;
 import com.ibm.wala.classLoader.Language;
@@ -205,4 +207,34 @@ public class ExceptionAnalysisTest {
       }
     }
   }
+
+  @Test
+  public void testBottomUp() {
+    ExceptionAnalysis analysis = new ExceptionAnalysis(cg, pointerAnalysis, cha, filter);
+    analysis.solve();
+    ExceptionSummaryCache cache = new ExceptionSummaryCache();
+    BottomUpExceptionAnalysis bottomUp =
+        new BottomUpExceptionAnalysis(cg, pointerAnalysis, cha, filter, cache, 4);
+    bottomUp.solve();
+
+    for (CGNode node : cg) {
+      collector.checkThat(
+          node.toString(),
+          bottomUp.getCGNodeExceptions(node),
+          equalTo(analysis.getCGNodeExceptions(node)));
+    }
+    collector.checkThat(bottomUp.getNumberOfReusedComponents(), equalTo(0));
+
+    BottomUpExceptionAnalysis cached =
+        new BottomUpExceptionAnalysis(cg, pointerAnalysis, cha, filter, cache, 1);
+    cached.solve();
+    for (CGNode node : cg) {
+      collector.checkThat(
+          node.toString(),
+          cached.getCGNodeExceptions(node),
+          equalTo(analysis.getCGNodeExceptions(node)));
+    }
+    collector.checkThat(
+        cached.getNumberOfReusedComponents(), equalTo(cached.getNumberOfComponents()));
+  }
 }
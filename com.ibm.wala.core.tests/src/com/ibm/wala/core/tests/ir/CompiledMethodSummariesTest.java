@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.summaries.CompiledMethodSummaries;
+import com.ibm.wala.ipa.summaries.MethodSummary;
+import com.ibm.wala.ipa.summaries.MethodSummaryCache;
+import com.ibm.wala.ipa.summaries.XMLMethodSummaryReader;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.types.MethodReference;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test that compiled and cached method summaries are the same as those read from XML */
+public class CompiledMethodSummariesTest extends WalaTestCase {
+
+  private static byte[] compile(String resource) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (final InputStream s =
+        CompiledMethodSummariesTest.class.getClassLoader().getResourceAsStream(resource)) {
+      CompiledMethodSummaries.compile(s, out);
+    }
+    return out.toByteArray();
+  }
+
+  private static void assertSameSummaries(
+      Map<MethodReference, MethodSummary> expected, Map<MethodReference, MethodSummary> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<MethodReference, MethodSummary> entry : expected.entrySet()) {
+      MethodSummary e = entry.getValue();
+      MethodSummary a = actual.get(entry.getKey());
+      Assert.assertEquals(e.isStatic(), a.isStatic());
+      Assert.assertEquals(e.isFactory(), a.isFactory());
+      Assert.assertEquals(e.getPoison(), a.getPoison());
+      Assert.assertEquals(
+          Arrays.toString(e.getStatements()), Arrays.toString(a.getStatements()));
+      Assert.assertEquals(e.getConstants(), a.getConstants());
+    }
+  }
+
+  @Test
+  public void testCompiledNatives() throws IOException {
+    AnalysisScope scope = AnalysisScope.createJavaAnalysisScope();
+    XMLMethodSummaryReader xml;
+    try (final InputStream s =
+        CompiledMethodSummariesTest.class.getClassLoader().getResourceAsStream("natives.xml")) {
+      xml = new XMLMethodSummaryReader(s, scope);
+    }
+    byte[] compiled = compile("natives.xml");
+    Assert.assertTrue(CompiledMethodSummaries.isCompiled(compiled));
+    XMLMethodSummaryReader binary =
+        CompiledMethodSummaries.read(new ByteArrayInputStream(compiled), scope);
+
+    Assert.assertFalse(xml.getSummaries().isEmpty());
+    assertSameSummaries(xml.getSummaries(), binary.getSummaries());
+    Assert.assertEquals(xml.getAllocatableClasses(), binary.getAllocatableClasses());
+    Assert.assertEquals(xml.getIgnoredPackages(), binary.getIgnoredPackages());
+  }
+
+  @Test
+  public void testSharedSummaries() throws IOException {
+    AnalysisScope scope = AnalysisScope.createJavaAnalysisScope();
+    MethodSummaryCache cache = new MethodSummaryCache();
+    byte[] compiled = compile("natives.xml");
+
+    MethodSummaryCache.Summaries first =
+        cache.get(MethodSummaryCache.ANY_VERSION, new ByteArrayInputStream(compiled), scope);
+    MethodSummaryCache.Summaries second =
+        cache.get(MethodSummaryCache.ANY_VERSION, new ByteArrayInputStream(compiled), scope);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+
+    // another version must not share the summaries
+    MethodSummaryCache.Summaries other =
+        cache.get(26, new ByteArrayInputStream(compiled), scope);
+    Assert.assertNotSame(first, other);
+    Assert.assertEquals(2, cache.size());
+    assertSameSummaries(first.getSummaries(), other.getSummaries());
+  }
+}
@@ -18,9 +18,13 @@ import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
 import com.ibm.wala.ipa.callgraph.impl.Everywhere;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.DefUse;
 import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SymbolTable;
 import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.graph.GraphIntegrity;
 import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
 import com.ibm.wala.util.strings.Atom;
@@ -85,6 +89,36 @@ public abstract class DeterministicIRTest extends WalaTestCase {
     }
 
     Assert.assertEquals(ir1.toString(), ir2.toString());
+
+    checkDefUse(ir1);
+    ir2.getSymbolTable().compact();
+    Assert.assertEquals(ir1.toString(), ir2.toString());
+    for (int v = 1; v <= ir1.getSymbolTable().getMaxValueNumber(); v++) {
+      if (ir1.getSymbolTable().isConstant(v)) {
+        Object c = ir1.getSymbolTable().getConstantValue(v);
+        Assert.assertEquals(
+            ir1.getSymbolTable().getOtherConstant(c), ir2.getSymbolTable().getOtherConstant(c));
+      }
+    }
+    // the next free value number still has no value, and the ones past it are out of range
+    SymbolTable compact = ir2.getSymbolTable();
+    int next = compact.getMaxValueNumber() + 1;
+    Assert.assertFalse(compact.isConstant(next));
+    Assert.assertFalse(compact.isZero(next));
+    Assert.assertNull(compact.getPhiValue(next));
+    Assert.assertFalse(compact.isConstant(next + 1));
+    try {
+      compact.isZero(next + 1);
+      Assert.fail("expected IllegalArgumentException for v" + (next + 1));
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      compact.getPhiValue(next + 1);
+      Assert.fail("expected IllegalArgumentException for v" + (next + 1));
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
     return ir1;
   }
 
@@ -96,6 +130,27 @@ public abstract class DeterministicIRTest extends WalaTestCase {
     }
   }
 
+  private static void checkDefUse(IR ir) {
+    DefUse du = new DefUse(ir);
+    int uses = 0;
+    for (SSAInstruction s : Iterator2Iterable.make(ir.iterateAllInstructions())) {
+      for (int i = 0; i < s.getNumberOfDefs(); i++) {
+        Assert.assertSame(s, du.getDef(s.getDef(i)));
+      }
+      for (int i = 0; i < s.getNumberOfUses(); i++) {
+        if (s.getUse(i) != -1) {
+          Assert.assertTrue(Iterator2Collection.toSet(du.getUses(s.getUse(i))).contains(s));
+        }
+      }
+    }
+    for (int v = 1; v <= ir.getSymbolTable().getMaxValueNumber(); v++) {
+      Assert.assertEquals(du.getNumberOfUses(v), Iterator2Collection.toSet(du.getUses(v)).size());
+      Assert.assertEquals(du.isUnused(v), du.getNumberOfUses(v) == 0);
+      uses += du.getNumberOfUses(v);
+    }
+    Assert.assertTrue(uses > 0);
+  }
+
   private static void checkNotAllNull(SSAInstruction[] instructions) {
     for (SSAInstruction instruction : instructions) {
       if (instruction != null) {
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.ShrikeIRFactory;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.ISSABasicBlock;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.ssa.SSAPiInstruction;
+import com.ibm.wala.ssa.SymbolTable;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the IRs built with phis for locals placed from dominance frontiers, {@code new
+ * ShrikeIRFactory(true)}, with those of the default {@link ShrikeIRFactory}. They must be the same
+ * up to value numbering, once redundant phis are replaced by the one value they merge, e.g. a phi
+ * of a value and itself at a loop header.
+ */
+public class DominanceFrontierPhisTest extends WalaTestCase {
+
+  private static IClassHierarchy cha;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException, ClassHierarchyException {
+    cha =
+        ClassHierarchyFactory.make(
+            AnalysisScopeReader.readJavaScope(
+                TestConstants.WALA_TESTDATA,
+                new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS),
+                DominanceFrontierPhisTest.class.getClassLoader()));
+  }
+
+  /** irreducible loops, and a loop around a switch whose cases jump into each other */
+  @Test
+  public void testIrreducibleFlow() {
+    checkClass(ClassLoaderReference.Application, "LIrreducibleFlow");
+  }
+
+  /** nested loops, and locals that are stored in some iterations only */
+  @Test
+  public void testTreeMap() {
+    checkClass(ClassLoaderReference.Primordial, "Ljava/util/TreeMap");
+  }
+
+  /** exception handlers, and locals live across them */
+  @Test
+  public void testCollections() {
+    checkClass(ClassLoaderReference.Primordial, "Ljava/util/Collections");
+  }
+
+  private static void checkClass(ClassLoaderReference loader, String name) {
+    IClass klass = cha.lookupClass(TypeReference.findOrCreate(loader, name));
+    Assert.assertNotNull(name, klass);
+    SSAOptions pis = new SSAOptions();
+    pis.setPiNodePolicy(SSAOptions.getAllBuiltInPiNodes());
+    int checked = 0;
+    for (IMethod method : klass.getDeclaredMethods()) {
+      if (!method.isAbstract() && !method.isNative()) {
+        @SuppressWarnings("unchecked")
+        IBytecodeMethod<IInstruction> m = (IBytecodeMethod<IInstruction>) method;
+        for (SSAOptions options : new SSAOptions[] {SSAOptions.defaultOptions(), pis}) {
+          IR expected = new ShrikeIRFactory().makeIR(m, Everywhere.EVERYWHERE, options);
+          IR actual = new ShrikeIRFactory(true).makeIR(m, Everywhere.EVERYWHERE, options);
+          new ValueMatcher(expected, actual).check();
+        }
+        checked++;
+      }
+    }
+    Assert.assertTrue(checked > 0);
+  }
+
+  /** A one-to-one mapping of the values of two IRs, built as their instructions are matched. */
+  private static class ValueMatcher {
+    private final IR expected;
+
+    private final IR actual;
+
+    private final int[] expectedValue;
+
+    private final int[] actualValue;
+
+    private final int[] toActual;
+
+    private final int[] toExpected;
+
+    ValueMatcher(IR expected, IR actual) {
+      this.expected = expected;
+      this.actual = actual;
+      this.expectedValue = resolveRedundantPhis(expected);
+      this.actualValue = resolveRedundantPhis(actual);
+      this.toActual = new int[expected.getSymbolTable().getMaxValueNumber() + 1];
+      this.toExpected = new int[actual.getSymbolTable().getMaxValueNumber() + 1];
+    }
+
+    void check() {
+      SSAInstruction[] e = expected.getInstructions();
+      SSAInstruction[] a = actual.getInstructions();
+      Assert.assertEquals(message(), e.length, a.length);
+      for (int i = 0; i < e.length; i++) {
+        match(e[i], a[i]);
+      }
+      for (ISSABasicBlock bb : expected.getControlFlowGraph()) {
+        ISSABasicBlock other = actual.getControlFlowGraph().getNode(bb.getNumber());
+        List<SSAInstruction> ePhis = nonRedundantPhis(bb, expectedValue);
+        List<SSAInstruction> aPhis = nonRedundantPhis(other, actualValue);
+        Assert.assertEquals(message() + " phis of " + bb, ePhis.size(), aPhis.size());
+        for (int i = 0; i < ePhis.size(); i++) {
+          match(ePhis.get(i), aPhis.get(i));
+        }
+        List<SSAPiInstruction> ePis = new ArrayList<>();
+        bb.iteratePis().forEachRemaining(ePis::add);
+        List<SSAPiInstruction> aPis = new ArrayList<>();
+        other.iteratePis().forEachRemaining(aPis::add);
+        Assert.assertEquals(message() + " pis of " + bb, ePis.size(), aPis.size());
+        for (int i = 0; i < ePis.size(); i++) {
+          match(ePis.get(i), aPis.get(i));
+        }
+      }
+    }
+
+    private void match(SSAInstruction e, SSAInstruction a) {
+      if (e == null || a == null) {
+        Assert.assertTrue(message(), e == null && a == null);
+        return;
+      }
+      String where = message() + ' ' + e + " / " + a;
+      Assert.assertEquals(where, e.getClass(), a.getClass());
+      Assert.assertEquals(where, e.getNumberOfDefs(), a.getNumberOfDefs());
+      Assert.assertEquals(where, e.getNumberOfUses(), a.getNumberOfUses());
+      for (int i = 0; i < e.getNumberOfDefs(); i++) {
+        match(where, e.getDef(i), a.getDef(i));
+      }
+      for (int i = 0; i < e.getNumberOfUses(); i++) {
+        match(where, e.getUse(i), a.getUse(i));
+      }
+    }
+
+    private void match(String where, int e, int a) {
+      if (e < 0 || a < 0) {
+        Assert.assertEquals(where, e, a);
+        return;
+      }
+      e = expectedValue[e];
+      a = actualValue[a];
+      if (toActual[e] == 0 && toExpected[a] == 0) {
+        SymbolTable eSymbols = expected.getSymbolTable();
+        SymbolTable aSymbols = actual.getSymbolTable();
+        Assert.assertEquals(where, eSymbols.isConstant(e), aSymbols.isConstant(a));
+        if (eSymbols.isConstant(e)) {
+          Assert.assertEquals(where, eSymbols.getConstantValue(e), aSymbols.getConstantValue(a));
+        }
+        Assert.assertEquals(where, eSymbols.isParameter(e), aSymbols.isParameter(a));
+        toActual[e] = a;
+        toExpected[a] = e;
+      }
+      Assert.assertEquals(where, a, toActual[e]);
+      Assert.assertEquals(where, e, toExpected[a]);
+    }
+
+    private String message() {
+      return expected.getMethod().toString();
+    }
+  }
+
+  /**
+   * @return for each value, the value it stands for once redundant phis are replaced: phis that,
+   *     with other phis they use, only merge one other value
+   */
+  private static int[] resolveRedundantPhis(IR ir) {
+    final int unknown = -1;
+    int[] value = new int[ir.getSymbolTable().getMaxValueNumber() + 1];
+    Arrays.setAll(value, v -> v);
+    List<SSAPhiInstruction> phis = new ArrayList<>();
+    for (ISSABasicBlock bb : ir.getControlFlowGraph()) {
+      for (SSAPhiInstruction phi : Iterator2Iterable.make(bb.iteratePhis())) {
+        phis.add(phi);
+        value[phi.getDef()] = unknown;
+      }
+    }
+    // optimistically, every phi is redundant until it merges two different values
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (SSAPhiInstruction phi : phis) {
+        int def = phi.getDef();
+        int merged = unknown;
+        for (int i = 0; i < phi.getNumberOfUses(); i++) {
+          int use = phi.getUse(i) < 0 ? unknown : value[phi.getUse(i)];
+          if (use != unknown && use != merged) {
+            merged = merged == unknown ? use : def;
+          }
+        }
+        if (merged != value[def] && value[def] != def) {
+          value[def] = merged;
+          changed = true;
+        }
+      }
+    }
+    for (SSAPhiInstruction phi : phis) {
+      if (value[phi.getDef()] == unknown) {
+        value[phi.getDef()] = phi.getDef();
+      }
+    }
+    return value;
+  }
+
+  private static List<SSAInstruction> nonRedundantPhis(ISSABasicBlock bb, int[] value) {
+    List<SSAInstruction> result = new ArrayList<>();
+    for (SSAPhiInstruction phi : Iterator2Iterable.make(bb.iteratePhis())) {
+      if (value[phi.getDef()] == phi.getDef()) {
+        result.add(phi);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Descriptor;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import com.ibm.wala.util.strings.Atom;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Pins the SSA form built from bytecode with irreducible control flow and with many merge points,
+ * so that changes to the stack machine that renames locals and stack slots cannot silently change
+ * value numbers, phis or pis.
+ *
+ * <p>{@code IrreducibleFlow} is hand-assembled, as javac does not emit such code: {@code
+ * twoEntries} has a loop that can be entered at two different blocks, and {@code stateMachine} is
+ * a loop around a 96-way switch whose cases jump into each other, with a value left on the operand
+ * stack across a merge. The expected IR, with and without pi nodes, is in {@code
+ * IrreducibleFlow.<method>.ir}.
+ */
+public class IrreducibleFlowTest extends WalaTestCase {
+
+  private static IClassHierarchy cha;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            TestConstants.WALA_TESTDATA,
+            new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS),
+            IrreducibleFlowTest.class.getClassLoader());
+    cha = ClassHierarchyFactory.make(scope);
+  }
+
+  @Test
+  public void testTwoEntries() throws IOException {
+    assertSameIR("twoEntries", "(II)I");
+  }
+
+  @Test
+  public void testStateMachine() throws IOException {
+    assertSameIR("stateMachine", "([I)I");
+  }
+
+  private static void assertSameIR(String name, String descriptor) throws IOException {
+    IClass klass =
+        cha.lookupClass(
+            TypeReference.findOrCreate(ClassLoaderReference.Application, "LIrreducibleFlow"));
+    Assert.assertNotNull(klass);
+    IMethod method =
+        klass.getMethod(
+            new Selector(
+                Atom.findOrCreateUnicodeAtom(name), Descriptor.findOrCreateUTF8(descriptor)));
+    Assert.assertNotNull(method);
+
+    StringBuilder actual = new StringBuilder();
+    for (boolean pis : new boolean[] {false, true}) {
+      SSAOptions options = SSAOptions.defaultOptions();
+      if (pis) {
+        options.setPiNodePolicy(SSAOptions.getAllBuiltInPiNodes());
+      }
+      IR ir = new DefaultIRFactory().makeIR(method, Everywhere.EVERYWHERE, options);
+      actual.append("==== pis=").append(pis).append('\n').append(ir);
+    }
+
+    Assert.assertEquals(read("IrreducibleFlow." + name + ".ir"), trimLines(actual.toString()));
+  }
+
+  private static String read(String resource) throws IOException {
+    StringBuilder result = new StringBuilder();
+    try (InputStream s = IrreducibleFlowTest.class.getClassLoader().getResourceAsStream(resource)) {
+      Assert.assertNotNull(resource, s);
+      BufferedReader r = new BufferedReader(new InputStreamReader(s, StandardCharsets.UTF_8));
+      for (String line = r.readLine(); line != null; line = r.readLine()) {
+        result.append(line).append('\n');
+      }
+    }
+    return trimLines(result.toString());
+  }
+
+  /** drop trailing blanks, which {@link IR#toString()} pads instructions with */
+  private static String trimLines(String s) {
+    StringBuilder result = new StringBuilder();
+    for (String line : s.split("\n", -1)) {
+      int end = line.length();
+      while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+        end--;
+      }
+      result.append(line, 0, end).append('\n');
+    }
+    return result.toString().trim();
+  }
+}
@@ -37,6 +37,7 @@ import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ipa.slicer.MethodEntryStatement;
 import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.PDGCache;
 import com.ibm.wala.ipa.slicer.SDG;
 import com.ibm.wala.ipa.slicer.Slicer;
 import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
@@ -56,6 +57,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Test;
@@ -330,6 +332,49 @@ public class SlicerTest {
     Assert.assertEquals(slice.toString(), 4, slice.size());
   }
 
+  @Test
+  public void testPDGCache()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE8_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode process =
+        CallGraphSearchUtil.findMethod(
+            cg, Descriptor.findOrCreateUTF8("()V"), Atom.findOrCreateUnicodeAtom("process"));
+    Statement s = findCallToDoNothing(process);
+    // slices over SDGs sharing one cache should be the same as over SDGs built from scratch
+    final PointerAnalysis<InstanceKey> pointerAnalysis = builder.getPointerAnalysis();
+    PDGCache<InstanceKey> cache = new PDGCache<>(cg, pointerAnalysis);
+    cache.computeAll(
+        DataDependenceOptions.FULL, ControlDependenceOptions.NO_EXCEPTIONAL_EDGES, null, 2, null);
+    for (DataDependenceOptions d :
+        new DataDependenceOptions[] {
+          DataDependenceOptions.FULL,
+          DataDependenceOptions.NO_BASE_PTRS,
+          DataDependenceOptions.NO_BASE_NO_HEAP
+        }) {
+      for (ControlDependenceOptions c :
+          new ControlDependenceOptions[] {
+            ControlDependenceOptions.NO_EXCEPTIONAL_EDGES, ControlDependenceOptions.NONE
+          }) {
+        Collection<Statement> slice =
+            Slicer.computeBackwardSlice(new SDG<>(cg, pointerAnalysis, d, c), s);
+        Collection<Statement> cachedSlice =
+            Slicer.computeBackwardSlice(new SDG<>(cache, d, c), s);
+        Assert.assertEquals(d + " " + c, new HashSet<>(slice), new HashSet<>(cachedSlice));
+      }
+    }
+  }
+
   @Test
   public void testSlice9()
       throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
@@ -11,10 +11,12 @@
 package com.ibm.wala.core.tests.typeInference;
 
 import com.ibm.wala.analysis.typeInference.ConeType;
+import com.ibm.wala.analysis.typeInference.DenseTypeInference;
 import com.ibm.wala.analysis.typeInference.TypeAbstraction;
 import com.ibm.wala.analysis.typeInference.TypeInference;
 import com.ibm.wala.classLoader.ClassLoaderFactory;
 import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.core.tests.util.TestConstants;
 import com.ibm.wala.core.tests.util.WalaTestCase;
@@ -34,6 +36,7 @@ import com.ibm.wala.util.strings.Atom;
 import com.ibm.wala.util.strings.ImmutableByteArray;
 import com.ibm.wala.util.strings.UTF8Convert;
 import com.ibm.wala.util.warnings.Warnings;
+import java.util.Arrays;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -174,4 +177,28 @@ public class TypeInferenceTest extends WalaTestCase {
                 .toString()
                 .equals("Ljava/lang/String"));
   }
+
+  @Test
+  public void testDense() {
+    int methods = 0;
+    for (IClass klass : cha) {
+      // the code of CodeDeleted is deleted on purpose, see CodeDeletedTest
+      if (klass.getClassLoader().getReference().equals(scope.getApplicationLoader())
+          && !klass.getName().toString().equals("LCodeDeleted")) {
+        for (IMethod m : klass.getDeclaredMethods()) {
+          if (!m.isAbstract() && !m.isNative()) {
+            IR ir = cache.getIRFactory().makeIR(m, Everywhere.EVERYWHERE, options.getSSAOptions());
+            for (boolean doPrimitives : new boolean[] {false, true}) {
+              TypeAbstraction[] expected = TypeInference.make(ir, doPrimitives).extractAllResults();
+              TypeAbstraction[] actual =
+                  DenseTypeInference.make(ir, doPrimitives).extractAllResults();
+              Assert.assertTrue(m.toString(), Arrays.equals(expected, actual));
+            }
+            methods++;
+          }
+        }
+      }
+    }
+    Assert.assertTrue(methods > 0);
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.ShrikeIRFactory;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.perf.Stopwatch;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the construction of IRs for the largest methods in a class hierarchy, by the default {@link
+ * ShrikeIRFactory} and by one that places phis for locals from dominance frontiers, and reports the
+ * bytes allocated and the phis built.
+ *
+ * <p>Arguments: the scope file of the application to analyze, then optionally the number of
+ * methods (default 2000) and of timed rounds (default 5). A few rounds are run first to warm up.
+ */
+public class ComparePhiPlacement {
+
+  private static final int WARMUP_ROUNDS = 3;
+
+  /** counts the bytes allocated by a thread; null if this JVM does not */
+  private static final com.sun.management.ThreadMXBean ALLOCATION =
+      ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+          ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+          : null;
+
+  public static void main(String[] args) throws IOException, ClassHierarchyException {
+    String scopeFile = args[0];
+    int nMethods = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            scopeFile, null, ComparePhiPlacement.class.getClassLoader());
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    List<IBytecodeMethod<IInstruction>> methods = new ArrayList<>();
+    Map<IMethod, Integer> sizes = HashMapFactory.make();
+    for (IClass klass : cha) {
+      for (IMethod method : klass.getDeclaredMethods()) {
+        if (method instanceof IBytecodeMethod && !method.isAbstract() && !method.isNative()) {
+          @SuppressWarnings("unchecked")
+          IBytecodeMethod<IInstruction> m = (IBytecodeMethod<IInstruction>) method;
+          try {
+            sizes.put(m, m.getInstructions().length);
+            methods.add(m);
+          } catch (InvalidClassFileException e) {
+            // skip methods without bytecodes we can read
+          }
+        }
+      }
+    }
+    methods.sort((a, b) -> sizes.get(b) - sizes.get(a));
+    methods = methods.subList(0, Math.min(nMethods, methods.size()));
+    System.out.println(
+        methods.size()
+            + " methods of at least "
+            + sizes.get(methods.get(methods.size() - 1))
+            + " instructions");
+
+    ShrikeIRFactory[] factories = {new ShrikeIRFactory(), new ShrikeIRFactory(true)};
+    String[] names = {"default", "dominance frontiers"};
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      for (ShrikeIRFactory factory : factories) {
+        build(factory, methods);
+      }
+    }
+    Stopwatch[] time = {new Stopwatch(), new Stopwatch()};
+    long[] allocated = new long[2];
+    int[] phis = new int[2];
+    for (int round = 0; round < rounds; round++) {
+      for (int f = 0; f < factories.length; f++) {
+        long before = allocatedBytes();
+        time[f].start();
+        phis[f] = build(factories[f], methods);
+        time[f].stop();
+        allocated[f] += allocatedBytes() - before;
+      }
+    }
+    for (int f = 0; f < factories.length; f++) {
+      System.out.println(
+          names[f]
+              + ": "
+              + time[f].getElapsedMillis() / rounds
+              + " ms, "
+              + (ALLOCATION != null ? allocated[f] / rounds / 1000000 + " MB allocated, " : "")
+              + phis[f]
+              + " phis per round");
+    }
+  }
+
+  /** @return the number of phis in the IRs built */
+  private static int build(ShrikeIRFactory factory, List<IBytecodeMethod<IInstruction>> methods) {
+    SSAOptions options = SSAOptions.defaultOptions();
+    int phis = 0;
+    for (IBytecodeMethod<IInstruction> m : methods) {
+      IR ir = factory.makeIR(m, Everywhere.EVERYWHERE, options);
+      for (Iterator<? extends SSAInstruction> it = ir.iteratePhis(); it.hasNext(); it.next()) {
+        phis++;
+      }
+    }
+    return phis;
+  }
+
+  /** @return the bytes allocated so far by this thread, or 0 if this JVM does not tell */
+  private static long allocatedBytes() {
+    return ALLOCATION != null
+        ? ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId())
+        : 0;
+  }
+}
@@ -15,8 +15,22 @@ import com.ibm.wala.classLoader.Language;
 import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
 import com.ibm.wala.core.tests.util.TestConstants;
 import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.BackwardsSupergraph;
+import com.ibm.wala.dataflow.IFDS.BidirectionalTabulationQuery;
+import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IMergeFunction;
+import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
 import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IdentityFlowFunction;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationProblem;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.ProcedureSummaryStore;
+import com.ibm.wala.dataflow.IFDS.TabulationDomain;
 import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.dataflow.IFDS.UnorderedDomain;
 import com.ibm.wala.dataflow.graph.BitVectorSolver;
 import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
 import com.ibm.wala.ipa.callgraph.AnalysisOptions;
@@ -31,6 +45,7 @@ import com.ibm.wala.ipa.callgraph.impl.Everywhere;
 import com.ibm.wala.ipa.callgraph.impl.Util;
 import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ipa.cfg.BoundedExplodedInterproceduralCFG;
 import com.ibm.wala.ipa.cfg.ExplodedInterproceduralCFG;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
@@ -42,14 +57,23 @@ import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.FileOfClasses;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -186,6 +210,133 @@ public class DataflowTest extends WalaTestCase {
     }
   }
 
+  /** The bounded ICFG must have the same nodes and edges as the one that keeps everything */
+  @Test
+  public void testBoundedICFG() throws IllegalArgumentException, CallGraphBuilderCancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ExplodedInterproceduralCFG icfg = ExplodedInterproceduralCFG.make(cg);
+    BoundedExplodedInterproceduralCFG bounded = BoundedExplodedInterproceduralCFG.make(cg, 3);
+
+    Assert.assertEquals(icfg.getNumberOfNodes(), bounded.getNumberOfNodes());
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : icfg) {
+      Assert.assertTrue(bounded.containsNode(bb));
+      Assert.assertEquals(bb, bounded.getNode(bounded.getNumber(bb)));
+      Assert.assertEquals(icfg.hasCall(bb), bounded.hasCall(bb));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(icfg.getSuccNodes(bb)),
+          Iterator2Collection.toSet(bounded.getSuccNodes(bb)));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(icfg.getPredNodes(bb)),
+          Iterator2Collection.toSet(bounded.getPredNodes(bb)));
+      Assert.assertEquals(icfg.getSuccNodeCount(bb), bounded.getSuccNodeCount(bb));
+      Assert.assertEquals(icfg.getPredNodeCount(bb), bounded.getPredNodeCount(bb));
+    }
+    Assert.assertTrue(bounded.getNumberOfCachedCFGs() <= 3);
+    Assert.assertEquals(icfg.getNumberOfNodes() - 1, bounded.getMaxNumber());
+
+    // blocks are numbered anew after the call graph changes
+    bounded.callGraphUpdated();
+    Assert.assertEquals(0, bounded.getNumberOfCachedCFGs());
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : icfg) {
+      Assert.assertEquals(bb, bounded.getNode(bounded.getNumber(bb)));
+    }
+    Assert.assertEquals(icfg.getNumberOfNodes() - 1, bounded.getMaxNumber());
+  }
+
+  /** threads sharing a bounded ICFG with a small cache must see the same edges */
+  @Test
+  public void testBoundedICFGConcurrently()
+      throws IllegalArgumentException, CallGraphBuilderCancelException, InterruptedException {
+    CallGraph cg = makeStaticDataflowCallGraph();
+    ExplodedInterproceduralCFG icfg = ExplodedInterproceduralCFG.make(cg);
+    BoundedExplodedInterproceduralCFG bounded = BoundedExplodedInterproceduralCFG.make(cg, 2);
+    List<BasicBlockInContext<IExplodedBasicBlock>> blocks = new ArrayList<>();
+    Map<BasicBlockInContext<IExplodedBasicBlock>, Set<BasicBlockInContext<IExplodedBasicBlock>>>
+        succs = new HashMap<>();
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : icfg) {
+      blocks.add(bb);
+      succs.put(bb, Iterator2Collection.toSet(icfg.getSuccNodes(bb)));
+    }
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t * blocks.size() / threads.length;
+      threads[t] =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; i < 3 * blocks.size(); i++) {
+                    BasicBlockInContext<IExplodedBasicBlock> bb =
+                        blocks.get((offset + i) % blocks.size());
+                    Assert.assertEquals(
+                        succs.get(bb), Iterator2Collection.toSet(bounded.getSuccNodes(bb)));
+                    Assert.assertEquals(bb, bounded.getNode(bounded.getNumber(bb)));
+                  }
+                } catch (Throwable e) {
+                  failures.add(e);
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(Collections.emptyList(), failures);
+    Assert.assertTrue(bounded.getNumberOfCachedCFGs() <= 2);
+  }
+
+  /** tabulation over the bounded ICFG must give the same result as over the full one */
+  @Test
+  public void testContextSensitiveWithBoundedICFG()
+      throws IllegalArgumentException, CallGraphBuilderCancelException {
+    CallGraph cg = makeStaticDataflowCallGraph();
+    ContextSensitiveReachingDefs full = new ContextSensitiveReachingDefs(cg);
+    ContextSensitiveReachingDefs bounded = new ContextSensitiveReachingDefs(cg, 3);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        expected = full.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        actual = bounded.analyze();
+    Assert.assertEquals(
+        new HashSet<>(expected.getSupergraphNodesReached()),
+        new HashSet<>(actual.getSupergraphNodesReached()));
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : expected.getSupergraphNodesReached()) {
+      // the domains may number the facts differently
+      Set<String> expectedFacts = new HashSet<>();
+      expected.getResult(bb).foreach(d -> expectedFacts.add(full.getFactName(d)));
+      Set<String> actualFacts = new HashSet<>();
+      actual.getResult(bb).foreach(d -> actualFacts.add(bounded.getFactName(d)));
+      Assert.assertEquals(bb.toString(), expectedFacts, actualFacts);
+    }
+  }
+
+  /** blocks equal to, but not identical with, the ones in the ICFG must get the same numbers */
+  @Test
+  public void testICFGNumbering() throws IllegalArgumentException, CallGraphBuilderCancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ExplodedInterproceduralCFG icfg = ExplodedInterproceduralCFG.make(cg);
+
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : icfg) {
+      int number = icfg.getNumber(bb);
+      Assert.assertSame(bb, icfg.getNode(number));
+      Assert.assertEquals(
+          number, icfg.getNumber(new BasicBlockInContext<>(bb.getNode(), bb.getDelegate())));
+    }
+  }
+
   @Test
   public void testContextSensitive() throws IllegalArgumentException, CancelException {
     Iterable<Entrypoint> entrypoints =
@@ -226,4 +377,248 @@ public class DataflowTest extends WalaTestCase {
       }
     }
   }
+
+  private CallGraph makeStaticDataflowCallGraph()
+      throws IllegalArgumentException, CallGraphBuilderCancelException {
+    return makeCallGraph("Ldataflow/StaticDataflow");
+  }
+
+  private CallGraph makeCallGraph(String mainClass)
+      throws IllegalArgumentException, CallGraphBuilderCancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha, mainClass);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    return builder.makeCallGraph(options, null);
+  }
+
+  @Test
+  public void testContextSensitiveWithStoredSummaries()
+      throws IllegalArgumentException, CancelException, IOException {
+    ContextSensitiveReachingDefs reachingDefs =
+        new ContextSensitiveReachingDefs(makeStaticDataflowCallGraph());
+    ProcedureSummaryStore store = new ProcedureSummaryStore("reaching defs");
+    reachingDefs.analyze(store);
+    Assert.assertTrue(store.size() > 0);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    store.write(out, reachingDefs::getFactName);
+    // summaries for another problem must be discarded
+    Assert.assertEquals(
+        0,
+        ProcedureSummaryStore.read(
+                new ByteArrayInputStream(out.toByteArray()),
+                "other problem",
+                reachingDefs::getFactNumber)
+            .size());
+
+    // read the summaries into an analysis with a domain of its own, and check that it need not
+    // tabulate library methods again, but finds the same facts as without summaries
+    ContextSensitiveReachingDefs again =
+        new ContextSensitiveReachingDefs(makeStaticDataflowCallGraph());
+    ProcedureSummaryStore read =
+        ProcedureSummaryStore.read(
+            new ByteArrayInputStream(out.toByteArray()), "reaching defs", again::getFactNumber);
+    Assert.assertEquals(store.size(), read.size());
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        expected = again.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        actual = again.analyze(read);
+    assertSameApplicationResults(expected, actual);
+  }
+
+  @Test
+  public void testStoredSummariesAcrossPrograms()
+      throws IllegalArgumentException, CancelException, IOException {
+    ContextSensitiveReachingDefs first =
+        new ContextSensitiveReachingDefs(makeCallGraph("Ldataflow/StaticCallbacks$First"));
+    ProcedureSummaryStore store = new ProcedureSummaryStore("reaching defs");
+    first.analyze(store);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    store.write(out, first::getFactName);
+
+    // both programs pass the definition in setF() to StringBuilder.append(Object), which calls
+    // back a toString() of their own, so its summary from the first program must not be reused in
+    // the second one
+    ContextSensitiveReachingDefs second =
+        new ContextSensitiveReachingDefs(makeCallGraph("Ldataflow/StaticCallbacks$Second"));
+    ProcedureSummaryStore read =
+        ProcedureSummaryStore.read(
+            new ByteArrayInputStream(out.toByteArray()), "reaching defs", second::getFactNumber);
+    Assert.assertTrue(read.size() > 0);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        expected = second.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        actual = second.analyze(read);
+    assertSameApplicationResults(expected, actual);
+  }
+
+  /**
+   * check that an analysis with stored summaries tabulates fewer nodes than one without, but finds
+   * the same facts in application code
+   */
+  private static void assertSameApplicationResults(
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+          expected,
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+          actual) {
+    Assert.assertTrue(
+        actual.getSupergraphNodesReached().size() < expected.getSupergraphNodesReached().size());
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : expected.getSupergraphNodesReached()) {
+      if (bb.getNode()
+          .getMethod()
+          .getDeclaringClass()
+          .getClassLoader()
+          .getReference()
+          .equals(ClassLoaderReference.Application)) {
+        Assert.assertTrue(bb.toString(), expected.getResult(bb).sameValue(actual.getResult(bb)));
+      }
+    }
+  }
+
+  /** reachability of fact 0 along realizable paths from a single node */
+  private static class ReachabilityProblem<T, P>
+      implements PartiallyBalancedTabulationProblem<T, P, Object> {
+
+    private final ISupergraph<T, P> supergraph;
+
+    private final PathEdge<T> seed;
+
+    private final TabulationDomain<Object, T> domain = new UnorderedDomain<>();
+
+    ReachabilityProblem(ISupergraph<T, P> supergraph, T n) {
+      this.supergraph = supergraph;
+      this.seed = PathEdge.createPathEdge(getFakeEntry(n), 0, n, 0);
+    }
+
+    @Override
+    public T getFakeEntry(T n) {
+      return supergraph.getEntriesForProcedure(supergraph.getProcOf(n))[0];
+    }
+
+    @Override
+    public IPartiallyBalancedFlowFunctions<T> getFunctionMap() {
+      return new IPartiallyBalancedFlowFunctions<T>() {
+        @Override
+        public IUnaryFlowFunction getNormalFlowFunction(T src, T dest) {
+          return IdentityFlowFunction.identity();
+        }
+
+        @Override
+        public IUnaryFlowFunction getCallFlowFunction(T src, T dest, T ret) {
+          return IdentityFlowFunction.identity();
+        }
+
+        @Override
+        public IFlowFunction getReturnFlowFunction(T call, T src, T dest) {
+          return IdentityFlowFunction.identity();
+        }
+
+        @Override
+        public IUnaryFlowFunction getCallToReturnFlowFunction(T src, T dest) {
+          return IdentityFlowFunction.identity();
+        }
+
+        @Override
+        public IUnaryFlowFunction getCallNoneToReturnFlowFunction(T src, T dest) {
+          return IdentityFlowFunction.identity();
+        }
+
+        @Override
+        public IFlowFunction getUnbalancedReturnFlowFunction(T src, T dest) {
+          return IdentityFlowFunction.identity();
+        }
+      };
+    }
+
+    @Override
+    public TabulationDomain<Object, T> getDomain() {
+      return domain;
+    }
+
+    @Override
+    public IMergeFunction getMergeFunction() {
+      return null;
+    }
+
+    @Override
+    public ISupergraph<T, P> getSupergraph() {
+      return supergraph;
+    }
+
+    @Override
+    public Collection<PathEdge<T>> initialSeeds() {
+      return Collections.singleton(seed);
+    }
+  }
+
+  /** number of sources, and of sinks, for which {@link #testBidirectionalQuery()} runs queries */
+  private static final int QUERY_SAMPLE = 12;
+
+  @Test
+  public void testBidirectionalQuery() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph =
+        ICFGSupergraph.make(cg);
+    ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> backwards =
+        BackwardsSupergraph.make(supergraph);
+    List<BasicBlockInContext<IExplodedBasicBlock>> application = new ArrayList<>();
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : supergraph) {
+      if (bb.getNode()
+          .getMethod()
+          .getDeclaringClass()
+          .getClassLoader()
+          .getReference()
+          .equals(ClassLoaderReference.Application)) {
+        application.add(bb);
+      }
+    }
+
+    // a fixed sample of queries, spread over the application blocks, must agree with an
+    // exhaustive forward tabulation; a backward answer may only err towards reachable
+    List<BasicBlockInContext<IExplodedBasicBlock>> sample = new ArrayList<>();
+    for (int i = 0; i < QUERY_SAMPLE; i++) {
+      sample.add(application.get(i * application.size() / QUERY_SAMPLE));
+    }
+    int reachable = 0;
+    for (BasicBlockInContext<IExplodedBasicBlock> source : sample) {
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Object> exhaustive =
+          PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+                  new ReachabilityProblem<>(supergraph, source), null)
+              .solve();
+      for (BasicBlockInContext<IExplodedBasicBlock> sink : sample) {
+        BidirectionalTabulationQuery<BasicBlockInContext<IExplodedBasicBlock>, CGNode> query =
+            new BidirectionalTabulationQuery<>(
+                PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+                    new ReachabilityProblem<>(supergraph, source), null),
+                sink,
+                0,
+                PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+                    new ReachabilityProblem<>(backwards, sink), null),
+                source,
+                0,
+                5);
+        BidirectionalTabulationQuery.Answer answer = query.solve();
+        boolean expected = exhaustive.getResult(sink).contains(0);
+        if (expected) {
+          reachable++;
+          Assert.assertTrue(source + " -> " + sink, answer.isReachable());
+        } else if (answer != BidirectionalTabulationQuery.Answer.FOUND_BACKWARD) {
+          Assert.assertFalse(source + " -> " + sink + ": " + answer, answer.isReachable());
+        }
+      }
+    }
+    // the sample must exercise both answers
+    Assert.assertTrue(reachable > 0);
+    Assert.assertTrue(reachable < QUERY_SAMPLE * QUERY_SAMPLE);
+  }
 }
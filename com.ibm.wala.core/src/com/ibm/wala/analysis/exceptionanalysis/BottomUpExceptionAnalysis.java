@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.analysis.exceptionanalysis;
+
+import com.ibm.wala.analysis.exceptionanalysis.ExceptionSummaryCache.Summary;
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cfg.exceptionpruning.filter.DummyFilter;
+import com.ibm.wala.ipa.cfg.exceptionpruning.interprocedural.IgnoreExceptionsInterFilter;
+import com.ibm.wala.ipa.cfg.exceptionpruning.interprocedural.InterproceduralExceptionFilter;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IVector;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.collections.SimpleVector;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes the same exceptions as {@link ExceptionAnalysis}, but bottom-up over the strongly
+ * connected components of the call graph instead of as one bit vector problem over the whole call
+ * graph.
+ *
+ * <p>The intraprocedural analyses of all nodes run in parallel. Then the components are visited by
+ * level, where a component calling no other one has level 0 and any other component has one more
+ * than the highest level of its callees, so the components of a level are independent of each
+ * other and are solved in parallel. Each component is iterated to a fixpoint on its own.
+ *
+ * <p>With an {@link ExceptionSummaryCache}, the exceptions of a component are taken from the cache
+ * if none of its inputs changed since they were stored, so after adding entrypoints only the
+ * components reaching new code are solved again. The intraprocedural analyses, which depend on the
+ * pointer analysis, are always redone.
+ *
+ * <p>The filter and the pointer analysis are queried from several threads at once.
+ */
+public class BottomUpExceptionAnalysis extends ExceptionAnalysis {
+  private final CallGraph cg;
+  private final PointerAnalysis<InstanceKey> pointerAnalysis;
+  private final ClassHierarchy cha;
+  private final InterproceduralExceptionFilter<SSAInstruction> filter;
+  private final ExceptionSummaryCache cache;
+  private final int parallelism;
+  private final IntraproceduralExceptionAnalysis dummy =
+      IntraproceduralExceptionAnalysis.newDummy();
+
+  /** intraprocedural analyses, indexed by node number; null for nodes without IR */
+  private IVector<IntraproceduralExceptionAnalysis> intraResult;
+
+  /** thrown exceptions, indexed by node number */
+  private final IVector<Set<TypeReference>> exceptions = new SimpleVector<>();
+
+  private int components;
+
+  private int reusedComponents;
+
+  /**
+   * @param filter a filter to include results of other analysis or to ignore exceptions completely;
+   *     may be null
+   * @param cache summaries of earlier runs, which is updated with the results of this one; may be
+   *     null
+   * @param parallelism the number of threads to use
+   */
+  public BottomUpExceptionAnalysis(
+      CallGraph callgraph,
+      PointerAnalysis<InstanceKey> pointerAnalysis,
+      ClassHierarchy cha,
+      InterproceduralExceptionFilter<SSAInstruction> filter,
+      ExceptionSummaryCache cache,
+      int parallelism) {
+    this(callgraph, pointerAnalysis, cha, cache, parallelism, orDefault(filter));
+  }
+
+  private BottomUpExceptionAnalysis(
+      CallGraph callgraph,
+      PointerAnalysis<InstanceKey> pointerAnalysis,
+      ClassHierarchy cha,
+      ExceptionSummaryCache cache,
+      int parallelism,
+      InterproceduralExceptionFilter<SSAInstruction> filter) {
+    super(callgraph, cha, filter);
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
+    this.cg = callgraph;
+    this.pointerAnalysis = pointerAnalysis;
+    this.cha = cha;
+    this.filter = filter;
+    this.cache = cache;
+    this.parallelism = parallelism;
+  }
+
+  private static InterproceduralExceptionFilter<SSAInstruction> orDefault(
+      InterproceduralExceptionFilter<SSAInstruction> filter) {
+    return filter == null ? new IgnoreExceptionsInterFilter<>(new DummyFilter<>()) : filter;
+  }
+
+  @Override
+  public void solve() {
+    try {
+      solve(null);
+    } catch (CancelException e) {
+      throw new RuntimeException(
+          "Internal Error: Got Cancel Exception, " + "but didn't use Progressmonitor!", e);
+    }
+  }
+
+  @Override
+  public void solve(IProgressMonitor monitor) throws CancelException {
+    if (pointerAnalysis != null) {
+      // the heap graph is built lazily; build it before several threads use it
+      pointerAnalysis.getHeapGraph();
+    }
+    intraResult =
+        ParallelIntraproceduralAnalysis.analyzeNodes(
+            cg,
+            (node, ir) ->
+                ir.isEmptyIR()
+                    ? null
+                    : new IntraproceduralExceptionAnalysis(
+                        ir, filter.getFilter(node), cha, pointerAnalysis, node),
+            parallelism,
+            monitor);
+
+    int[] component = new int[cg.getMaxNumber() + 1];
+    List<List<CGNode>> members = new ArrayList<>();
+    for (Iterator<Set<CGNode>> it = new SCCIterator<>(cg); it.hasNext(); ) {
+      List<CGNode> scc = new ArrayList<>(it.next());
+      for (CGNode node : scc) {
+        component[cg.getNumber(node)] = members.size();
+      }
+      members.add(scc);
+    }
+    components = members.size();
+    reusedComponents = 0;
+
+    List<List<List<CGNode>>> levels = computeLevels(members, component);
+
+    MonitorUtil.beginTask(monitor, "solving call graph components", components);
+    ExecutorService pool = parallelism == 1 ? null : Executors.newFixedThreadPool(parallelism);
+    try {
+      for (List<List<CGNode>> level : levels) {
+        List<Callable<Map<CGNode, Set<TypeReference>>>> tasks = new ArrayList<>(level.size());
+        for (List<CGNode> scc : level) {
+          tasks.add(() -> solveComponent(scc, component));
+        }
+        // the components of the next level read these
+        for (Map<CGNode, Set<TypeReference>> result :
+            ParallelIntraproceduralAnalysis.runAll(pool, tasks, monitor, RuntimeException.class)) {
+          for (Map.Entry<CGNode, Set<TypeReference>> e : result.entrySet()) {
+            exceptions.set(cg.getNumber(e.getKey()), e.getValue());
+          }
+        }
+      }
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+    MonitorUtil.done(monitor);
+    this.isSolved = true;
+  }
+
+  /** @return the components, grouped by level, lowest first */
+  private List<List<List<CGNode>>> computeLevels(List<List<CGNode>> members, int[] component) {
+    int[] pending = new int[members.size()];
+    List<List<Integer>> callers = new ArrayList<>(members.size());
+    for (int c = 0; c < members.size(); c++) {
+      callers.add(new ArrayList<>());
+    }
+    for (int c = 0; c < members.size(); c++) {
+      Set<Integer> callees = new LinkedHashSet<>();
+      for (CGNode node : members.get(c)) {
+        for (Iterator<CGNode> it = cg.getSuccNodes(node); it.hasNext(); ) {
+          int callee = component[cg.getNumber(it.next())];
+          if (callee != c && callees.add(callee)) {
+            callers.get(callee).add(c);
+          }
+        }
+      }
+      pending[c] = callees.size();
+    }
+
+    int[] level = new int[members.size()];
+    List<Integer> worklist = new ArrayList<>();
+    for (int c = 0; c < members.size(); c++) {
+      if (pending[c] == 0) {
+        worklist.add(c);
+      }
+    }
+    List<List<List<CGNode>>> result = new ArrayList<>();
+    for (int i = 0; i < worklist.size(); i++) {
+      int c = worklist.get(i);
+      if (result.size() == level[c]) {
+        result.add(new ArrayList<>());
+      }
+      result.get(level[c]).add(members.get(c));
+      for (int caller : callers.get(c)) {
+        level[caller] = Math.max(level[caller], level[c] + 1);
+        if (--pending[caller] == 0) {
+          worklist.add(caller);
+        }
+      }
+    }
+    assert worklist.size() == members.size();
+    return result;
+  }
+
+  /**
+   * Compute the exceptions thrown by the nodes of a component, from those thrown by the components
+   * it calls.
+   */
+  private Map<CGNode, Set<TypeReference>> solveComponent(List<CGNode> scc, int[] component) {
+    int c = component[cg.getNumber(scc.get(0))];
+    Map<CGNode, Summary> inputs = HashMapFactory.make();
+    boolean reuse = cache != null;
+    for (CGNode node : scc) {
+      Summary input = computeInputs(node, c, component);
+      inputs.put(node, input);
+      if (reuse) {
+        Summary cached = cache.get(node);
+        reuse = cached != null && cached.sameInputs(input);
+      }
+    }
+
+    Map<CGNode, Set<TypeReference>> result = HashMapFactory.make();
+    if (reuse) {
+      synchronized (this) {
+        reusedComponents++;
+      }
+      for (CGNode node : scc) {
+        result.put(node, cache.get(node).exceptions);
+      }
+      return result;
+    }
+
+    for (CGNode node : scc) {
+      Summary input = inputs.get(node);
+      Set<TypeReference> thrown = new LinkedHashSet<>(input.intraExceptions);
+      for (Map.Entry<Pair<MethodReference, Context>, Set<TypeReference>> callee :
+          input.calleeExceptions.entrySet()) {
+        addUncaught(thrown, callee.getValue(), input.caught.get(callee.getKey()));
+      }
+      result.put(node, thrown);
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (CGNode node : scc) {
+        Set<TypeReference> thrown = result.get(node);
+        for (Iterator<CGNode> it = cg.getSuccNodes(node); it.hasNext(); ) {
+          CGNode callee = it.next();
+          if (component[cg.getNumber(callee)] == c) {
+            Set<TypeReference> caught =
+                inputs.get(node).caught.get(ExceptionSummaryCache.key(callee));
+            changed |= addUncaught(thrown, result.get(callee), caught);
+          }
+        }
+      }
+    }
+
+    if (cache != null) {
+      for (CGNode node : scc) {
+        Summary input = inputs.get(node);
+        cache.put(
+            node,
+            new Summary(
+                input.intraExceptions, input.caught, input.calleeExceptions, result.get(node)));
+      }
+    }
+    return result;
+  }
+
+  /** @return true iff thrown changed */
+  private static boolean addUncaught(
+      Set<TypeReference> thrown, Set<TypeReference> calleeExceptions, Set<TypeReference> caught) {
+    boolean changed = false;
+    for (TypeReference exception : calleeExceptions) {
+      if (!caught.contains(exception)) {
+        changed |= thrown.add(exception);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * @param c the component of node
+   * @return the inputs of node: the exceptions it throws itself, those caught for each callee, as
+   *     in {@link ExceptionTransferFunctionProvider}, and those thrown by callees in other
+   *     components
+   */
+  private Summary computeInputs(CGNode node, int c, int[] component) {
+    IntraproceduralExceptionAnalysis intra = getIntraproceduralAnalysis(node);
+    Map<Pair<MethodReference, Context>, Set<TypeReference>> caught = HashMapFactory.make();
+    Map<Pair<MethodReference, Context>, Set<TypeReference>> calleeExceptions =
+        HashMapFactory.make();
+    for (Iterator<CGNode> it = cg.getSuccNodes(node); it.hasNext(); ) {
+      CGNode callee = it.next();
+      Iterator<CallSiteReference> sites = cg.getPossibleSites(node, callee);
+      Set<TypeReference> caughtAtAll = new LinkedHashSet<>(intra.getCaughtExceptions(sites.next()));
+      while (sites.hasNext()) {
+        caughtAtAll.retainAll(intra.getCaughtExceptions(sites.next()));
+      }
+      Pair<MethodReference, Context> key = ExceptionSummaryCache.key(callee);
+      caught.put(key, caughtAtAll);
+      if (component[cg.getNumber(callee)] != c) {
+        calleeExceptions.put(key, exceptions.get(cg.getNumber(callee)));
+      }
+    }
+    return new Summary(intra.getExceptions(), caught, calleeExceptions, null);
+  }
+
+  @Override
+  protected IntraproceduralExceptionAnalysis getIntraproceduralAnalysis(CGNode node) {
+    if (!cg.containsNode(node)) {
+      throw new IllegalArgumentException(
+          "The given CG node has to be part " + "of the call graph given during construction.");
+    }
+    IntraproceduralExceptionAnalysis result = intraResult.get(cg.getNumber(node));
+    return result == null ? dummy : result;
+  }
+
+  @Override
+  public Set<TypeReference> getCGNodeExceptions(CGNode node) {
+    if (!isSolved) {
+      throw new IllegalStateException("You need to use .solve() first!");
+    }
+
+    Set<TypeReference> result = cg.containsNode(node) ? exceptions.get(cg.getNumber(node)) : null;
+    return result == null ? null : new LinkedHashSet<>(result);
+  }
+
+  /** @return the number of strongly connected components of the call graph */
+  public int getNumberOfComponents() {
+    return components;
+  }
+
+  /** @return the number of components whose exceptions were taken from the cache */
+  public int getNumberOfReusedComponents() {
+    return reusedComponents;
+  }
+}
@@ -58,7 +58,7 @@ public class ExceptionAnalysis {
   private ClassHierarchy cha;
   private CGIntraproceduralExceptionAnalysis intraResult;
   private CallGraph cg;
-  private boolean isSolved = false;
+  protected boolean isSolved = false;
 
   public ExceptionAnalysis(
       CallGraph callgraph, PointerAnalysis<InstanceKey> pointerAnalysis, ClassHierarchy cha) {
@@ -97,6 +97,20 @@ public class ExceptionAnalysis {
     solver.initForFirstSolve();
   }
 
+  /**
+   * For subclasses, which compute the exceptions of call graph nodes in their own way, and so must
+   * override {@link #solve()}, {@link #solve(IProgressMonitor)}, {@link
+   * #getIntraproceduralAnalysis(CGNode)} and {@link #getCGNodeExceptions(CGNode)}.
+   */
+  protected ExceptionAnalysis(
+      CallGraph callgraph,
+      ClassHierarchy cha,
+      InterproceduralExceptionFilter<SSAInstruction> filter) {
+    this.cha = cha;
+    this.cg = callgraph;
+    this.filter = filter;
+  }
+
   public void solve() {
     try {
       solver.solve(null);
@@ -188,7 +202,7 @@ public class ExceptionAnalysis {
     }
 
     final Set<TypeReference> thrown =
-        intraResult.getAnalysis(node).collectThrownExceptions(instruction);
+        getIntraproceduralAnalysis(node).collectThrownExceptions(instruction);
 
     instruction.visit(
         new Visitor() {
@@ -212,6 +226,11 @@ public class ExceptionAnalysis {
     return result;
   }
 
+  /** @return the intraprocedural analysis of the node */
+  protected IntraproceduralExceptionAnalysis getIntraproceduralAnalysis(CGNode node) {
+    return intraResult.getAnalysis(node);
+  }
+
   /**
    * @return all exceptions, which might be thrown by the method represented through the call graph
    *     node.
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.analysis.exceptionanalysis;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exceptions thrown by call graph nodes, kept across runs of {@link BottomUpExceptionAnalysis},
+ * e.g. for call graphs built for more and more entrypoints of the same program.
+ *
+ * <p>A node is identified by its method and context, and its summary records everything its
+ * thrown exceptions were computed from: the exceptions thrown by the node itself, the exceptions
+ * caught at the calls to each callee and the exceptions thrown by each callee in another strongly
+ * connected component of the call graph. The summaries of a component are only reused if all of
+ * these are unchanged, so the cache may be shared by analyses with different pointer analyses or
+ * filters, although it then rarely helps.
+ */
+public class ExceptionSummaryCache {
+
+  /** What the thrown exceptions of a node were computed from, and the result. */
+  static final class Summary {
+    final Set<TypeReference> intraExceptions;
+
+    /** callee -&gt; exceptions caught at every call to it */
+    final Map<Pair<MethodReference, Context>, Set<TypeReference>> caught;
+
+    /** callee in another component -&gt; exceptions it throws */
+    final Map<Pair<MethodReference, Context>, Set<TypeReference>> calleeExceptions;
+
+    final Set<TypeReference> exceptions;
+
+    Summary(
+        Set<TypeReference> intraExceptions,
+        Map<Pair<MethodReference, Context>, Set<TypeReference>> caught,
+        Map<Pair<MethodReference, Context>, Set<TypeReference>> calleeExceptions,
+        Set<TypeReference> exceptions) {
+      this.intraExceptions = intraExceptions;
+      this.caught = caught;
+      this.calleeExceptions = calleeExceptions;
+      this.exceptions = exceptions;
+    }
+
+    /** @return true iff the exceptions of this summary were computed from the same inputs */
+    boolean sameInputs(Summary other) {
+      return intraExceptions.equals(other.intraExceptions)
+          && caught.equals(other.caught)
+          && calleeExceptions.equals(other.calleeExceptions);
+    }
+  }
+
+  private final Map<Pair<MethodReference, Context>, Summary> summaries = HashMapFactory.make();
+
+  static Pair<MethodReference, Context> key(CGNode node) {
+    return Pair.make(node.getMethod().getReference(), node.getContext());
+  }
+
+  synchronized Summary get(CGNode node) {
+    return summaries.get(key(node));
+  }
+
+  synchronized void put(CGNode node, Summary summary) {
+    summaries.put(key(node), summary);
+  }
+
+  /** @return the number of nodes with a summary */
+  public synchronized int size() {
+    return summaries.size();
+  }
+
+  public synchronized void clear() {
+    summaries.clear();
+  }
+}
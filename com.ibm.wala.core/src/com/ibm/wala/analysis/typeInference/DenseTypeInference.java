@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.analysis.typeInference;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.fixedpoint.impl.NullaryOperator;
+import com.ibm.wala.fixpoint.AbstractOperator;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAArrayLoadInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAPiInstruction;
+import com.ibm.wala.ssa.SymbolTable;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.graph.traverse.Topological;
+import com.ibm.wala.util.intset.BitVector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the same types as {@link TypeInference}, without building a dataflow system: the types
+ * are kept in an array indexed by value number, and instructions are evaluated along def-use chains
+ * kept in int arrays. This saves most of the allocation of {@link TypeInference}, which creates a
+ * variable per value and a statement and graph edges per instruction, and so pays off when
+ * inferring the types of many methods.
+ *
+ * <p>The meet of types is not monotone, e.g. a phi of a primitive and an object is TOP, so the
+ * result depends on the order in which instructions are evaluated. This class evaluates them in
+ * the same order as the solver of {@link TypeInference}: it orders the values by the same
+ * topological sort of the graph of statements and values, and always evaluates the pending
+ * instruction whose def comes first.
+ *
+ * <p>The operators of {@link TypeInference.TypeOperatorFactory} are only used to compute the
+ * declared types of instructions; all other instructions are evaluated directly. So subclasses of
+ * {@link TypeInference} which change how types propagate cannot use this class.
+ */
+public class DenseTypeInference extends TypeInference {
+
+  public static DenseTypeInference make(IR ir, boolean doPrimitives) {
+    return new DenseTypeInference(ir, doPrimitives);
+  }
+
+  /*
+   * These fields are set by solve(), which runs in the constructor of TypeInference, so they must
+   * not have initializers.
+   */
+
+  /** type of each value number */
+  private TypeAbstraction[] types;
+
+  private boolean solved;
+
+  /** the instructions with an operator, while solving */
+  private SSAInstruction[] statements;
+
+  /** declared type of each statement with a nullary operator */
+  private TypeAbstraction[] declaredTypes;
+
+  /** statements with a nullary operator */
+  private BitVector isDeclared;
+
+  /**
+   * users[firstUser[v] .. firstUser[v] + userCount[v]) are the statements using value v, in
+   * increasing order
+   */
+  private int[] firstUser;
+
+  private int[] userCount;
+
+  private int[] users;
+
+  protected DenseTypeInference(IR ir, boolean doPrimitives) {
+    super(ir, doPrimitives);
+  }
+
+  /** No equations are built. */
+  @Override
+  protected void initialize() {}
+
+  @Override
+  public boolean solve(IProgressMonitor monitor) {
+    if (solved) {
+      return false;
+    }
+    SymbolTable st = ir.getSymbolTable();
+    int maxValueNumber = st.getMaxValueNumber();
+    types = new TypeAbstraction[maxValueNumber + 1];
+    for (int i = 1; i <= maxValueNumber; i++) {
+      if (doPrimitives && st.isConstant(i) && st.isBooleanConstant(i)) {
+        types[i] = language.getPrimitive(language.getConstantType(Boolean.TRUE));
+      } else {
+        types[i] = TypeAbstraction.TOP;
+      }
+    }
+
+    // one statement per instruction with an operator, in the order SSAInference creates them
+    List<SSAInstruction> statementList = new ArrayList<>();
+    List<TypeAbstraction> declaredList = new ArrayList<>();
+    isDeclared = new BitVector();
+    TypeOperatorFactory factory = this.new TypeOperatorFactory();
+    TypeVariable declared = new TypeVariable(TypeAbstraction.TOP);
+    for (SSAInstruction s : ir.getInstructions()) {
+      addStatement(s, factory, declared, statementList, declaredList);
+    }
+    for (SSAInstruction s : Iterator2Iterable.make(ir.iteratePhis())) {
+      addStatement(s, factory, declared, statementList, declaredList);
+    }
+    for (SSAInstruction s : Iterator2Iterable.make(ir.iteratePis())) {
+      addStatement(s, factory, declared, statementList, declaredList);
+    }
+    for (SSAInstruction s : Iterator2Iterable.make(ir.iterateCatchInstructions())) {
+      addStatement(s, factory, declared, statementList, declaredList);
+    }
+    statements = statementList.toArray(new SSAInstruction[0]);
+    declaredTypes = declaredList.toArray(new TypeAbstraction[0]);
+    int n = statements.length;
+
+    computeUsers(maxValueNumber);
+    int[] order = computeOrder(maxValueNumber);
+    initializeVariables();
+
+    // a heap of the pending statements, by the order of their defs
+    int[] heap = new int[n];
+    boolean[] queued = new boolean[n];
+    int size = 0;
+    for (int i = 0; i < n; i++) {
+      size = insert(heap, size, i, order);
+      queued[i] = true;
+    }
+    while (size > 0) {
+      int i = heap[0];
+      size = removeFirst(heap, size, order);
+      queued[i] = false;
+      if (evaluate(i)) {
+        int def = statements[i].getDef();
+        for (int u = firstUser[def]; u < firstUser[def] + userCount[def]; u++) {
+          if (!queued[users[u]]) {
+            size = insert(heap, size, users[u], order);
+            queued[users[u]] = true;
+          }
+        }
+      }
+    }
+
+    statements = null;
+    declaredTypes = null;
+    isDeclared = null;
+    firstUser = null;
+    userCount = null;
+    users = null;
+    solved = true;
+    return true;
+  }
+
+  private void addStatement(
+      SSAInstruction s,
+      TypeOperatorFactory factory,
+      TypeVariable declared,
+      List<SSAInstruction> statementList,
+      List<TypeAbstraction> declaredList) {
+    if (s != null && s.hasDef()) {
+      AbstractOperator<TypeVariable> op = factory.get(s);
+      if (op instanceof NullaryOperator) {
+        declared.setType(TypeAbstraction.TOP);
+        ((NullaryOperator<TypeVariable>) op).evaluate(declared);
+        isDeclared.set(statementList.size());
+        statementList.add(s);
+        declaredList.add(declared.getType());
+      } else if (op != null) {
+        statementList.add(s);
+        declaredList.add(null);
+      }
+    }
+  }
+
+  /** Record the statements using each value; a statement with a declared type uses none. */
+  private void computeUsers(int maxValueNumber) {
+    firstUser = new int[maxValueNumber + 1];
+    userCount = new int[maxValueNumber + 1];
+    for (int i = 0; i < statements.length; i++) {
+      if (!isDeclared.get(i)) {
+        for (int j = 0; j < statements[i].getNumberOfUses(); j++) {
+          if (statements[i].getUse(j) > -1) {
+            userCount[statements[i].getUse(j)]++;
+          }
+        }
+      }
+    }
+    int total = 0;
+    for (int v = 0; v <= maxValueNumber; v++) {
+      firstUser[v] = total;
+      total += userCount[v];
+      userCount[v] = 0;
+    }
+    users = new int[total];
+    for (int i = 0; i < statements.length; i++) {
+      if (!isDeclared.get(i)) {
+        for (int j = 0; j < statements[i].getNumberOfUses(); j++) {
+          int use = statements[i].getUse(j);
+          // a statement using a value twice is recorded once
+          if (use > -1
+              && (userCount[use] == 0 || users[firstUser[use] + userCount[use] - 1] != i)) {
+            users[firstUser[use] + userCount[use]++] = i;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Order the values as {@link com.ibm.wala.fixedpoint.impl.DefaultFixedPointSystem#reorder()}
+   * does, by a topological sort of the graph with an edge from each statement to its def and from
+   * each value to the statements using it. The nodes are numbered in the order they are added to
+   * that graph, and the sort visits nodes and edges in the same order.
+   *
+   * @return the position of each value number in the order
+   */
+  private int[] computeOrder(int maxValueNumber) {
+    int n = statements.length;
+    int[] statementNode = new int[n];
+    int[] valueNode = new int[maxValueNumber + 1];
+    Arrays.fill(valueNode, -1);
+    int[] definer = new int[maxValueNumber + 1];
+    Arrays.fill(definer, -1);
+    // the statement of a node, or -1 - its value number
+    int[] item = new int[n + maxValueNumber + 1];
+    int nodes = 0;
+    // uses[firstUse[i] .. firstUse[i + 1]) are the nodes of the values used by statement i, sorted
+    int[] firstUse = new int[n + 1];
+    int[] uses = new int[users.length];
+    for (int i = 0; i < n; i++) {
+      statementNode[i] = nodes;
+      item[nodes++] = i;
+      int def = statements[i].getDef();
+      definer[def] = i;
+      if (valueNode[def] == -1) {
+        valueNode[def] = nodes;
+        item[nodes++] = -1 - def;
+      }
+      firstUse[i + 1] = firstUse[i];
+      if (!isDeclared.get(i)) {
+        for (int j = 0; j < statements[i].getNumberOfUses(); j++) {
+          int use = statements[i].getUse(j);
+          if (use > -1) {
+            if (valueNode[use] == -1) {
+              valueNode[use] = nodes;
+              item[nodes++] = -1 - use;
+            }
+            // insert the node in the sorted uses, unless it is there already
+            int k = firstUse[i + 1];
+            while (k > firstUse[i] && uses[k - 1] > valueNode[use]) {
+              k--;
+            }
+            if (k == firstUse[i] || uses[k - 1] != valueNode[use]) {
+              System.arraycopy(uses, k, uses, k + 1, firstUse[i + 1] - k);
+              uses[k] = valueNode[use];
+              firstUse[i + 1]++;
+            }
+          }
+        }
+      }
+    }
+
+    // the edges from each statement to its def, and from each value to the statements using it
+    int[] succStart = new int[nodes + 1];
+    int[] predStart = new int[nodes + 1];
+    for (int x = 0; x < nodes; x++) {
+      if (item[x] >= 0) {
+        succStart[x + 1] = succStart[x] + 1;
+        predStart[x + 1] = predStart[x] + firstUse[item[x] + 1] - firstUse[item[x]];
+      } else {
+        succStart[x + 1] = succStart[x] + userCount[-1 - item[x]];
+        predStart[x + 1] = predStart[x] + (definer[-1 - item[x]] == -1 ? 0 : 1);
+      }
+    }
+    int[] succ = new int[succStart[nodes]];
+    int[] pred = new int[predStart[nodes]];
+    for (int x = 0; x < nodes; x++) {
+      if (item[x] >= 0) {
+        succ[succStart[x]] = valueNode[statements[item[x]].getDef()];
+        System.arraycopy(
+            uses, firstUse[item[x]], pred, predStart[x], predStart[x + 1] - predStart[x]);
+      } else {
+        int v = -1 - item[x];
+        for (int k = 0; k < userCount[v]; k++) {
+          succ[succStart[x] + k] = statementNode[users[firstUser[v] + k]];
+        }
+        if (definer[v] != -1) {
+          pred[predStart[x]] = statementNode[definer[v]];
+        }
+      }
+    }
+
+    int[] order = new int[maxValueNumber + 1];
+    int number = 0;
+    for (int x : Topological.makeTopologicalOrder(succStart, succ, predStart, pred)) {
+      if (item[x] < 0) {
+        order[-1 - item[x]] = number++;
+      }
+    }
+    return order;
+  }
+
+  /** Add statement i to the heap of size size, ordered by the order of the defs */
+  private int insert(int[] heap, int size, int i, int[] order) {
+    int key = order[statements[i].getDef()];
+    int index = size;
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (order[statements[heap[parent]].getDef()] < key) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = i;
+    return size + 1;
+  }
+
+  /** Remove the first statement from the heap of size size */
+  private int removeFirst(int[] heap, int size, int[] order) {
+    int last = heap[--size];
+    int key = order[statements[last].getDef()];
+    int index = 0;
+    while (2 * index + 1 < size) {
+      int child = 2 * index + 1;
+      if (child + 1 < size
+          && order[statements[heap[child + 1]].getDef()]
+              < order[statements[heap[child]].getDef()]) {
+        child++;
+      }
+      if (order[statements[heap[child]].getDef()] >= key) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = last;
+    return size;
+  }
+
+  /** @return true iff the type of the def of statement i changed */
+  private boolean evaluate(int i) {
+    SSAInstruction s = statements[i];
+    TypeAbstraction lhsType = types[s.getDef()];
+    TypeAbstraction result;
+    if (isDeclared.get(i)) {
+      result = declaredTypes[i];
+    } else if (s instanceof SSAArrayLoadInstruction) {
+      return evaluateArrayLoad((SSAArrayLoadInstruction) s);
+    } else if (s instanceof SSAPiInstruction) {
+      result = types[s.getUse(0)];
+    } else {
+      // phi, or an operation on primitives
+      result = TypeAbstraction.TOP;
+      for (int j = 0; j < s.getNumberOfUses(); j++) {
+        int use = s.getUse(j);
+        if (use > -1 && types[use] != null) {
+          result = result.meet(types[use]);
+        }
+      }
+    }
+    if (lhsType.equals(result)) {
+      return false;
+    } else {
+      types[s.getDef()] = result;
+      return true;
+    }
+  }
+
+  /** Extract the element type from the type of the array, as {@code GetElementType} does */
+  private boolean evaluateArrayLoad(SSAArrayLoadInstruction load) {
+    TypeAbstraction arrayType = types[load.getArrayRef()];
+    if (arrayType == null || arrayType.equals(TypeAbstraction.TOP)) {
+      return false;
+    }
+    TypeReference elementType = null;
+    if (arrayType instanceof PointType) {
+      elementType = ((PointType) arrayType).getType().getReference().getArrayElementType();
+    } else if (arrayType instanceof ConeType) {
+      elementType = ((ConeType) arrayType).getType().getReference().getArrayElementType();
+    } else {
+      Assertions.UNREACHABLE("Unexpected type " + arrayType.getClass());
+    }
+    int def = load.getDef();
+    if (elementType.isPrimitiveType()) {
+      if (doPrimitives && types[def] == TypeAbstraction.TOP) {
+        types[def] = PrimitiveType.getPrimitive(elementType);
+        return true;
+      }
+      return false;
+    }
+
+    if (types[def] != TypeAbstraction.TOP) {
+      TypeReference tType = null;
+      if (types[def] instanceof PointType) {
+        tType = ((PointType) types[def]).getType().getReference();
+      } else if (types[def] instanceof ConeType) {
+        tType = ((ConeType) types[def]).getType().getReference();
+      } else {
+        Assertions.UNREACHABLE("Unexpected type " + types[def].getClass());
+      }
+      if (tType.equals(elementType)) {
+        return false;
+      } else {
+        IClass klass = cha.lookupClass(elementType);
+        assert klass != null;
+        types[def] = new ConeType(klass);
+        return true;
+      }
+    } else {
+      IClass klass = cha.lookupClass(elementType);
+      if (klass != null) {
+        types[def] = new ConeType(klass);
+      } else {
+        types[def] = TypeAbstraction.TOP;
+      }
+      return true;
+    }
+  }
+
+  @Override
+  TypeAbstraction getInitialType(int valueNumber) {
+    return types[valueNumber];
+  }
+
+  @Override
+  void setInitialType(int valueNumber, TypeAbstraction type) {
+    types[valueNumber] = type;
+  }
+
+  @Override
+  public TypeAbstraction getType(int valueNumber) {
+    if (valueNumber < 0) {
+      throw new IllegalArgumentException("bad value number " + valueNumber);
+    }
+    assert valueNumber != 0 : "null variable for value number " + valueNumber;
+    return types[valueNumber];
+  }
+
+  @Override
+  public boolean isUndefined(int valueNumber) {
+    if (valueNumber == 0) {
+      return true;
+    }
+    TypeAbstraction ta = types[valueNumber];
+    return ta == BOTTOM || ta.getType() == null;
+  }
+
+  @Override
+  public TypeAbstraction[] extractAllResults() {
+    return types.clone();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("Type inference : \n");
+    for (int i = 0; i < types.length; i++) {
+      result.append('v').append(i).append("  ").append(types[i]).append('\n');
+    }
+    return result.toString();
+  }
+}
@@ -132,7 +132,7 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
 
     int[] parameterValueNumbers = ir.getParameterValueNumbers();
     for (int i = 0; i < parameterValueNumbers.length; i++) {
-      TypeVariable v = getVariable(parameterValueNumbers[i]);
+      int v = parameterValueNumbers[i];
       TypeReference t = ir.getParameterType(i);
 
       if (DEBUG) {
@@ -145,13 +145,13 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
           System.err.println("klass " + klass);
         }
         if (klass != null) {
-          v.setType(new ConeType(klass));
+          setInitialType(v, new ConeType(klass));
         } else {
           // give up .. default to java.lang.Object (BOTTOM)
-          v.setType(BOTTOM);
+          setInitialType(v, BOTTOM);
         }
       } else if (doPrimitives) {
-        v.setType(language.getPrimitive(t));
+        setInitialType(v, language.getPrimitive(t));
       }
     }
 
@@ -159,8 +159,7 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
     if (st != null) {
       for (int i = 0; i <= st.getMaxValueNumber(); i++) {
         if (st.isConstant(i)) {
-          TypeVariable v = getVariable(i);
-          v.setType(getConstantType(i));
+          setInitialType(i, getConstantType(i));
         }
       }
     }
@@ -168,7 +167,7 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
     for (SSAInstruction s : Iterator2Iterable.make(ir.iterateNormalInstructions())) {
       if (s instanceof SSAAbstractInvokeInstruction) {
         SSAAbstractInvokeInstruction call = (SSAAbstractInvokeInstruction) s;
-        TypeVariable v = getVariable(call.getException());
+        int v = call.getException();
         Collection<TypeReference> defaultExceptions = call.getExceptionTypes();
         if (defaultExceptions.size() == 0) {
           continue;
@@ -178,16 +177,16 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
         TypeReference t = types.next();
         IClass klass = cha.lookupClass(t);
         if (klass == null) {
-          v.setType(BOTTOM);
+          setInitialType(v, BOTTOM);
         } else {
-          v.setType(new PointType(klass));
+          setInitialType(v, new PointType(klass));
         }
 
         while (types.hasNext()) {
           t = types.next();
           klass = cha.lookupClass(t);
           if (klass != null) {
-            v.setType(v.getType().meet(new PointType(klass)));
+            setInitialType(v, getInitialType(v).meet(new PointType(klass)));
           }
         }
 
@@ -206,7 +205,7 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
             for (TypeReference tx : x) {
               IClass tc = cha.lookupClass(tx);
               if (tc != null) {
-                v.setType(v.getType().meet(new ConeType(tc)));
+                setInitialType(v, getInitialType(v).meet(new ConeType(tc)));
               }
             }
           }
@@ -215,6 +214,16 @@ public class TypeInference extends SSAInference<TypeVariable> implements FixedPo
     }
   }
 
+  /** @return the type of a value, while the types of values without a definition are set */
+  TypeAbstraction getInitialType(int valueNumber) {
+    return getVariable(valueNumber).getType();
+  }
+
+  /** Set the type of a value which has no defining instruction, e.g. a parameter or a constant */
+  void setInitialType(int valueNumber, TypeAbstraction type) {
+    getVariable(valueNumber).setType(type);
+  }
+
   @Override
   protected void initializeWorkList() {
     addAllStatementsToWorkList();
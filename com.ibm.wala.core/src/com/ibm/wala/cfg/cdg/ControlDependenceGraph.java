@@ -11,25 +11,27 @@
 package com.ibm.wala.cfg.cdg;
 
 import com.ibm.wala.cfg.MinimalCFG;
-import com.ibm.wala.util.collections.EmptyIterator;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
-import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.graph.AbstractNumberedGraph;
 import com.ibm.wala.util.graph.NumberedEdgeManager;
 import com.ibm.wala.util.graph.NumberedNodeManager;
 import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
 import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.impl.NumberedNodeArrayIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
-import com.ibm.wala.util.intset.MutableIntSet;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 
-/** Control Dependence Graph */
+/**
+ * Control Dependence Graph
+ *
+ * <p>Edges are kept in int arrays indexed by the node numbers of the governing control flow graph,
+ * and the labels of an edge are computed from the post-dominators of the control flow graph when
+ * first asked for.
+ */
 public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
 
   /** Governing control flow-graph. The control dependence graph is computed from this cfg. */
@@ -42,48 +44,48 @@ public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
   private final NumberedEdgeManager<T> edgeManager;
 
   /**
-   * If requested, this is a map from parentXchild Pairs representing edges in the CDG to the labels
-   * of the control flow edges that edge corresponds to. The labels are Boolean.True or
-   * Boolean.False for conditionals and an Integer for a switch label.
+   * If edge labels were requested, the reverse dominance frontiers of the cfg, from which the
+   * labels of an edge are computed. The labels are Boolean.True or Boolean.False for conditionals
+   * and an Integer for a switch label.
    */
-  private Map<Pair<T, T>, Set<? extends Object>> edgeLabels;
+  private final DominanceFrontiers<T> RDF;
 
   /**
-   * This is the heart of the CDG computation. Based on Cytron et al., this is the reverse dominance
-   * frontier based algorithm for computing control dependence edges.
-   *
-   * @return Map: node n -&gt; {x : n is control-dependent on x}
+   * the control dependence edges grouped by source: the targets of the edges from node n are
+   * succNumbers[succStart[n]] .. succNumbers[succStart[n+1]-1], in increasing order
    */
-  private Map<T, Set<T>> buildControlDependence(boolean wantEdgeLabels) {
-    Map<T, Set<T>> controlDependence = HashMapFactory.make(cfg.getNumberOfNodes());
+  private final int[] succStart;
 
-    DominanceFrontiers<T> RDF = new DominanceFrontiers<>(GraphInverter.invert(cfg), cfg.exit());
-
-    if (wantEdgeLabels) {
-      edgeLabels = HashMapFactory.make();
-    }
+  private final int[] succNumbers;
 
-    for (T name : cfg) {
-      HashSet<T> s = HashSetFactory.make(2);
-      controlDependence.put(name, s);
-    }
+  /**
+   * if edge labels were requested, the label sets of the edges, indexed like succNumbers and
+   * computed when first asked for
+   */
+  private final Set<?>[] edgeLabels;
 
+  /**
+   * This is the heart of the CDG computation. Based on Cytron et al., this is the reverse dominance
+   * frontier based algorithm for computing control dependence edges.
+   *
+   * @return the control dependence edges x -&gt; y, as {x, y} node numbers
+   */
+  private int[][] buildControlDependence(DominanceFrontiers<T> RDF) {
+    int[] from = new int[cfg.getNumberOfNodes()];
+    int[] to = new int[cfg.getNumberOfNodes()];
+    int count = 0;
     for (T y : cfg) {
+      int yNumber = cfg.getNumber(y);
       for (T x : Iterator2Iterable.make(RDF.getDominanceFrontier(y))) {
-        controlDependence.get(x).add(y);
-        if (wantEdgeLabels) {
-          HashSet<Object> labels = HashSetFactory.make();
-          edgeLabels.put(Pair.make(x, y), labels);
-          for (T s : Iterator2Iterable.make(cfg.getSuccNodes(x))) {
-            if (RDF.isDominatedBy(s, y)) {
-              labels.add(makeEdgeLabel(x, y, s));
-            }
-          }
+        if (count == from.length) {
+          from = Arrays.copyOf(from, 2 * count + 1);
+          to = Arrays.copyOf(to, 2 * count + 1);
         }
+        from[count] = cfg.getNumber(x);
+        to[count++] = yNumber;
       }
     }
-
-    return controlDependence;
+    return new int[][] {Arrays.copyOf(from, count), Arrays.copyOf(to, count)};
   }
 
   protected Object makeEdgeLabel(
@@ -91,77 +93,82 @@ public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
     return s;
   }
 
+  /**
+   * Group edges by their source.
+   *
+   * @return {start, targets}, where the targets of the edges from n are {@code
+   *     targets[start[n]..start[n+1]-1]}, in increasing order
+   */
+  private static int[][] adjacency(int maxNumber, int[] sources, int[] targets) {
+    int[] start = new int[maxNumber + 2];
+    for (int s : sources) {
+      start[s + 1]++;
+    }
+    for (int i = 1; i < start.length; i++) {
+      start[i] += start[i - 1];
+    }
+    int[] result = new int[targets.length];
+    int[] fill = Arrays.copyOf(start, maxNumber + 1);
+    for (int i = 0; i < sources.length; i++) {
+      result[fill[sources[i]]++] = targets[i];
+    }
+    for (int n = 0; n <= maxNumber; n++) {
+      Arrays.sort(result, start[n], start[n + 1]);
+    }
+    return new int[][] {start, result};
+  }
+
   /**
    * Given the control-dependence edges in a forward direction (i.e. edges from control parents to
    * control children), this method creates an EdgeManager that provides the edge half of the Graph
    * abstraction.
    */
-  private NumberedEdgeManager<T> constructGraphEdges(final Map<T, Set<T>> forwardEdges) {
+  private NumberedEdgeManager<T> constructGraphEdges(final int[][] forwardEdges) {
+    final int[][] preds = adjacency(cfg.getMaxNumber(), forwardEdges[1], forwardEdges[0]);
     return new NumberedEdgeManager<T>() {
-      Map<T, Set<T>> backwardEdges = HashMapFactory.make(forwardEdges.size());
+      private final int[] predStart = preds[0];
 
-      {
-        for (T name : cfg) {
-          Set<T> s = HashSetFactory.make();
-          backwardEdges.put(name, s);
-        }
-        for (Map.Entry<T, Set<T>> entry : forwardEdges.entrySet()) {
-          for (T t : entry.getValue()) {
-            Object n = t;
-            backwardEdges.get(n).add(entry.getKey());
-          }
-        }
-      }
+      private final int[] predNumbers = preds[1];
 
       @Override
       public Iterator<T> getPredNodes(T N) {
-        if (backwardEdges.containsKey(N)) return backwardEdges.get(N).iterator();
-        else return EmptyIterator.instance();
+        int n = cfg.getNumber(N);
+        return new NumberedNodeArrayIterator<>(predNumbers, predStart[n], predStart[n + 1], cfg);
       }
 
       @Override
       public IntSet getPredNodeNumbers(T node) {
-        MutableIntSet x = IntSetUtil.make();
-        if (backwardEdges.containsKey(node)) {
-          for (T pred : backwardEdges.get(node)) {
-            x.add(cfg.getNumber(pred));
-          }
-        }
-        return x;
+        int n = cfg.getNumber(node);
+        return IntSetUtil.make(Arrays.copyOfRange(predNumbers, predStart[n], predStart[n + 1]));
       }
 
       @Override
       public int getPredNodeCount(T N) {
-        if (backwardEdges.containsKey(N)) return backwardEdges.get(N).size();
-        else return 0;
+        int n = cfg.getNumber(N);
+        return predStart[n + 1] - predStart[n];
       }
 
       @Override
       public Iterator<T> getSuccNodes(T N) {
-        if (forwardEdges.containsKey(N)) return forwardEdges.get(N).iterator();
-        else return EmptyIterator.instance();
+        int n = cfg.getNumber(N);
+        return new NumberedNodeArrayIterator<>(succNumbers, succStart[n], succStart[n + 1], cfg);
       }
 
       @Override
       public IntSet getSuccNodeNumbers(T node) {
-        MutableIntSet x = IntSetUtil.make();
-        if (forwardEdges.containsKey(node)) {
-          for (T succ : forwardEdges.get(node)) {
-            x.add(cfg.getNumber(succ));
-          }
-        }
-        return x;
+        int n = cfg.getNumber(node);
+        return IntSetUtil.make(Arrays.copyOfRange(succNumbers, succStart[n], succStart[n + 1]));
       }
 
       @Override
       public int getSuccNodeCount(T N) {
-        if (forwardEdges.containsKey(N)) return forwardEdges.get(N).size();
-        else return 0;
+        int n = cfg.getNumber(N);
+        return succStart[n + 1] - succStart[n];
       }
 
       @Override
       public boolean hasEdge(T src, T dst) {
-        return forwardEdges.containsKey(src) && forwardEdges.get(src).contains(dst);
+        return edgeIndex(src, dst) >= 0;
       }
 
       @Override
@@ -198,9 +205,8 @@ public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
       sb.append(n.toString()).append('\n');
       for (T s : Iterator2Iterable.make(getSuccNodes(n))) {
         sb.append("  --> ").append(s);
-        if (edgeLabels != null)
-          for (Object name : edgeLabels.get(Pair.make(n, s)))
-            sb.append("\n   label: ").append(name);
+        if (RDF != null)
+          for (Object name : getEdgeLabels(n, s)) sb.append("\n   label: ").append(name);
         sb.append('\n');
       }
     }
@@ -217,7 +223,14 @@ public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
       throw new IllegalArgumentException("null cfg");
     }
     this.cfg = cfg;
-    this.edgeManager = constructGraphEdges(buildControlDependence(wantEdgeLabels));
+    DominanceFrontiers<T> RDF = new DominanceFrontiers<>(GraphInverter.invert(cfg), cfg.exit());
+    int[][] forwardEdges = buildControlDependence(RDF);
+    int[][] succs = adjacency(cfg.getMaxNumber(), forwardEdges[0], forwardEdges[1]);
+    this.succStart = succs[0];
+    this.succNumbers = succs[1];
+    this.edgeManager = constructGraphEdges(forwardEdges);
+    this.RDF = wantEdgeLabels ? RDF : null;
+    this.edgeLabels = wantEdgeLabels ? new Set<?>[succNumbers.length] : null;
   }
 
   /** @param cfg governing control flow graph */
@@ -232,9 +245,34 @@ public class ControlDependenceGraph<T> extends AbstractNumberedGraph<T> {
   /**
    * Return the set of edge labels for the control flow edges that cause the given edge in the CDG.
    * Requires that the CDG be constructed with wantEdgeLabels being true.
+   *
+   * @return the labels, or null if there is no such edge
    */
   public Set<? extends Object> getEdgeLabels(T from, T to) {
-    return edgeLabels.get(Pair.make(from, to));
+    if (RDF == null) {
+      throw new IllegalStateException("edge labels were not requested");
+    }
+    int e = edgeIndex(from, to);
+    if (e < 0) {
+      return null;
+    }
+    Set<?> labels = edgeLabels[e];
+    if (labels == null) {
+      Set<Object> result = HashSetFactory.make(2);
+      for (T s : Iterator2Iterable.make(cfg.getSuccNodes(from))) {
+        if (RDF.isDominatedBy(s, to)) {
+          result.add(makeEdgeLabel(from, to, s));
+        }
+      }
+      edgeLabels[e] = labels = result;
+    }
+    return labels;
+  }
+
+  /** @return the index of the edge from -&gt; to in succNumbers, or a negative number if none */
+  private int edgeIndex(T from, T to) {
+    int n = cfg.getNumber(from);
+    return Arrays.binarySearch(succNumbers, succStart[n], succStart[n + 1], cfg.getNumber(to));
   }
 
   @Override
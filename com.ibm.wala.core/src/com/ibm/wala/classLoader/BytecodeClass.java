@@ -73,8 +73,12 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   protected volatile Map<Selector, IMethod> methodMap;
 
-  /** A mapping from Selector to IMethod used to cache method lookups from superclasses */
-  protected Map<Selector, IMethod> inheritCache;
+  /**
+   * A mapping from Selector to IMethod used to cache method lookups from superclasses. Lookups may
+   * happen on several threads at once (e.g. while IRs are built in parallel), so the map is only
+   * read and written while holding its own lock; see {@link #cacheInheritedMethod}.
+   */
+  protected volatile Map<Selector, IMethod> inheritCache;
 
   /** Canonical type representation */
   protected TypeReference typeReference;
@@ -421,8 +425,11 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     if (result != null) {
       return result;
     }
-    if (inheritCache != null) {
-      result = inheritCache.get(selector);
+    Map<Selector, IMethod> cache = inheritCache;
+    if (cache != null) {
+      synchronized (cache) {
+        result = cache.get(selector);
+      }
       if (result != null) {
         return result;
       }
@@ -435,10 +442,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
       if (superclass != null) {
         IMethod inherit = superclass.getMethod(selector);
         if (inherit != null) {
-          if (inheritCache == null) {
-            inheritCache = new BimodalMap<>(5);
-          }
-          inheritCache.put(selector, inherit);
+          cacheInheritedMethod(selector, inherit);
           return inherit;
         }
       }
@@ -449,24 +453,34 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     for (IClass iface : getAllImplementedInterfaces()) {
       for (IMethod m : iface.getDeclaredMethods()) {
         if (!m.isAbstract() && m.getSelector().equals(selector)) {
-          if (inheritCache == null) {
-            inheritCache = new BimodalMap<>(5);
-          }
-          inheritCache.put(selector, m);
-
+          cacheInheritedMethod(selector, m);
           return m;
         }
       }
     }
 
     // no method found
-    if (inheritCache == null) {
-      inheritCache = new BimodalMap<>(5);
-    }
-    inheritCache.put(selector, null);
+    cacheInheritedMethod(selector, null);
     return null;
   }
 
+  /** Record the result of looking up selector in the superclass or interfaces of this class. */
+  private void cacheInheritedMethod(Selector selector, IMethod method) {
+    Map<Selector, IMethod> cache = inheritCache;
+    if (cache == null) {
+      synchronized (this) {
+        cache = inheritCache;
+        if (cache == null) {
+          cache = new BimodalMap<>(5);
+          inheritCache = cache;
+        }
+      }
+    }
+    synchronized (cache) {
+      cache.put(selector, method);
+    }
+  }
+
   /** @return Collection of IClasses, representing the interfaces this class implements. */
   protected Collection<IClass> computeAllInterfacesAsCollection() {
     Collection<? extends IClass> c = getDirectInterfaces();
@@ -35,6 +35,27 @@ public class ShrikeIRFactory implements IRFactory<IBytecodeMethod<IInstruction>>
 
   public static final boolean buildLocalMap = true;
 
+  /**
+   * Should the {@link SSABuilder} only consider phis for locals at the iterated dominance frontiers
+   * of their stores? See the {@code placePhisFromDominanceFrontiers} parameter of {@link
+   * SSABuilder#make}.
+   */
+  private final boolean placePhisFromDominanceFrontiers;
+
+  public ShrikeIRFactory() {
+    this(false);
+  }
+
+  /**
+   * @param placePhisFromDominanceFrontiers if true, build IRs with phis for locals placed from
+   *     dominance frontiers. The IRs are the same as by default, up to value numbering, but for
+   *     redundant phis, which merge one value with themselves, that the default builder leaves at
+   *     some merges.
+   */
+  public ShrikeIRFactory(boolean placePhisFromDominanceFrontiers) {
+    this.placePhisFromDominanceFrontiers = placePhisFromDominanceFrontiers;
+  }
+
   public ShrikeCFG makeCFG(final IBytecodeMethod<IInstruction> method) {
     return ShrikeCFG.make(method);
   }
@@ -150,7 +171,8 @@ public class ShrikeIRFactory implements IRFactory<IBytecodeMethod<IInstruction>>
                 newInstrs,
                 symbolTable,
                 buildLocalMap,
-                options.getPiNodePolicy());
+                options.getPiNodePolicy(),
+                placePhisFromDominanceFrontiers);
         builder.build();
         if (buildLocalMap) localMap = builder.getLocalMap();
         else localMap = null;
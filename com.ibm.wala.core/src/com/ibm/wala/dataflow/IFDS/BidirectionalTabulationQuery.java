@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Decides whether a fact at a sink is reachable from a source, without tabulating either problem
+ * exhaustively.
+ *
+ * <p>The query races two solvers, a few path edges at a time: a forward one, whose problem is
+ * seeded at the source, and a backward one, whose problem is over the {@link BackwardsSupergraph}
+ * and seeded at the sink. The query is answered as soon as either solver reaches its target, or
+ * either one finishes without doing so. The two searches do not meet in the middle: whichever
+ * decides the query on its own first answers it, so a query costs at most about twice the cheaper
+ * of the two directions.
+ *
+ * <p>The forward problem defines the answer, so {@link Answer#FOUND_FORWARD} and {@link
+ * Answer#RULED_OUT_FORWARD} are exact. The backward problem must over-approximate the reverse of
+ * the forward problem, i.e. the backward solver must reach the source fact whenever a path from the
+ * source to the sink fact exists. Then {@link Answer#RULED_OUT_BACKWARD} is sound, but {@link
+ * Answer#FOUND_BACKWARD} may be a false positive: the backward solver can reach the source fact
+ * along paths the forward problem does not have.
+ *
+ * @param <T> type of node in the supergraph
+ * @param <P> type of a procedure
+ */
+public class BidirectionalTabulationQuery<T, P> {
+
+  /** How a query was decided. */
+  public enum Answer {
+    /** the forward solver reached the sink fact */
+    FOUND_FORWARD,
+    /**
+     * the backward solver reached the source fact; as the backward problem over-approximates, the
+     * sink fact may still be unreachable
+     */
+    FOUND_BACKWARD,
+    /** the forward solver finished without reaching the sink fact */
+    RULED_OUT_FORWARD,
+    /** the backward solver finished without reaching the source fact */
+    RULED_OUT_BACKWARD;
+
+    /**
+     * @return false if the sink fact is not reachable from the source; true if it is, or, for
+     *     {@link #FOUND_BACKWARD}, if it may be
+     */
+    public boolean isReachable() {
+      return this == FOUND_FORWARD || this == FOUND_BACKWARD;
+    }
+  }
+
+  /** path edges each solver processes before the other one gets its turn */
+  public static final int DEFAULT_STEP = 1000;
+
+  private final TabulationSolver<T, P, ?> forward;
+
+  private final T sink;
+
+  private final int sinkFact;
+
+  private final TabulationSolver<T, P, ?> backward;
+
+  private final T source;
+
+  private final int sourceFact;
+
+  private final int step;
+
+  /** answer, once known */
+  private Answer answer;
+
+  /**
+   * @param forward solver for the problem seeded at the source
+   * @param sink the node the forward solver should reach
+   * @param sinkFact the fact, in the forward problem's domain, it should reach the sink with
+   * @param backward solver for the reverse problem, seeded at the sink
+   * @param source the node the backward solver should reach
+   * @param sourceFact the fact, in the backward problem's domain, it should reach the source with
+   */
+  public BidirectionalTabulationQuery(
+      TabulationSolver<T, P, ?> forward,
+      T sink,
+      int sinkFact,
+      TabulationSolver<T, P, ?> backward,
+      T source,
+      int sourceFact) {
+    this(forward, sink, sinkFact, backward, source, sourceFact, DEFAULT_STEP);
+  }
+
+  /** @param step path edges each solver processes before the other one gets its turn */
+  public BidirectionalTabulationQuery(
+      TabulationSolver<T, P, ?> forward,
+      T sink,
+      int sinkFact,
+      TabulationSolver<T, P, ?> backward,
+      T source,
+      int sourceFact,
+      int step) {
+    if (forward == null) {
+      throw new IllegalArgumentException("null forward");
+    }
+    if (backward == null) {
+      throw new IllegalArgumentException("null backward");
+    }
+    if (step <= 0) {
+      throw new IllegalArgumentException("step must be positive: " + step);
+    }
+    this.forward = forward;
+    this.sink = sink;
+    this.sinkFact = sinkFact;
+    this.backward = backward;
+    this.source = source;
+    this.sourceFact = sourceFact;
+    this.step = step;
+  }
+
+  /**
+   * Solve the query, if that has not been done before.
+   *
+   * @throws TabulationCancelException if either solver is canceled
+   */
+  public Answer solve() throws CancelException {
+    while (answer == null) {
+      boolean done = forward.step(step);
+      if (forward.getResult(sink).contains(sinkFact)) {
+        answer = Answer.FOUND_FORWARD;
+      } else if (done) {
+        answer = Answer.RULED_OUT_FORWARD;
+      } else {
+        done = backward.step(step);
+        if (backward.getResult(source).contains(sourceFact)) {
+          answer = Answer.FOUND_BACKWARD;
+        } else if (done) {
+          answer = Answer.RULED_OUT_BACKWARD;
+        }
+      }
+    }
+    return answer;
+  }
+}
@@ -25,6 +25,7 @@ import com.ibm.wala.cfg.ControlFlowGraph;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ipa.cfg.BoundedExplodedInterproceduralCFG;
 import com.ibm.wala.ipa.cfg.ExplodedInterproceduralCFG;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
@@ -60,6 +61,15 @@ public class ICFGSupergraph
     return w;
   }
 
+  /**
+   * Make a supergraph that keeps at most maxCachedCFGs exploded CFGs in memory.
+   *
+   * @see BoundedExplodedInterproceduralCFG
+   */
+  public static ICFGSupergraph make(CallGraph cg, int maxCachedCFGs) {
+    return new ICFGSupergraph(BoundedExplodedInterproceduralCFG.make(cg, maxCachedCFGs));
+  }
+
   @Override
   public Graph<CGNode> getProcedureGraph() {
     return icfg.getCallGraph();
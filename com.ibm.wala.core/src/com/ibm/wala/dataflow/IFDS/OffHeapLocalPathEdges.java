@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.nio.IntBuffer;
+
+/**
+ * A set of path edges for a particular procedure entry s_p, kept outside the Java heap.
+ *
+ * <p>Path edges &lt;s_p, d1&gt; -&gt; &lt;n, d2&gt; are appended to a log of int records in a
+ * direct buffer, and found again through open-addressing hash tables, also in direct buffers, on
+ * the whole triple, on (n, d2) for {@link #getInverse(int, int)}, on (n, d1) for {@link
+ * #getReachable(int, int)} and on n for {@link #getReachable(int)}. Each table slot holds the
+ * newest edge with its key, and each edge links to the previous one with the same key, so all
+ * queries the {@link TabulationSolver} makes are answered without any per-edge Java objects. This
+ * costs about 40 bytes of native memory per edge, and next to nothing on the heap, so the edges of
+ * large problems no longer compete with the rest of the analysis for heap space.
+ *
+ * <p>The buffers are cut from an {@link OffHeapPathEdgeArena} shared by all procedures, which
+ * decides whether they are direct or mapped from a spill file; when they grow, the old buffers are
+ * given back to it for reuse.
+ *
+ * <p>To use this representation, see {@link TabulationSolver#setOffHeapPathEdges}.
+ */
+public class OffHeapLocalPathEdges extends LocalPathEdges {
+
+  /** ints per edge record */
+  private static final int RECORD = 6;
+
+  private static final int D1 = 0;
+
+  private static final int N = 1;
+
+  private static final int D2 = 2;
+
+  /** previous edge with the same (n, d2), plus one, or 0 */
+  private static final int NEXT_BY_TARGET = 3;
+
+  /** previous edge with the same (n, d1), plus one, or 0 */
+  private static final int NEXT_BY_SOURCE = 4;
+
+  /** previous edge with the same n, plus one, or 0 */
+  private static final int NEXT_BY_NODE = 5;
+
+  private static final int INITIAL_EDGES = 16;
+
+  /** where the buffers come from */
+  private final OffHeapPathEdgeArena arena;
+
+  /** the edge records */
+  private IntBuffer edges;
+
+  private int count;
+
+  /** hash tables of edge numbers plus one, or 0 for an empty slot */
+  private IntBuffer triples;
+
+  private IntBuffer byTarget;
+
+  private IntBuffer bySource;
+
+  private IntBuffer byNode;
+
+  /** @param arena where to keep the path edges */
+  public OffHeapLocalPathEdges(OffHeapPathEdgeArena arena) {
+    super(false);
+    if (arena == null) {
+      throw new IllegalArgumentException("null arena");
+    }
+    this.arena = arena;
+    edges = arena.allocate(INITIAL_EDGES * RECORD);
+    triples = arena.allocate(2 * INITIAL_EDGES);
+    byTarget = arena.allocate(2 * INITIAL_EDGES);
+    bySource = arena.allocate(2 * INITIAL_EDGES);
+    byNode = arena.allocate(2 * INITIAL_EDGES);
+  }
+
+  /** @return the number of path edges recorded */
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public void addPathEdge(int i, int n, int j) {
+    if (contains(i, n, j)) {
+      return;
+    }
+    if ((count + 1) * 2 > triples.capacity()) {
+      grow();
+    }
+    int e = count++;
+    int base = e * RECORD;
+    edges.put(base + D1, i);
+    edges.put(base + N, n);
+    edges.put(base + D2, j);
+
+    insertNew(triples, hash(i, n, j), e);
+
+    int slot = find(byTarget, hash(n, j), n, D2, j);
+    int head = byTarget.get(slot);
+    edges.put(base + NEXT_BY_TARGET, head);
+    byTarget.put(slot, e + 1);
+
+    slot = find(bySource, hash(n, i), n, D1, i);
+    head = bySource.get(slot);
+    edges.put(base + NEXT_BY_SOURCE, head);
+    bySource.put(slot, e + 1);
+
+    slot = findNode(byNode, n);
+    head = byNode.get(slot);
+    edges.put(base + NEXT_BY_NODE, head);
+    byNode.put(slot, e + 1);
+
+    if (TabulationSolver.DEBUG_LEVEL > 1) {
+      System.err.println("recording path edge " + i + " -> <" + n + ", " + j + ">");
+    }
+  }
+
+  @Override
+  public boolean contains(int i, int n, int j) {
+    if (n < 0) {
+      throw new IllegalArgumentException("invalid n: " + n);
+    }
+    int mask = triples.capacity() - 1;
+    for (int slot = hash(i, n, j) & mask; ; slot = (slot + 1) & mask) {
+      int e = triples.get(slot) - 1;
+      if (e < 0) {
+        return false;
+      }
+      int base = e * RECORD;
+      if (edges.get(base + N) == n && edges.get(base + D1) == i && edges.get(base + D2) == j) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Unlike {@link LocalPathEdges#getInverse(int, int)}, the result always holds all the d1 with a
+   * recorded path edge, including 0.
+   *
+   * @return the sparse int set of d1 s.t. {@literal <s_p, d1> -> <n, d2>} are recorded as path
+   *     edges. null if none found
+   */
+  @Override
+  public IntSet getInverse(int n, int d2) {
+    int e = byTarget.get(find(byTarget, hash(n, d2), n, D2, d2));
+    if (e == 0) {
+      return null;
+    }
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    for (; e != 0; e = edges.get((e - 1) * RECORD + NEXT_BY_TARGET)) {
+      result.add(edges.get((e - 1) * RECORD + D1));
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet getReachable(int n, int d1) {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    for (int e = bySource.get(find(bySource, hash(n, d1), n, D1, d1));
+        e != 0;
+        e = edges.get((e - 1) * RECORD + NEXT_BY_SOURCE)) {
+      result.add(edges.get((e - 1) * RECORD + D2));
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet getReachable(int n) {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    for (int e = byNode.get(findNode(byNode, n));
+        e != 0;
+        e = edges.get((e - 1) * RECORD + NEXT_BY_NODE)) {
+      result.add(edges.get((e - 1) * RECORD + D2));
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet getReachedNodeNumbers() {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    for (int slot = 0; slot < byNode.capacity(); slot++) {
+      int e = byNode.get(slot);
+      if (e != 0) {
+        result.add(edges.get((e - 1) * RECORD + N));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the slot of the chain for the edges whose n and field are as given, or the empty slot
+   *     where it would go
+   */
+  private int find(IntBuffer table, int hash, int n, int field, int value) {
+    int mask = table.capacity() - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      int e = table.get(slot) - 1;
+      if (e < 0) {
+        return slot;
+      }
+      int base = e * RECORD;
+      if (edges.get(base + N) == n && edges.get(base + field) == value) {
+        return slot;
+      }
+    }
+  }
+
+  private int findNode(IntBuffer table, int n) {
+    int mask = table.capacity() - 1;
+    for (int slot = hash(n) & mask; ; slot = (slot + 1) & mask) {
+      int e = table.get(slot) - 1;
+      if (e < 0 || edges.get(e * RECORD + N) == n) {
+        return slot;
+      }
+    }
+  }
+
+  /** puts edge e into table, in which no edge has the same key */
+  private static void insertNew(IntBuffer table, int hash, int e) {
+    int mask = table.capacity() - 1;
+    int slot = hash & mask;
+    while (table.get(slot) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table.put(slot, e + 1);
+  }
+
+  /** doubles the edge log and the tables, which stay at most half full */
+  private void grow() {
+    int edgeCapacity = edges.capacity() / RECORD;
+    if (edgeCapacity > OffHeapPathEdgeArena.MAX_BUFFER_INTS / RECORD / 2) {
+      throw new IllegalStateException("too many path edges: " + count);
+    }
+    IntBuffer newEdges = arena.allocate(2 * edgeCapacity * RECORD);
+    edges.rewind();
+    newEdges.put(edges);
+    newEdges.rewind();
+    arena.free(edges);
+    edges = newEdges;
+
+    int tableSize = 2 * triples.capacity();
+    arena.free(triples);
+    arena.free(byTarget);
+    arena.free(bySource);
+    arena.free(byNode);
+    triples = arena.allocate(tableSize);
+    byTarget = arena.allocate(tableSize);
+    bySource = arena.allocate(tableSize);
+    byNode = arena.allocate(tableSize);
+    for (int e = 0; e < count; e++) {
+      int base = e * RECORD;
+      int d1 = edges.get(base + D1);
+      int n = edges.get(base + N);
+      int d2 = edges.get(base + D2);
+      insertNew(triples, hash(d1, n, d2), e);
+      // later edges head the chains, so they replace earlier ones
+      byTarget.put(find(byTarget, hash(n, d2), n, D2, d2), e + 1);
+      bySource.put(find(bySource, hash(n, d1), n, D1, d1), e + 1);
+      byNode.put(findNode(byNode, n), e + 1);
+    }
+  }
+
+  private static int hash(int n) {
+    int h = n * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int hash(int n, int d) {
+    return hash(n * 31 + d * 0x85ebca6b);
+  }
+
+  private static int hash(int d1, int n, int d2) {
+    return hash(hash(n, d1) * 31 + d2);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The memory that the {@link OffHeapLocalPathEdges} of one or more solvers carve their buffers
+ * from, outside the Java heap.
+ *
+ * <p>Buffers are cut from a few large chunks, which start small and double in size up to {@link
+ * #MAX_CHUNK_INTS} ints, so that the number of chunks grows with the total size of the path edges,
+ * not with the number of procedures. A buffer that is given back, e.g. because its procedure
+ * outgrew it, is kept for the next request of the same size.
+ *
+ * <p>Chunks are either direct buffers, which count against {@code -XX:MaxDirectMemorySize}, or, if
+ * a spill directory is given, mapped from a single temporary file in it, so that the operating
+ * system can write the edges of procedures that are not being worked on to disk, and page them in
+ * again when they are needed. Mapped chunks do not count against the direct memory limit. The file
+ * is deleted as soon as it is created where the platform allows it, and otherwise when the JVM
+ * exits; the memory is released when the arena and all path edges using it are garbage collected.
+ *
+ * <p>An arena may be shared by solvers running at the same time.
+ */
+public class OffHeapPathEdgeArena implements Closeable {
+
+  /** ints in the first chunk */
+  private static final int MIN_CHUNK_INTS = 1 << 18;
+
+  /** ints in the largest chunks; larger buffers get a chunk of their own */
+  public static final int MAX_CHUNK_INTS = 1 << 24;
+
+  /** ints in the largest buffer, whose size in bytes must fit an int */
+  public static final int MAX_BUFFER_INTS = Integer.MAX_VALUE / 4;
+
+  /** the file chunks are mapped from, or null to allocate them directly */
+  private final FileChannel file;
+
+  /** bytes of file mapped so far */
+  private long fileSize;
+
+  /** the chunk buffers are being cut from, or null */
+  private IntBuffer chunk;
+
+  private int chunkInts = MIN_CHUNK_INTS;
+
+  /** ints reserved in all chunks so far */
+  private long reserved;
+
+  /** buffers given back, by size */
+  private final Map<Integer, ArrayDeque<IntBuffer>> free = new HashMap<>();
+
+  /** Keeps the path edges in direct buffers. */
+  public OffHeapPathEdgeArena() {
+    file = null;
+  }
+
+  /**
+   * @param spillDirectory directory for the file to map the path edges from, so that the edges of
+   *     cold procedures can be paged out to disk
+   */
+  @SuppressWarnings("resource")
+  public OffHeapPathEdgeArena(File spillDirectory) throws IOException {
+    if (spillDirectory == null || !spillDirectory.isDirectory()) {
+      throw new IllegalArgumentException("not a directory: " + spillDirectory);
+    }
+    File f = File.createTempFile("pathEdges", ".bin", spillDirectory);
+    file = new RandomAccessFile(f, "rw").getChannel();
+    if (!f.delete()) {
+      f.deleteOnExit();
+    }
+  }
+
+  /** @return the number of bytes reserved for path edges so far */
+  public synchronized long getReservedBytes() {
+    return 4 * reserved;
+  }
+
+  /** @return a buffer of the given number of ints, all 0 */
+  synchronized IntBuffer allocate(int ints) {
+    if (ints < 0 || ints > MAX_BUFFER_INTS) {
+      throw new IllegalArgumentException("bad buffer size: " + ints + " ints");
+    }
+    ArrayDeque<IntBuffer> reusable = free.get(ints);
+    if (reusable != null && !reusable.isEmpty()) {
+      IntBuffer result = reusable.pop();
+      for (int i = 0; i < ints; i++) {
+        result.put(i, 0);
+      }
+      return result;
+    }
+    if (ints > MAX_CHUNK_INTS) {
+      return newChunk(ints);
+    }
+    if (chunk == null || chunk.remaining() < ints) {
+      // ints <= MAX_CHUNK_INTS here, so chunkInts stays within it
+      while (chunkInts < ints) {
+        chunkInts *= 2;
+      }
+      chunk = newChunk(chunkInts);
+      chunkInts = Math.min(2 * chunkInts, MAX_CHUNK_INTS);
+    }
+    chunk.limit(chunk.position() + ints);
+    IntBuffer result = chunk.slice();
+    chunk.position(chunk.limit());
+    chunk.limit(chunk.capacity());
+    return result;
+  }
+
+  /** Give back a buffer that came from {@link #allocate(int)} and is not used any more. */
+  synchronized void free(IntBuffer buffer) {
+    free.computeIfAbsent(buffer.capacity(), k -> new ArrayDeque<>()).push(buffer);
+  }
+
+  private IntBuffer newChunk(int ints) {
+    ByteBuffer bytes;
+    if (file == null) {
+      try {
+        bytes = ByteBuffer.allocateDirect(Math.multiplyExact(4, ints));
+      } catch (OutOfMemoryError e) {
+        OutOfMemoryError error =
+            new OutOfMemoryError(
+                "path edges need more direct memory than -XX:MaxDirectMemorySize allows ("
+                    + getReservedBytes()
+                    + " bytes in use); raise it, or give the arena a spill directory");
+        error.initCause(e);
+        throw error;
+      }
+    } else {
+      try {
+        bytes = file.map(FileChannel.MapMode.READ_WRITE, fileSize, 4L * ints);
+        fileSize += 4L * ints;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    reserved += ints;
+    return bytes.order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+  /**
+   * Close the spill file, if any. Path edges already using the arena stay valid, but no more can be
+   * added to it.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (file != null) {
+      file.close();
+    }
+  }
+}
@@ -11,13 +11,12 @@
 package com.ibm.wala.dataflow.IFDS;
 
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
-import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.intset.BasicNaturalRelation;
+import com.ibm.wala.util.intset.IBinaryNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
-import java.util.Collection;
 
 /**
  * Utilities for dealing with tabulation with partially balanced parentheses.
@@ -34,7 +33,8 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     return new PartiallyBalancedTabulationSolver<>(p, monitor);
   }
 
-  private final Collection<Pair<T, Integer>> unbalancedSeeds = HashSetFactory.make();
+  /** (number of seed entry node in the supergraph, seed fact) for each unbalanced seed */
+  private final IBinaryNaturalRelation unbalancedSeeds = new BasicNaturalRelation();
 
   protected PartiallyBalancedTabulationSolver(
       PartiallyBalancedTabulationProblem<T, P, F> p, IProgressMonitor monitor) {
@@ -80,7 +80,7 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     if (getSeeds().contains(seed)) {
       return;
     }
-    unbalancedSeeds.add(Pair.make(seed.entry, seed.d1));
+    unbalancedSeeds.add(supergraph.getNumber(seed.entry), seed.d1);
     super.addSeed(seed);
   }
 
@@ -90,7 +90,7 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
    * parens.
    */
   private boolean wasUsedAsUnbalancedSeed(T s_p, int i) {
-    return unbalancedSeeds.contains(Pair.make(s_p, i));
+    return unbalancedSeeds.contains(supergraph.getNumber(s_p), i);
   }
 
   /**
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.math.LongUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Summary edges of procedures, kept across runs of a {@link TabulationSolver} so that procedures
+ * whose flow functions do not depend on the program being analyzed, such as those of a platform
+ * library, need not be tabulated again. A summary is stored for a procedure, identified by a
+ * signature chosen by the client, an entry block and a fact d1 at that entry; it holds every (x,
+ * d2) s.t. &lt;s_p, d1&gt; -&gt; &lt;x, d2&gt; is a summary edge, and so may be empty.
+ *
+ * <p>In memory, facts are the ints of the {@link TabulationDomain} of the run that uses the store.
+ * Since another run may number the same facts differently, facts are written by name, with names
+ * given by the client, and numbered again by the client when the summaries are read. A store is
+ * only valid for the problem it was computed for, which is named by the client too, e.g. by a
+ * version of the problem; summaries read for another problem are discarded.
+ *
+ * @see TabulationSolver#setSummaryStore(ProcedureSummaryStore, java.util.function.Function)
+ */
+public class ProcedureSummaryStore {
+
+  /** "WPSE" */
+  private static final int MAGIC = 0x57505345;
+
+  private static final int VERSION = 2;
+
+  private final String problemId;
+
+  /**
+   * signature -&gt; (s_p, d1) packed in a long, s_p in the high half -&gt; summary, as (x, d2)
+   * pairs in an array of length 2k
+   */
+  private final Map<String, Map<Long, int[]>> summaries = HashMapFactory.make();
+
+  /** @param problemId identifies the problem the summaries are computed for */
+  public ProcedureSummaryStore(String problemId) {
+    if (problemId == null) {
+      throw new IllegalArgumentException("null problemId");
+    }
+    this.problemId = problemId;
+  }
+
+  public String getProblemId() {
+    return problemId;
+  }
+
+  /**
+   * @param signature identifies a procedure
+   * @param s_p local block number of an entry of the procedure
+   * @param d1 fact at the entry
+   * @return the summary edges, as pairs (x, d2) of the local block number of an exit and a fact
+   *     there, or null if none are stored. The result must not be modified.
+   */
+  public synchronized int[] get(String signature, int s_p, int d1) {
+    Map<Long, int[]> procedure = summaries.get(signature);
+    return procedure == null ? null : procedure.get(LongUtil.pack(s_p, d1));
+  }
+
+  /**
+   * Record all summary edges of a procedure for a fact at an entry.
+   *
+   * @param edges pairs (x, d2) of the local block number of an exit and a fact there
+   */
+  public synchronized void put(String signature, int s_p, int d1, int[] edges) {
+    if (signature == null) {
+      throw new IllegalArgumentException("null signature");
+    }
+    if (edges == null || edges.length % 2 != 0) {
+      throw new IllegalArgumentException("bad edges");
+    }
+    summaries
+        .computeIfAbsent(signature, k -> HashMapFactory.make())
+        .put(LongUtil.pack(s_p, d1), edges.clone());
+  }
+
+  /** @return the number of procedures with a stored summary */
+  public synchronized int size() {
+    return summaries.size();
+  }
+
+  /**
+   * Writes the summaries to out, which is not closed.
+   *
+   * @param factNames gives a name for each fact in the summaries, which identifies the fact in
+   *     other runs of the problem
+   */
+  public synchronized void write(OutputStream out, IntFunction<String> factNames)
+      throws IOException {
+    if (factNames == null) {
+      throw new IllegalArgumentException("null factNames");
+    }
+    // name each fact once, and refer to it by its position in the names
+    MutableMapping<Integer> facts = MutableMapping.make();
+    for (Map<Long, int[]> procedure : summaries.values()) {
+      for (Map.Entry<Long, int[]> summary : procedure.entrySet()) {
+        facts.add((int) (long) summary.getKey());
+        for (int i = 1; i < summary.getValue().length; i += 2) {
+          facts.add(summary.getValue()[i]);
+        }
+      }
+    }
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeUTF(problemId);
+    data.writeInt(facts.getSize());
+    for (int i = 0; i < facts.getSize(); i++) {
+      String name = factNames.apply(facts.getMappedObject(i));
+      if (name == null) {
+        throw new IllegalArgumentException("no name for fact " + facts.getMappedObject(i));
+      }
+      data.writeUTF(name);
+    }
+    data.writeInt(summaries.size());
+    for (Map.Entry<String, Map<Long, int[]>> procedure : summaries.entrySet()) {
+      data.writeUTF(procedure.getKey());
+      data.writeInt(procedure.getValue().size());
+      for (Map.Entry<Long, int[]> summary : procedure.getValue().entrySet()) {
+        long key = summary.getKey();
+        int[] edges = summary.getValue();
+        data.writeInt((int) (key >>> 32));
+        data.writeInt(facts.getMappedIndex((int) key));
+        data.writeInt(edges.length);
+        for (int i = 0; i < edges.length; i += 2) {
+          data.writeInt(edges[i]);
+          data.writeInt(facts.getMappedIndex(edges[i + 1]));
+        }
+      }
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads summaries written by {@link #write(OutputStream, IntFunction)}.
+   *
+   * @param factNumbers gives the number of a named fact in the domain of this run, or -1 if the
+   *     fact does not exist in this run; summaries with such facts are discarded
+   * @return the summaries read, or an empty store if they were computed for another problem
+   */
+  public static ProcedureSummaryStore read(
+      InputStream in, String problemId, ToIntFunction<String> factNumbers) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("null in");
+    }
+    if (factNumbers == null) {
+      throw new IllegalArgumentException("null factNumbers");
+    }
+    ProcedureSummaryStore result = new ProcedureSummaryStore(problemId);
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("not a summary file");
+    }
+    int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported summary file version " + version);
+    }
+    if (!problemId.equals(data.readUTF())) {
+      // stale summaries
+      return result;
+    }
+    int[] facts = new int[data.readInt()];
+    for (int i = 0; i < facts.length; i++) {
+      facts[i] = factNumbers.applyAsInt(data.readUTF());
+    }
+    for (int p = data.readInt(); p > 0; p--) {
+      String signature = data.readUTF();
+      Map<Long, int[]> procedure = HashMapFactory.make();
+      for (int s = data.readInt(); s > 0; s--) {
+        int s_p = data.readInt();
+        int d1 = fact(facts, data.readInt());
+        int length = data.readInt();
+        if (length < 0 || length % 2 != 0) {
+          throw new IOException("corrupt summary file: bad summary length " + length);
+        }
+        int[] edges = new int[length];
+        boolean known = d1 != -1;
+        for (int i = 0; i < length; i += 2) {
+          edges[i] = data.readInt();
+          edges[i + 1] = fact(facts, data.readInt());
+          known &= edges[i + 1] != -1;
+        }
+        if (known) {
+          procedure.put(LongUtil.pack(s_p, d1), edges);
+        }
+      }
+      if (!procedure.isEmpty()) {
+        result.summaries.put(signature, procedure);
+      }
+    }
+    return result;
+  }
+
+  private static int fact(int[] facts, int i) throws IOException {
+    if (i < 0 || i >= facts.length) {
+      throw new IOException("corrupt summary file: bad fact " + i);
+    }
+    return facts[i];
+  }
+}
@@ -18,9 +18,11 @@ import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
+import com.ibm.wala.util.collections.IVector;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.MapUtil;
+import com.ibm.wala.util.collections.SimpleVector;
 import com.ibm.wala.util.collections.ToStringComparator;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.IntIterator;
@@ -38,6 +40,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Function;
 
 /**
  * A precise interprocedural tabulation solver.
@@ -104,20 +107,20 @@ public class TabulationSolver<T, P, F> {
   private final TabulationProblem<T, P, F> problem;
 
   /**
-   * A map from Object (entry node in supergraph) -&gt; LocalPathEdges.
+   * A map from the number of an entry node in the supergraph -&gt; LocalPathEdges.
    *
    * <p>Logically, this represents a set of edges (s_p,d_i) -&gt; (n, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
+  private final IVector<LocalPathEdges> pathEdges = new SimpleVector<>();
 
   /**
-   * A map from Object (entry node in supergraph) -&gt; CallFlowEdges.
+   * A map from the number of an entry node in the supergraph -&gt; CallFlowEdges.
    *
    * <p>Logically, this represents a set of edges (c,d_i) -&gt; (s_p, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
+  private final IVector<CallFlowEdges> callFlowEdges = new SimpleVector<>();
 
   /** A map from Object (procedure) -&gt; LocalSummaryEdges. */
   protected final Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
@@ -134,15 +137,30 @@ public class TabulationSolver<T, P, F> {
   /** The worklist */
   private ITabulationWorklist<T> worklist;
 
+  /** summaries of procedures from earlier runs, or null */
+  private ProcedureSummaryStore summaryStore;
+
+  /** signatures of procedures whose summaries are stored, or null for other procedures */
+  private Function<P, String> summarySignatures;
+
+  /** where to keep path edges outside the heap, or null to keep them on the heap */
+  private OffHeapPathEdgeArena offHeapPathEdges;
+
+  /** a solved solver whose edges this one extends, or null; see {@link #setBase} */
+  private TabulationSolver<T, P, F> base;
+
+  /** has {@link #step(int)} started the tabulation? */
+  private boolean started;
+
   /** A progress monitor. can be null. */
   protected final IProgressMonitor progressMonitor;
 
   /**
-   * the path edge currently being processed in the main loop of {@link #forwardTabulateSLRPs()};
-   * {@code null} if {@link #forwardTabulateSLRPs()} is not currently running. Note that if we are
-   * applying a summary edge in {@link #processExit(PathEdge)}, curPathEdge is modified to be the
-   * path edge terminating at the call node in the caller, to match the behavior in {@link
-   * #processCall(PathEdge)}.
+   * the path edge currently being processed in the main loop of {@link
+   * #forwardTabulateSLRPs(int)}; {@code null} if {@link #forwardTabulateSLRPs(int)} is not
+   * currently running. Note that if we are applying a summary edge in {@link
+   * #processExit(PathEdge)}, curPathEdge is modified to be the path edge terminating at the call
+   * node in the caller, to match the behavior in {@link #processCall(PathEdge)}.
    */
   private PathEdge<T> curPathEdge;
 
@@ -179,6 +197,53 @@ public class TabulationSolver<T, P, F> {
     return new TabulationSolver<>(p, null);
   }
 
+  /**
+   * Reuse the summary edges of some procedures across runs. When a fact flows into such a procedure
+   * and store holds its summary for that fact, the summary edges are applied at the call instead of
+   * tabulating the procedure; when the problem is solved, the summaries of such procedures for all
+   * facts that reached their entries are added to store, so it can be saved for later runs.
+   *
+   * <p>Procedures that are not tabulated have no path edges, so the result holds no facts for their
+   * nodes.
+   *
+   * @param store summaries for this problem, with facts numbered as in its domain
+   * @param signatures gives a signature identifying a procedure across runs, or null for a
+   *     procedure whose summaries must not be reused, e.g. because its flow functions depend on the
+   *     rest of the program
+   */
+  public void setSummaryStore(ProcedureSummaryStore store, Function<P, String> signatures) {
+    if (store != null && signatures == null) {
+      throw new IllegalArgumentException("null signatures");
+    }
+    this.summaryStore = store;
+    this.summarySignatures = signatures;
+  }
+
+  /**
+   * Keep the path edges of this solver outside the Java heap, in {@link OffHeapLocalPathEdges}, for
+   * problems whose path edges do not fit in the heap. Must be called before the tabulation starts.
+   *
+   * @param arena where to keep the path edges, which may be shared with other solvers, or null to
+   *     keep them on the heap
+   */
+  public void setOffHeapPathEdges(OffHeapPathEdgeArena arena) {
+    this.offHeapPathEdges = arena;
+  }
+
+  /**
+   * Extend the solution of base instead of starting from scratch: the path, call flow and summary
+   * edges base found count as found by this solver, and are not tabulated again. A client that
+   * solves one problem from several groups of seeds can thus solve the seeds that every group
+   * needs, e.g. the zero fact at the entry points, once, and extend that solution for each group.
+   *
+   * <p>base must have solved a problem over the same supergraph, domain and flow functions, and
+   * must not change any more. It is only read, so several solvers may extend it at the same time.
+   * The result of this solver holds the facts of base as well as its own.
+   */
+  public void setBase(TabulationSolver<T, P, F> base) {
+    this.base = base;
+  }
+
   /**
    * Solve the dataflow problem.
    *
@@ -188,7 +253,8 @@ public class TabulationSolver<T, P, F> {
 
     try {
       initialize();
-      forwardTabulateSLRPs();
+      forwardTabulateSLRPs(-1);
+      storeSummaries();
       Result r = new Result();
       return r;
     } catch (CancelException | CancelRuntimeException e) {
@@ -198,6 +264,36 @@ public class TabulationSolver<T, P, F> {
     }
   }
 
+  /**
+   * Solve the dataflow problem a few path edges at a time, so that clients can interleave several
+   * solvers, or stop once the facts they are interested in have been reached. The first call
+   * starts the tabulation with the initial seeds. Facts reached so far can be found with {@link
+   * #getResult(Object)}.
+   *
+   * @param maxEdges the most path edges to process in this call
+   * @return true iff the problem is solved
+   */
+  public boolean step(int maxEdges) throws CancelException {
+    if (maxEdges <= 0) {
+      throw new IllegalArgumentException("maxEdges must be positive: " + maxEdges);
+    }
+    try {
+      if (!started) {
+        started = true;
+        initialize();
+      }
+      boolean done = forwardTabulateSLRPs(maxEdges);
+      if (done) {
+        storeSummaries();
+      }
+      return done;
+    } catch (CancelException | CancelRuntimeException e) {
+      // store a partially-tabulated result in the thrown exception.
+      Result r = new Result();
+      throw new TabulationCancelException(e, r);
+    }
+  }
+
   /** Start tabulation with the initial seeds. */
   protected void initialize() {
     for (PathEdge<T> seed : problem.initialSeeds()) {
@@ -213,14 +309,19 @@ public class TabulationSolver<T, P, F> {
     propagate(seed.entry, seed.d1, seed.target, seed.d2);
   }
 
-  /** See POPL 95 paper for this algorithm, Figure 3 */
+  /**
+   * See POPL 95 paper for this algorithm, Figure 3
+   *
+   * @param maxEdges the most path edges to process, or -1 for no limit
+   * @return true iff the worklist is empty
+   */
   @SuppressWarnings("unused")
-  private void forwardTabulateSLRPs() throws CancelException {
+  private boolean forwardTabulateSLRPs(int maxEdges) throws CancelException {
     assert curPathEdge == null : "curPathEdge should not be non-null here";
     if (worklist == null) {
       worklist = makeWorklist();
     }
-    while (worklist.size() > 0) {
+    for (int processed = 0; worklist.size() > 0 && processed != maxEdges; processed++) {
       MonitorUtil.throwExceptionIfCanceled(progressMonitor);
       if (verbose) {
         performVerboseAction();
@@ -262,6 +363,7 @@ public class TabulationSolver<T, P, F> {
       }
     }
     curPathEdge = null;
+    return worklist.size() == 0;
   }
 
   /**
@@ -340,15 +442,13 @@ public class TabulationSolver<T, P, F> {
     assert curSummaryEdge == null : "curSummaryEdge should be null here";
     curSummaryEdge = edge;
 
-    final CallFlowEdges callFlow = findOrCreateCallFlowEdges(edge.entry);
-
     // [22] for each c /in callers(p)
-    IntSet callFlowSourceNodes = callFlow.getCallFlowSourceNodes(edge.d1);
+    IntSet callFlowSourceNodes = getCallFlowSourceNodes(edge.entry, edge.d1);
     if (callFlowSourceNodes != null) {
       for (IntIterator it = callFlowSourceNodes.intIterator(); it.hasNext(); ) {
         // [23] for each d4 s.t. <c,d4> -> <s_p,d1> occurred earlier
         int globalC = it.next();
-        final IntSet D4 = callFlow.getCallFlowSources(globalC, edge.d1);
+        final IntSet D4 = getCallFlowSources(edge.entry, globalC, edge.d1);
 
         // [23] for each d5 s.t. <e_p,d2> -> <returnSite(c),d5> ...
         propagateToReturnSites(edge, supergraph.getNode(globalC), D4);
@@ -494,11 +594,51 @@ public class TabulationSolver<T, P, F> {
    */
   protected IntSet getInversePathEdges(T s_p, T n, int d2) {
     int number = supergraph.getLocalBlockNumber(n);
-    LocalPathEdges lp = pathEdges.get(s_p);
-    if (lp == null) {
-      return null;
+    LocalPathEdges lp = getLocalPathEdges(s_p);
+    IntSet result = lp == null ? null : lp.getInverse(number, d2);
+    return base == null ? result : union(result, base.getInversePathEdges(s_p, n, d2));
+  }
+
+  /**
+   * @return set of c s.t. {@literal <c, d1> -> <s_p, d2>} was recorded as call flow by this solver
+   *     or its base, or null if none found
+   */
+  private IntSet getCallFlowSourceNodes(T s_p, int d2) {
+    CallFlowEdges callFlow = callFlowEdges.get(supergraph.getNumber(s_p));
+    IntSet result = callFlow == null ? null : callFlow.getCallFlowSourceNodes(d2);
+    return base == null ? result : union(result, base.getCallFlowSourceNodes(s_p, d2));
+  }
+
+  /**
+   * @return set of d1 s.t. {@literal <c, d1> -> <s_p, d2>} was recorded as call flow by this
+   *     solver or its base, or null if none found
+   */
+  private IntSet getCallFlowSources(T s_p, int c, int d2) {
+    CallFlowEdges callFlow = callFlowEdges.get(supergraph.getNumber(s_p));
+    IntSet result = callFlow == null ? null : callFlow.getCallFlowSources(c, d2);
+    return base == null ? result : union(result, base.getCallFlowSources(s_p, c, d2));
+  }
+
+  /**
+   * @return set of d2 s.t. {@literal <s_p, d1> -> <x, d2>} was recorded as a summary edge of proc
+   *     by this solver or its base, or null if none found
+   */
+  private IntSet getSummaryEdges(P proc, int s_p, int x, int d1) {
+    LocalSummaryEdges summaries = summaryEdges.get(proc);
+    IntSet result = summaries == null ? null : summaries.getSummaryEdges(s_p, x, d1);
+    return base == null ? result : union(result, base.getSummaryEdges(proc, s_p, x, d1));
+  }
+
+  /** @return the union of a and b, either of which may be null, or null if both are */
+  private static IntSet union(IntSet a, IntSet b) {
+    if (a == null || a.isEmpty()) {
+      return b;
+    } else if (b == null || b.isEmpty()) {
+      return a;
     }
-    return lp.getInverse(number, d2);
+    MutableSparseIntSet result = MutableSparseIntSet.make(a);
+    result.addAll(b);
+    return result;
   }
 
   /**
@@ -617,14 +757,16 @@ public class TabulationSolver<T, P, F> {
       System.err.println(" reached: " + reached);
     }
     if (reached != null) {
-      final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
+      final P p = supergraph.getProcOf(calleeEntry);
       final CallFlowEdges callFlow = findOrCreateCallFlowEdges(calleeEntry);
       final int s_p_num = supergraph.getLocalBlockNumber(calleeEntry);
 
       reached.foreach(
           d1 -> {
+            // a callee with a stored summary for d1 is not tabulated at all
+            final boolean stored = installStoredSummary(p, s_p_num, d1);
             // we get reuse if we _don't_ propagate a new fact to the callee entry
-            final boolean gotReuse = !propagate(calleeEntry, d1, calleeEntry, d1);
+            final boolean gotReuse = stored || !propagate(calleeEntry, d1, calleeEntry, d1);
             recordCall(edge.target, calleeEntry, d1, gotReuse);
             newCallExplodedEdge(edge, calleeEntry, d1);
             // cache the fact that we've flowed <c, d2> -> <callee, d1> by a
@@ -632,9 +774,8 @@ public class TabulationSolver<T, P, F> {
             callFlow.addCallEdge(callNodeNum, edge.d2, d1);
             // handle summary edges now as well. this is different from the PoPL
             // 95 paper.
-            if (summaries != null) {
+            if (base != null || summaryEdges.containsKey(p)) {
               // for each exit from the callee
-              P p = supergraph.getProcOf(calleeEntry);
               T[] exits = supergraph.getExitsForProcedure(p);
               for (final T exit : exits) {
                 if (DEBUG_LEVEL > 0) {
@@ -643,7 +784,7 @@ public class TabulationSolver<T, P, F> {
                 int x_num = supergraph.getLocalBlockNumber(exit);
                 // reachedBySummary := {d2} s.t. <callee,d1> -> <exit,d2>
                 // was recorded as a summary edge
-                IntSet reachedBySummary = summaries.getSummaryEdges(s_p_num, x_num, d1);
+                IntSet reachedBySummary = getSummaryEdges(p, s_p_num, x_num, d1);
                 if (reachedBySummary != null) {
                   for (final T returnSite : returnSitesForCallee) {
                     // if "exit" is a valid exit from the callee to the return
@@ -686,6 +827,88 @@ public class TabulationSolver<T, P, F> {
     }
   }
 
+  /**
+   * Install the stored summary edges of proc for fact d1 at entry s_p, if any.
+   *
+   * @return true iff a summary was stored
+   */
+  private boolean installStoredSummary(P proc, int s_p, int d1) {
+    if (summaryStore == null) {
+      return false;
+    }
+    String signature = summarySignatures.apply(proc);
+    if (signature == null) {
+      return false;
+    }
+    int[] edges = summaryStore.get(signature, s_p, d1);
+    if (edges == null) {
+      return false;
+    }
+    LocalSummaryEdges summaries = findOrCreateLocalSummaryEdges(proc);
+    for (int i = 0; i < edges.length; i += 2) {
+      if (!summaries.contains(s_p, edges[i], d1, edges[i + 1])) {
+        summaries.insertSummaryEdge(s_p, edges[i], d1, edges[i + 1]);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Add the summaries of all procedures with a signature to the summary store, for each fact that
+   * reached an entry of the procedure. These are complete once the problem is solved.
+   */
+  private void storeSummaries() {
+    if (summaryStore == null) {
+      return;
+    }
+    for (int s = 0; s <= pathEdges.getMaxIndex(); s++) {
+      LocalPathEdges lp = pathEdges.get(s);
+      if (lp == null) {
+        continue;
+      }
+      T s_p = supergraph.getNode(s);
+      if (!supergraph.isEntry(s_p)) {
+        continue;
+      }
+      P proc = supergraph.getProcOf(s_p);
+      String signature = summarySignatures.apply(proc);
+      if (signature == null) {
+        continue;
+      }
+      LocalSummaryEdges summaries = summaryEdges.get(proc);
+      T[] exits = supergraph.getExitsForProcedure(proc);
+      int s_p_num = supergraph.getLocalBlockNumber(s_p);
+      for (IntIterator it = lp.getReachable(s_p_num).intIterator(); it.hasNext(); ) {
+        int d1 = it.next();
+        if (!lp.contains(d1, s_p_num, d1)) {
+          // d1 did not flow into the procedure
+          continue;
+        }
+        IntSet[] reached = new IntSet[exits.length];
+        int size = 0;
+        for (int i = 0; i < exits.length; i++) {
+          int x = supergraph.getLocalBlockNumber(exits[i]);
+          reached[i] = summaries == null ? null : summaries.getSummaryEdges(s_p_num, x, d1);
+          if (reached[i] != null) {
+            size += reached[i].size();
+          }
+        }
+        int[] edges = new int[2 * size];
+        int k = 0;
+        for (int i = 0; i < exits.length; i++) {
+          if (reached[i] != null) {
+            int x = supergraph.getLocalBlockNumber(exits[i]);
+            for (IntIterator d2 = reached[i].intIterator(); d2.hasNext(); ) {
+              edges[k++] = x;
+              edges[k++] = d2.next();
+            }
+          }
+        }
+        summaryStore.put(signature, s_p_num, d1, edges);
+      }
+    }
+  }
+
   /**
    * invoked when a callee is processed with a particular entry fact
    *
@@ -756,10 +979,15 @@ public class TabulationSolver<T, P, F> {
     }
     assert number >= 0;
 
-    LocalPathEdges pLocal = findOrCreateLocalPathEdges(s_p);
-
     assert j >= 0;
 
+    if (base != null && base.containsPathEdge(s_p, i, number, j)) {
+      // base is solved, so it has found everything that follows from this edge on its own
+      return false;
+    }
+
+    LocalPathEdges pLocal = findOrCreateLocalPathEdges(s_p);
+
     if (!pLocal.contains(i, number, j)) {
       if (DEBUG_LEVEL > 0) {
         System.err.println("propagate " + s_p + "  " + i + ' ' + number + ' ' + j);
@@ -772,7 +1000,19 @@ public class TabulationSolver<T, P, F> {
   }
 
   public LocalPathEdges getLocalPathEdges(T s_p) {
-    return pathEdges.get(s_p);
+    return pathEdges.get(supergraph.getNumber(s_p));
+  }
+
+  /**
+   * @param n local block number of a basic block n
+   * @return true iff this solver or its base recorded the path edge &lt;s_p,i&gt; -&gt; &lt;n,j&gt;
+   */
+  private boolean containsPathEdge(T s_p, int i, int n, int j) {
+    LocalPathEdges lp = getLocalPathEdges(s_p);
+    if (lp != null && lp.contains(i, n, j)) {
+      return true;
+    }
+    return base != null && base.containsPathEdge(s_p, i, n, j);
   }
 
   /**
@@ -789,7 +1029,7 @@ public class TabulationSolver<T, P, F> {
     assert j >= 0;
     IMergeFunction alpha = problem.getMergeFunction();
     if (alpha != null) {
-      LocalPathEdges lp = pathEdges.get(s_p);
+      LocalPathEdges lp = getLocalPathEdges(s_p);
       IntSet preExistFacts = lp.getReachable(supergraph.getLocalBlockNumber(n), i);
       if (preExistFacts == null) {
         return j;
@@ -819,15 +1059,24 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected LocalPathEdges findOrCreateLocalPathEdges(T s_p) {
-    LocalPathEdges result = pathEdges.get(s_p);
+    int s = supergraph.getNumber(s_p);
+    LocalPathEdges result = pathEdges.get(s);
     if (result == null) {
       result = makeLocalPathEdges();
-      pathEdges.put(s_p, result);
+      pathEdges.set(s, result);
     }
     return result;
   }
 
-  private LocalPathEdges makeLocalPathEdges() {
+  /**
+   * Create the representation of the path edges for a procedure entry: {@link
+   * OffHeapLocalPathEdges} if {@link #setOffHeapPathEdges} was given an arena, and {@link
+   * LocalPathEdges} otherwise. Subclasses may override this to use another representation.
+   */
+  protected LocalPathEdges makeLocalPathEdges() {
+    if (offHeapPathEdges != null) {
+      return new OffHeapLocalPathEdges(offHeapPathEdges);
+    }
     return problem.getMergeFunction() == null
         ? new LocalPathEdges(false)
         : new LocalPathEdges(true);
@@ -843,10 +1092,11 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected CallFlowEdges findOrCreateCallFlowEdges(T s_p) {
-    CallFlowEdges result = callFlowEdges.get(s_p);
+    int s = supergraph.getNumber(s_p);
+    CallFlowEdges result = callFlowEdges.get(s);
     if (result == null) {
       result = new CallFlowEdges();
-      callFlowEdges.put(s_p, result);
+      callFlowEdges.set(s, result);
     }
     return result;
   }
@@ -871,11 +1121,14 @@ public class TabulationSolver<T, P, F> {
     }
 
     for (T entry : allEntries) {
-      LocalPathEdges lp = pathEdges.get(entry);
+      LocalPathEdges lp = getLocalPathEdges(entry);
       if (lp != null) {
         result.addAll(lp.getReachable(n));
       }
     }
+    if (base != null) {
+      result.addAll(base.getResult(node));
+    }
 
     return result;
   }
@@ -936,14 +1189,20 @@ public class TabulationSolver<T, P, F> {
     @Override
     public Collection<T> getSupergraphNodesReached() {
       Collection<T> result = HashSetFactory.make();
-      for (Entry<T, LocalPathEdges> e : pathEdges.entrySet()) {
-        T key = e.getKey();
-        P proc = supergraph.getProcOf(key);
-        IntSet reached = e.getValue().getReachedNodeNumbers();
+      for (int s = 0; s <= pathEdges.getMaxIndex(); s++) {
+        LocalPathEdges lp = pathEdges.get(s);
+        if (lp == null) {
+          continue;
+        }
+        P proc = supergraph.getProcOf(supergraph.getNode(s));
+        IntSet reached = lp.getReachedNodeNumbers();
         for (IntIterator ii = reached.intIterator(); ii.hasNext(); ) {
           result.add(supergraph.getLocalBlock(proc, ii.next()));
         }
       }
+      if (base != null) {
+        result.addAll(base.new Result().getSupergraphNodesReached());
+      }
 
       return result;
     }
@@ -954,13 +1213,9 @@ public class TabulationSolver<T, P, F> {
      */
     @Override
     public IntSet getSummaryTargets(T n1, int d1, T n2) {
-      LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(n1));
-      if (summaries == null) {
-        return null;
-      }
       int num1 = supergraph.getLocalBlockNumber(n1);
       int num2 = supergraph.getLocalBlockNumber(n2);
-      return summaries.getSummaryEdges(num1, num2, d1);
+      return getSummaryEdges(supergraph.getProcOf(n1), num1, num2, d1);
     }
 
     @Override
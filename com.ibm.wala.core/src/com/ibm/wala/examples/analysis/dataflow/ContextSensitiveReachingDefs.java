@@ -22,23 +22,32 @@ import com.ibm.wala.dataflow.IFDS.KillEverything;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationProblem;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
 import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.ProcedureSummaryStore;
 import com.ibm.wala.dataflow.IFDS.TabulationDomain;
 import com.ibm.wala.dataflow.IFDS.TabulationResult;
 import com.ibm.wala.dataflow.IFDS.TabulationSolver;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSAPutInstruction;
 import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.traverse.DFS;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Computes interprocedural reaching definitions for static fields in a context-sensitive manner via
@@ -55,6 +64,9 @@ public class ContextSensitiveReachingDefs {
   /** the tabulation domain */
   private final ReachingDefsDomain domain = new ReachingDefsDomain();
 
+  /** fact names -&gt; facts, built on demand by {@link #getFactNumber} */
+  private Map<String, Integer> factNumbers;
+
   public ContextSensitiveReachingDefs(CallGraph cg) {
     this.cha = cg.getClassHierarchy();
     // we use an ICFGSupergraph, which basically adapts ExplodedInterproceduralCFG to the
@@ -62,6 +74,15 @@ public class ContextSensitiveReachingDefs {
     this.supergraph = ICFGSupergraph.make(cg);
   }
 
+  /**
+   * Analyze over a supergraph that keeps at most maxCachedCFGs exploded CFGs in memory, for large
+   * call graphs.
+   */
+  public ContextSensitiveReachingDefs(CallGraph cg, int maxCachedCFGs) {
+    this.cha = cg.getClassHierarchy();
+    this.supergraph = ICFGSupergraph.make(cg, maxCachedCFGs);
+  }
+
   /** controls numbering of putstatic instructions for use in tabulation */
   private static class ReachingDefsDomain extends MutableMapping<Pair<CGNode, Integer>>
       implements TabulationDomain<Pair<CGNode, Integer>, BasicBlockInContext<IExplodedBasicBlock>> {
@@ -289,11 +310,27 @@ public class ContextSensitiveReachingDefs {
   /** perform the tabulation analysis and return the {@link TabulationResult} */
   public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
       analyze() {
+    return analyze(null);
+  }
+
+  /**
+   * perform the tabulation analysis, reusing and extending the stored summaries of library methods,
+   * and return the {@link TabulationResult}
+   *
+   * @param store summaries computed by this analysis, or read with {@link #getFactNumber}, or null
+   */
+  public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+      analyze(ProcedureSummaryStore store) {
     PartiallyBalancedTabulationSolver<
             BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
         solver =
             PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
                 new ReachingDefsProblem(), null);
+    if (store != null) {
+      Set<CGNode> reusable = getReusableSummaryNodes();
+      solver.setSummaryStore(
+          store, node -> reusable.contains(node) ? node.getMethod().getSignature() : null);
+    }
     TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
         result = null;
     try {
@@ -305,6 +342,66 @@ public class ContextSensitiveReachingDefs {
     return result;
   }
 
+  /**
+   * @return the nodes whose summaries hold in other programs too: library methods, in the default
+   *     context, that do not call methods outside the library, even transitively, e.g. by calling
+   *     back an application method whose definitions would then be part of the summary
+   */
+  private Set<CGNode> getReusableSummaryNodes() {
+    Graph<CGNode> calls = supergraph.getProcedureGraph();
+    Set<CGNode> outside = HashSetFactory.make();
+    for (CGNode node : calls) {
+      if (!node.getMethod()
+          .getDeclaringClass()
+          .getClassLoader()
+          .getReference()
+          .equals(ClassLoaderReference.Primordial)) {
+        outside.add(node);
+      }
+    }
+    // outside nodes and their transitive callers
+    Set<CGNode> dependent = DFS.getReachableNodes(GraphInverter.invert(calls), outside);
+    Set<CGNode> result = HashSetFactory.make();
+    for (CGNode node : calls) {
+      if (!dependent.contains(node) && node.getContext().equals(Everywhere.EVERYWHERE)) {
+        result.add(node);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return a name for fact d, which identifies the putstatic instruction in other analyses of the
+   *     same program, for writing summaries with {@link ProcedureSummaryStore#write}
+   */
+  public String getFactName(int d) {
+    Pair<CGNode, Integer> fact = domain.getMappedObject(d);
+    return fact.fst.getMethod().getSignature() + ' ' + fact.fst.getContext() + ' ' + fact.snd;
+  }
+
+  /**
+   * @return the fact for the putstatic instruction with the given {@link #getFactName name}, or -1
+   *     if there is none in the call graph, for reading summaries with {@link
+   *     ProcedureSummaryStore#read}
+   */
+  public int getFactNumber(String name) {
+    if (factNumbers == null) {
+      // number the putstatic instructions as the initial seeds will
+      factNumbers = HashMapFactory.make();
+      for (BasicBlockInContext<IExplodedBasicBlock> bb : supergraph) {
+        IExplodedBasicBlock ebb = bb.getDelegate();
+        SSAInstruction instruction = ebb.getInstruction();
+        if (instruction instanceof SSAPutInstruction
+            && ((SSAPutInstruction) instruction).isStatic()) {
+          int d = domain.add(Pair.make(bb.getNode(), ebb.getFirstInstructionIndex()));
+          factNumbers.put(getFactName(d), d);
+        }
+      }
+    }
+    Integer d = factNumbers.get(name);
+    return d == null ? -1 : d;
+  }
+
   public ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> getSupergraph() {
     return supergraph;
   }
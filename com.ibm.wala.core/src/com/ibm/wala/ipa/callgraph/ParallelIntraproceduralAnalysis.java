@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IVector;
+import com.ibm.wala.util.collections.SimpleVector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Runs an intraprocedural analysis, such as type inference or a null pointer analysis, on every
+ * node of a call graph, on several threads. Results are indexed by the number of the node in the
+ * call graph.
+ *
+ * <p>IRs are taken from the caches of the call graph or the client, which may build them on several
+ * threads at once, and each analysis must be safe to run on different IRs at the same time. Nodes
+ * without IR, e.g. of native methods, are not analyzed and have no result.
+ */
+public class ParallelIntraproceduralAnalysis {
+
+  private ParallelIntraproceduralAnalysis() {}
+
+  /**
+   * Analyze the IR of each node of cg, which may differ between nodes of the same method.
+   *
+   * @param analysis computes the result for a node and its IR; may return null
+   * @param parallelism the number of threads to use
+   * @param monitor reports progress, one unit per node, and may cancel the analysis
+   * @return the results, indexed by node number
+   */
+  public static <R> IVector<R> analyzeNodes(
+      CallGraph cg,
+      BiFunction<? super CGNode, ? super IR, ? extends R> analysis,
+      int parallelism,
+      IProgressMonitor monitor)
+      throws CancelException {
+    if (cg == null) {
+      throw new IllegalArgumentException("null cg");
+    }
+    if (analysis == null) {
+      throw new IllegalArgumentException("null analysis");
+    }
+    List<CGNode> nodes = new ArrayList<>(cg.getNumberOfNodes());
+    List<Callable<R>> tasks = new ArrayList<>(cg.getNumberOfNodes());
+    for (CGNode node : cg) {
+      nodes.add(node);
+      tasks.add(
+          () -> {
+            IR ir = node.getIR();
+            return ir == null ? null : analysis.apply(node, ir);
+          });
+    }
+    List<R> results = run(tasks, parallelism, monitor, "analyzing call graph nodes");
+    IVector<R> result = new SimpleVector<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      if (results.get(i) != null) {
+        result.set(cg.getNumber(nodes.get(i)), results.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Analyze the context-independent IR of each method in cg once, however many nodes it has.
+   *
+   * @param cache the cache to get the IRs from
+   * @param analysis computes the result for a method and its IR; may return null
+   * @param parallelism the number of threads to use
+   * @param monitor reports progress, one unit per method, and may cancel the analysis
+   * @return the results, indexed by node number; all nodes of a method share its result
+   */
+  public static <R> IVector<R> analyzeMethods(
+      CallGraph cg,
+      IAnalysisCacheView cache,
+      BiFunction<? super IMethod, ? super IR, ? extends R> analysis,
+      int parallelism,
+      IProgressMonitor monitor)
+      throws CancelException {
+    if (cg == null) {
+      throw new IllegalArgumentException("null cg");
+    }
+    if (cache == null) {
+      throw new IllegalArgumentException("null cache");
+    }
+    if (analysis == null) {
+      throw new IllegalArgumentException("null analysis");
+    }
+    Map<IMethod, Integer> index = HashMapFactory.make();
+    List<Callable<R>> tasks = new ArrayList<>();
+    for (CGNode node : cg) {
+      IMethod method = node.getMethod();
+      if (!index.containsKey(method)) {
+        index.put(method, tasks.size());
+        tasks.add(
+            () -> {
+              if (method.isAbstract() || method.isNative()) {
+                return null;
+              }
+              IR ir = cache.getIR(method);
+              return ir == null ? null : analysis.apply(method, ir);
+            });
+      }
+    }
+    List<R> results = run(tasks, parallelism, monitor, "analyzing methods");
+    IVector<R> result = new SimpleVector<>();
+    for (CGNode node : cg) {
+      R r = results.get(index.get(node.getMethod()));
+      if (r != null) {
+        result.set(cg.getNumber(node), r);
+      }
+    }
+    return result;
+  }
+
+  /** @return the results of the tasks, in order */
+  private static <R> List<R> run(
+      List<Callable<R>> tasks, int parallelism, IProgressMonitor monitor, String taskName)
+      throws CancelException {
+    MonitorUtil.beginTask(monitor, taskName, tasks.size());
+    List<R> results = runAll(tasks, parallelism, monitor, RuntimeException.class);
+    MonitorUtil.done(monitor);
+    return results;
+  }
+
+  /**
+   * Runs independent tasks on a pool of its own, and returns their results in task order. This is
+   * the driver of {@link #analyzeNodes} and {@link #analyzeMethods}, for other analyses that split
+   * their work into tasks.
+   *
+   * @param parallelism the number of threads to use; with 1, the tasks run on the calling thread
+   * @see #runAll(ExecutorService, List, IProgressMonitor, Class)
+   */
+  public static <R, E extends Exception> List<R> runAll(
+      List<? extends Callable<? extends R>> tasks,
+      int parallelism,
+      IProgressMonitor monitor,
+      Class<E> checked)
+      throws CancelException, E {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
+    if (parallelism == 1 || tasks.size() <= 1) {
+      return runAll(null, tasks, monitor, checked);
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+    try {
+      return runAll(pool, tasks, monitor, checked);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs independent tasks on pool, and returns their results in task order.
+   *
+   * <p>An {@link Error} or {@link RuntimeException} thrown by a task is rethrown unchanged, as is a
+   * checked exception of type checked. Other checked exceptions are wrapped in a RuntimeException.
+   * Once a task fails, or the analysis is canceled, the tasks that have not started yet are
+   * skipped.
+   *
+   * @param pool the threads to run the tasks on, or null to run them on the calling thread; not
+   *     shut down
+   * @param monitor gets one unit of work per finished task, and may cancel the rest; may be null
+   * @param checked the type of checked exception the tasks may throw, or RuntimeException.class
+   * @throws CancelException if monitor cancels the tasks or the calling thread is interrupted
+   */
+  public static <R, E extends Exception> List<R> runAll(
+      ExecutorService pool,
+      List<? extends Callable<? extends R>> tasks,
+      IProgressMonitor monitor,
+      Class<E> checked)
+      throws CancelException, E {
+    if (tasks == null) {
+      throw new IllegalArgumentException("null tasks");
+    }
+    if (checked == null) {
+      throw new IllegalArgumentException("null checked");
+    }
+    List<R> results = new ArrayList<>(tasks.size());
+    if (pool == null || tasks.size() <= 1) {
+      for (Callable<? extends R> task : tasks) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        try {
+          results.add(task.call());
+        } catch (Exception e) {
+          throw rethrow(e, checked);
+        }
+        MonitorUtil.worked(monitor, 1);
+      }
+      return results;
+    }
+
+    List<Future<? extends R>> futures = new ArrayList<>(tasks.size());
+    try {
+      for (Callable<? extends R> task : tasks) {
+        // skip the remaining work once the analysis is canceled
+        futures.add(pool.submit(() -> MonitorUtil.isCanceled(monitor) ? null : task.call()));
+      }
+      for (Future<? extends R> future : futures) {
+        results.add(future.get());
+        MonitorUtil.worked(monitor, 1);
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw CancelException.make("interrupted while waiting for tasks");
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause(), checked);
+    } finally {
+      if (results.size() < futures.size()) {
+        for (Future<? extends R> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Throws cause if it is unchecked or of type checked.
+   *
+   * @return cause wrapped in a RuntimeException otherwise
+   */
+  private static <E extends Exception> RuntimeException rethrow(Throwable cause, Class<E> checked)
+      throws E {
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (checked.isInstance(cause)) {
+      throw checked.cast(cause);
+    }
+    return new RuntimeException(cause);
+  }
+}
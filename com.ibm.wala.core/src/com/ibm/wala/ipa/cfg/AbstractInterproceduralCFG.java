@@ -24,8 +24,13 @@ import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.MapIterator;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
 import com.ibm.wala.util.graph.NumberedGraph;
-import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.graph.impl.SlowNumberedNodeManager;
+import com.ibm.wala.util.graph.impl.SparseNumberedEdgeManager;
+import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.BitVector;
 import com.ibm.wala.util.intset.BitVectorIntSet;
 import com.ibm.wala.util.intset.IntSet;
@@ -53,8 +58,11 @@ public abstract class AbstractInterproceduralCFG<T extends ISSABasicBlock>
   @SuppressWarnings({"JavadocReference", "javadoc"})
   private static final boolean CALL_TO_RETURN_EDGES = true;
 
-  /** Graph implementation we delegate to. */
-  private final NumberedGraph<BasicBlockInContext<T>> g = new SlowSparseNumberedGraph<>(2);
+  /**
+   * Graph implementation we delegate to. The blocks it holds record their own numbers, so the
+   * canonical blocks returned by this graph are numbered without a hash lookup.
+   */
+  private final NumberedGraph<BasicBlockInContext<T>> g = new BlockGraph<>();
 
   /** Governing call graph */
   private final CallGraph cg;
@@ -868,4 +876,51 @@ public abstract class AbstractInterproceduralCFG<T extends ISSABasicBlock>
   public CallGraph getCallGraph() {
     return cg;
   }
+
+  /**
+   * A sparse numbered graph of blocks, which stores the number of each block in the block itself
+   * when it is added. Lookups of blocks equal to, but not identical with, the one in the graph fall
+   * back to the hash-based mapping.
+   */
+  private static final class BlockGraph<T extends ISSABasicBlock>
+      extends AbstractNumberedGraph<BasicBlockInContext<T>> {
+
+    private final BlockNodeManager<T> nodeManager = new BlockNodeManager<>();
+
+    private final SparseNumberedEdgeManager<BasicBlockInContext<T>> edgeManager =
+        new SparseNumberedEdgeManager<>(nodeManager, 2, BasicNaturalRelation.TWO_LEVEL);
+
+    @Override
+    protected NumberedNodeManager<BasicBlockInContext<T>> getNodeManager() {
+      return nodeManager;
+    }
+
+    @Override
+    protected NumberedEdgeManager<BasicBlockInContext<T>> getEdgeManager() {
+      return edgeManager;
+    }
+  }
+
+  private static final class BlockNodeManager<T extends ISSABasicBlock>
+      extends SlowNumberedNodeManager<BasicBlockInContext<T>> {
+
+    private static final long serialVersionUID = -3164853466451236032L;
+
+    @Override
+    public int getNumber(BasicBlockInContext<T> N) {
+      if (N != null) {
+        int number = N.getGraphNodeId();
+        if (number >= 0 && number <= getMaxNumber() && getNode(number) == N) {
+          return number;
+        }
+      }
+      return super.getNumber(N);
+    }
+
+    @Override
+    public void addNode(BasicBlockInContext<T> n) {
+      super.addNode(n);
+      n.setGraphNodeId(super.getNumber(n));
+    }
+  }
 }
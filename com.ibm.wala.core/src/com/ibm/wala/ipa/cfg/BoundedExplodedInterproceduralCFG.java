@@ -0,0 +1,573 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.cfg;
+
+import com.ibm.wala.cfg.ControlFlowGraph;
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.ISSABasicBlock;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.analysis.ExplodedControlFlowGraph;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IndiscriminateFilter;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exploded interprocedural control-flow graph that does not hold on to the graph it has explored.
+ *
+ * <p>{@link ExplodedInterproceduralCFG} adds every node and edge it is asked about to a graph that
+ * lives as long as it does, and keeps the exploded CFG of every call graph node it has touched.
+ * This version instead computes edges when asked, from the exploded CFGs of the nodes involved,
+ * and keeps at most a fixed number of those CFGs, least recently used first out. An evicted CFG
+ * is rebuilt from the IR of its node, which is usually still in the IR cache.
+ *
+ * <p>The blocks of a call graph node are numbered consecutively from a base number that is
+ * assigned the first time the node is seen, so the number of a block is its base plus its number
+ * in the exploded CFG, and the only state kept per call graph node is that base.
+ *
+ * <p>Edges are the same as in {@link ExplodedInterproceduralCFG}, except that interprocedural edges
+ * are only present between relevant call graph nodes. Successors and predecessors are recomputed on
+ * each request, which costs time in exchange for memory; clients that visit each node a bounded
+ * number of times, such as the IFDS tabulation solver, are a good fit. The edges between the exit
+ * of a procedure and its callers, and between its callers and its entry, are found from the call
+ * sites the call graph records for each caller.
+ *
+ * <p>Operations that concern all nodes, namely {@link #getMaxNumber()}, {@link #getNumberOfNodes()}
+ * and iteration, need the IR of every relevant call graph node, but only iteration builds their
+ * exploded CFGs.
+ *
+ * <p>The graph may be read by several threads at once.
+ */
+public class BoundedExplodedInterproceduralCFG extends ExplodedInterproceduralCFG {
+
+  private final Predicate<CGNode> relevant;
+
+  /** the most recently used exploded CFGs; guarded by this */
+  private final Map<CGNode, ExplodedControlFlowGraph> cfgs;
+
+  /**
+   * call graph node number -&gt; base number of its blocks, or -1 if not yet assigned; this and the
+   * following fields are guarded by this
+   */
+  private int[] base = new int[0];
+
+  /** call graph node numbers, in the order their bases were assigned */
+  private int[] owners = new int[16];
+
+  /** the bases of the nodes in owners */
+  private int[] ownerBases = new int[16];
+
+  private int ownerCount = 0;
+
+  /** the base that will be assigned to the next call graph node */
+  private int nextNumber = 0;
+
+  public static BoundedExplodedInterproceduralCFG make(CallGraph cg, int maxCachedCFGs) {
+    return new BoundedExplodedInterproceduralCFG(
+        cg, IndiscriminateFilter.<CGNode>singleton(), maxCachedCFGs);
+  }
+
+  /**
+   * @param cg the call graph
+   * @param relevant accepts those call graph nodes which should be included in the ICFG
+   * @param maxCachedCFGs how many exploded CFGs to keep at most
+   */
+  public BoundedExplodedInterproceduralCFG(
+      CallGraph cg, Predicate<CGNode> relevant, final int maxCachedCFGs) {
+    super(cg, relevant);
+    if (maxCachedCFGs < 1) {
+      throw new IllegalArgumentException("maxCachedCFGs must be positive: " + maxCachedCFGs);
+    }
+    this.relevant = relevant;
+    this.cfgs =
+        new LinkedHashMap<CGNode, ExplodedControlFlowGraph>(16, 0.75f, true) {
+          private static final long serialVersionUID = 6452983416427130872L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<CGNode, ExplodedControlFlowGraph> eldest) {
+            return size() > maxCachedCFGs;
+          }
+        };
+  }
+
+  /**
+   * @return the cfg for n, or null if none found
+   * @throws IllegalArgumentException if n == null
+   */
+  @Override
+  public ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> getCFG(CGNode n)
+      throws IllegalArgumentException {
+    if (n == null) {
+      throw new IllegalArgumentException("n == null");
+    }
+    return cfg(n);
+  }
+
+  private ExplodedControlFlowGraph cfg(CGNode n) {
+    ExplodedControlFlowGraph result;
+    synchronized (this) {
+      // this may be called from a super() constructor
+      result = cfgs == null ? null : cfgs.get(n);
+    }
+    if (result == null) {
+      // build the CFG without holding the lock; if two threads race for the same CFG, the first one
+      // cached wins
+      IR ir = n.getIR();
+      if (ir == null) {
+        return null;
+      }
+      result = ExplodedControlFlowGraph.make(ir);
+      if (cfgs != null) {
+        synchronized (this) {
+          ExplodedControlFlowGraph cached = cfgs.get(n);
+          if (cached != null) {
+            result = cached;
+          } else {
+            cfgs.put(n, result);
+          }
+          assignBase(n, result.getNumberOfNodes());
+        }
+      }
+    }
+    return result;
+  }
+
+  /** @return how many exploded CFGs are currently held */
+  public synchronized int getNumberOfCachedCFGs() {
+    return cfgs.size();
+  }
+
+  /**
+   * Forget the exploded CFGs and block numbers computed so far, since the IRs of call graph nodes
+   * may have changed. Blocks are numbered anew as they are seen again.
+   */
+  @Override
+  public synchronized void callGraphUpdated() {
+    super.callGraphUpdated();
+    cfgs.clear();
+    base = new int[0];
+    ownerCount = 0;
+    nextNumber = 0;
+  }
+
+  /** assign a base to n, which has the given number of blocks, unless it has one already */
+  private void assignBase(CGNode n, int blocks) {
+    int number = getCallGraph().getNumber(n);
+    if (number >= base.length) {
+      int oldLength = base.length;
+      base = Arrays.copyOf(base, Math.max(number + 1, getCallGraph().getMaxNumber() + 1));
+      Arrays.fill(base, oldLength, base.length, -1);
+    }
+    if (base[number] == -1) {
+      base[number] = nextNumber;
+      if (ownerCount == owners.length) {
+        owners = Arrays.copyOf(owners, 2 * ownerCount);
+        ownerBases = Arrays.copyOf(ownerBases, 2 * ownerCount);
+      }
+      owners[ownerCount] = number;
+      ownerBases[ownerCount++] = nextNumber;
+      nextNumber += blocks;
+    }
+  }
+
+  /** @return the base number of the blocks of n, or -1 if n has no CFG */
+  private int getBase(CGNode n) {
+    int number = getCallGraph().getNumber(n);
+    synchronized (this) {
+      if (number < base.length && base[number] != -1) {
+        return base[number];
+      }
+    }
+    if (cfg(n) == null) {
+      return -1;
+    }
+    synchronized (this) {
+      return base[number];
+    }
+  }
+
+  /**
+   * Assign a base to n, if it has an IR, without building its exploded CFG: the exploded CFG has an
+   * entry, an exit and a block for each instruction index covered by a basic block of the IR.
+   */
+  private void numberNode(CGNode n) {
+    int number = getCallGraph().getNumber(n);
+    synchronized (this) {
+      if (number < base.length && base[number] != -1) {
+        return;
+      }
+    }
+    IR ir = n.getIR();
+    if (ir == null) {
+      return;
+    }
+    int blocks = 2;
+    for (ISSABasicBlock b : ir.getControlFlowGraph()) {
+      if (b.getFirstInstructionIndex() >= 0) {
+        blocks += b.getLastInstructionIndex() - b.getFirstInstructionIndex() + 1;
+      }
+    }
+    synchronized (this) {
+      assignBase(n, blocks);
+    }
+  }
+
+  private BasicBlockInContext<IExplodedBasicBlock> block(CGNode n, IExplodedBasicBlock b) {
+    return new BasicBlockInContext<>(n, b);
+  }
+
+  private boolean isRelevantWithCFG(CGNode n) {
+    return relevant.test(n) && getCFG(n) != null;
+  }
+
+  /** visit every call in caller that may call callee */
+  private void forEachCallTo(CGNode caller, CGNode callee, Consumer<IExplodedBasicBlock> action) {
+    ExplodedControlFlowGraph ccfg = cfg(caller);
+    if (ccfg == null) {
+      return;
+    }
+    for (CallSiteReference site :
+        Iterator2Iterable.make(getCallGraph().getPossibleSites(caller, callee))) {
+      IntSet calls = ccfg.getIR().getCallInstructionIndices(site);
+      if (calls != null) {
+        for (IntIterator it = calls.intIterator(); it.hasNext(); ) {
+          action.accept(ccfg.getBlockForInstruction(it.next()));
+        }
+      }
+    }
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getSuccNodes(
+      BasicBlockInContext<IExplodedBasicBlock> N) {
+    final CGNode n = N.getNode();
+    final ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> cfg = getCFG(n);
+    final Set<BasicBlockInContext<IExplodedBasicBlock>> result = HashSetFactory.make(4);
+    IExplodedBasicBlock b = N.getDelegate();
+    if (b.isExitBlock()) {
+      if (relevant.test(n)) {
+        // edges to the return sites of every call to n
+        for (final CGNode caller : Iterator2Iterable.make(getCallGraph().getPredNodes(n))) {
+          if (relevant.test(caller)) {
+            final ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> ccfg = getCFG(caller);
+            forEachCallTo(
+                caller,
+                n,
+                call -> {
+                  for (IExplodedBasicBlock ret : Iterator2Iterable.make(ccfg.getSuccNodes(call))) {
+                    result.add(block(caller, ret));
+                  }
+                });
+          }
+        }
+      }
+    } else {
+      for (IExplodedBasicBlock s : Iterator2Iterable.make(cfg.getSuccNodes(b))) {
+        if (!s.equals(cfg.entry())) {
+          result.add(block(n, s));
+        }
+      }
+      if (hasCall(N, cfg)) {
+        CallSiteReference site = getCallSiteForCallBlock(b, cfg);
+        for (CGNode target : getCallGraph().getPossibleTargets(n, site)) {
+          if (isRelevantWithCFG(target)) {
+            result.add(block(target, getCFG(target).entry()));
+          }
+        }
+      }
+    }
+    return result.iterator();
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> getPredNodes(
+      BasicBlockInContext<IExplodedBasicBlock> N) {
+    final CGNode n = N.getNode();
+    final ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> cfg = getCFG(n);
+    final Set<BasicBlockInContext<IExplodedBasicBlock>> result = HashSetFactory.make(4);
+    IExplodedBasicBlock b = N.getDelegate();
+    if (b.isEntryBlock()) {
+      if (relevant.test(n)) {
+        // edges from every call to n
+        for (final CGNode caller : Iterator2Iterable.make(getCallGraph().getPredNodes(n))) {
+          if (relevant.test(caller)) {
+            forEachCallTo(caller, n, call -> result.add(block(caller, call)));
+          }
+        }
+      }
+    } else {
+      for (IExplodedBasicBlock p : Iterator2Iterable.make(cfg.getPredNodes(b))) {
+        BasicBlockInContext<IExplodedBasicBlock> pred = block(n, p);
+        result.add(pred);
+        if (hasCall(pred, cfg)) {
+          // edges from the exits of the callees
+          for (CGNode target :
+              getCallGraph().getPossibleTargets(n, getCallSiteForCallBlock(p, cfg))) {
+            if (isRelevantWithCFG(target)) {
+              result.add(block(target, getCFG(target).exit()));
+            }
+          }
+        }
+      }
+    }
+    return result.iterator();
+  }
+
+  /**
+   * Counts the successors without collecting them, except for the return sites of an exit, which
+   * several calls may share.
+   */
+  @Override
+  public int getSuccNodeCount(BasicBlockInContext<IExplodedBasicBlock> N) {
+    IExplodedBasicBlock b = N.getDelegate();
+    if (b.isExitBlock()) {
+      return count(getSuccNodes(N));
+    }
+    CGNode n = N.getNode();
+    ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> cfg = getCFG(n);
+    int result = 0;
+    for (IExplodedBasicBlock s : Iterator2Iterable.make(cfg.getSuccNodes(b))) {
+      if (!s.equals(cfg.entry())) {
+        result++;
+      }
+    }
+    if (hasCall(N, cfg)) {
+      for (CGNode target : getCallGraph().getPossibleTargets(n, getCallSiteForCallBlock(b, cfg))) {
+        if (isRelevantWithCFG(target)) {
+          result++;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Counts the predecessors without collecting the intraprocedural ones; callers of an entry and
+   * exits of callees are collected, since several calls may share them.
+   */
+  @Override
+  public int getPredNodeCount(BasicBlockInContext<IExplodedBasicBlock> N) {
+    IExplodedBasicBlock b = N.getDelegate();
+    if (b.isEntryBlock()) {
+      return count(getPredNodes(N));
+    }
+    CGNode n = N.getNode();
+    ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> cfg = getCFG(n);
+    Set<CGNode> callees = null;
+    for (IExplodedBasicBlock p : Iterator2Iterable.make(cfg.getPredNodes(b))) {
+      if (hasCall(block(n, p), cfg)) {
+        for (CGNode target :
+            getCallGraph().getPossibleTargets(n, getCallSiteForCallBlock(p, cfg))) {
+          if (isRelevantWithCFG(target)) {
+            if (callees == null) {
+              callees = HashSetFactory.make(4);
+            }
+            callees.add(target);
+          }
+        }
+      }
+    }
+    return cfg.getPredNodeCount(b) + (callees == null ? 0 : callees.size());
+  }
+
+  private static int count(Iterator<?> it) {
+    int result = 0;
+    for (; it.hasNext(); it.next()) {
+      result++;
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet getSuccNodeNumbers(BasicBlockInContext<IExplodedBasicBlock> node) {
+    return numbers(getSuccNodes(node));
+  }
+
+  @Override
+  public IntSet getPredNodeNumbers(BasicBlockInContext<IExplodedBasicBlock> node) {
+    return numbers(getPredNodes(node));
+  }
+
+  private IntSet numbers(Iterator<BasicBlockInContext<IExplodedBasicBlock>> nodes) {
+    MutableIntSet result = IntSetUtil.make();
+    while (nodes.hasNext()) {
+      result.add(getNumber(nodes.next()));
+    }
+    return result;
+  }
+
+  @Override
+  public boolean hasEdge(
+      BasicBlockInContext<IExplodedBasicBlock> src, BasicBlockInContext<IExplodedBasicBlock> dst) {
+    for (BasicBlockInContext<IExplodedBasicBlock> s : Iterator2Iterable.make(getSuccNodes(src))) {
+      if (s.equals(dst)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean hasCall(BasicBlockInContext<IExplodedBasicBlock> B) {
+    return hasCall(B, getCFG(B));
+  }
+
+  @Override
+  public boolean containsNode(BasicBlockInContext<IExplodedBasicBlock> N) {
+    return isRelevantWithCFG(N.getNode()) && getCFG(N).containsNode(N.getDelegate());
+  }
+
+  @Override
+  public int getNumber(BasicBlockInContext<IExplodedBasicBlock> N) {
+    int b = getBase(N.getNode());
+    if (b == -1) {
+      throw new IllegalArgumentException("no CFG for " + N.getNode());
+    }
+    return b + N.getDelegate().getNumber();
+  }
+
+  @Override
+  public BasicBlockInContext<IExplodedBasicBlock> getNode(int number) {
+    CGNode n;
+    int local;
+    synchronized (this) {
+      if (number < 0 || number >= nextNumber) {
+        return null;
+      }
+      // the owner is the last node whose base is not after number
+      int k = Arrays.binarySearch(ownerBases, 0, ownerCount, number);
+      if (k < 0) {
+        k = -k - 2;
+      }
+      n = getCallGraph().getNode(owners[k]);
+      local = number - ownerBases[k];
+    }
+    return block(n, getCFG(n).getNode(local));
+  }
+
+  /** assign bases to all relevant nodes */
+  private void numberAllNodes() {
+    for (CGNode n : getCallGraph()) {
+      if (relevant.test(n)) {
+        numberNode(n);
+      }
+    }
+  }
+
+  @Override
+  public int getMaxNumber() {
+    numberAllNodes();
+    synchronized (this) {
+      return nextNumber - 1;
+    }
+  }
+
+  @Override
+  public int getNumberOfNodes() {
+    numberAllNodes();
+    int result = 0;
+    synchronized (this) {
+      for (int k = 0; k < ownerCount; k++) {
+        if (relevant.test(getCallGraph().getNode(owners[k]))) {
+          int end = k + 1 < ownerCount ? ownerBases[k + 1] : nextNumber;
+          result += end - ownerBases[k];
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> iterator() {
+    final Iterator<CGNode> nodes = getCallGraph().iterator();
+    return new Iterator<BasicBlockInContext<IExplodedBasicBlock>>() {
+      private CGNode current;
+
+      private int next;
+
+      private int size;
+
+      @Override
+      public boolean hasNext() {
+        while (next >= size) {
+          if (!nodes.hasNext()) {
+            return false;
+          }
+          current = nodes.next();
+          next = 0;
+          size = isRelevantWithCFG(current) ? getCFG(current).getNumberOfNodes() : 0;
+        }
+        return true;
+      }
+
+      @Override
+      public BasicBlockInContext<IExplodedBasicBlock> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return block(current, getCFG(current).getNode(next++));
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public Stream<BasicBlockInContext<IExplodedBasicBlock>> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  @Override
+  public Iterator<BasicBlockInContext<IExplodedBasicBlock>> iterateNodes(IntSet s) {
+    final IntIterator numbers = s.intIterator();
+    return new Iterator<BasicBlockInContext<IExplodedBasicBlock>>() {
+      @Override
+      public boolean hasNext() {
+        return numbers.hasNext();
+      }
+
+      @Override
+      public BasicBlockInContext<IExplodedBasicBlock> next() {
+        return getNode(numbers.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "ICFG over " + getCallGraph().getNumberOfNodes() + " call graph nodes";
+  }
+}
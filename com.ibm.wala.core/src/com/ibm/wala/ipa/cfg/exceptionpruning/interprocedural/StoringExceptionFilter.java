@@ -12,27 +12,34 @@ package com.ibm.wala.ipa.cfg.exceptionpruning.interprocedural;
 
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.cfg.exceptionpruning.ExceptionFilter;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Computes the filter of a node once and keeps it. Filters may be requested from several threads at
+ * once, e.g. by {@link com.ibm.wala.analysis.exceptionanalysis.BottomUpExceptionAnalysis}.
+ */
 public abstract class StoringExceptionFilter<Instruction>
     implements InterproceduralExceptionFilter<Instruction> {
   private Map<CGNode, ExceptionFilter<Instruction>> store;
 
   public StoringExceptionFilter() {
-    this.store = new LinkedHashMap<>();
+    this.store = new ConcurrentHashMap<>();
   }
 
   protected abstract ExceptionFilter<Instruction> computeFilter(CGNode node);
 
   @Override
   public ExceptionFilter<Instruction> getFilter(CGNode node) {
-    if (store.containsKey(node)) {
-      return store.get(node);
-    } else {
-      ExceptionFilter<Instruction> filter = computeFilter(node);
-      store.put(node, filter);
-      return filter;
+    ExceptionFilter<Instruction> filter = store.get(node);
+    if (filter == null) {
+      // two threads may compute the filter at once; both get the one stored first
+      filter = computeFilter(node);
+      ExceptionFilter<Instruction> stored = store.putIfAbsent(node, filter);
+      if (stored != null) {
+        filter = stored;
+      }
     }
+    return filter;
   }
 }
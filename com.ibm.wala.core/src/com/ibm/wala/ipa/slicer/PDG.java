@@ -58,6 +58,7 @@ import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -117,6 +118,9 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
 
   private final boolean ignoreAllocHeapDefs;
 
+  /** if non-null, the cache this PDG belongs to, which supplies its control dependences */
+  private final PDGCache<T> pdgCache;
+
   private boolean isPopulated = false;
 
   /**
@@ -157,7 +161,53 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       CallGraph cg,
       ModRef<T> modRef,
       boolean ignoreAllocHeapDefs) {
+    this(
+        node,
+        pa,
+        mod,
+        ref,
+        dOptions,
+        cOptions,
+        exclusions,
+        cg,
+        modRef,
+        ignoreAllocHeapDefs,
+        null);
+  }
+
+  /** Create the PDG of a node for a {@link PDGCache}, from the analyses the cache is built on. */
+  PDG(
+      CGNode node,
+      PDGCache<T> pdgCache,
+      DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions,
+      HeapExclusions exclusions) {
+    this(
+        node,
+        pdgCache.getPointerAnalysis(),
+        dOptions.isIgnoreHeap() ? null : pdgCache.getMod(exclusions),
+        dOptions.isIgnoreHeap() ? null : pdgCache.getRef(exclusions),
+        dOptions,
+        cOptions,
+        exclusions,
+        pdgCache.getCallGraph(),
+        pdgCache.getModRef(),
+        false,
+        pdgCache);
+  }
 
+  private PDG(
+      final CGNode node,
+      PointerAnalysis<T> pa,
+      Map<CGNode, OrdinalSet<PointerKey>> mod,
+      Map<CGNode, OrdinalSet<PointerKey>> ref,
+      DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions,
+      HeapExclusions exclusions,
+      CallGraph cg,
+      ModRef<T> modRef,
+      boolean ignoreAllocHeapDefs,
+      PDGCache<T> pdgCache) {
     super();
     if (node == null) {
       throw new IllegalArgumentException("node is null");
@@ -173,6 +223,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     this.modRef = modRef;
     this.ref = ref;
     this.ignoreAllocHeapDefs = ignoreAllocHeapDefs;
+    this.pdgCache = pdgCache;
   }
 
   /**
@@ -242,11 +293,35 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
   /** Create all control dependence edges in this PDG. */
   private void createControlDependenceEdges(
       ControlDependenceOptions cOptions, IR ir, Map<SSAInstruction, Integer> instructionIndices) {
+    boolean phis = !dOptions.equals(DataDependenceOptions.NONE);
+    Dependences cd =
+        pdgCache != null
+            ? pdgCache.getControlDependences(node, cOptions)
+            : computeControlDependences(node, cOptions, ir, instructionIndices, phis);
+    if (cd != null) {
+      cd.addControlEdgesTo(delegate, phis);
+    }
+  }
+
+  /**
+   * Compute the control dependence edges of the PDG of a node. These do not depend on the data
+   * dependence options, except that edges to phi statements are only wanted if there are data
+   * dependences.
+   *
+   * @param phis should control dependence edges to phi statements be computed?
+   * @return the edges, or null if there are none
+   */
+  static Dependences computeControlDependences(
+      CGNode node,
+      ControlDependenceOptions cOptions,
+      IR ir,
+      Map<SSAInstruction, Integer> instructionIndices,
+      boolean phis) {
     if (cOptions.equals(ControlDependenceOptions.NONE)) {
-      return;
+      return null;
     }
     if (ir == null) {
-      return;
+      return null;
     }
     ControlFlowGraph<SSAInstruction, ISSABasicBlock> controlFlowGraph = ir.getControlFlowGraph();
     if (cOptions.isIgnoreExceptions()) {
@@ -260,7 +335,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
           && prunedCFG.containsNode(controlFlowGraph.entry())
           && prunedCFG.containsNode(controlFlowGraph.exit())
           && GraphUtil.countEdges(prunedCFG) == 0) {
-        return;
+        return null;
       }
       controlFlowGraph = prunedCFG;
     } else {
@@ -268,6 +343,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     }
 
     ControlDependenceGraph<ISSABasicBlock> cdg = new ControlDependenceGraph<>(controlFlowGraph);
+    Dependences result = new Dependences();
     for (ISSABasicBlock bb : cdg) {
       if (bb.isExitBlock()) {
         // nothing should be control-dependent on the exit block.
@@ -283,7 +359,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
           // should have no control dependent successors.
           // leave src null.
         } else {
-          src = ssaInstruction2Statement(s, ir, instructionIndices);
+          src = ssaInstruction2Statement(node, s, instructionIndices, ir);
           // add edges from call statements to parameter passing and return
           // SJF: Alexey and I think that we should just define ParamStatements
           // as
@@ -310,12 +386,9 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
         for (ISSABasicBlock bb2 : Iterator2Iterable.make(cdg.getSuccNodes(bb))) {
           for (SSAInstruction st : bb2) {
             if (st != null) {
-              Statement dest = ssaInstruction2Statement(st, ir, instructionIndices);
+              Statement dest = ssaInstruction2Statement(node, st, instructionIndices, ir);
               assert src != null;
-              delegate.addEdge(src, dest);
-              /* BEGIN Custom change: control deps */
-              delegate.addEdge(src, dest, Dependency.CONTROL_DEP);
-              /* END Custom change: control deps */
+              result.add(src, dest);
             }
           }
         }
@@ -330,11 +403,8 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     Dominators<ISSABasicBlock> dom = Dominators.make(controlFlowGraph, controlFlowGraph.entry());
     for (ISSABasicBlock exitDom : Iterator2Iterable.make(dom.dominators(controlFlowGraph.exit()))) {
       for (SSAInstruction st : exitDom) {
-        Statement dest = ssaInstruction2Statement(st, ir, instructionIndices);
-        delegate.addEdge(methodEntry, dest);
-        /* BEGIN Custom change: control deps */
-        delegate.addEdge(methodEntry, dest, Dependency.CONTROL_DEP);
-        /* END Custom change: control deps */
+        Statement dest = ssaInstruction2Statement(node, st, instructionIndices, ir);
+        result.add(methodEntry, dest);
       }
     }
     // add CD from method entry to all callee parameter assignments
@@ -352,10 +422,11 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
      * dependences, it therefore seems right to add control dependence edges to represent how a phi
      * node depends on predecessor blocks.
      */
-    if (!dOptions.equals(DataDependenceOptions.NONE)) {
+    result.startPhis();
+    if (phis) {
       for (ISSABasicBlock bb : cdg) {
         for (SSAPhiInstruction phi : Iterator2Iterable.make(bb.iteratePhis())) {
-          Statement phiSt = ssaInstruction2Statement(phi, ir, instructionIndices);
+          Statement phiSt = ssaInstruction2Statement(node, phi, instructionIndices, ir);
           int phiUseIndex = 0;
           for (ISSABasicBlock pb : Iterator2Iterable.make(controlFlowGraph.getPredNodes(bb))) {
             int use = phi.getUse(phiUseIndex);
@@ -372,11 +443,8 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
               // statements in that block.
               SSAInstruction pss = ir.getInstructions()[pb.getLastInstructionIndex()];
               assert pss != null;
-              Statement pst = ssaInstruction2Statement(pss, ir, instructionIndices);
-              delegate.addEdge(pst, phiSt);
-              /* BEGIN Custom change: control deps */
-              delegate.addEdge(pst, phiSt, Dependency.CONTROL_DEP);
-              /* END Custom change: control deps */
+              Statement pst = ssaInstruction2Statement(node, pss, instructionIndices, ir);
+              result.add(pst, phiSt);
             } else {
               for (ISSABasicBlock cpb : Iterator2Iterable.make(cdg.getPredNodes(pb))) {
                 /* BEGIN Custom change: control deps */
@@ -390,11 +458,8 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
                         + cpb
                         + " in node "
                         + node;
-                Statement cpst = ssaInstruction2Statement(cps, ir, instructionIndices);
-                delegate.addEdge(cpst, phiSt);
-                /* BEGIN Custom change: control deps */
-                delegate.addEdge(cpst, phiSt, Dependency.CONTROL_DEP);
-                /* END Custom change: control deps */
+                Statement cpst = ssaInstruction2Statement(node, cps, instructionIndices, ir);
+                result.add(cpst, phiSt);
               }
             }
             phiUseIndex++;
@@ -402,6 +467,53 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
         }
       }
     }
+    return result;
+  }
+
+  /** Some dependence edges of a PDG, in the order they were found */
+  static final class Dependences {
+
+    /** the source and target of each edge, one after the other */
+    private Statement[] edges = new Statement[16];
+
+    private int size = 0;
+
+    /** control dependence edges from this index on end in phi statements */
+    private int phiStart = -1;
+
+    private void add(Statement src, Statement dst) {
+      if (size == edges.length) {
+        edges = Arrays.copyOf(edges, 2 * size);
+      }
+      edges[size++] = src;
+      edges[size++] = dst;
+    }
+
+    private void startPhis() {
+      phiStart = size;
+    }
+
+    /** add the edges to g as data dependences */
+    private void addDataEdgesTo(SlowSparseNumberedLabeledGraph<Statement, Dependency> g) {
+      for (int i = 0; i < size; i += 2) {
+        g.addEdge(edges[i], edges[i + 1]);
+      }
+    }
+
+    /**
+     * add the edges to g as control dependences, including those to phi statements only if phis is
+     * true
+     */
+    private void addControlEdgesTo(
+        SlowSparseNumberedLabeledGraph<Statement, Dependency> g, boolean phis) {
+      int end = phis || phiStart == -1 ? size : phiStart;
+      for (int i = 0; i < end; i += 2) {
+        g.addEdge(edges[i], edges[i + 1]);
+        /* BEGIN Custom change: control deps */
+        g.addEdge(edges[i], edges[i + 1], Dependency.CONTROL_DEP);
+        /* END Custom change: control deps */
+      }
+    }
   }
 
   /**
@@ -678,15 +790,31 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
       return;
     }
 
+    Dependences heap =
+        pdgCache == null ? null : pdgCache.getHeapDependences(node, dOptions, exclusions, pk);
+    if (heap == null) {
+      heap = computeHeapDataDependences(pk);
+      if (heap == null) {
+        return;
+      }
+      if (pdgCache != null) {
+        pdgCache.putHeapDependences(node, dOptions, exclusions, pk, heap);
+      }
+    }
+    heap.addDataEdgesTo(delegate);
+  }
+
+  /** @return the data dependence edges through pk, or null if pk has no type or there is no IR */
+  private Dependences computeHeapDataDependences(final PointerKey pk) {
     TypeReference t = HeapExclusions.getType(pk);
     if (t == null) {
-      return;
+      return null;
     }
 
     // It's OK to create a new IR here; we're not keeping any hashing live up to this point
     IR ir = node.getIR();
     if (ir == null) {
-      return;
+      return null;
     }
 
     if (VERBOSE) {
@@ -718,6 +846,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
                 new HeapExclusions(SetComplement.complement(new SingletonSet(t))),
                 cg);
 
+    Dependences result = new Dependences();
     for (Map.Entry<Statement, OrdinalSet<Statement>> entry : heapReachingDefs.entrySet()) {
       switch (entry.getKey().getKind()) {
         case NORMAL:
@@ -728,7 +857,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
             OrdinalSet<Statement> defs = entry.getValue();
             if (defs != null) {
               for (Statement def : defs) {
-                delegate.addEdge(def, entry.getKey());
+                result.add(def, entry.getKey());
               }
             }
           }
@@ -747,7 +876,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
             OrdinalSet<Statement> defs = entry.getValue();
             if (defs != null) {
               for (Statement def : defs) {
-                delegate.addEdge(def, entry.getKey());
+                result.add(def, entry.getKey());
               }
             }
             break;
@@ -762,6 +891,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
           break;
       }
     }
+    return result;
   }
 
   private static boolean hasBasePointer(SSAInstruction use) {
@@ -831,7 +961,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     return ssaInstruction2Statement(node, s, instructionIndices, ir);
   }
 
-  public static synchronized Statement ssaInstruction2Statement(
+  public static Statement ssaInstruction2Statement(
       CGNode node, SSAInstruction s, Map<SSAInstruction, Integer> instructionIndices, IR ir) {
     if (node == null) {
       throw new IllegalArgumentException("null node");
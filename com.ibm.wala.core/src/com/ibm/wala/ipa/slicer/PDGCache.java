@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.ipa.slicer.PDG.Dependences;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IVector;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.collections.SimpleVector;
+import com.ibm.wala.util.intset.OrdinalSet;
+import java.util.Map;
+
+/**
+ * The {@link PDG}s of the nodes of a call graph, shared by all {@link SDG}s built from it with the
+ * same pointer analysis.
+ *
+ * <p>A PDG is kept for each combination of data dependence options, control dependence options
+ * and heap exclusions it was asked for. The parts which do not depend on all of these are computed
+ * once and shared between PDGs:
+ *
+ * <ul>
+ *   <li>the control dependences of each node, for each {@link ControlDependenceOptions}
+ *   <li>the mod and ref sets of all nodes, for each {@link HeapExclusions}
+ *   <li>the heap data dependences of each node, which only depend on the heap exclusions and on
+ *       whether exceptions are ignored; e.g. PDGs for {@link DataDependenceOptions#FULL} and {@link
+ *       DataDependenceOptions#NO_BASE_PTRS} share them
+ * </ul>
+ *
+ * <p>PDGs are built lazily by default; {@link #computeAll} builds them for all nodes of the call
+ * graph on several threads. Apart from that, a cache and its PDGs must only be used by one thread
+ * at a time.
+ */
+public class PDGCache<T extends InstanceKey> {
+
+  private final CallGraph cg;
+
+  private final PointerAnalysis<T> pa;
+
+  private final ModRef<T> modRef;
+
+  /** heap exclusions -&gt; the mod sets of all nodes, computed with those exclusions */
+  private final Map<HeapExclusions, Map<CGNode, OrdinalSet<PointerKey>>> mod =
+      HashMapFactory.make();
+
+  /** heap exclusions -&gt; the ref sets of all nodes, computed with those exclusions */
+  private final Map<HeapExclusions, Map<CGNode, OrdinalSet<PointerKey>>> ref =
+      HashMapFactory.make();
+
+  /** control dependence options -&gt; the control dependences of each node, by node number */
+  private final Map<ControlDependenceOptions, IVector<Dependences>> controlDependences =
+      HashMapFactory.make();
+
+  /**
+   * (ignore exceptions?, heap exclusions) -&gt; the heap data dependences of each node, by node
+   * number and location
+   */
+  private final Map<Pair<Boolean, HeapExclusions>, IVector<Map<PointerKey, Dependences>>>
+      heapDependences = HashMapFactory.make();
+
+  /** the PDGs of each flavor, by node number */
+  private final Map<Flavor, IVector<PDG<T>>> pdgs = HashMapFactory.make();
+
+  public PDGCache(CallGraph cg, PointerAnalysis<T> pa, ModRef<T> modRef) {
+    if (cg == null) {
+      throw new IllegalArgumentException("null cg");
+    }
+    if (modRef == null) {
+      throw new IllegalArgumentException("null modRef");
+    }
+    this.cg = cg;
+    this.pa = pa;
+    this.modRef = modRef;
+  }
+
+  public PDGCache(CallGraph cg, PointerAnalysis<T> pa) {
+    this(cg, pa, new ModRef<>());
+  }
+
+  public CallGraph getCallGraph() {
+    return cg;
+  }
+
+  public PointerAnalysis<T> getPointerAnalysis() {
+    return pa;
+  }
+
+  public ModRef<T> getModRef() {
+    return modRef;
+  }
+
+  /**
+   * @param exclusions heap locations to exclude, or null
+   * @return the heap locations which may be written (transitively) by each node
+   */
+  public synchronized Map<CGNode, OrdinalSet<PointerKey>> getMod(HeapExclusions exclusions) {
+    Map<CGNode, OrdinalSet<PointerKey>> result = mod.get(exclusions);
+    if (result == null) {
+      result = modRef.computeMod(cg, pa, exclusions);
+      mod.put(exclusions, result);
+    }
+    return result;
+  }
+
+  /**
+   * @param exclusions heap locations to exclude, or null
+   * @return the heap locations which may be read (transitively) by each node
+   */
+  public synchronized Map<CGNode, OrdinalSet<PointerKey>> getRef(HeapExclusions exclusions) {
+    Map<CGNode, OrdinalSet<PointerKey>> result = ref.get(exclusions);
+    if (result == null) {
+      result = modRef.computeRef(cg, pa, exclusions);
+      ref.put(exclusions, result);
+    }
+    return result;
+  }
+
+  /** @return the PDG of node, built with the given options */
+  public PDG<T> getPDG(
+      CGNode node,
+      DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions,
+      HeapExclusions exclusions) {
+    if (node == null) {
+      throw new IllegalArgumentException("null node");
+    }
+    IVector<PDG<T>> flavor = findOrCreatePDGs(dOptions, cOptions, exclusions);
+    int n = cg.getNumber(node);
+    PDG<T> result = flavor.get(n);
+    if (result == null) {
+      result = new PDG<>(node, this, dOptions, cOptions, exclusions);
+      flavor.set(n, result);
+    }
+    return result;
+  }
+
+  /**
+   * Build the PDGs of all nodes of the call graph with the given options, on several threads. IRs
+   * are taken from the nodes, which may build them on several threads at once.
+   *
+   * @param parallelism the number of threads to use
+   * @param monitor reports progress, one unit per node, and may cancel the computation
+   */
+  public void computeAll(
+      final DataDependenceOptions dOptions,
+      final ControlDependenceOptions cOptions,
+      final HeapExclusions exclusions,
+      int parallelism,
+      IProgressMonitor monitor)
+      throws CancelException {
+    if (dOptions == null) {
+      throw new IllegalArgumentException("null dOptions");
+    }
+    if (cOptions == null) {
+      throw new IllegalArgumentException("null cOptions");
+    }
+    if (!dOptions.isIgnoreHeap()) {
+      // compute these once, before the nodes need them
+      getMod(exclusions);
+      getRef(exclusions);
+    }
+    final IVector<PDG<T>> flavor = findOrCreatePDGs(dOptions, cOptions, exclusions);
+    IVector<PDG<T>> built =
+        ParallelIntraproceduralAnalysis.analyzeNodes(
+            cg,
+            (CGNode node, IR ir) -> {
+              if (getPDGIfPresent(flavor, node) != null) {
+                return null;
+              }
+              PDG<T> pdg = new PDG<>(node, this, dOptions, cOptions, exclusions);
+              // populate the PDG now, on this thread
+              pdg.getNumberOfNodes();
+              return pdg;
+            },
+            parallelism,
+            monitor);
+    synchronized (this) {
+      for (int n = 0; n <= built.getMaxIndex(); n++) {
+        if (built.get(n) != null && flavor.get(n) == null) {
+          flavor.set(n, built.get(n));
+        }
+      }
+    }
+  }
+
+  private synchronized PDG<T> getPDGIfPresent(IVector<PDG<T>> flavor, CGNode node) {
+    return flavor.get(cg.getNumber(node));
+  }
+
+  private synchronized IVector<PDG<T>> findOrCreatePDGs(
+      DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions,
+      HeapExclusions exclusions) {
+    Flavor key = new Flavor(dOptions, cOptions, exclusions);
+    IVector<PDG<T>> result = pdgs.get(key);
+    if (result == null) {
+      result = new SimpleVector<>();
+      pdgs.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return the control dependence edges of the PDG of node, including those to phi statements, or
+   *     null if there are none
+   */
+  Dependences getControlDependences(CGNode node, ControlDependenceOptions cOptions) {
+    IVector<Dependences> cds;
+    int n = cg.getNumber(node);
+    synchronized (this) {
+      cds = controlDependences.get(cOptions);
+      if (cds == null) {
+        cds = new SimpleVector<>();
+        controlDependences.put(cOptions, cds);
+      }
+      Dependences result = cds.get(n);
+      if (result != null) {
+        return result;
+      }
+    }
+    // compute the dependences outside the lock, so that several nodes can be done at once
+    IR ir = node.getIR();
+    Dependences result =
+        PDG.computeControlDependences(
+            node, cOptions, ir, PDG.computeInstructionIndices(ir), true);
+    if (result != null) {
+      synchronized (this) {
+        if (cds.get(n) == null) {
+          cds.set(n, result);
+        } else {
+          result = cds.get(n);
+        }
+      }
+    }
+    return result;
+  }
+
+  /** @return the heap data dependences of node through pk, or null if not known yet */
+  synchronized Dependences getHeapDependences(
+      CGNode node, DataDependenceOptions dOptions, HeapExclusions exclusions, PointerKey pk) {
+    Map<PointerKey, Dependences> byLocation =
+        findOrCreateHeapDependences(dOptions, exclusions).get(cg.getNumber(node));
+    return byLocation == null ? null : byLocation.get(pk);
+  }
+
+  /** record the heap data dependences of node through pk */
+  synchronized void putHeapDependences(
+      CGNode node,
+      DataDependenceOptions dOptions,
+      HeapExclusions exclusions,
+      PointerKey pk,
+      Dependences dependences) {
+    IVector<Map<PointerKey, Dependences>> heap = findOrCreateHeapDependences(dOptions, exclusions);
+    int n = cg.getNumber(node);
+    Map<PointerKey, Dependences> byLocation = heap.get(n);
+    if (byLocation == null) {
+      byLocation = HashMapFactory.make();
+      heap.set(n, byLocation);
+    }
+    byLocation.put(pk, dependences);
+  }
+
+  private IVector<Map<PointerKey, Dependences>> findOrCreateHeapDependences(
+      DataDependenceOptions dOptions, HeapExclusions exclusions) {
+    // the statements of a PDG, and so its heap dependences, only differ in exceptional statements
+    Pair<Boolean, HeapExclusions> key = Pair.make(dOptions.isIgnoreExceptions(), exclusions);
+    IVector<Map<PointerKey, Dependences>> result = heapDependences.get(key);
+    if (result == null) {
+      result = new SimpleVector<>();
+      heapDependences.put(key, result);
+    }
+    return result;
+  }
+
+  /** the options a PDG was built with */
+  private static final class Flavor {
+
+    private final DataDependenceOptions dOptions;
+
+    private final ControlDependenceOptions cOptions;
+
+    private final HeapExclusions exclusions;
+
+    Flavor(
+        DataDependenceOptions dOptions,
+        ControlDependenceOptions cOptions,
+        HeapExclusions exclusions) {
+      this.dOptions = dOptions;
+      this.cOptions = cOptions;
+      this.exclusions = exclusions;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * dOptions.hashCode() + cOptions.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Flavor)) {
+        return false;
+      }
+      Flavor other = (Flavor) obj;
+      return dOptions == other.dOptions
+          && cOptions == other.cOptions
+          && exclusions == other.exclusions;
+    }
+  }
+}
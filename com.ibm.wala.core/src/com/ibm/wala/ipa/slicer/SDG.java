@@ -99,6 +99,9 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
 
   private final ModRef<T> modRef;
 
+  /** If non-null, the cache to take the PDGs from */
+  private final PDGCache<T> pdgCache;
+
   /** Have we eagerly populated all nodes of this SDG? */
   private boolean eagerComputed = false;
 
@@ -139,6 +142,40 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     this.dOptions = dOptions;
     this.cOptions = cOptions;
     this.heapExclude = heapExclude;
+    this.pdgCache = null;
+  }
+
+  /**
+   * Build an SDG from the PDGs in pdgCache, which are shared with any other SDG built from the same
+   * cache with the same options.
+   */
+  public SDG(
+      PDGCache<T> pdgCache,
+      DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions,
+      HeapExclusions heapExclude)
+      throws IllegalArgumentException {
+    super();
+    if (pdgCache == null) {
+      throw new IllegalArgumentException("pdgCache must not be null");
+    }
+    if (dOptions == null) {
+      throw new IllegalArgumentException("dOptions must not be null");
+    }
+    this.modRef = pdgCache.getModRef();
+    this.cg = pdgCache.getCallGraph();
+    this.pa = pdgCache.getPointerAnalysis();
+    this.mod = dOptions.isIgnoreHeap() ? null : pdgCache.getMod(heapExclude);
+    this.ref = dOptions.isIgnoreHeap() ? null : pdgCache.getRef(heapExclude);
+    this.dOptions = dOptions;
+    this.cOptions = cOptions;
+    this.heapExclude = heapExclude;
+    this.pdgCache = pdgCache;
+  }
+
+  public SDG(
+      PDGCache<T> pdgCache, DataDependenceOptions dOptions, ControlDependenceOptions cOptions) {
+    this(pdgCache, dOptions, cOptions, null);
   }
 
   /**
@@ -811,7 +848,10 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   public PDG<T> getPDG(CGNode node) {
     PDG<T> result = pdgMap.get(node);
     if (result == null) {
-      result = new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
+      result =
+          pdgCache != null
+              ? pdgCache.getPDG(node, dOptions, cOptions, heapExclude)
+              : new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
       pdgMap.put(node, result);
       // Let's not eagerly add nodes, shall we?
       // for (Iterator<? extends Statement> it = result.iterator(); it.hasNext();) {
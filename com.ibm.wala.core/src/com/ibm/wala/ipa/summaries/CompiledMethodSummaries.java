@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.summaries;
+
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.util.collections.HashMapFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A binary form of XML method summaries, as read by {@link XMLMethodSummaryReader}. Compiling a
+ * summary file records its elements and attributes once, with every distinct string stored only
+ * the first time it occurs; reading the compiled form replays them into the same handler as the
+ * XML reader, so the summaries are identical but no XML needs to be parsed.
+ */
+public class CompiledMethodSummaries {
+
+  /** "WSMS" */
+  private static final int MAGIC = 0x57534d53;
+
+  private static final int VERSION = 1;
+
+  private static final byte END_OF_FILE = 0;
+
+  private static final byte START_ELEMENT = 1;
+
+  private static final byte END_ELEMENT = 2;
+
+  private CompiledMethodSummaries() {}
+
+  /** @return true if data starts like a compiled summary file */
+  public static boolean isCompiled(byte[] data) {
+    return data.length >= 4
+        && ((data[0] & 0xff) << 24 | (data[1] & 0xff) << 16 | (data[2] & 0xff) << 8 | data[3] & 0xff)
+            == MAGIC;
+  }
+
+  /** Compiles the XML summaries read from xml and writes the binary form to out. */
+  public static void compile(InputStream xml, OutputStream out) throws IOException {
+    if (xml == null) {
+      throw new IllegalArgumentException("null xml");
+    }
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    try {
+      SAXParserFactory.newInstance().newSAXParser().parse(new InputSource(xml), new Writer(data));
+    } catch (SAXException | ParserConfigurationException e) {
+      throw new IOException("bad xml file", e);
+    }
+    data.writeByte(END_OF_FILE);
+    data.flush();
+  }
+
+  /**
+   * Reads compiled summaries.
+   *
+   * @return a reader holding the summaries, exactly as if the original XML had been read
+   */
+  public static XMLMethodSummaryReader read(InputStream compiled, AnalysisScope scope)
+      throws IOException {
+    if (compiled == null) {
+      throw new IllegalArgumentException("null compiled");
+    }
+    DataInputStream data = new DataInputStream(new BufferedInputStream(compiled));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("not a compiled summary file");
+    }
+    int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported compiled summary version " + version);
+    }
+
+    XMLMethodSummaryReader result = new XMLMethodSummaryReader(scope);
+    DefaultHandler handler = result.newHandler();
+    List<String> strings = new ArrayList<>();
+    AttributesImpl atts = new AttributesImpl();
+    try {
+      for (byte tag = data.readByte(); tag != END_OF_FILE; tag = data.readByte()) {
+        String element = readString(data, strings);
+        switch (tag) {
+          case START_ELEMENT:
+            atts.clear();
+            for (int i = data.readInt(); i > 0; i--) {
+              String name = readString(data, strings);
+              String value = readString(data, strings);
+              atts.addAttribute("", name, name, "CDATA", value);
+            }
+            handler.startElement("", element, element, atts);
+            break;
+          case END_ELEMENT:
+            handler.endElement("", element, element);
+            break;
+          default:
+            throw new IOException("corrupt compiled summary file: unknown tag " + tag);
+        }
+      }
+    } catch (SAXException e) {
+      throw new IOException(e);
+    }
+    return result;
+  }
+
+  private static String readString(DataInputStream data, List<String> strings)
+      throws IOException {
+    int id = data.readInt();
+    if (id == strings.size()) {
+      strings.add(data.readUTF());
+    } else if (id < 0 || id > strings.size()) {
+      throw new IOException("corrupt compiled summary file: bad string " + id);
+    }
+    return strings.get(id);
+  }
+
+  /** Records SAX events in the binary form. */
+  private static class Writer extends DefaultHandler {
+    private final DataOutputStream data;
+
+    private final Map<String, Integer> strings = HashMapFactory.make();
+
+    Writer(DataOutputStream data) {
+      this.data = data;
+    }
+
+    private void writeString(String s) throws IOException {
+      Integer id = strings.get(s);
+      if (id == null) {
+        id = strings.size();
+        strings.put(s, id);
+        data.writeInt(id);
+        data.writeUTF(s);
+      } else {
+        data.writeInt(id);
+      }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+        throws SAXException {
+      try {
+        data.writeByte(START_ELEMENT);
+        writeString(qName);
+        data.writeInt(atts.getLength());
+        for (int i = 0; i < atts.getLength(); i++) {
+          writeString(atts.getQName(i));
+          writeString(atts.getValue(i));
+        }
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      try {
+        data.writeByte(END_ELEMENT);
+        writeString(qName);
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+  }
+
+  /** Compiles the XML summary file args[0] into args[1]. */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: CompiledMethodSummaries <summaries.xml> <output file>");
+      System.exit(1);
+    }
+    try (InputStream in = new FileInputStream(args[0]);
+        OutputStream out = new FileOutputStream(args[1])) {
+      compile(in, out);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.summaries;
+
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.strings.Atom;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of method summary sets, so that analyses which use the same summaries, e.g. of the same
+ * version of a platform library, read them only once per JVM and share them. Summary sets are keyed
+ * by a platform version, such as an Android API level, by a digest of the summary file, which may
+ * be XML or {@link CompiledMethodSummaries compiled}, and by the class loaders of the analysis
+ * scope they are read for.
+ *
+ * <p>Cached summaries are shared read-only; they are softly referenced and hence dropped, and read
+ * again if needed, when memory gets tight.
+ */
+public class MethodSummaryCache {
+
+  /** version to use for summaries that do not depend on a platform version */
+  public static final int ANY_VERSION = -1;
+
+  private static final MethodSummaryCache DEFAULT = new MethodSummaryCache();
+
+  /** @return the cache shared by all analyses in this JVM */
+  public static MethodSummaryCache getDefault() {
+    return DEFAULT;
+  }
+
+  /** An unmodifiable set of method summaries, as read by {@link XMLMethodSummaryReader}. */
+  public static final class Summaries {
+    private final Map<MethodReference, MethodSummary> summaries;
+
+    private final Set<TypeReference> allocatable;
+
+    private final Set<Atom> ignoredPackages;
+
+    private Summaries(XMLMethodSummaryReader reader) {
+      this.summaries = Collections.unmodifiableMap(reader.getSummaries());
+      this.allocatable = Collections.unmodifiableSet(reader.getAllocatableClasses());
+      this.ignoredPackages = Collections.unmodifiableSet(reader.getIgnoredPackages());
+    }
+
+    /** @see XMLMethodSummaryReader#getSummaries() */
+    public Map<MethodReference, MethodSummary> getSummaries() {
+      return summaries;
+    }
+
+    /** @see XMLMethodSummaryReader#getAllocatableClasses() */
+    public Set<TypeReference> getAllocatableClasses() {
+      return allocatable;
+    }
+
+    /** @see XMLMethodSummaryReader#getIgnoredPackages() */
+    public Set<Atom> getIgnoredPackages() {
+      return ignoredPackages;
+    }
+  }
+
+  private final Map<Key, SoftReference<Summaries>> cache = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Finds or reads the summaries in file. The stream is read fully, but not closed.
+   *
+   * @param version the platform version the summaries are meant for, e.g. an Android API level, or
+   *     {@link #ANY_VERSION}
+   * @param file the summaries, as XML or compiled
+   * @param scope the scope to resolve class loader names in
+   */
+  public Summaries get(int version, InputStream file, AnalysisScope scope) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("null file");
+    }
+    if (scope == null) {
+      throw new IllegalArgumentException("null scope");
+    }
+    byte[] data = readFully(file);
+    List<String> loaders = new ArrayList<>();
+    for (ClassLoaderReference loader : scope.getLoaders()) {
+      loaders.add(loader.getName().toString());
+    }
+    Collections.sort(loaders);
+    Key key = new Key(version, digest(data), loaders);
+
+    SoftReference<Summaries> cached = cache.get(key);
+    Summaries result = cached == null ? null : cached.get();
+    if (result != null) {
+      hits.incrementAndGet();
+      return result;
+    }
+    misses.incrementAndGet();
+
+    XMLMethodSummaryReader reader =
+        CompiledMethodSummaries.isCompiled(data)
+            ? CompiledMethodSummaries.read(new ByteArrayInputStream(data), scope)
+            : new XMLMethodSummaryReader(new ByteArrayInputStream(data), scope);
+    result = new Summaries(reader);
+
+    // if another thread read the same summaries meanwhile, keep using its copy
+    SoftReference<Summaries> winner =
+        cache.merge(key, new SoftReference<>(result), (old, ref) -> old.get() != null ? old : ref);
+    Summaries shared = winner.get();
+    return shared != null ? shared : result;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public void clear() {
+    cache.clear();
+  }
+
+  private static byte[] readFully(InputStream s) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    for (int n = s.read(buffer); n != -1; n = s.read(buffer)) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] digest(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Key {
+    private final int version;
+
+    private final byte[] digest;
+
+    private final List<String> loaders;
+
+    private Key(int version, byte[] digest, List<String> loaders) {
+      this.version = version;
+      this.digest = digest;
+      this.loaders = loaders;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * version + Arrays.hashCode(digest)) + loaders.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return version == other.version
+          && Arrays.equals(digest, other.digest)
+          && loaders.equals(other.loaders);
+    }
+  }
+}
@@ -194,6 +194,22 @@ public class XMLMethodSummaryReader implements BytecodeConstants {
     }
   }
 
+  /**
+   * Creates a reader that has not read anything yet; {@link CompiledMethodSummaries} feeds it
+   * through {@link #newHandler()}.
+   */
+  XMLMethodSummaryReader(AnalysisScope scope) {
+    if (scope == null) {
+      throw new IllegalArgumentException("null scope");
+    }
+    this.scope = scope;
+  }
+
+  /** @return a fresh handler that adds what it is fed to the summaries of this reader */
+  DefaultHandler newHandler() {
+    return new SAXHandler();
+  }
+
   private void readXML(InputStream xml)
       throws SAXException, IOException, ParserConfigurationException {
     SAXHandler handler = new SAXHandler();
@@ -13,12 +13,10 @@ package com.ibm.wala.ssa;
 import com.ibm.wala.util.collections.EmptyIterator;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.debug.Assertions;
-import com.ibm.wala.util.intset.IntIterator;
-import com.ibm.wala.util.intset.IntSet;
-import com.ibm.wala.util.intset.IntSetUtil;
-import com.ibm.wala.util.intset.MutableIntSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /** An object which represent Def-Use information for an SSA {@link IR} */
 public class DefUse {
@@ -28,10 +26,12 @@ public class DefUse {
   private final SSAInstruction[] defs;
 
   /**
-   * A mapping from integer (value number) -&gt; bit vector holding integers representing
-   * instructions that use the value number
+   * The instructions using each value number, as indices into {@link #allInstructions}: the uses of
+   * value number v are useIndices[firstUse[v] .. firstUse[v + 1]), in increasing order
    */
-  private final MutableIntSet[] uses;
+  private final int[] firstUse;
+
+  private final int[] useIndices;
 
   /** A Mapping from integer -&gt; Instruction */
   protected final ArrayList<SSAInstruction> allInstructions = new ArrayList<>();
@@ -52,13 +52,16 @@ public class DefUse {
     // set up mapping from integer -> instruction
     initAllInstructions();
     defs = new SSAInstruction[getMaxValueNumber() + 1];
-    uses = new MutableIntSet[getMaxValueNumber() + 1];
+    firstUse = new int[getMaxValueNumber() + 2];
     if (DEBUG) {
       System.err.println(("DefUse: defs.length " + defs.length));
     }
-    Iterator<SSAInstruction> it = allInstructions.iterator();
+    // count the uses of each value number, then fill them in; an instruction using a value number
+    // several times counts once
+    int[] lastUser = new int[firstUse.length];
+    Arrays.fill(lastUser, -1);
     for (int i = 0; i < allInstructions.size(); i++) {
-      SSAInstruction s = it.next();
+      SSAInstruction s = allInstructions.get(i);
       if (s == null) {
         continue;
       }
@@ -68,17 +71,35 @@ public class DefUse {
       for (int j = 0; j < getNumberOfUses(s); j++) {
         int use = getUse(s, j);
         try {
-          if (use != -1) {
-            if (uses[use] == null) {
-              uses[use] = IntSetUtil.make();
-            }
-            uses[use].add(i);
+          if (use != -1 && lastUser[use + 1] != i) {
+            lastUser[use + 1] = i;
+            firstUse[use + 1]++;
           }
         } catch (ArrayIndexOutOfBoundsException e) {
           assert false : "unexpected value number " + use;
         }
       }
     }
+    for (int v = 1; v < firstUse.length; v++) {
+      firstUse[v] += firstUse[v - 1];
+    }
+    useIndices = new int[firstUse[firstUse.length - 1]];
+    int[] next = Arrays.copyOf(firstUse, firstUse.length - 1);
+    for (int i = 0; i < allInstructions.size(); i++) {
+      SSAInstruction s = allInstructions.get(i);
+      if (s == null) {
+        continue;
+      }
+      for (int j = 0; j < getNumberOfUses(s); j++) {
+        int use = getUse(s, j);
+        if (use >= 0
+            && use < next.length
+            && (next[use] == firstUse[use] || useIndices[next[use] - 1] != i)) {
+          useIndices[next[use]++] = i;
+        }
+      }
+    }
+    allInstructions.trimToSize();
   }
 
   /** @return the maximum value number in a particular IR */
@@ -120,30 +141,36 @@ public class DefUse {
 
   /** Return all uses of the variable with the given value number */
   public Iterator<SSAInstruction> getUses(int v) {
-    if (uses[v] == null) {
+    if (firstUse[v] == firstUse[v + 1]) {
       return EmptyIterator.instance();
     } else {
-      return new UseIterator(uses[v]);
+      return new UseIterator(v);
     }
   }
 
-  /** return an {@link Iterator} of all instructions that use any of a set of variables */
+  /** return an {@link Iterator} of all instructions that use a variable */
   private class UseIterator implements Iterator<SSAInstruction> {
-    final IntIterator it;
+    private int next;
+
+    private final int end;
 
-    /** @param uses the set of value numbers whose uses this object iterates over */
-    UseIterator(IntSet uses) {
-      it = uses.intIterator();
+    /** @param v the value number whose uses this object iterates over */
+    UseIterator(int v) {
+      next = firstUse[v];
+      end = firstUse[v + 1];
     }
 
     @Override
     public boolean hasNext() {
-      return it.hasNext();
+      return next < end;
     }
 
     @Override
     public SSAInstruction next() {
-      return allInstructions.get(it.next());
+      if (next >= end) {
+        throw new NoSuchElementException();
+      }
+      return allInstructions.get(useIndices[next++]);
     }
 
     @Override
@@ -157,7 +184,7 @@ public class DefUse {
    * @return the number of uses of the variable with the given value number
    */
   public int getNumberOfUses(int v) {
-    return uses[v] == null ? 0 : uses[v].size();
+    return firstUse[v + 1] - firstUse[v];
   }
 
   /**
@@ -165,8 +192,6 @@ public class DefUse {
    * @return true if the variable with the given value number has no uses
    */
   public boolean isUnused(int v) {
-    final MutableIntSet usesSet = uses[v];
-    assert usesSet == null || !usesSet.isEmpty();
-    return usesSet == null;
+    return firstUse[v] == firstUse[v + 1];
   }
 }
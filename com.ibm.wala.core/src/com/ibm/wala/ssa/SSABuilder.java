@@ -30,6 +30,7 @@ import com.ibm.wala.shrikeBT.IConditionalBranchInstruction;
 import com.ibm.wala.shrikeBT.IConversionInstruction;
 import com.ibm.wala.shrikeBT.IGetInstruction;
 import com.ibm.wala.shrikeBT.IInstanceofInstruction;
+import com.ibm.wala.shrikeBT.IInstruction;
 import com.ibm.wala.shrikeBT.IInvokeInstruction;
 import com.ibm.wala.shrikeBT.ILoadIndirectInstruction;
 import com.ibm.wala.shrikeBT.ILoadInstruction;
@@ -53,9 +54,13 @@ import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.FieldReference;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
 import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.shrike.ShrikeUtil;
 import java.util.Arrays;
@@ -79,11 +84,40 @@ public class SSABuilder extends AbstractIntStackMachine {
       boolean buildLocalMap,
       SSAPiNodePolicy piNodePolicy)
       throws IllegalArgumentException {
+    return make(method, cfg, scfg, instructions, symbolTable, buildLocalMap, piNodePolicy, false);
+  }
+
+  /**
+   * @param placePhisFromDominanceFrontiers if true, phis for locals are only considered at the
+   *     iterated dominance frontiers of the blocks that store them, and only for locals that some
+   *     block reads before storing them (semi-pruned SSA). Elsewhere the meet of a local takes the
+   *     single definition that reaches it rather than creating a phi. The IRs are the same up to
+   *     value numbering, except that they lack the redundant phis, which merge one value with
+   *     themselves or with each other, that the default builder leaves e.g. at loop headers for
+   *     locals that the loop does not store.
+   */
+  public static SSABuilder make(
+      IBytecodeMethod<?> method,
+      SSACFG cfg,
+      ShrikeCFG scfg,
+      SSAInstruction[] instructions,
+      SymbolTable symbolTable,
+      boolean buildLocalMap,
+      SSAPiNodePolicy piNodePolicy,
+      boolean placePhisFromDominanceFrontiers)
+      throws IllegalArgumentException {
     if (scfg == null) {
       throw new IllegalArgumentException("scfg == null");
     }
     return new SSABuilder(
-        method, cfg, scfg, instructions, symbolTable, buildLocalMap, piNodePolicy);
+        method,
+        cfg,
+        scfg,
+        instructions,
+        symbolTable,
+        buildLocalMap,
+        piNodePolicy,
+        placePhisFromDominanceFrontiers);
   }
 
   /** A wrapper around the method being analyzed. */
@@ -112,12 +146,19 @@ public class SSABuilder extends AbstractIntStackMachine {
       SSAInstruction[] instructions,
       SymbolTable symbolTable,
       boolean buildLocalMap,
-      SSAPiNodePolicy piNodePolicy) {
+      SSAPiNodePolicy piNodePolicy,
+      boolean placePhisFromDominanceFrontiers) {
     super(scfg);
     localMap =
         buildLocalMap ? new SSA2LocalMap(scfg, instructions.length, cfg.getNumberOfNodes()) : null;
     init(
-        new SymbolTableMeeter(symbolTable, cfg, scfg),
+        new SymbolTableMeeter(
+            symbolTable,
+            cfg,
+            scfg,
+            placePhisFromDominanceFrontiers
+                ? new LocalPhiPlacement(scfg, method.getIndirectionData(), piNodePolicy != null)
+                : null),
         new SymbolicPropagator(scfg, instructions, symbolTable, localMap, cfg, piNodePolicy));
     this.method = method;
     this.symbolTable = symbolTable;
@@ -135,10 +176,18 @@ public class SSABuilder extends AbstractIntStackMachine {
 
     final ShrikeCFG shrikeCFG;
 
-    SymbolTableMeeter(SymbolTable symbolTable, SSACFG cfg, ShrikeCFG shrikeCFG) {
+    /** where phis for locals may be needed; null if anywhere */
+    final LocalPhiPlacement phiPlacement;
+
+    SymbolTableMeeter(
+        SymbolTable symbolTable,
+        SSACFG cfg,
+        ShrikeCFG shrikeCFG,
+        LocalPhiPlacement phiPlacement) {
       this.cfg = cfg;
       this.symbolTable = symbolTable;
       this.shrikeCFG = shrikeCFG;
+      this.phiPlacement = phiPlacement;
     }
 
     @Override
@@ -195,6 +244,14 @@ public class SSABuilder extends AbstractIntStackMachine {
           // no phis in exit block please
           return TOP;
         }
+        if (phiPlacement != null && !phiPlacement.mayNeedPhi(n, newBB.getNumber())) {
+          if (!phiPlacement.isReadAcrossBlocks(n)) {
+            // no block reads local n before storing it, so it is dead here
+            return TOP;
+          }
+          // only one definition of local n reaches bb
+          return rhs[phiPlacement.getTreePredecessor(newBB.getNumber())];
+        }
         // if we already have a phi for this local
         SSAPhiInstruction phi = newBB.getPhiForLocal(n);
         int result;
@@ -254,6 +311,189 @@ public class SSABuilder extends AbstractIntStackMachine {
     }
   }
 
+  /**
+   * Semi-pruned phi placement for the locals of a method: a local may need a phi only at the
+   * iterated dominance frontier of the blocks that define it, and only if some block reads it
+   * before storing it.
+   */
+  private static class LocalPhiPlacement {
+
+    /** the locals that some block reads before storing them */
+    private final BitVector readAcrossBlocks = new BitVector();
+
+    /** for each block number, the locals that may need a phi at its entry; null if none */
+    private final BitVector[] phiLocals;
+
+    /**
+     * for each reachable block number, the position among the block's predecessors of its parent in
+     * a spanning tree of the reachable blocks
+     */
+    private final int[] treePredecessor;
+
+    /**
+     * @param pis are pi nodes built? A pi replaces a value in every local that holds it, on each
+     *     edge out of a block ending in a call or a conditional branch, so these edges define
+     *     every local.
+     */
+    LocalPhiPlacement(ShrikeCFG scfg, IndirectionData indirections, boolean pis) {
+      int nBlocks = scfg.getMaxNumber() + 1;
+      BitVector reachable = new BitVector(nBlocks);
+      int[] parent = new int[nBlocks];
+      int[] worklist = new int[nBlocks];
+      int size = 0;
+      reachable.set(scfg.entry().getNumber());
+      worklist[size++] = scfg.entry().getNumber();
+      while (size > 0) {
+        int b = worklist[--size];
+        IntIterator succs = scfg.getSuccNodeNumbers(scfg.getNode(b)).intIterator();
+        while (succs.hasNext()) {
+          int s = succs.next();
+          if (!reachable.get(s)) {
+            reachable.set(s);
+            parent[s] = b;
+            worklist[size++] = s;
+          }
+        }
+      }
+      treePredecessor = new int[nBlocks];
+      for (int b = reachable.nextSetBit(0); b >= 0; b = reachable.nextSetBit(b + 1)) {
+        if (b != scfg.entry().getNumber()) {
+          int i = 0;
+          for (BasicBlock p : Iterator2Iterable.make(scfg.getPredNodes(scfg.getNode(b)))) {
+            if (p.getNumber() == parent[b]) {
+              treePredecessor[b] = i;
+              break;
+            }
+            i++;
+          }
+        }
+      }
+
+      // the blocks storing each local, and the blocks entered by edges that define every local
+      IInstruction[] instructions = scfg.getInstructions();
+      BitVector[] storingBlocks = new BitVector[0];
+      BitVector piTargets = new BitVector(nBlocks);
+      BitVector stored = new BitVector();
+      for (BasicBlock bb : scfg) {
+        if (!reachable.get(bb.getNumber())) {
+          continue;
+        }
+        stored.clearAll();
+        for (int i = bb.getFirstInstructionIndex(); i <= bb.getLastInstructionIndex(); i++) {
+          IInstruction instruction = instructions[i];
+          for (int local : indirections.indirectlyReadLocals(i)) {
+            read(local, stored);
+          }
+          if (instruction instanceof ILoadInstruction) {
+            ILoadInstruction load = (ILoadInstruction) instruction;
+            read(load.getVarIndex(), stored);
+            if (load.isAddressOf()) {
+              // may define the local, see visitLocalLoad
+              stored.set(load.getVarIndex());
+            }
+          } else if (instruction instanceof IStoreInstruction) {
+            stored.set(((IStoreInstruction) instruction).getVarIndex());
+          }
+          for (int local : indirections.indirectlyWrittenLocals(i)) {
+            stored.set(local);
+          }
+        }
+        for (int local = stored.nextSetBit(0); local >= 0; local = stored.nextSetBit(local + 1)) {
+          if (local >= storingBlocks.length) {
+            storingBlocks = Arrays.copyOf(storingBlocks, 2 * local + 1);
+          }
+          if (storingBlocks[local] == null) {
+            storingBlocks[local] = new BitVector(nBlocks);
+          }
+          storingBlocks[local].set(bb.getNumber());
+        }
+        if (pis && bb.getLastInstructionIndex() >= 0) {
+          IInstruction last = instructions[bb.getLastInstructionIndex()];
+          if (last instanceof IInvokeInstruction || last instanceof IConditionalBranchInstruction) {
+            for (IntIterator succs = scfg.getSuccNodeNumbers(bb).intIterator(); succs.hasNext(); ) {
+              piTargets.set(succs.next());
+            }
+          }
+        }
+      }
+
+      // A definition on the edge into a block with other predecessors needs a phi at that block;
+      // otherwise it is as if the block defined the local.
+      BitVector piMerges = new BitVector(nBlocks);
+      for (int b = piTargets.nextSetBit(0); b >= 0; b = piTargets.nextSetBit(b + 1)) {
+        if (scfg.getPredNodeCount(scfg.getNode(b)) > 1) {
+          piMerges.set(b);
+        }
+      }
+
+      DominanceFrontiers<BasicBlock> df = new DominanceFrontiers<>(scfg, scfg.entry());
+      phiLocals = new BitVector[nBlocks];
+      BitVector defs = new BitVector(nBlocks);
+      BitVector hasPhi = new BitVector(nBlocks);
+      for (int local = readAcrossBlocks.nextSetBit(0);
+          local >= 0;
+          local = readAcrossBlocks.nextSetBit(local + 1)) {
+        defs.clearAll();
+        if (local < storingBlocks.length && storingBlocks[local] != null) {
+          defs.or(storingBlocks[local]);
+        }
+        defs.or(piTargets);
+        hasPhi.clearAll();
+        for (int b = piMerges.nextSetBit(0); b >= 0; b = piMerges.nextSetBit(b + 1)) {
+          addPhi(local, b, hasPhi);
+        }
+        size = 0;
+        for (int b = defs.nextSetBit(0); b >= 0; b = defs.nextSetBit(b + 1)) {
+          worklist[size++] = b;
+        }
+        while (size > 0) {
+          BasicBlock x = scfg.getNode(worklist[--size]);
+          for (BasicBlock y : Iterator2Iterable.make(df.getDominanceFrontier(x))) {
+            int yNumber = y.getNumber();
+            if (!hasPhi.get(yNumber)) {
+              addPhi(local, yNumber, hasPhi);
+              if (!defs.get(yNumber)) {
+                defs.set(yNumber);
+                worklist[size++] = yNumber;
+              }
+            }
+          }
+        }
+      }
+    }
+
+    private void read(int local, BitVector stored) {
+      if (!stored.get(local)) {
+        readAcrossBlocks.set(local);
+      }
+    }
+
+    private void addPhi(int local, int block, BitVector hasPhi) {
+      hasPhi.set(block);
+      if (phiLocals[block] == null) {
+        phiLocals[block] = new BitVector();
+      }
+      phiLocals[block].set(local);
+    }
+
+    boolean isReadAcrossBlocks(int local) {
+      return readAcrossBlocks.get(local);
+    }
+
+    boolean mayNeedPhi(int local, int block) {
+      return phiLocals[block] != null && phiLocals[block].get(local);
+    }
+
+    /**
+     * @return the position, among the predecessors of a block that needs no phi for a local, of
+     *     one whose value of the local is the single definition reaching the block. Following these
+     *     predecessors never leads around a cycle, so a stale value cannot feed itself.
+     */
+    int getTreePredecessor(int block) {
+      return treePredecessor[block];
+    }
+  }
+
   @Override
   protected void initializeVariables() {
     MachineState entryState = getEntryState();
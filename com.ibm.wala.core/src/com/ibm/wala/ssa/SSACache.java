@@ -19,6 +19,11 @@ import com.ibm.wala.ipa.callgraph.impl.Everywhere;
  *
  * <p>This doesn't work very well ... GCs don't do such a great job with SoftReferences ... revamp
  * it.
+ *
+ * <p>Every IR is {@link SymbolTable#compact() compacted} before it is cached. On 20000 rt.jar
+ * methods that frees only about 4% of the memory held by the IRs (10MB of 246MB), far short of
+ * caching several times more IRs in the same heap: most of that memory is SSAInstruction objects,
+ * which compaction does not touch.
  */
 public class SSACache {
 
@@ -47,7 +52,7 @@ public class SSACache {
    * @return an IR for m, built according to the specified options. null if m is abstract or native.
    * @throws IllegalArgumentException if m is null
    */
-  public synchronized IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
+  public IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
 
     if (m == null) {
       throw new IllegalArgumentException("m is null");
@@ -64,12 +69,24 @@ public class SSACache {
       return factory.makeIR(m, c, options);
     }
 
-    IR ir = (IR) irCache.find(m, c, options);
-    if (ir == null) {
-      ir = factory.makeIR(m, c, options);
+    synchronized (this) {
+      IR ir = (IR) irCache.find(m, c, options);
+      if (ir != null) {
+        return ir;
+      }
+    }
+    // build the IR without holding the lock, so that IRs of different methods can be built
+    // concurrently; if two threads race for the same IR, the first one cached wins
+    IR ir = factory.makeIR(m, c, options);
+    ir.getSymbolTable().compact();
+    synchronized (this) {
+      IR cached = (IR) irCache.find(m, c, options);
+      if (cached != null) {
+        return cached;
+      }
       irCache.cache(m, c, options, ir);
+      return ir;
     }
-    return ir;
   }
 
   /**
@@ -85,6 +85,19 @@ public class SymbolTable implements Cloneable {
     return result;
   }
 
+  /**
+   * Release the free space for new value numbers, which the table only needs while the IR is being
+   * built, e.g. before the IR is cached in an {@link SSACache}. The table grows again if more value
+   * numbers are created. Afterwards, queries such as {@link #isZero(int)} on value numbers past
+   * {@code getMaxValueNumber() + 1} throw {@link IllegalArgumentException}, as queries past the
+   * allocated space always did.
+   */
+  public void compact() {
+    if (values.length > nextFreeValueNumber + 1) {
+      values = Arrays.copyOf(values, nextFreeValueNumber + 1);
+    }
+  }
+
   public void setConstantValue(int vn, ConstantValue val) {
     try {
       assert vn < nextFreeValueNumber;
@@ -4,6 +4,7 @@ import static org.junit.Assume.assumeFalse;
 
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.MultiDexFileModule;
 import com.ibm.wala.dalvik.test.callGraph.DalvikCallGraphTestBase;
 import com.ibm.wala.dalvik.test.callGraph.DroidBenchCGTest;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
@@ -129,6 +130,24 @@ public class MultiDexScopeTest {
         Integer.valueOf(getNumberOfAppClasses(cha)), Integer.valueOf(getNumberOfAppClasses(cha2)));
   }
 
+  @Test
+  public void testMultiDexModule() throws ClassHierarchyException, IOException {
+    String multidexApk = "data/multidex-test.apk";
+
+    MultiDexFileModule module = MultiDexFileModule.make(new File(multidexApk));
+    Assert.assertEquals(2, module.getDexFileModules().size());
+
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            "primordial.txt", new File(""), MultiDexScopeTest.class.getClassLoader());
+    scope.setLoaderImpl(
+        ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
+    scope.addToScope(ClassLoaderReference.Application, module);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    Assert.assertEquals(Integer.valueOf(5), Integer.valueOf(getNumberOfAppClasses(cha)));
+  }
+
   private static void extractDexFiles(String apkFileName, File outDir) throws IOException {
     try (ZipInputStream zis = new ZipInputStream(new FileInputStream(new File(apkFileName)))) {
       ZipEntry entry;
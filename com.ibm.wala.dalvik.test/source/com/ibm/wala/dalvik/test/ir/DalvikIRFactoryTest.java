@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dalvik.test.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.dalvik.classLoader.DexIMethod;
+import com.ibm.wala.dalvik.classLoader.DexIRFactory;
+import com.ibm.wala.dalvik.test.util.Util;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DalvikIRFactoryTest {
+
+  private static List<IMethod> applicationMethods(IClassHierarchy cha) {
+    List<IMethod> result = new ArrayList<>();
+    for (IClass cls : cha) {
+      if (cls.getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        for (IMethod m : cls.getDeclaredMethods()) {
+          if (m instanceof DexIMethod && !m.isAbstract() && !m.isNative()) {
+            result.add(m);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testParallelIRMatchesOnDemandIR()
+      throws IOException, ClassHierarchyException, CancelException {
+    IClassHierarchy cha = Util.makeCHA();
+    List<IMethod> methods = applicationMethods(cha);
+    Assert.assertFalse(methods.isEmpty());
+
+    IAnalysisCacheView parallel = new AnalysisCacheImpl(new DexIRFactory());
+    Assert.assertEquals(methods.size(), DexIRFactory.buildIRs(parallel, methods, 4, null));
+
+    IAnalysisCacheView onDemand = new AnalysisCacheImpl(new DexIRFactory());
+    for (IMethod m : methods) {
+      IR ir = parallel.getIR(m);
+      // the precomputed IR must be the one handed out later
+      Assert.assertSame(ir, parallel.getIR(m));
+      Assert.assertEquals(onDemand.getIR(m).toString(), ir.toString());
+    }
+  }
+}
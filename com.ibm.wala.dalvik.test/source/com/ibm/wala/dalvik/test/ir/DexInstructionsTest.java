@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dalvik.test.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.dalvik.classLoader.DexIMethod;
+import com.ibm.wala.dalvik.classLoader.DexIRFactory;
+import com.ibm.wala.dalvik.classLoader.MultiDexFileModule;
+import com.ibm.wala.dalvik.dex.instructions.Instruction;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the instructions {@link DexIMethod} decodes: their mapping between instruction indices and
+ * byte code addresses, and that they are decoded again, unchanged, once they have been dropped.
+ */
+public class DexInstructionsTest {
+
+  private static List<DexIMethod> methods;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            "primordial.txt", new File(""), DexInstructionsTest.class.getClassLoader());
+    scope.setLoaderImpl(
+        ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
+    scope.addToScope(
+        ClassLoaderReference.Application,
+        MultiDexFileModule.make(new File("data/multidex-test.apk")));
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    methods = new ArrayList<>();
+    for (IClass cls : cha) {
+      if (cls.getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        for (IMethod m : cls.getDeclaredMethods()) {
+          if (m instanceof DexIMethod && !m.isAbstract() && !m.isNative()) {
+            methods.add((DexIMethod) m);
+          }
+        }
+      }
+    }
+    Assert.assertFalse(methods.isEmpty());
+  }
+
+  @Test
+  public void testIndexAddressMapping() {
+    for (DexIMethod m : methods) {
+      Instruction[] instructions = m.getDexInstructions();
+      Assert.assertTrue(m.toString(), instructions.length > 0);
+      // every call hands out a fresh array of the same instructions
+      Assert.assertNotSame(instructions, m.getDexInstructions());
+      Assert.assertArrayEquals(instructions, m.getInstructions());
+
+      for (int i = 0; i < instructions.length; i++) {
+        int pc = instructions[i].pc;
+        Assert.assertEquals(m + " " + i, pc, m.getAddressFromIndex(i));
+        Assert.assertEquals(m + " " + i, pc, m.getBytecodeIndex(i));
+        Assert.assertSame(instructions[i], m.getInstructionFromIndex(i));
+        if (i > 0) {
+          Assert.assertTrue(m + " " + i, instructions[i - 1].pc <= pc);
+        }
+        // an address maps to the last instruction at that address
+        int index = m.getInstructionIndex(pc);
+        Assert.assertEquals(m + " " + i, pc, instructions[index].pc);
+        Assert.assertTrue(index >= i);
+        Assert.assertTrue(index + 1 == instructions.length || instructions[index + 1].pc > pc);
+      }
+
+      try {
+        m.getAddressFromIndex(instructions.length);
+        Assert.fail(m + ": index past the last instruction");
+      } catch (IndexOutOfBoundsException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testDroppedInstructionsAreDecodedAgain() {
+    List<Instruction> firstInstructions = new ArrayList<>();
+    List<String> decoded = new ArrayList<>();
+    List<String> irs = new ArrayList<>();
+    for (DexIMethod m : methods) {
+      Instruction[] instructions = m.getDexInstructions();
+      firstInstructions.add(instructions[0]);
+      decoded.add(describe(instructions));
+      irs.add(new AnalysisCacheImpl(new DexIRFactory()).getIR(m).toString());
+    }
+
+    // softly reachable objects are cleared before an OutOfMemoryError is thrown
+    try {
+      List<long[]> ballast = new ArrayList<>();
+      while (true) {
+        ballast.add(new long[1 << 20]);
+      }
+    } catch (OutOfMemoryError e) {
+      // expected
+    }
+
+    for (int i = 0; i < methods.size(); i++) {
+      DexIMethod m = methods.get(i);
+      Instruction[] instructions = m.getDexInstructions();
+      Assert.assertNotSame(firstInstructions.get(i), instructions[0]);
+      Assert.assertEquals(m.toString(), decoded.get(i), describe(instructions));
+      Assert.assertEquals(
+          m.toString(), irs.get(i), new AnalysisCacheImpl(new DexIRFactory()).getIR(m).toString());
+    }
+  }
+
+  private static String describe(Instruction[] instructions) {
+    StringBuilder result = new StringBuilder();
+    for (Instruction instruction : instructions) {
+      result.append(instruction.pc).append(' ').append(instruction.getOpcode()).append('\n');
+    }
+    return result.toString();
+  }
+}
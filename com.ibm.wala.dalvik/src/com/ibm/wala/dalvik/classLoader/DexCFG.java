@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implements BytecodeCFG {
   private static final boolean DEBUG = false;
@@ -53,7 +54,7 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
   private final DexIMethod dexMethod;
   private final Context context;
 
-  private static int totalEdges = 0;
+  private static final AtomicInteger totalEdges = new AtomicInteger();
 
   /** Cache this here for efficiency */
   private final int hashBase;
@@ -61,6 +62,12 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
   /** Set of Shrike {@link ExceptionHandler} objects that cover this method. */
   private final Set<ExceptionHandler> exceptionHandlers = HashSetFactory.make(10);
 
+  /**
+   * The instructions of the method, decoded once for the lifetime of this CFG so that they are not
+   * copied on each access and stay the same even if the method drops its decoded instructions.
+   */
+  private final Instruction[] instructions;
+
   protected DexCFG(DexIMethod method, Context context) throws IllegalArgumentException {
     super(method);
     if (method == null) {
@@ -68,6 +75,7 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
     }
     this.dexMethod = method;
     this.context = context;
+    this.instructions = method.getDexInstructions();
     this.hashBase = method.hashCode() * 9967;
     makeBasicBlocks();
     init();
@@ -80,7 +88,7 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
   }
 
   public static int getTotalEdges() {
-    return totalEdges;
+    return totalEdges.get();
   }
 
   @Override
@@ -98,7 +106,7 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
 
   @Override
   public Instruction[] getInstructions() {
-    return dexMethod.getDexInstructions();
+    return instructions;
   }
 
   /**
@@ -556,12 +564,12 @@ public class DexCFG extends AbstractCFG<Instruction, DexCFG.BasicBlock> implemen
     }
 
     private void addNormalEdgeTo(BasicBlock b) {
-      totalEdges++;
+      totalEdges.incrementAndGet();
       addNormalEdge(this, b);
     }
 
     private void addExceptionalEdgeTo(BasicBlock b) {
-      totalEdges++;
+      totalEdges.incrementAndGet();
       addExceptionalEdge(this, b);
     }
 
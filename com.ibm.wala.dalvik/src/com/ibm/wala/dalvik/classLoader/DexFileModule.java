@@ -49,14 +49,11 @@ package com.ibm.wala.dalvik.classLoader;
 
 import com.ibm.wala.classLoader.Module;
 import com.ibm.wala.classLoader.ModuleEntry;
-import com.ibm.wala.util.io.TemporaryFile;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.jar.JarFile;
 import org.jf.dexlib2.DexFileFactory;
 import org.jf.dexlib2.Opcodes;
 import org.jf.dexlib2.iface.ClassDef;
@@ -80,29 +77,13 @@ public class DexFileModule implements Module {
   public static DexFileModule make(File f, int apiLevel)
       throws IllegalArgumentException, IOException {
     if (f.getName().endsWith("jar")) {
-      try (final JarFile jar = new JarFile(f)) {
-        return new DexFileModule(jar);
-      }
+      // read classes.dex straight out of the jar, without copying it to a temporary file
+      return new DexFileModule(f, "classes.dex", apiLevel);
     } else {
       return new DexFileModule(f, apiLevel);
     }
   }
 
-  private static File tf(JarFile f) throws IOException {
-    String name = f.getName();
-    if (name.indexOf('/') >= 0) {
-      name = name.substring(name.lastIndexOf('/') + 1);
-    }
-    File tf = Files.createTempFile("name", "_classes.dex").toFile();
-    tf.deleteOnExit();
-    System.err.println("using " + tf);
-    return tf;
-  }
-
-  private DexFileModule(JarFile f) throws IllegalArgumentException, IOException {
-    this(TemporaryFile.streamToFile(tf(f), f.getInputStream(f.getEntry("classes.dex"))));
-  }
-
   private DexFileModule(File f) throws IllegalArgumentException {
     this(f, AUTO_INFER_API_LEVEL);
   }
@@ -118,12 +99,26 @@ public class DexFileModule implements Module {
       throw new IllegalArgumentException(e);
     }
 
-    // create ModuleEntries from ClassDefItem
-    entries = new HashSet<>();
+    entries = makeEntries();
+  }
 
+  /**
+   * @param f the file containing dexfile
+   * @param dexfile an already loaded dex file, e.g. one entry of a multi-dex container
+   */
+  DexFileModule(File f, DexFile dexfile) {
+    this.f = f;
+    this.dexfile = dexfile;
+    entries = makeEntries();
+  }
+
+  // create ModuleEntries from ClassDefItem
+  private Collection<ModuleEntry> makeEntries() {
+    Collection<ModuleEntry> entries = new HashSet<>();
     for (ClassDef cdefitems : dexfile.getClasses()) {
       entries.add(new DexModuleEntry(cdefitems, this));
     }
+    return entries;
   }
 
   /**
@@ -145,11 +140,7 @@ public class DexFileModule implements Module {
       throw new IllegalArgumentException(e);
     }
 
-    // create ModuleEntries from ClassDefItem
-    entries = new HashSet<>();
-    for (ClassDef cdefitems : dexfile.getClasses()) {
-      entries.add(new DexModuleEntry(cdefitems, this));
-    }
+    entries = makeEntries();
   }
 
   public DexFileModule(File f, String entry) throws IllegalArgumentException {
@@ -106,6 +106,7 @@ import com.ibm.wala.types.annotations.Annotation;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.strings.Atom;
 import com.ibm.wala.util.strings.ImmutableByteArray;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -113,6 +114,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jf.dexlib2.DebugItemType;
 import org.jf.dexlib2.Opcode;
 import org.jf.dexlib2.analysis.ClassPath;
@@ -176,9 +178,16 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
   private ExceptionHandler[][] handlers;
 
+  /** The instructions being decoded by {@link #parseBytecode()}; null otherwise. */
   protected InstructionArray instructions;
 
-  private static int totalInsts = 0;
+  /**
+   * The decoded instructions, softly referenced: they can always be decoded again from dexlib's
+   * representation, so they are dropped when memory gets tight.
+   */
+  private SoftReference<InstructionArray> decoded;
+
+  private static final AtomicInteger totalInsts = new AtomicInteger();
 
   public DexIMethod(Method encodedMethod, DexIClass klass) {
     eMethod = encodedMethod;
@@ -186,7 +195,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
   }
 
   public static int getTotalInsts() {
-    return totalInsts;
+    return totalInsts.get();
   }
 
   // ------------------------------------------
@@ -557,23 +566,26 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
     return getReference().getName();
   }
 
-  private Map<Integer, Integer> sourceLines = null;
+  private volatile Map<Integer, Integer> sourceLines = null;
 
   @Override
   public int getLineNumber(int bcIndex) {
+    Map<Integer, Integer> sourceLines = this.sourceLines;
     if (sourceLines == null
         && eMethod.getImplementation() != null
         && eMethod.getImplementation().getDebugItems() != null) {
-      sourceLines = HashMapFactory.make();
+      // fill a local map first, so that other threads never see a partial one
+      Map<Integer, Integer> lines = HashMapFactory.make();
       eMethod
           .getImplementation()
           .getDebugItems()
           .forEach(
               (dbg) -> {
                 if (dbg.getDebugItemType() == DebugItemType.LINE_NUMBER) {
-                  sourceLines.put(dbg.getCodeAddress(), ((LineNumber) dbg).getLineNumber());
+                  lines.put(dbg.getCodeAddress(), ((LineNumber) dbg).getLineNumber());
                 }
               });
+      this.sourceLines = sourceLines = lines;
     }
     return sourceLines.containsKey(bcIndex) ? sourceLines.get(bcIndex) : -1;
   }
@@ -621,7 +633,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
   }
 
   @Override
-  public ExceptionHandler[][] getHandlers() {
+  public synchronized ExceptionHandler[][] getHandlers() {
 
     if (handlers != null) return handlers;
 
@@ -717,9 +729,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
   @Override
   public Instruction[] getInstructions() {
-    if (instructions == null) parseBytecode();
-
-    return instructions.toArray(new Instruction[0]);
+    return getDexInstructions();
   }
 
   private boolean odexMethod() {
@@ -885,7 +895,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
     // int pc = 0;
     int currentCodeAddress = 0;
     for (org.jf.dexlib2.iface.instruction.Instruction inst : instrucs) {
-      totalInsts++;
+      totalInsts.incrementAndGet();
       instCounter++;
       //          instLoc = pc - instCounter;
       instLoc = currentCodeAddress;
@@ -4521,13 +4531,33 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
     instructions.add(new Invoke.InvokeVirtual(instLoc, cname, mname, pname, args, opcode, this));
   }
 
+  /**
+   * @return a fresh array of the decoded instructions of this method. Clients that access the
+   *     instructions repeatedly, like {@link DexCFG}, should hold on to the array rather than call
+   *     this again, since the decoded instructions may be dropped and decoded anew in between.
+   */
   public Instruction[] getDexInstructions() {
     return instructions().toArray(new Instruction[0]);
   }
 
-  protected InstructionArray instructions() {
-    if (instructions == null) parseBytecode();
-    return instructions;
+  /** @return the decoded instructions, decoding them if they have not been or have been dropped */
+  protected synchronized InstructionArray instructions() {
+    if (instructions != null) {
+      // decoding is under way
+      return instructions;
+    }
+    InstructionArray result = decoded == null ? null : decoded.get();
+    if (result == null) {
+      try {
+        parseBytecode();
+        result = instructions;
+      } finally {
+        instructions = null;
+      }
+      result.trimToSize();
+      decoded = new SoftReference<>(result);
+    }
+    return result;
   }
 
   public int getAddressFromIndex(int index) {
@@ -16,6 +16,8 @@ import com.ibm.wala.cfg.ControlFlowGraph;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.dalvik.ssa.DexSSABuilder;
 import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
 import com.ibm.wala.ssa.DefaultIRFactory;
 import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.SSACFG;
@@ -24,6 +26,15 @@ import com.ibm.wala.ssa.SSAOptions;
 import com.ibm.wala.ssa.ShrikeIndirectionData;
 import com.ibm.wala.ssa.SymbolTable;
 import com.ibm.wala.ssa.analysis.DeadAssignmentElimination;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 public class DexIRFactory extends DefaultIRFactory {
   public static final boolean buildLocalMap = false;
@@ -131,6 +142,58 @@ public class DexIRFactory extends DefaultIRFactory {
     };
   }
 
+  /**
+   * Builds the IRs of the given methods on a pool of threads and stores them in cache, so that
+   * later calls to {@link IAnalysisCacheView#getIR(IMethod)}, e.g. from a call graph builder, find
+   * them ready. IRs are built by the factory of cache, in the {@link
+   * com.ibm.wala.ipa.callgraph.impl.Everywhere} context and with the default {@link SSAOptions} of
+   * cache, i.e. exactly as they would be on demand.
+   *
+   * <p>Only {@link DexIMethod}s are built in parallel; other methods, as well as abstract and
+   * native ones, are left to be built on demand.
+   *
+   * @param cache the cache to fill
+   * @param methods the methods whose IRs are wanted
+   * @param parallelism the number of IRs to build at the same time; must be at least 1
+   * @param monitor to report progress to and check for cancellation; may be null
+   * @return the number of IRs built or found in cache
+   */
+  public static int buildIRs(
+      IAnalysisCacheView cache,
+      Collection<? extends IMethod> methods,
+      int parallelism,
+      IProgressMonitor monitor)
+      throws CancelException {
+    if (cache == null) {
+      throw new IllegalArgumentException("null cache");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
+    Set<DexIMethod> todo = new LinkedHashSet<>();
+    for (IMethod m : methods) {
+      if (m instanceof DexIMethod && !m.isAbstract() && !m.isNative()) {
+        todo.add((DexIMethod) m);
+      }
+    }
+
+    MonitorUtil.beginTask(monitor, "building Dalvik IR", todo.size());
+    List<Callable<Boolean>> tasks = new ArrayList<>(todo.size());
+    for (DexIMethod m : todo) {
+      tasks.add(() -> cache.getIR(m) != null);
+    }
+    int built = 0;
+    List<Boolean> hasIR =
+        ParallelIntraproceduralAnalysis.runAll(tasks, parallelism, monitor, RuntimeException.class);
+    for (boolean b : hasIR) {
+      if (b) {
+        built++;
+      }
+    }
+    MonitorUtil.done(monitor);
+    return built;
+  }
+
   @Override
   public boolean contextIsIrrelevant(IMethod method) {
     if (method == null) {
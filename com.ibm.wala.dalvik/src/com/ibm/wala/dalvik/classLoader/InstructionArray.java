@@ -49,25 +49,22 @@ package com.ibm.wala.dalvik.classLoader;
 
 import com.ibm.wala.dalvik.dex.instructions.Instruction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 
 /**
- * Collection of Instruction wich allow to get an instruction from its table index id or from its
- * bytecode index. It's not allowed to remove an element.
+ * The decoded instructions of a method. The byte code address of every instruction is kept in a
+ * plain int array, which is sorted since instructions are added in address order; addresses are
+ * mapped back to instruction indices by binary search, so no boxed map is needed.
  */
 public class InstructionArray implements Collection<Instruction> {
-  List<Instruction> instructions;
-  Map<Integer, Integer> pc2index;
-  List<Integer> index2pc;
+  ArrayList<Instruction> instructions;
+  int[] index2pc;
 
   public InstructionArray() {
     instructions = new ArrayList<>();
-    pc2index = new HashMap<>();
-    index2pc = new ArrayList<>();
+    index2pc = new int[16];
   }
 
   @Override
@@ -75,13 +72,25 @@ public class InstructionArray implements Collection<Instruction> {
     boolean ret = instructions.add(e);
 
     if (ret) {
-      pc2index.put(e.pc, size() - 1);
-      index2pc.add(e.pc);
+      int index = size() - 1;
+      assert index == 0 || index2pc[index - 1] <= e.pc : "instructions added out of order";
+      if (index == index2pc.length) {
+        index2pc = Arrays.copyOf(index2pc, 2 * index2pc.length);
+      }
+      index2pc[index] = e.pc;
     }
 
     return ret;
   }
 
+  /** Releases any spare capacity, once all instructions have been added. */
+  public void trimToSize() {
+    instructions.trimToSize();
+    if (index2pc.length > size()) {
+      index2pc = Arrays.copyOf(index2pc, size());
+    }
+  }
+
   @Override
   public boolean addAll(Collection<? extends Instruction> c) {
     boolean ret = false;
@@ -162,15 +171,34 @@ public class InstructionArray implements Collection<Instruction> {
     return instructions.toArray(a);
   }
 
+  /**
+   * @param pc the byte code index.
+   * @return The index of the last instruction at the given byte code index, or -1 if there is none
+   */
+  private int findPc(int pc) {
+    int index = Arrays.binarySearch(index2pc, 0, size(), pc);
+    if (index < 0) {
+      return -1;
+    }
+    while (index + 1 < size() && index2pc[index + 1] == pc) {
+      index++;
+    }
+    return index;
+  }
+
   /**
    * @param pc the byte code index.
    * @return The index of the instruction of given byte code index
    */
   public int getIndexFromPc(int pc) {
-    if (!pc2index.containsKey(pc) && pc2index.containsKey(pc + 1)) {
-      pc++;
+    int index = findPc(pc);
+    if (index == -1) {
+      index = findPc(pc + 1);
     }
-    return pc2index.get(pc);
+    if (index == -1) {
+      throw new IllegalArgumentException("no instruction at byte code index " + pc);
+    }
+    return index;
   }
 
   /**
@@ -178,7 +206,10 @@ public class InstructionArray implements Collection<Instruction> {
    * @return The byte code address of the instruction index
    */
   public int getPcFromIndex(int index) {
-    return index2pc.get(index);
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("instruction index " + index + " of " + size());
+    }
+    return index2pc[index];
   }
 
   /** @return The instruction from its id. */
@@ -188,6 +219,10 @@ public class InstructionArray implements Collection<Instruction> {
 
   /** @return The instruction from its pc. */
   public Instruction getFromPc(int pc) {
-    return instructions.get(pc2index.get(pc));
+    int index = findPc(pc);
+    if (index == -1) {
+      throw new IllegalArgumentException("no instruction at byte code index " + pc);
+    }
+    return instructions.get(index);
   }
 }
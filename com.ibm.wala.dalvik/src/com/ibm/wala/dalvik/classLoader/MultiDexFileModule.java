@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dalvik.classLoader;
+
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.CompoundIterator;
+import com.ibm.wala.util.collections.EmptyIterator;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jf.dexlib2.DexFileFactory;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.iface.MultiDexContainer;
+import org.jf.dexlib2.iface.MultiDexContainer.DexEntry;
+
+/**
+ * A module comprising all dex files of a container such as an .apk, .jar or .oat file, i.e. {@code
+ * classes.dex}, {@code classes2.dex}, ..., {@code classesN.dex}. A plain .dex file is treated as a
+ * container with a single entry.
+ *
+ * <p>Every dex file is read straight out of the container, without copying it to a temporary file,
+ * and becomes a {@link DexFileModule} of its own; the entries of this module are the {@link
+ * DexModuleEntry}s of all of them, in dex order. Dex files are loaded in parallel.
+ */
+public class MultiDexFileModule implements Module {
+
+  private static final Pattern DEX_ENTRY = Pattern.compile("classes(\\d*)\\.dex");
+
+  private final File f;
+
+  private final List<DexFileModule> dexModules;
+
+  public static MultiDexFileModule make(File f) throws IOException {
+    return make(f, DexFileModule.AUTO_INFER_API_LEVEL);
+  }
+
+  public static MultiDexFileModule make(File f, int apiLevel) throws IOException {
+    return make(f, apiLevel, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param f the .apk, .jar, .oat or .dex file
+   * @param apiLevel the api level wanted
+   * @param parallelism the number of dex files to load at the same time; must be at least 1
+   */
+  public static MultiDexFileModule make(File f, int apiLevel, int parallelism)
+      throws IOException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
+    MultiDexContainer<? extends DexBackedDexFile> container =
+        DexFileFactory.loadDexContainer(
+            f, apiLevel == DexFileModule.AUTO_INFER_API_LEVEL ? null : Opcodes.forApi(apiLevel));
+
+    List<String> names = new ArrayList<>(container.getDexEntryNames());
+    names.sort(Comparator.comparingInt(MultiDexFileModule::dexIndex));
+
+    List<Callable<DexFileModule>> tasks = new ArrayList<>(names.size());
+    for (String name : names) {
+      tasks.add(() -> load(f, container, name));
+    }
+    List<DexFileModule> dexModules;
+    try {
+      dexModules =
+          ParallelIntraproceduralAnalysis.runAll(tasks, parallelism, null, IOException.class);
+    } catch (CancelException e) {
+      throw new IOException("interrupted while loading " + f, e);
+    }
+    return new MultiDexFileModule(f, dexModules);
+  }
+
+  private static DexFileModule load(
+      File f, MultiDexContainer<? extends DexBackedDexFile> container, String name)
+      throws IOException {
+    DexEntry<? extends DexBackedDexFile> entry = container.getEntry(name);
+    if (entry == null) {
+      throw new IOException("cannot find " + name + " in " + f);
+    }
+    return new DexFileModule(f, entry.getDexFile());
+  }
+
+  /**
+   * the position of a dex entry in the class loading order: classes.dex first, then classes2.dex
+   * and so on; other entries, e.g. of .oat files, keep their order at the end
+   */
+  private static int dexIndex(String entryName) {
+    String name = entryName.substring(entryName.lastIndexOf('/') + 1);
+    Matcher m = DEX_ENTRY.matcher(name);
+    if (m.matches()) {
+      return m.group(1).isEmpty() ? 1 : Integer.parseInt(m.group(1));
+    } else {
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  private MultiDexFileModule(File f, List<DexFileModule> dexModules) {
+    this.f = f;
+    this.dexModules = Collections.unmodifiableList(dexModules);
+  }
+
+  /** @return the container file of this module */
+  public File getFile() {
+    return f;
+  }
+
+  /** @return one module for each dex file, in class loading order */
+  public List<DexFileModule> getDexFileModules() {
+    return dexModules;
+  }
+
+  @Override
+  public Iterator<ModuleEntry> getEntries() {
+    Iterator<ModuleEntry> result = EmptyIterator.instance();
+    for (DexFileModule m : dexModules) {
+      result = new CompoundIterator<>(result, m.getEntries());
+    }
+    return result;
+  }
+}
@@ -39,6 +39,7 @@
 package com.ibm.wala.dalvik.dex.util.config;
 
 import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.MultiDexFileModule;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.util.config.AnalysisScopeReader;
@@ -69,7 +70,12 @@ public class DexAnalysisScopeReader extends AnalysisScopeReader {
 
     ClassLoaderReference loader = scope.getLoader(AnalysisScope.APPLICATION);
     final String path = classPath.getPath();
-    if (path.endsWith(".jar") || path.endsWith(".apk") || path.endsWith(".dex")) {
+    if (path.endsWith(".apk")) {
+      for (DexFileModule dexModule :
+          MultiDexFileModule.make(new File(classPath)).getDexFileModules()) {
+        scope.addToScope(loader, dexModule);
+      }
+    } else if (path.endsWith(".jar") || path.endsWith(".dex")) {
       scope.addToScope(loader, DexFileModule.make(new File(classPath)));
     } else {
       throw new IOException("could not determine type of classpath from file extension: " + path);
@@ -1366,7 +1366,7 @@ public class DexSSABuilder extends AbstractIntRegisterMachine {
 
     @Override
     public Instruction[] getInstructions() {
-      return dexCFG.getDexMethod().getDexInstructions();
+      return dexCFG.getInstructions();
     }
   }
 
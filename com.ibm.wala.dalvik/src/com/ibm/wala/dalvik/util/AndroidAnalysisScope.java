@@ -12,6 +12,7 @@ package com.ibm.wala.dalvik.util;
 import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
 import com.ibm.wala.classLoader.JarFileModule;
 import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.MultiDexFileModule;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.shrikeCT.InvalidClassFileException;
 import com.ibm.wala.types.ClassLoaderReference;
@@ -25,10 +26,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.jar.JarFile;
-import org.jf.dexlib2.DexFileFactory;
-import org.jf.dexlib2.Opcodes;
-import org.jf.dexlib2.dexbacked.DexBackedDexFile;
-import org.jf.dexlib2.iface.MultiDexContainer;
 
 public class AndroidAnalysisScope {
 
@@ -93,14 +90,9 @@ public class AndroidAnalysisScope {
         codeFile.getName().endsWith(".oat") || codeFile.getName().endsWith(".apk");
 
     if (isContainerFile) {
-      MultiDexContainer<? extends DexBackedDexFile> multiDex =
-          DexFileFactory.loadDexContainer(
-              codeFile,
-              apiLevel == DexFileModule.AUTO_INFER_API_LEVEL ? null : Opcodes.forApi(apiLevel));
-
-      for (String dexEntry : multiDex.getDexEntryNames()) {
-        scope.addToScope(
-            ClassLoaderReference.Application, new DexFileModule(codeFile, dexEntry, apiLevel));
+      for (DexFileModule dexModule :
+          MultiDexFileModule.make(codeFile, apiLevel).getDexFileModules()) {
+        scope.addToScope(ClassLoaderReference.Application, dexModule);
       }
     } else {
       scope.addToScope(ClassLoaderReference.Application, DexFileModule.make(codeFile, apiLevel));
@@ -119,9 +111,12 @@ public class AndroidAnalysisScope {
       String[] paths = classPath.split(File.pathSeparator);
 
       for (String path : paths) {
-        if (path.endsWith(".jar")
-            || path.endsWith(".apk")
-            || path.endsWith(".dex")) { // Handle android file.
+        if (path.endsWith(".apk")) { // Handle android file, which may contain several dex files.
+          File f = new File(path);
+          for (DexFileModule dexModule : MultiDexFileModule.make(f).getDexFileModules()) {
+            scope.addToScope(loader, dexModule);
+          }
+        } else if (path.endsWith(".jar") || path.endsWith(".dex")) { // Handle android file.
           File f = new File(path);
           scope.addToScope(loader, DexFileModule.make(f));
         } else {
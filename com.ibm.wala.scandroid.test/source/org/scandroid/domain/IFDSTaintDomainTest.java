@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package org.scandroid.domain;
+
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+import org.scandroid.flow.types.ParameterFlow;
+
+public class IFDSTaintDomainTest {
+
+  private static final int THREADS = 8;
+
+  /** code elements; code element i has i % 5 + 1 elements */
+  private static final int CODE_ELEMENTS = 400;
+
+  private static List<DomainElement> makeElements() {
+    List<DomainElement> result = new ArrayList<>();
+    for (int i = 0; i < CODE_ELEMENTS; i++) {
+      CodeElement local = new LocalElement(i);
+      for (int arg = 0; arg <= i % 5; arg++) {
+        result.add(
+            new DomainElement(local, new ParameterFlow<IExplodedBasicBlock>(null, arg, true)));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Threads that add the same elements in different orders must agree on their numbers, which must
+   * be 1 to n, and the domain must map each number back to its element.
+   */
+  @Test
+  public void testConcurrentAdd() throws Exception {
+    List<DomainElement> elements = makeElements();
+    IFDSTaintDomain<IExplodedBasicBlock> domain = new IFDSTaintDomain<>();
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+          order.add(i);
+        }
+        Collections.shuffle(order, new Random(t));
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  int[] numbers = new int[elements.size()];
+                  for (int i : order) {
+                    // add a copy, so that numbers are found by equality rather than identity
+                    DomainElement e = elements.get(i);
+                    numbers[i] =
+                        domain.getMappedIndex(new DomainElement(e.codeElement, e.taintSource));
+                  }
+                  return numbers;
+                }));
+      }
+      start.countDown();
+
+      int[] numbers = results.get(0).get();
+      for (Future<int[]> result : results) {
+        Assert.assertArrayEquals(numbers, result.get());
+      }
+
+      int n = elements.size();
+      Assert.assertEquals(n, domain.getMaximumIndex());
+      Assert.assertEquals(n + 1, domain.getSize());
+      boolean[] seen = new boolean[n + 1];
+      for (int i = 0; i < n; i++) {
+        int number = numbers[i];
+        Assert.assertTrue(number >= 1 && number <= n);
+        Assert.assertFalse("duplicate number " + number, seen[number]);
+        seen[number] = true;
+        Assert.assertEquals(elements.get(i), domain.getMappedObject(number));
+        Assert.assertEquals(number, domain.add(domain.getMappedObject(number)));
+      }
+      Assert.assertNull(domain.getMappedObject(0));
+      Assert.assertNull(domain.getMappedObject(n + 1));
+
+      // the indices of each code element are the numbers of its elements
+      for (int i = 0, e = 0; i < CODE_ELEMENTS; i++) {
+        MutableSparseIntSet expected = MutableSparseIntSet.makeEmpty();
+        for (int arg = 0; arg <= i % 5; arg++, e++) {
+          expected.add(numbers[e]);
+        }
+        IntSet indices = domain.getPossibleIndices(new LocalElement(i));
+        Assert.assertTrue(indices.toString(), expected.sameValue(indices));
+        Assert.assertEquals(i % 5 + 1, domain.getPossibleElements(new LocalElement(i)).size());
+      }
+      Assert.assertTrue(domain.getPossibleIndices(new LocalElement(CODE_ELEMENTS)).isEmpty());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package org.scandroid.flow;
+
+import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
+import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.scandroid.domain.CodeElement;
+import org.scandroid.domain.DomainElement;
+import org.scandroid.domain.IFDSTaintDomain;
+import org.scandroid.flow.functions.TaintTransferFunctions;
+import org.scandroid.flow.types.FlowType;
+import org.scandroid.flow.types.ParameterFlow;
+import org.scandroid.test.TestCallGraphs;
+
+public class FlowAnalysisTest {
+
+  /**
+   * Solving in shards must give the same facts as solving at once, here with the parameters of all
+   * application methods as sources, i.e. with taints in several procedures that flow back to their
+   * callers.
+   */
+  @Test
+  public void testShardedResultEqualsUnsharded() throws Exception {
+    Pair<CallGraph, PointerAnalysis<InstanceKey>> cg = TestCallGraphs.make("Lslice/TestRecursion");
+    ICFGSupergraph supergraph = ICFGSupergraph.make(cg.fst);
+
+    Map<
+            BasicBlockInContext<IExplodedBasicBlock>,
+            Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+        initialTaints = HashMapFactory.make();
+    Set<CGNode> tainted = HashSetFactory.make();
+    for (CGNode node : cg.fst) {
+      if (!node.getMethod()
+          .getDeclaringClass()
+          .getClassLoader()
+          .getReference()
+          .equals(ClassLoaderReference.Application)) {
+        continue;
+      }
+      IR ir = node.getIR();
+      for (BasicBlockInContext<IExplodedBasicBlock> entry :
+          supergraph.getEntriesForProcedure(node)) {
+        Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>> taints = HashMapFactory.make();
+        for (int i = 0; i < ir.getNumberOfParameters(); i++) {
+          taints.put(
+              new ParameterFlow<>(entry, i, true), CodeElement.valueElements(ir.getParameter(i)));
+        }
+        if (!taints.isEmpty()) {
+          initialTaints.put(entry, taints);
+          tainted.add(node);
+        }
+      }
+    }
+    Assert.assertTrue(tainted.size() > 1);
+
+    IFDSTaintDomain<IExplodedBasicBlock> domain = new IFDSTaintDomain<>();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> expected =
+        FlowAnalysis.analyze(supergraph, cg.fst, cg.snd, initialTaints, domain);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> sharded =
+        FlowAnalysis.analyzeSharded(
+            supergraph,
+            cg.fst,
+            initialTaints,
+            domain,
+            new TaintTransferFunctions<>(domain, cg.snd),
+            tainted.size());
+
+    int reached = 0;
+    for (BasicBlockInContext<IExplodedBasicBlock> block : supergraph) {
+      IntSet facts = MutableSparseIntSet.make(expected.getResult(block));
+      Assert.assertTrue(
+          block.toString(), facts.sameValue(MutableSparseIntSet.make(sharded.getResult(block))));
+      reached += facts.size();
+    }
+    Assert.assertTrue(reached > 0);
+    Assert.assertEquals(
+        HashSetFactory.make(expected.getSupergraphNodesReached()),
+        HashSetFactory.make(sharded.getSupergraphNodesReached()));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package org.scandroid.flow.functions;
+
+import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ssa.SSAInvokeInstruction;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+import org.scandroid.domain.IFDSTaintDomain;
+import org.scandroid.test.TestCallGraphs;
+
+public class TaintTransferFunctionsTest {
+
+  private static boolean isApplication(CGNode node) {
+    return node.getMethod()
+        .getDeclaringClass()
+        .getClassLoader()
+        .getReference()
+        .equals(ClassLoaderReference.Application);
+  }
+
+  /**
+   * Supergraphs may hand out a new block for each request, so return flow functions must be found
+   * again for blocks that are equal to, but not the same as, the ones they were built for.
+   */
+  @Test
+  public void testReturnFlowFunctionsOfEqualBlocksAreShared() throws Exception {
+    Pair<CallGraph, PointerAnalysis<InstanceKey>> cg = TestCallGraphs.make("Lslice/TestRecursion");
+    ICFGSupergraph supergraph = ICFGSupergraph.make(cg.fst);
+    IFDSTaintDomain<IExplodedBasicBlock> domain = new IFDSTaintDomain<>();
+    TaintTransferFunctions<IExplodedBasicBlock> functions =
+        new TaintTransferFunctions<>(domain, cg.snd);
+
+    int checked = 0;
+    for (BasicBlockInContext<IExplodedBasicBlock> call : supergraph) {
+      if (!isApplication(call.getNode())
+          || !supergraph.isCall(call)
+          || !(call.getLastInstruction() instanceof SSAInvokeInstruction)) {
+        continue;
+      }
+      BasicBlockInContext<IExplodedBasicBlock> callCopy =
+          new BasicBlockInContext<>(call.getNode(), call.getDelegate());
+      for (BasicBlockInContext<IExplodedBasicBlock> entry :
+          Iterator2Iterable.make(supergraph.getCalledNodes(call))) {
+        CGNode callee = supergraph.getProcOf(entry);
+        for (BasicBlockInContext<IExplodedBasicBlock> exit :
+            supergraph.getExitsForProcedure(callee)) {
+          for (BasicBlockInContext<IExplodedBasicBlock> ret :
+              Iterator2Iterable.make(supergraph.getReturnSites(call, callee))) {
+            IFlowFunction f = functions.getReturnFlowFunction(call, exit, ret);
+            BasicBlockInContext<IExplodedBasicBlock> retCopy =
+                new BasicBlockInContext<>(ret.getNode(), ret.getDelegate());
+            Assert.assertNotSame(ret, retCopy);
+            Assert.assertEquals(ret, retCopy);
+            Assert.assertSame(f, functions.getReturnFlowFunction(call, exit, retCopy));
+            Assert.assertSame(f, functions.getReturnFlowFunction(callCopy, exit, retCopy));
+            checked++;
+          }
+        }
+      }
+    }
+    Assert.assertTrue(checked > 0);
+    Assert.assertTrue(functions.getReturnFlowFunctionStats().hitCount() >= 2 * checked);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package org.scandroid.test;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilderCancelException;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.IOException;
+
+/** Call graphs of programs in the WALA test data, for the taint analysis to run on. */
+public class TestCallGraphs {
+
+  private static final String TESTDATA_JAR = "com.ibm.wala.core.testdata_1.0.0.jar";
+
+  private static final String EXCLUSIONS = "J2SEClassHierarchyExclusions.txt";
+
+  /**
+   * @param mainClass the name of a class in the test data, e.g. {@code Lslice/TestRecursion}
+   * @return the 0-CFA call graph of the main method of mainClass, and its pointer analysis
+   */
+  public static Pair<CallGraph, PointerAnalysis<InstanceKey>> make(String mainClass)
+      throws IOException, ClassHierarchyException, CallGraphBuilderCancelException {
+    FileProvider files = new FileProvider();
+    AnalysisScope scope =
+        AnalysisScopeReader.makeJavaBinaryAnalysisScope(
+            files.getFile(TESTDATA_JAR).getAbsolutePath(), files.getFile(EXCLUSIONS));
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, mainClass);
+    AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    return Pair.make(cg, builder.getPointerAnalysis());
+  }
+}
@@ -51,58 +51,103 @@ import com.ibm.wala.dataflow.IFDS.PathEdge;
 import com.ibm.wala.dataflow.IFDS.TabulationDomain;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
 import com.ibm.wala.ssa.ISSABasicBlock;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * The domain of taint facts, numbered from 1 on. The domain is thread safe: looking up the number
+ * of a known element, the element of a number, or the elements of a code element never blocks, so
+ * it can be shared by the threads of a parallel solver; only the first interning of an element
+ * takes a lock, to hand out the next number.
+ *
+ * <p>Elements are kept in a plain array indexed by their number, and each code element maps to a
+ * sorted int array of the numbers of its elements, rather than to a set of elements.
+ */
 public class IFDSTaintDomain<E extends ISSABasicBlock>
     implements TabulationDomain<DomainElement, BasicBlockInContext<E>> {
-  private Map<DomainElement, Integer> table = new HashMap<>();
-  private ArrayList<DomainElement> objects = new ArrayList<>();
+  private final ConcurrentHashMap<DomainElement, Integer> table = new ConcurrentHashMap<>();
+
+  /** element i is at objects[i-1]; replaced, never changed in place once published by count */
+  private volatile DomainElement[] objects = new DomainElement[64];
 
-  private Map<CodeElement, Set<DomainElement>> elementIndex = new HashMap<>();
+  private volatile int count = 0;
 
-  Set<DomainElement> emptySet = new HashSet<>();
+  private final ConcurrentHashMap<CodeElement, int[]> elementIndex = new ConcurrentHashMap<>();
 
   public Set<DomainElement> getPossibleElements(CodeElement codeElement) {
-    Set<DomainElement> elts = elementIndex.get(codeElement);
-    if (elts != null) return elts;
-    return emptySet;
+    int[] elts = elementIndex.get(codeElement);
+    if (elts != null) return new ElementSet(codeElement, elts);
+    return Collections.emptySet();
   }
 
-  private void index(DomainElement e) {
-    Set<DomainElement> elements = elementIndex.computeIfAbsent(e.codeElement, k -> new HashSet<>());
-    elements.add(e);
+  /** @return the numbers of the elements of codeElement */
+  public IntSet getPossibleIndices(CodeElement codeElement) {
+    int[] elts = elementIndex.get(codeElement);
+    if (elts == null) return EmptyIntSet.instance;
+    switch (elts.length) {
+      case 1:
+        return SparseIntSet.singleton(elts[0]);
+      case 2:
+        return SparseIntSet.pair(elts[0], elts[1]);
+      default:
+        // numbers are handed out in increasing order, so each one is added at the end
+        MutableSparseIntSet result = MutableSparseIntSet.createMutableSparseIntSet(elts.length);
+        for (int n : elts) {
+          result.add(n);
+        }
+        return result;
+    }
   }
 
   @Override
   public int add(DomainElement o) {
     Integer i = table.get(o);
-    if (i == null) {
-      objects.add(o);
-      i = table.size() + 1;
-      table.put(o, i);
-      // System.out.println("Adding domain element "+i+": "+o);
-    }
-    index(o);
+    return i != null ? i : intern(o);
+  }
 
-    return i;
+  private synchronized int intern(DomainElement o) {
+    Integer i = table.get(o);
+    if (i != null) {
+      return i;
+    }
+    int n = count + 1;
+    DomainElement[] objects = this.objects;
+    if (n > objects.length) {
+      objects = Arrays.copyOf(objects, 2 * objects.length);
+    }
+    objects[n - 1] = o;
+    this.objects = objects;
+    count = n;
+    elementIndex.merge(
+        o.codeElement,
+        new int[] {n},
+        (old, one) -> {
+          int[] result = Arrays.copyOf(old, old.length + 1);
+          result[old.length] = n;
+          return result;
+        });
+    table.put(o, n);
+    return n;
   }
 
   @Override
-  public synchronized int getMappedIndex(final Object o) {
+  public int getMappedIndex(final Object o) {
     if (!(o instanceof DomainElement)) {
       throw new IllegalArgumentException(o.getClass().getCanonicalName());
     }
 
-    final DomainElement de = (DomainElement) o;
-    final Integer i = table.get(de);
-
-    return (i == null ? add(de) : i);
+    return add((DomainElement) o);
   }
 
   @Override
@@ -113,18 +158,18 @@ public class IFDSTaintDomain<E extends ISSABasicBlock>
 
   @Override
   public DomainElement getMappedObject(int n) {
-    if (n > 0 && n <= objects.size()) return objects.get(n - 1);
+    if (n > 0 && n <= count) return objects[n - 1];
     return null;
   }
 
   @Override
   public int getMaximumIndex() {
-    return objects.size();
+    return count;
   }
 
   @Override
   public int getSize() {
-    return objects.size() + 1;
+    return count + 1;
   }
 
   @Override
@@ -134,15 +179,66 @@ public class IFDSTaintDomain<E extends ISSABasicBlock>
 
   @Override
   public Iterator<DomainElement> iterator() {
-    return table.keySet().iterator();
+    return stream().iterator();
   }
 
   @Override
   public Stream<DomainElement> stream() {
-    return objects.stream();
+    int n = count;
+    DomainElement[] objects = this.objects;
+    return IntStream.range(0, n).mapToObj(i -> objects[i]);
   }
 
   public Set<CodeElement> codeElements() {
-    return elementIndex.keySet();
+    return Collections.unmodifiableSet(elementIndex.keySet());
+  }
+
+  /** the elements of one code element, as a view of their numbers */
+  private final class ElementSet extends AbstractSet<DomainElement> {
+    private final CodeElement codeElement;
+
+    private final int[] indices;
+
+    private ElementSet(CodeElement codeElement, int[] indices) {
+      this.codeElement = codeElement;
+      this.indices = indices;
+    }
+
+    @Override
+    public Iterator<DomainElement> iterator() {
+      return new Iterator<DomainElement>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < indices.length;
+        }
+
+        @Override
+        public DomainElement next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return getMappedObject(indices[next++]);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return indices.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof DomainElement)) {
+        return false;
+      }
+      DomainElement de = (DomainElement) o;
+      Integer i = table.get(de);
+      return i != null
+          && codeElement.equals(de.codeElement)
+          && Arrays.binarySearch(indices, i) >= 0;
+    }
   }
 }
@@ -50,6 +50,7 @@ import com.ibm.wala.dataflow.IFDS.TabulationResult;
 import com.ibm.wala.dataflow.IFDS.TabulationSolver;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.ParallelIntraproceduralAnalysis;
 import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
@@ -61,6 +62,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import org.scandroid.domain.CodeElement;
 import org.scandroid.domain.DomainElement;
 import org.scandroid.domain.IFDSTaintDomain;
@@ -113,8 +117,125 @@ public class FlowAnalysis {
           IFDSTaintDomain<E> d,
           final IFlowFunctionMap<BasicBlockInContext<E>> flowFunctionMap) {
 
-    final IFDSTaintDomain<E> domain = d;
+    final List<PathEdge<BasicBlockInContext<E>>> initialEdges = new ArrayList<>();
+    initialEdges.addAll(taintSeeds(graph, initialTaints, d));
+    initialEdges.addAll(entrypointSeeds(graph, cg));
+
+    return solve(makeProblem(graph, d, flowFunctionMap, initialEdges));
+  }
+
+  /**
+   * Like {@link #analyze(CGAnalysisContext, Map, IFDSTaintDomain, IFlowFunctionMap)}, but in
+   * shards; see {@link #analyzeSharded(ISupergraph, CallGraph, Map, IFDSTaintDomain,
+   * IFlowFunctionMap, int)}.
+   */
+  public static <E extends ISSABasicBlock>
+      TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> analyzeSharded(
+          final CGAnalysisContext<E> analysisContext,
+          Map<BasicBlockInContext<E>, Map<FlowType<E>, Set<CodeElement>>> initialTaints,
+          IFDSTaintDomain<E> d,
+          IFlowFunctionMap<BasicBlockInContext<E>> flowFunctionMap,
+          int parallelism)
+          throws CancelRuntimeException {
+    return analyzeSharded(
+        analysisContext.graph, analysisContext.cg, initialTaints, d, flowFunctionMap, parallelism);
+  }
+
+  /**
+   * Solves the taint problem in shards, which run concurrently over the shared supergraph, and
+   * merges their results.
+   *
+   * <p>The seeds for the entry points of the supergraph are solved first, on their own. Their
+   * solution, the closure of the zero fact, is what lets taints flow back to callers, so every
+   * shard extends it (see {@link TabulationSolver#setBase(TabulationSolver)}) rather than solving
+   * it again, and only holds the edges its own taints add. The initial taints are grouped by the
+   * procedure they occur in, e.g. the entry point or component callback that reads a source, and
+   * the groups are dealt out to the shards in call graph order. Since taint flow functions are
+   * distributive, the merged result holds the same facts as that of {@link #analyze(ISupergraph,
+   * CallGraph, Map, IFDSTaintDomain, IFlowFunctionMap)}; it is the same whatever the order in
+   * which the shards finish.
+   *
+   * <p>d and flowFunctionMap are shared by all shards, so they must be thread safe, as {@link
+   * IFDSTaintDomain} and {@link TaintTransferFunctions} are; sharing flowFunctionMap means a flow
+   * function built by one shard is reused by the others. The supergraph is fully built before the
+   * shards start, and must be safe to read concurrently.
+   *
+   * @param parallelism the number of shards to run at the same time; must be at least 1
+   */
+  public static <E extends ISSABasicBlock>
+      TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> analyzeSharded(
+          final ISupergraph<BasicBlockInContext<E>, CGNode> graph,
+          CallGraph cg,
+          Map<BasicBlockInContext<E>, Map<FlowType<E>, Set<CodeElement>>> initialTaints,
+          IFDSTaintDomain<E> d,
+          final IFlowFunctionMap<BasicBlockInContext<E>> flowFunctionMap,
+          int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+    }
+
+    // group the taint seeds by procedure, in call graph order
+    SortedMap<Integer, List<PathEdge<BasicBlockInContext<E>>>> byProcedure = new TreeMap<>();
+    List<PathEdge<BasicBlockInContext<E>>> taintSeeds = taintSeeds(graph, initialTaints, d);
+    for (PathEdge<BasicBlockInContext<E>> seed : taintSeeds) {
+      byProcedure
+          .computeIfAbsent(cg.getNumber(seed.getTarget().getNode()), k -> new ArrayList<>())
+          .add(seed);
+    }
+    List<PathEdge<BasicBlockInContext<E>>> entrypointSeeds = entrypointSeeds(graph, cg);
+
+    int shards = Math.max(1, Math.min(parallelism, byProcedure.size()));
+    List<List<PathEdge<BasicBlockInContext<E>>>> shardSeeds = new ArrayList<>(shards);
+    for (int i = 0; i < shards; i++) {
+      shardSeeds.add(new ArrayList<>());
+    }
+    int next = 0;
+    for (List<PathEdge<BasicBlockInContext<E>>> group : byProcedure.values()) {
+      shardSeeds.get(next++ % shards).addAll(group);
+    }
+
+    List<PathEdge<BasicBlockInContext<E>>> allSeeds = new ArrayList<>(taintSeeds);
+    allSeeds.addAll(entrypointSeeds);
+    TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement> problem =
+        makeProblem(graph, d, flowFunctionMap, allSeeds);
+    if (shards == 1) {
+      return solve(problem);
+    }
+
+    // the supergraph is built lazily, which is not thread safe
+    graph.getNumberOfNodes();
+
+    TabulationSolver<BasicBlockInContext<E>, CGNode, DomainElement> zero =
+        TabulationSolver.make(makeProblem(graph, d, flowFunctionMap, entrypointSeeds));
+    solve(zero);
 
+    List<Callable<TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement>>> tasks =
+        new ArrayList<>(shards);
+    for (List<PathEdge<BasicBlockInContext<E>>> seeds : shardSeeds) {
+      tasks.add(
+          () -> {
+            TabulationSolver<BasicBlockInContext<E>, CGNode, DomainElement> solver =
+                TabulationSolver.make(makeProblem(graph, d, flowFunctionMap, seeds));
+            solver.setBase(zero);
+            return solve(solver);
+          });
+    }
+    List<TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement>> results;
+    try {
+      results =
+          ParallelIntraproceduralAnalysis.runAll(tasks, parallelism, null, RuntimeException.class);
+    } catch (CancelException e) {
+      throw new CancelRuntimeException(e);
+    }
+
+    return new ShardedTabulationResult<>(problem, results);
+  }
+
+  /** @return path edges &lt;s_p,0&gt; -&gt; &lt;n,d1&gt; for each initial taint d1 at n in p */
+  private static <E extends ISSABasicBlock> List<PathEdge<BasicBlockInContext<E>>> taintSeeds(
+      ISupergraph<BasicBlockInContext<E>, CGNode> graph,
+      Map<BasicBlockInContext<E>, Map<FlowType<E>, Set<CodeElement>>> initialTaints,
+      IFDSTaintDomain<E> domain) {
     final List<PathEdge<BasicBlockInContext<E>>> initialEdges = new ArrayList<>();
 
     // Add PathEdges to the taints
@@ -140,56 +261,80 @@ public class FlowAnalysis {
         }
       }
     }
+    return initialEdges;
+  }
+
+  /** @return path edges &lt;s_main,0&gt; -&gt; &lt;s_main,0&gt; for the entry points */
+  private static <E extends ISSABasicBlock>
+      List<PathEdge<BasicBlockInContext<E>>> entrypointSeeds(
+          ISupergraph<BasicBlockInContext<E>, CGNode> graph, CallGraph cg) {
+    final List<PathEdge<BasicBlockInContext<E>>> initialEdges = new ArrayList<>();
     // Add PathEdges to the entry points of the supergraph <s_main,0> -> <s_main,0>
     for (CGNode entry : cg.getEntrypointNodes()) {
       BasicBlockInContext<E>[] bbic = graph.getEntriesForProcedure(entry);
       for (BasicBlockInContext<E> element : bbic)
         initialEdges.add(PathEdge.createPathEdge(element, 0, element, 0));
     }
+    return initialEdges;
+  }
+
+  private static <E extends ISSABasicBlock>
+      TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement> makeProblem(
+          final ISupergraph<BasicBlockInContext<E>, CGNode> graph,
+          final IFDSTaintDomain<E> domain,
+          final IFlowFunctionMap<BasicBlockInContext<E>> flowFunctionMap,
+          final List<PathEdge<BasicBlockInContext<E>>> initialEdges) {
+    return new TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement>() {
 
-    final TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement> problem =
-        new TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement>() {
+      @Override
+      public TabulationDomain<DomainElement, BasicBlockInContext<E>> getDomain() {
+        return domain;
+      }
 
-          @Override
-          public TabulationDomain<DomainElement, BasicBlockInContext<E>> getDomain() {
-            return domain;
-          }
+      @Override
+      public IFlowFunctionMap<BasicBlockInContext<E>> getFunctionMap() {
+        return flowFunctionMap;
+      }
 
-          @Override
-          public IFlowFunctionMap<BasicBlockInContext<E>> getFunctionMap() {
-            return flowFunctionMap;
-          }
+      @Override
+      public IMergeFunction getMergeFunction() {
+        return null;
+      }
 
-          @Override
-          public IMergeFunction getMergeFunction() {
-            return null;
-          }
+      @Override
+      public ISupergraph<BasicBlockInContext<E>, CGNode> getSupergraph() {
+        return graph;
+      }
 
-          @Override
-          public ISupergraph<BasicBlockInContext<E>, CGNode> getSupergraph() {
-            return graph;
-          }
+      @Override
+      public Collection<PathEdge<BasicBlockInContext<E>>> initialSeeds() {
+        return initialEdges;
+        //              CGNode entryProc = cfg.getCallGraph().getEntrypointNodes()
+        //                      .iterator().next();
+        //              BasicBlockInContext<ISSABasicBlock> entryBlock = cfg
+        //                      .getEntry(entryProc);
+        //              for (int i = 0; i < entryProc.getIR().getNumberOfParameters(); i++) {
+        //                  list.add(PathEdge.createPathEdge(entryBlock, 0, entryBlock,
+        //                          domain.getMappedIndex(new LocalElement(i + 1))));
+        //              }
+        //              return list;
+      }
+    };
+  }
 
-          @Override
-          public Collection<PathEdge<BasicBlockInContext<E>>> initialSeeds() {
-            return initialEdges;
-            //              CGNode entryProc = cfg.getCallGraph().getEntrypointNodes()
-            //                      .iterator().next();
-            //              BasicBlockInContext<ISSABasicBlock> entryBlock = cfg
-            //                      .getEntry(entryProc);
-            //              for (int i = 0; i < entryProc.getIR().getNumberOfParameters(); i++) {
-            //                  list.add(PathEdge.createPathEdge(entryBlock, 0, entryBlock,
-            //                          domain.getMappedIndex(new LocalElement(i + 1))));
-            //              }
-            //              return list;
-          }
-        };
-    TabulationSolver<BasicBlockInContext<E>, CGNode, DomainElement> solver =
+  private static <E extends ISSABasicBlock>
+      TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> solve(
+          TabulationProblem<BasicBlockInContext<E>, CGNode, DomainElement> problem) {
+    return solve(
         TabulationSolver.make(
             problem
             // , progressMonitor
-            );
+            ));
+  }
 
+  private static <E extends ISSABasicBlock>
+      TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> solve(
+          TabulationSolver<BasicBlockInContext<E>, CGNode, DomainElement> solver) {
     try {
       TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> flowResult = solver.solve();
       //        	if (options.ifdsExplorer()) {
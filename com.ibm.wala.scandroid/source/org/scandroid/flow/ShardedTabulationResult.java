@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package org.scandroid.flow;
+
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.TabulationProblem;
+import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The union of the results of solving one problem in shards, each from a part of its seeds. Facts
+ * at each node are merged eagerly, in shard order, into a table indexed by supergraph node number,
+ * so the merged result does not depend on the order in which the shards finished. The shards are
+ * only kept for their summary edges; when they extend a common solution, as in {@link
+ * FlowAnalysis}, each holds only the edges its own seeds add to it.
+ */
+final class ShardedTabulationResult<T, P, F> implements TabulationResult<T, P, F> {
+
+  private final TabulationProblem<T, P, F> problem;
+
+  private final List<TabulationResult<T, P, F>> shards;
+
+  /** facts at node number i, or null if none */
+  private final MutableSparseIntSet[] results;
+
+  /** reached nodes, in supergraph order */
+  private final Collection<T> reached;
+
+  ShardedTabulationResult(
+      TabulationProblem<T, P, F> problem, List<TabulationResult<T, P, F>> shards) {
+    this.problem = problem;
+    this.shards = shards;
+    ISupergraph<T, P> graph = problem.getSupergraph();
+    results = new MutableSparseIntSet[graph.getMaxNumber() + 1];
+    for (TabulationResult<T, P, F> shard : shards) {
+      for (T n : shard.getSupergraphNodesReached()) {
+        int number = graph.getNumber(n);
+        if (results[number] == null) {
+          results[number] = MutableSparseIntSet.makeEmpty();
+        }
+        results[number].addAll(shard.getResult(n));
+      }
+    }
+    List<T> reached = new ArrayList<>();
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] != null) {
+        reached.add(graph.getNode(i));
+      }
+    }
+    this.reached = Collections.unmodifiableList(reached);
+  }
+
+  @Override
+  public IntSet getResult(T node) {
+    int number = problem.getSupergraph().getNumber(node);
+    if (number < 0 || number >= results.length || results[number] == null) {
+      return EmptyIntSet.instance;
+    }
+    return results[number];
+  }
+
+  @Override
+  public TabulationProblem<T, P, F> getProblem() {
+    return problem;
+  }
+
+  @Override
+  public Collection<T> getSupergraphNodesReached() {
+    return reached;
+  }
+
+  @Override
+  public IntSet getSummaryTargets(T n1, int d1, T n2) {
+    MutableSparseIntSet result = null;
+    for (TabulationResult<T, P, F> shard : shards) {
+      IntSet targets = shard.getSummaryTargets(n1, d1, n2);
+      if (targets != null) {
+        if (result == null) {
+          result = MutableSparseIntSet.makeEmpty();
+        }
+        result.addAll(targets);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Collection<PathEdge<T>> getSeeds() {
+    return problem.initialSeeds();
+  }
+}
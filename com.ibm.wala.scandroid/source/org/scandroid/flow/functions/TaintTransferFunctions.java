@@ -41,6 +41,7 @@ package org.scandroid.flow.functions;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.ibm.wala.classLoader.IField;
 import com.ibm.wala.dataflow.IFDS.IFlowFunction;
@@ -67,7 +68,6 @@ import com.ibm.wala.ssa.SSAReturnInstruction;
 import com.ibm.wala.types.FieldReference;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashSetFactory;
-import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
@@ -76,7 +76,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import org.scandroid.domain.CodeElement;
 import org.scandroid.domain.DomainElement;
 import org.scandroid.domain.FieldElement;
@@ -90,13 +89,55 @@ import org.scandroid.flow.types.StaticFieldFlow;
 public class TaintTransferFunctions<E extends ISSABasicBlock>
     implements IFlowFunctionMap<BasicBlockInContext<E>> {
 
-  // Java, you need type aliases.
-  private static class BlockPair<E extends ISSABasicBlock>
-      extends Pair<BasicBlockInContext<E>, BasicBlockInContext<E>> {
-    private static final long serialVersionUID = 6838579950051954781L;
+  /**
+   * The default bound on the total weight of each flow function cache. A flow function weighs one
+   * plus an estimate of the number of code element pairs it relates.
+   */
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 100000;
+
+  /**
+   * The most return sites whose flow functions are cached for one call block; a call usually has
+   * one or two, for normal and exceptional return. Functions for any further return sites are
+   * built on every request.
+   */
+  private static final int MAX_CACHED_RETURN_SITES = 4;
 
-    protected BlockPair(BasicBlockInContext<E> fst, BasicBlockInContext<E> snd) {
-      super(fst, snd);
+  /**
+   * The return flow functions of one call block, for each of its return sites; there are only ever
+   * a few of those, so they are searched linearly. Supergraphs may hand out a new, equal block for
+   * each request, so return sites are compared by value.
+   */
+  private static final class ReturnFlowFunctions<E extends ISSABasicBlock> {
+    private final BasicBlockInContext<?>[] returnSites =
+        new BasicBlockInContext<?>[MAX_CACHED_RETURN_SITES];
+    private final IFlowFunction[] functions = new IFlowFunction[MAX_CACHED_RETURN_SITES];
+    private int size = 0;
+
+    synchronized IFlowFunction get(BasicBlockInContext<E> returnSite) {
+      for (int i = 0; i < size; i++) {
+        if (returnSites[i].equals(returnSite)) {
+          return functions[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Cache function for returnSite, unless there is already one, or no room left.
+     *
+     * @return the function cached for returnSite, or function if none is
+     */
+    synchronized IFlowFunction put(BasicBlockInContext<E> returnSite, IFlowFunction function) {
+      IFlowFunction cached = get(returnSite);
+      if (cached != null) {
+        return cached;
+      }
+      if (size < returnSites.length) {
+        returnSites[size] = returnSite;
+        functions[size] = function;
+        size++;
+      }
+      return function;
     }
   }
 
@@ -105,8 +146,15 @@ public class TaintTransferFunctions<E extends ISSABasicBlock>
   private final boolean taintStaticFields;
   private final IUnaryFlowFunction globalId;
   private final IUnaryFlowFunction callToReturn;
-  private final LoadingCache<BlockPair<E>, IUnaryFlowFunction> callFlowFunctions;
-  private final LoadingCache<BlockPair<E>, IUnaryFlowFunction> normalFlowFunctions;
+
+  /** call flow functions, which only depend on the call block, keyed by it */
+  private final LoadingCache<BasicBlockInContext<E>, IUnaryFlowFunction> callFlowFunctions;
+
+  /** normal flow functions, which only depend on the destination block, keyed by it */
+  private final LoadingCache<BasicBlockInContext<E>, IUnaryFlowFunction> normalFlowFunctions;
+
+  /** return flow functions, keyed by call block and then by return site */
+  private final LoadingCache<BasicBlockInContext<E>, ReturnFlowFunctions<E>> returnFlowFunctions;
 
   public static final IntSet EMPTY_SET = new SparseIntSet();
   public static final IntSet ZERO_SET = SparseIntSet.singleton(0);
@@ -119,40 +167,98 @@ public class TaintTransferFunctions<E extends ISSABasicBlock>
 
   public TaintTransferFunctions(
       IFDSTaintDomain<E> domain, PointerAnalysis<InstanceKey> pa, boolean taintStaticFields) {
+    this(domain, pa, taintStaticFields, DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  /**
+   * @param maximumWeight the bound on the total weight of each of the call, normal and return flow
+   *     function caches; least recently used functions are evicted, and built again if needed, once
+   *     it is exceeded
+   */
+  public TaintTransferFunctions(
+      IFDSTaintDomain<E> domain,
+      PointerAnalysis<InstanceKey> pa,
+      boolean taintStaticFields,
+      long maximumWeight) {
     this.domain = domain;
     this.pa = pa;
     this.globalId = new GlobalIdentityFunction<>(domain);
     this.callToReturn = new CallToReturnFunction<>(domain);
     this.callFlowFunctions =
         CacheBuilder.newBuilder()
-            .maximumSize(10000)
-            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumWeight(maximumWeight)
+            .<BasicBlockInContext<E>, IUnaryFlowFunction>weigher(
+                (block, f) -> 1 + numberOfUses(block.getLastInstruction()))
+            .recordStats()
             .build(
-                new CacheLoader<BlockPair<E>, IUnaryFlowFunction>() {
+                new CacheLoader<BasicBlockInContext<E>, IUnaryFlowFunction>() {
                   @Override
-                  public IUnaryFlowFunction load(BlockPair<E> key) {
-                    return makeCallFlowFunction(key.fst);
+                  public IUnaryFlowFunction load(BasicBlockInContext<E> key) {
+                    return makeCallFlowFunction(key);
                   }
                 });
     this.normalFlowFunctions =
         CacheBuilder.newBuilder()
-            .maximumSize(10000)
-            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumWeight(maximumWeight)
+            .<BasicBlockInContext<E>, IUnaryFlowFunction>weigher(
+                (block, f) -> {
+                  SSAInstruction inst = block.getLastInstruction();
+                  return 1 + numberOfUses(inst) * (inst == null ? 0 : inst.getNumberOfDefs() + 1);
+                })
+            .recordStats()
             .build(
-                new CacheLoader<BlockPair<E>, IUnaryFlowFunction>() {
+                new CacheLoader<BasicBlockInContext<E>, IUnaryFlowFunction>() {
                   @Override
-                  public IUnaryFlowFunction load(BlockPair<E> key) {
-                    return makeNormalFlowFunction(key.snd);
+                  public IUnaryFlowFunction load(BasicBlockInContext<E> key) {
+                    return makeNormalFlowFunction(key);
+                  }
+                });
+    // the functions of a call block are only built after its entry is weighed, so each entry
+    // weighs as much as the most functions it may hold
+    this.returnFlowFunctions =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .<BasicBlockInContext<E>, ReturnFlowFunctions<E>>weigher(
+                (block, fs) ->
+                    MAX_CACHED_RETURN_SITES * (1 + numberOfUses(block.getLastInstruction())))
+            .recordStats()
+            .build(
+                new CacheLoader<BasicBlockInContext<E>, ReturnFlowFunctions<E>>() {
+                  @Override
+                  public ReturnFlowFunctions<E> load(BasicBlockInContext<E> key) {
+                    return new ReturnFlowFunctions<>();
                   }
                 });
     this.taintStaticFields = taintStaticFields;
   }
 
+  private static int numberOfUses(SSAInstruction inst) {
+    return inst == null ? 0 : inst.getNumberOfUses();
+  }
+
+  /** @return hit, miss and eviction statistics of the call flow function cache */
+  public CacheStats getCallFlowFunctionStats() {
+    return callFlowFunctions.stats();
+  }
+
+  /** @return hit, miss and eviction statistics of the normal flow function cache */
+  public CacheStats getNormalFlowFunctionStats() {
+    return normalFlowFunctions.stats();
+  }
+
+  /**
+   * @return hit, miss and eviction statistics of the return flow function cache; a hit means the
+   *     call block was known, not necessarily the return site
+   */
+  public CacheStats getReturnFlowFunctionStats() {
+    return returnFlowFunctions.stats();
+  }
+
   @Override
   public IUnaryFlowFunction getCallFlowFunction(
       BasicBlockInContext<E> src, BasicBlockInContext<E> dest, BasicBlockInContext<E> ret) {
     try {
-      return callFlowFunctions.get(new BlockPair<>(src, dest));
+      return callFlowFunctions.get(src);
     } catch (ExecutionException e) {
 
       throw new RuntimeException(e);
@@ -214,7 +320,7 @@ public class TaintTransferFunctions<E extends ISSABasicBlock>
   public IUnaryFlowFunction getNormalFlowFunction(
       BasicBlockInContext<E> src, BasicBlockInContext<E> dest) {
     try {
-      return normalFlowFunctions.get(new BlockPair<>(src, dest));
+      return normalFlowFunctions.get(dest);
     } catch (ExecutionException e) {
 
       throw new RuntimeException(e);
@@ -306,6 +412,23 @@ public class TaintTransferFunctions<E extends ISSABasicBlock>
   @Override
   public IFlowFunction getReturnFlowFunction(
       BasicBlockInContext<E> call, BasicBlockInContext<E> src, BasicBlockInContext<E> dest) {
+    // the function does not depend on src, the exit block of the callee
+    ReturnFlowFunctions<E> functions;
+    try {
+      functions = returnFlowFunctions.get(call);
+    } catch (ExecutionException e) {
+
+      throw new RuntimeException(e);
+    }
+    IFlowFunction f = functions.get(dest);
+    if (f == null) {
+      f = functions.put(dest, makeReturnFlowFunction(call, dest));
+    }
+    return f;
+  }
+
+  private IFlowFunction makeReturnFlowFunction(
+      BasicBlockInContext<E> call, BasicBlockInContext<E> dest) {
     final SSAInstruction inst = call.getLastInstruction();
     if (null == inst || !(inst instanceof SSAInvokeInstruction)) {
       // if we don't have an invoke, just punt and hope the necessary
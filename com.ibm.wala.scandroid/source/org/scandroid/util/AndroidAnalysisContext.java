@@ -61,8 +61,9 @@ import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ipa.summaries.BypassClassTargetSelector;
 import com.ibm.wala.ipa.summaries.BypassMethodTargetSelector;
+import com.ibm.wala.ipa.summaries.CompiledMethodSummaries;
 import com.ibm.wala.ipa.summaries.MethodSummary;
-import com.ibm.wala.ipa.summaries.XMLMethodSummaryReader;
+import com.ibm.wala.ipa.summaries.MethodSummaryCache;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashMapFactory;
@@ -228,6 +229,26 @@ public class AndroidAnalysisContext {
       IClassHierarchy cha,
       MethodSummary extraSummary)
       throws IllegalArgumentException {
+    addBypassLogic(
+        options, scope, xmlIStream, cha, extraSummary, MethodSummaryCache.ANY_VERSION);
+  }
+
+  /**
+   * Adds the summaries read from xmlIStream, which may be XML or {@link CompiledMethodSummaries
+   * compiled}, and the built-in Android summaries to options. Summaries are taken from the {@link
+   * MethodSummaryCache#getDefault() shared cache}, so that analyses of apps for the same API level
+   * read them only once.
+   *
+   * @param apiLevel the Android API level the summaries are for
+   */
+  public static void addBypassLogic(
+      AnalysisOptions options,
+      AnalysisScope scope,
+      InputStream xmlIStream,
+      IClassHierarchy cha,
+      MethodSummary extraSummary,
+      int apiLevel)
+      throws IllegalArgumentException {
 
     if (scope == null) {
       throw new IllegalArgumentException("scope is null");
@@ -247,7 +268,8 @@ public class AndroidAnalysisContext {
       Map<MethodReference, MethodSummary> summaries = HashMapFactory.make();
 
       if (null != xmlIStream) {
-        XMLMethodSummaryReader newSummaryXML = loadMethodSummaries(scope, xmlIStream);
+        MethodSummaryCache.Summaries newSummaryXML =
+            loadMethodSummaries(scope, xmlIStream, apiLevel);
         summaryClasses.addAll(newSummaryXML.getAllocatableClasses());
         summaries.putAll(newSummaryXML.getSummaries());
       }
@@ -261,7 +283,7 @@ public class AndroidAnalysisContext {
                   pathToSpec + File.separator + methodSpec,
                   AndroidAnalysisContext.class.getClassLoader())) {
 
-        XMLMethodSummaryReader nativeSummaries = loadMethodSummaries(scope, s);
+        MethodSummaryCache.Summaries nativeSummaries = loadMethodSummaries(scope, s, apiLevel);
 
         summaries.putAll(nativeSummaries.getSummaries());
         summaryClasses.addAll(nativeSummaries.getAllocatableClasses());
@@ -288,19 +310,16 @@ public class AndroidAnalysisContext {
     }
   }
 
-  private static XMLMethodSummaryReader loadMethodSummaries(
-      AnalysisScope scope, InputStream xmlIStream) {
+  private static MethodSummaryCache.Summaries loadMethodSummaries(
+      AnalysisScope scope, InputStream xmlIStream, int apiLevel) throws IOException {
     try (InputStream s =
         xmlIStream != null
             ? xmlIStream
             : AndroidAnalysisContext.class
                 .getClassLoader()
                 .getResourceAsStream(pathToSpec + File.separator + methodSpec)) {
-      return new XMLMethodSummaryReader(s, scope);
-    } catch (IOException e) {
-      e.printStackTrace();
+      return MethodSummaryCache.getDefault().get(apiLevel, s, scope);
     }
-    return null;
   }
 
   /** Returns all concrete classes implementing the given interface or any subinterfaces */
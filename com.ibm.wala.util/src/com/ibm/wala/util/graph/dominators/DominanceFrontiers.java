@@ -15,15 +15,32 @@ import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.NonNullSingletonIterator;
 import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.NumberedNodeArrayIterator;
 import com.ibm.wala.util.graph.traverse.DFS;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-/** An object that computes the dominance frontiers of a graph */
+/**
+ * An object that computes the dominance frontiers of a graph.
+ *
+ * <p>For a {@link NumberedGraph}, the frontiers are computed by walking up the dominator tree from
+ * the source of each edge, as described by Cooper, Harvey and Kennedy ("A Simple, Fast Dominance
+ * Algorithm"), and are kept in a single int array rather than a set per node.
+ */
 public class DominanceFrontiers<T> {
 
-  private final Map<T, Set<T>> DF = HashMapFactory.make();
+  private final Map<T, Set<T>> DF;
+
+  /**
+   * for a numbered graph, the dominance frontier of the node numbered n is {@code
+   * frontiers[frontierStart[n] .. frontierStart[n+1]-1]}
+   */
+  private int[] frontierStart;
+
+  private int[] frontiers;
 
   private final Dominators<T> dom;
 
@@ -39,10 +56,24 @@ public class DominanceFrontiers<T> {
     this.root = root;
     this.G = G;
     this.dom = Dominators.make(G, root);
-    analyze();
+    if (dom instanceof NumberedDominators) {
+      this.DF = null;
+      analyzeNumbered((NumberedGraph<T>) G, (NumberedDominators<T>) dom);
+    } else {
+      this.DF = HashMapFactory.make();
+      analyze();
+    }
   }
 
   public Iterator<T> getDominanceFrontier(T n) {
+    if (DF == null) {
+      NumberedGraph<T> NG = (NumberedGraph<T>) G;
+      int x = NG.getNumber(n);
+      if (n != root && ((NumberedDominators<T>) dom).getIdomNumber(x) == -1) {
+        throw new IllegalArgumentException("no dominance frontier for node " + n);
+      }
+      return new NumberedNodeArrayIterator<>(frontiers, frontierStart[x], frontierStart[x + 1], NG);
+    }
     Set<T> frontier = DF.get(n);
     if (frontier == null) {
       throw new IllegalArgumentException("no dominance frontier for node " + n);
@@ -86,4 +117,54 @@ public class DominanceFrontiers<T> {
       }
     }
   }
+
+  private void analyzeNumbered(NumberedGraph<T> G, NumberedDominators<T> dom) {
+    int rootNumber = G.getNumber(root);
+    int max = G.getMaxNumber();
+
+    // for each edge x -> y, y is in the frontier of x and of each dominator of x up to, but
+    // excluding, the immediate dominator of y. Once a walk for y reaches a node that already has
+    // y in its frontier, the rest of the way up has been done as well, so each pair is found once.
+    int[] from = new int[G.getNumberOfNodes()];
+    int[] to = new int[G.getNumberOfNodes()];
+    int[] lastAdded = new int[max + 1];
+    Arrays.fill(lastAdded, -1);
+    int pairs = 0;
+    for (T Y : G) {
+      int y = G.getNumber(Y);
+      if (y != rootNumber && dom.getIdomNumber(y) == -1) {
+        continue;
+      }
+      int idomY = dom.getIdomNumber(y);
+      for (T X : Iterator2Iterable.make(G.getPredNodes(Y))) {
+        int x = G.getNumber(X);
+        if (x != rootNumber && dom.getIdomNumber(x) == -1) {
+          continue;
+        }
+        for (int r = x; r != idomY && lastAdded[r] != y; r = dom.getIdomNumber(r)) {
+          lastAdded[r] = y;
+          if (pairs == from.length) {
+            from = Arrays.copyOf(from, 2 * pairs + 1);
+            to = Arrays.copyOf(to, 2 * pairs + 1);
+          }
+          from[pairs] = r;
+          to[pairs++] = y;
+        }
+      }
+    }
+
+    // group the pairs by frontier owner
+    frontierStart = new int[max + 2];
+    for (int i = 0; i < pairs; i++) {
+      frontierStart[from[i] + 1]++;
+    }
+    for (int i = 1; i <= max + 1; i++) {
+      frontierStart[i] += frontierStart[i - 1];
+    }
+    frontiers = new int[pairs];
+    int[] fill = Arrays.copyOf(frontierStart, max + 1);
+    for (int i = 0; i < pairs; i++) {
+      frontiers[fill[from[i]]++] = to[i];
+    }
+  }
 }
@@ -34,12 +34,17 @@ import java.util.Set;
  * the number of edges in the CFG and n is the number of nodes.
  *
  * <p>Sources: TOPLAS article, Muchnick book
+ *
+ * <p>Subclasses that use this implementation provide the per-node {@link DominatorInfo} through
+ * {@link #getInfo} and call {@link #analyze()}, as {@link GenericDominators} does. Subclasses that
+ * compute immediate dominators some other way, such as {@link NumberedDominators}, override {@link
+ * #getIdom} instead and need neither.
  */
 public abstract class Dominators<T> {
   static final boolean DEBUG = false;
 
   /** a mapping from DFS number to node */
-  private final T[] vertex;
+  private T[] vertex;
 
   /** a convenient place to locate the graph to avoid passing it internally */
   protected final Graph<T> G;
@@ -55,7 +60,6 @@ public abstract class Dominators<T> {
    * @param root The root from which to compute dominators
    * @throws IllegalArgumentException if G is null
    */
-  @SuppressWarnings("unchecked")
   public Dominators(Graph<T> G, T root) throws IllegalArgumentException {
     if (G == null) {
       throw new IllegalArgumentException("G is null");
@@ -65,7 +69,6 @@ public abstract class Dominators<T> {
     if (G.getNumberOfNodes() == 0) {
       throw new IllegalArgumentException("G has no nodes");
     }
-    this.vertex = (T[]) new Object[G.getNumberOfNodes() + 1];
   }
 
   public static <T> Dominators<T> make(Graph<T> G, T root) {
@@ -209,9 +212,12 @@ public abstract class Dominators<T> {
   //
 
   /** analyze dominators */
+  @SuppressWarnings("unchecked")
   protected void analyze() {
     if (DEBUG) System.out.println("Dominators for " + G);
 
+    vertex = (T[]) new Object[G.getNumberOfNodes() + 1];
+
     // Step 1: Perform a DFS numbering
     step1();
 
@@ -464,10 +470,13 @@ public abstract class Dominators<T> {
     }
   }
 
-  /*
-   * Look-aside table for DominatorInfo objects
+  /**
+   * Look-aside table for DominatorInfo objects; subclasses that call {@link #analyze()} must
+   * override this
    */
-  protected abstract DominatorInfo getInfo(T node);
+  protected DominatorInfo getInfo(T node) {
+    throw new UnsupportedOperationException("no DominatorInfo in " + getClass().getName());
+  }
 
   private Iterator<T> iterateBucket(T node) {
     return getInfo(node).bucket.iterator();
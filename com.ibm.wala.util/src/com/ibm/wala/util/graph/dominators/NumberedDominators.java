@@ -10,37 +10,265 @@
  */
 package com.ibm.wala.util.graph.dominators;
 
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.collections.NonNullSingletonIterator;
+import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.graph.AbstractGraph;
+import com.ibm.wala.util.graph.EdgeManager;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NodeManager;
 import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.NumberedNodeArrayIterator;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
- * Calculate dominators using Langauer and Tarjan's fastest algorithm. TOPLAS 1(1), July 1979. This
- * implementation uses path compression and results in a O(e * alpha(e,n)) complexity, where e is
- * the number of edges in the CFG and n is the number of nodes.
+ * Calculate dominators of a {@link NumberedGraph} with the semi-NCA algorithm of Georgiadis,
+ * Tarjan and Werneck ("Finding Dominators in Practice", JGAA 10(1), 2006). Semidominators are
+ * computed as in Lengauer and Tarjan's algorithm with simple path compression, and immediate
+ * dominators as nearest common ancestors in the partially built dominator tree.
  *
- * <p>Sources: TOPLAS article, Muchnick book
+ * <p>All state is kept in int arrays indexed by DFS or node number, and only the immediate
+ * dominator of each node is retained once the computation is done, which makes this usable on
+ * very large graphs such as exploded control flow graphs.
  */
 public class NumberedDominators<T> extends Dominators<T> {
 
+  /** node number -&gt; number of its immediate dominator, or -1 for the root and unreached nodes */
+  private final int[] idom;
+
+  /** the dominator tree, built on demand */
+  private Graph<T> dominatorTree;
+
   public NumberedDominators(NumberedGraph<T> G, T root) throws IllegalArgumentException {
     super(G, root);
+    this.idom = new int[G.getMaxNumber() + 1];
+    Arrays.fill(idom, -1);
+    analyzeNumbered();
+  }
 
-    this.infoMap = new Object[G.getMaxNumber() + 1];
-    for (T n : G) {
-      infoMap[G.getNumber(n)] = new DominatorInfo(n);
-    }
-
-    analyze();
+  private NumberedGraph<T> graph() {
+    return (NumberedGraph<T>) G;
   }
 
-  /*
-   * Look-aside table for DominatorInfo objects
+  /**
+   * @return the number of the immediate dominator of the node numbered n, or -1 if n is the root
+   *     or is not reachable from it
    */
-  private final Object[] infoMap;
+  public int getIdomNumber(int n) {
+    return idom[n];
+  }
 
-  @SuppressWarnings("unchecked")
   @Override
-  protected final DominatorInfo getInfo(T node) {
-    assert node != null;
-    return (DominatorInfo) infoMap[((NumberedGraph<T>) G).getNumber(node)];
+  public T getIdom(T node) {
+    int d = idom[graph().getNumber(node)];
+    return d == -1 ? null : graph().getNode(d);
+  }
+
+  private void analyzeNumbered() {
+    NumberedGraph<T> G = graph();
+    int n = G.getNumberOfNodes();
+
+    // node number -> DFS number, or 0 if not (yet) reached
+    int[] dfnum = new int[G.getMaxNumber() + 1];
+    // the following are indexed by DFS number, which starts at 1
+    int[] vertex = new int[n + 1];
+    int[] parent = new int[n + 1];
+
+    // Step 1: number the nodes in DFS preorder, recording the edges seen from each of them
+    int[] edgeFrom = new int[n + 1];
+    int[] edgeTo = new int[n + 1];
+    int edges = 0;
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    Iterator<? extends T>[] stack = new Iterator[n + 1];
+    int[] stackNode = new int[n + 1];
+    int rootNumber = G.getNumber(root);
+    int count = 1;
+    dfnum[rootNumber] = 1;
+    vertex[1] = rootNumber;
+    stack[0] = G.getSuccNodes(root);
+    stackNode[0] = 1;
+    int top = 1;
+    while (top > 0) {
+      Iterator<? extends T> succs = stack[top - 1];
+      if (!succs.hasNext()) {
+        stack[--top] = null;
+        continue;
+      }
+      int s = G.getNumber(succs.next());
+      if (edges == edgeFrom.length) {
+        edgeFrom = Arrays.copyOf(edgeFrom, 2 * edges);
+        edgeTo = Arrays.copyOf(edgeTo, 2 * edges);
+      }
+      edgeFrom[edges] = stackNode[top - 1];
+      edgeTo[edges++] = s;
+      if (dfnum[s] == 0) {
+        dfnum[s] = ++count;
+        vertex[count] = s;
+        parent[count] = stackNode[top - 1];
+        stack[top] = G.getSuccNodes(G.getNode(s));
+        stackNode[top++] = count;
+      }
+    }
+    reachableNodeCount = count;
+
+    // predecessors of each reached node, by DFS number
+    int[] predStart = new int[count + 2];
+    for (int i = 0; i < edges; i++) {
+      predStart[dfnum[edgeTo[i]] + 1]++;
+    }
+    for (int i = 1; i <= count + 1; i++) {
+      predStart[i] += predStart[i - 1];
+    }
+    int[] preds = new int[edges];
+    int[] fill = Arrays.copyOf(predStart, count + 1);
+    for (int i = 0; i < edges; i++) {
+      preds[fill[dfnum[edgeTo[i]]]++] = edgeFrom[i];
+    }
+
+    // Step 2: semidominators, visiting nodes in reverse DFS order
+    int[] semi = new int[count + 1];
+    int[] label = new int[count + 1];
+    int[] ancestor = new int[count + 1];
+    for (int v = 1; v <= count; v++) {
+      semi[v] = v;
+      label[v] = v;
+    }
+    int[] path = stackNode;
+    for (int w = count; w > 1; w--) {
+      for (int i = predStart[w]; i < predStart[w + 1]; i++) {
+        int v = preds[i];
+        // EVAL(v), compressing the path from v to the root of its tree in the forest
+        if (ancestor[v] != 0) {
+          int depth = 0;
+          for (int u = v; ancestor[ancestor[u]] != 0; u = ancestor[u]) {
+            path[depth++] = u;
+          }
+          while (depth > 0) {
+            int u = path[--depth];
+            int a = ancestor[u];
+            if (semi[label[a]] < semi[label[u]]) {
+              label[u] = label[a];
+            }
+            ancestor[u] = ancestor[a];
+          }
+          v = label[v];
+        }
+        if (semi[v] < semi[w]) {
+          semi[w] = semi[v];
+        }
+      }
+      // LINK(parent(w), w)
+      ancestor[w] = parent[w];
+    }
+
+    // Step 3: the immediate dominator of w is the nearest common ancestor of its parent and its
+    // semidominator in the dominator tree of the nodes before it in DFS order
+    int[] dom = parent;
+    for (int w = 2; w <= count; w++) {
+      int d = dom[w];
+      while (d > semi[w]) {
+        d = dom[d];
+      }
+      dom[w] = d;
+      idom[vertex[w]] = vertex[d];
+    }
+  }
+
+  @Override
+  public Graph<T> dominatorTree() {
+    if (dominatorTree == null) {
+      dominatorTree = makeDominatorTree();
+    }
+    return dominatorTree;
+  }
+
+  private Graph<T> makeDominatorTree() {
+    final NumberedGraph<T> G = graph();
+    final int[] childStart = new int[idom.length + 1];
+    for (int d : idom) {
+      if (d != -1) {
+        childStart[d + 1]++;
+      }
+    }
+    for (int i = 1; i < childStart.length; i++) {
+      childStart[i] += childStart[i - 1];
+    }
+    final int[] children = new int[childStart[idom.length]];
+    int[] fill = Arrays.copyOf(childStart, idom.length);
+    for (int n = 0; n < idom.length; n++) {
+      if (idom[n] != -1) {
+        children[fill[idom[n]]++] = n;
+      }
+    }
+
+    final EdgeManager<T> edges =
+        new EdgeManager<T>() {
+          @Override
+          public Iterator<T> getPredNodes(T N) {
+            int d = idom[G.getNumber(N)];
+            if (d == -1) return EmptyIterator.instance();
+            else return new NonNullSingletonIterator<>(G.getNode(d));
+          }
+
+          @Override
+          public int getPredNodeCount(T N) {
+            return idom[G.getNumber(N)] == -1 ? 0 : 1;
+          }
+
+          @Override
+          public Iterator<T> getSuccNodes(T N) {
+            int n = G.getNumber(N);
+            return new NumberedNodeArrayIterator<>(children, childStart[n], childStart[n + 1], G);
+          }
+
+          @Override
+          public int getSuccNodeCount(T N) {
+            int n = G.getNumber(N);
+            return childStart[n + 1] - childStart[n];
+          }
+
+          @Override
+          public void addEdge(T src, T dst) {
+            Assertions.UNREACHABLE();
+          }
+
+          @Override
+          public void removeEdge(T src, T dst) {
+            Assertions.UNREACHABLE();
+          }
+
+          @Override
+          public void removeAllIncidentEdges(T node) {
+            Assertions.UNREACHABLE();
+          }
+
+          @Override
+          public void removeIncomingEdges(T node) {
+            Assertions.UNREACHABLE();
+          }
+
+          @Override
+          public void removeOutgoingEdges(T node) {
+            Assertions.UNREACHABLE();
+          }
+
+          @Override
+          public boolean hasEdge(T src, T dst) {
+            return idom[G.getNumber(dst)] == G.getNumber(src);
+          }
+        };
+
+    return new AbstractGraph<T>() {
+      @Override
+      protected NodeManager<T> getNodeManager() {
+        return G;
+      }
+
+      @Override
+      protected EdgeManager<T> getEdgeManager() {
+        return edges;
+      }
+    };
   }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.impl;
+
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the nodes numbered numbers[from] .. numbers[to-1], e.g. the edges of one node in a
+ * graph whose edges are kept as a single int array with per-node offsets.
+ */
+public class NumberedNodeArrayIterator<T> implements Iterator<T> {
+  private final int[] numbers;
+
+  private final int to;
+
+  private final NumberedNodeManager<T> nodeManager;
+
+  private int i;
+
+  /** @throws IllegalArgumentException if numbers is null */
+  public NumberedNodeArrayIterator(
+      int[] numbers, int from, int to, NumberedNodeManager<T> nodeManager) {
+    if (numbers == null) {
+      throw new IllegalArgumentException("numbers is null");
+    }
+    this.numbers = numbers;
+    this.i = from;
+    this.to = to;
+    this.nodeManager = nodeManager;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return i < to;
+  }
+
+  @Override
+  public T next() throws NoSuchElementException {
+    if (i >= to) {
+      throw new NoSuchElementException();
+    }
+    return nodeManager.getNode(numbers[i++]);
+  }
+
+  @Override
+  public void remove() throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+}
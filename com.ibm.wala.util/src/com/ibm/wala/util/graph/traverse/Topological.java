@@ -51,4 +51,67 @@ public class Topological {
       return DFS.iterateFinishTime(G_T, rev);
     };
   }
+
+  /**
+   * Order the nodes 0 .. n-1 of a graph as {@link #makeTopologicalIter(Graph)} orders the nodes of
+   * a {@link com.ibm.wala.util.graph.NumberedGraph} with the same numbering, whose successors and
+   * predecessors are iterated in increasing order. This is for clients which only need the order,
+   * to spare them building the graph.
+   *
+   * <p>The successors of node x are succ[succStart[x] .. succStart[x + 1]), and its predecessors
+   * pred[predStart[x] .. predStart[x + 1]), each in increasing order.
+   *
+   * @return the nodes, in order
+   */
+  public static int[] makeTopologicalOrder(
+      int[] succStart, int[] succ, int[] predStart, int[] pred) {
+    if (succStart == null) {
+      throw new IllegalArgumentException("succStart == null");
+    }
+    int n = succStart.length - 1;
+    int[] roots = new int[n];
+    for (int i = 0; i < n; i++) {
+      roots[i] = i;
+    }
+    int[] finishTime = finishOrder(roots, succStart, succ);
+    // roots in reverse postorder, then the finish order of the inverted graph
+    for (int i = 0; i < n; i++) {
+      roots[i] = finishTime[n - 1 - i];
+    }
+    return finishOrder(roots, predStart, pred);
+  }
+
+  /** @return the nodes in the order a depth-first search from the roots finishes them */
+  private static int[] finishOrder(int[] roots, int[] start, int[] edges) {
+    int n = start.length - 1;
+    int[] result = new int[n];
+    int finished = 0;
+    int[] stack = new int[n];
+    // the next edge to follow from each node on the stack
+    int[] next = new int[n];
+    boolean[] visited = new boolean[n];
+    for (int root : roots) {
+      if (!visited[root]) {
+        visited[root] = true;
+        next[root] = start[root];
+        stack[0] = root;
+        int sp = 1;
+        while (sp > 0) {
+          int x = stack[sp - 1];
+          if (next[x] < start[x + 1]) {
+            int child = edges[next[x]++];
+            if (!visited[child]) {
+              visited[child] = true;
+              next[child] = start[child];
+              stack[sp++] = child;
+            }
+          } else {
+            result[finished++] = x;
+            sp--;
+          }
+        }
+      }
+    }
+    return result;
+  }
 }